@@ -0,0 +1,71 @@
+package com.tradingplatform.market_data_service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the in-process L1 caches of all market-data instances coherent. A write or evict is
+ * published on a Redis channel and every other instance drops the affected keys locally.
+ * Messages are {@code instanceId \n cacheName \n key...}; the key {@code *} clears the cache.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBus implements MessageListener {
+
+    public static final String CHANNEL = "market-data:cache-invalidation";
+    public static final String ALL_KEYS = "*";
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, Consumer<String>> localInvalidators = new ConcurrentHashMap<>();
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public CacheInvalidationBus(StringRedisTemplate stringRedisTemplate,
+                                RedisMessageListenerContainer listenerContainer) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public void register(String cacheName, Consumer<String> invalidateLocal) {
+        localInvalidators.put(cacheName, invalidateLocal);
+    }
+
+    public void publish(String cacheName, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL,
+                    instanceId + "\n" + cacheName + "\n" + String.join("\n", keys));
+        } catch (Exception e) {
+            // Peers fall back to their L1 TTL
+            log.warn("Failed to publish invalidation for {} keys of {}: {}", keys.size(), cacheName, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        List<String> parts = Arrays.asList(new String(message.getBody(), StandardCharsets.UTF_8).split("\n"));
+        if (parts.size() < 3 || parts.get(0).equals(instanceId)) {
+            return;
+        }
+
+        Consumer<String> invalidator = localInvalidators.get(parts.get(1));
+        if (invalidator != null) {
+            parts.subList(2, parts.size()).forEach(invalidator);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.tradingplatform.market_data_service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Hit/miss counters for one cache, split by tier: {@code l1} is the in-process near cache,
+ * {@code l2} is Redis (only consulted on an L1 miss).
+ */
+public class TierMetrics {
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+
+    public TierMetrics(MeterRegistry meterRegistry, String cacheName) {
+        this.l1Hits = counter(meterRegistry, cacheName, "l1", "hit");
+        this.l1Misses = counter(meterRegistry, cacheName, "l1", "miss");
+        this.l2Hits = counter(meterRegistry, cacheName, "l2", "hit");
+        this.l2Misses = counter(meterRegistry, cacheName, "l2", "miss");
+    }
+
+    public void l1(boolean hit) {
+        (hit ? l1Hits : l1Misses).increment();
+    }
+
+    public void l2(boolean hit) {
+        (hit ? l2Hits : l2Misses).increment();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String cacheName, String tier, String result) {
+        return Counter.builder("market.cache.gets")
+                .tag("cache", cacheName)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,117 @@
+package com.tradingplatform.market_data_service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A bounded in-process cache in front of a Redis cache. Reads try L1 first and fill it from L2;
+ * writes and evicts go to both tiers and are broadcast so other instances drop their L1 copy.
+ */
+public class TwoTierCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+    private final Cache remote;
+    private final CacheInvalidationBus invalidationBus;
+    private final TierMetrics metrics;
+
+    public TwoTierCache(Cache remote, long maxSize, Duration localTtl,
+                        CacheInvalidationBus invalidationBus, TierMetrics metrics) {
+        this.name = remote.getName();
+        this.remote = remote;
+        this.invalidationBus = invalidationBus;
+        this.metrics = metrics;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(localTtl)
+                .build();
+
+        invalidationBus.register(name, key -> {
+            if (CacheInvalidationBus.ALL_KEYS.equals(key)) {
+                local.invalidateAll();
+            } else {
+                local.invalidate(key);
+            }
+        });
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = key.toString();
+        ValueWrapper value = local.getIfPresent(localKey);
+        metrics.l1(value != null);
+        if (value != null) {
+            return value;
+        }
+
+        value = remote.get(key);
+        metrics.l2(value != null);
+        if (value != null) {
+            local.put(localKey, new SimpleValueWrapper(value.get()));
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) {
+            return null;
+        }
+        Object stored = value.get();
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + stored);
+        }
+        return (T) stored;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+
+        T loaded = remote.get(key, valueLoader);
+        local.put(key.toString(), new SimpleValueWrapper(loaded));
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        local.put(key.toString(), new SimpleValueWrapper(value));
+        invalidationBus.publish(name, List.of(key.toString()));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(key.toString());
+        invalidationBus.publish(name, List.of(key.toString()));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationBus.publish(name, List.of(CacheInvalidationBus.ALL_KEYS));
+    }
+}
@@ -0,0 +1,14 @@
+package com.tradingplatform.market_data_service.cache.codec;
+
+/**
+ * Compact binary form of a cached value. Every encoding starts with a schema version byte;
+ * {@link #decode} returns null for a version it does not know, which callers treat as a miss.
+ */
+public interface BinaryCodec<T> {
+
+    Class<T> type();
+
+    byte[] encode(T value);
+
+    T decode(byte[] bytes);
+}
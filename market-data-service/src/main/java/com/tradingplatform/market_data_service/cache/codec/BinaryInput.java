@@ -0,0 +1,66 @@
+package com.tradingplatform.market_data_service.cache.codec;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Reader for the encodings written by {@link BinaryOutput}. Reading past the end throws
+ * {@link IllegalArgumentException}.
+ */
+final class BinaryInput {
+
+    private final byte[] bytes;
+    private int position;
+
+    BinaryInput(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    int readByte() {
+        if (position >= bytes.length) {
+            throw new IllegalArgumentException("Truncated cache entry");
+        }
+        return bytes[position++];
+    }
+
+    int readShort() {
+        return ((readByte() & 0xFF) << 8) | (readByte() & 0xFF);
+    }
+
+    long readVarLong() {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in cache entry");
+    }
+
+    BigDecimal readDecimal() {
+        int scale = readByte();
+        if (scale == BinaryOutput.WIDE_DECIMAL) {
+            return new BigDecimal(readString());
+        }
+        return BigDecimal.valueOf(readVarLong(), scale);
+    }
+
+    String readString() {
+        int length = (int) readVarLong();
+        if (length < 0 || position + length > bytes.length) {
+            throw new IllegalArgumentException("Truncated cache entry");
+        }
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    LocalDateTime readDateTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(readVarLong()), ZoneOffset.UTC);
+    }
+}
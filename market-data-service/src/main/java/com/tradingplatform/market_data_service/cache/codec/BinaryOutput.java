@@ -0,0 +1,86 @@
+package com.tradingplatform.market_data_service.cache.codec;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with the primitive encodings shared by the codecs: zig-zag varints,
+ * fixed-point decimals (scale byte + varint unscaled value) and length-prefixed UTF-8 strings.
+ */
+final class BinaryOutput {
+
+    // Scale marker for decimals whose unscaled value does not fit a long
+    static final byte WIDE_DECIMAL = Byte.MIN_VALUE;
+
+    private byte[] buffer;
+    private int size;
+
+    BinaryOutput(int initialCapacity) {
+        buffer = new byte[initialCapacity];
+    }
+
+    void writeByte(int value) {
+        ensure(1);
+        buffer[size++] = (byte) value;
+    }
+
+    void writeVarLong(long value) {
+        ensure(10);
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((zigZag & 0x7F) | 0x80);
+            zigZag >>>= 7;
+        }
+        buffer[size++] = (byte) zigZag;
+    }
+
+    void writeDecimal(BigDecimal value) {
+        BigInteger unscaled = value.unscaledValue();
+        int scale = value.scale();
+        if (unscaled.bitLength() < 64 && scale > WIDE_DECIMAL && scale <= Byte.MAX_VALUE) {
+            writeByte(scale);
+            writeVarLong(unscaled.longValue());
+        } else {
+            writeByte(WIDE_DECIMAL);
+            writeString(value.toString());
+        }
+    }
+
+    void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    // Millisecond precision, which is all the freshness checks need
+    void writeDateTime(LocalDateTime value) {
+        writeVarLong(value.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    void setShort(int position, int value) {
+        buffer[position] = (byte) (value >>> 8);
+        buffer[position + 1] = (byte) value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    // Helper methods
+
+    private void ensure(int bytes) {
+        if (size + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + bytes));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.tradingplatform.market_data_service.cache.codec;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Adapts a {@link BinaryCodec} to Redis. Entries this codec cannot read, such as JSON written
+ * before the switch or a newer schema version, deserialize to null and are treated as misses,
+ * so a rolling upgrade only costs a refetch.
+ */
+@Slf4j
+public class BinaryRedisSerializer<T> implements RedisSerializer<T> {
+
+    private final BinaryCodec<T> codec;
+
+    public BinaryRedisSerializer(BinaryCodec<T> codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+        if (!codec.type().isInstance(value)) {
+            throw new SerializationException("Cannot encode " + value.getClass().getName()
+                    + " with the " + codec.type().getSimpleName() + " codec");
+        }
+        return codec.encode(value);
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            return codec.decode(bytes);
+        } catch (IllegalArgumentException e) {
+            log.debug("Unreadable {} cache entry, treating as a miss: {}", codec.type().getSimpleName(), e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return codec.type();
+    }
+}
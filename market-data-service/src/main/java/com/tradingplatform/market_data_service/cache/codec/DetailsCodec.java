@@ -0,0 +1,109 @@
+package com.tradingplatform.market_data_service.cache.codec;
+
+import com.tradingplatform.market_data_service.dto.StockDetailsResponseDto;
+
+/**
+ * Company overview layout, version 1: version byte, 16-bit presence mask, then each non-null
+ * field in declaration order. The description dominates the size, so the saving here is mostly
+ * the field names and type tags JSON repeats.
+ */
+public class DetailsCodec implements BinaryCodec<StockDetailsResponseDto> {
+
+    static final int VERSION = 1;
+
+    private static final int SYMBOL = 1;
+    private static final int COMPANY_NAME = 1 << 1;
+    private static final int EXCHANGE = 1 << 2;
+    private static final int SECTOR = 1 << 3;
+    private static final int INDUSTRY = 1 << 4;
+    private static final int MARKET_CAP = 1 << 5;
+    private static final int PE_RATIO = 1 << 6;
+    private static final int DIVIDEND_YIELD = 1 << 7;
+    private static final int WEEK_52_HIGH = 1 << 8;
+    private static final int WEEK_52_LOW = 1 << 9;
+    private static final int DESCRIPTION = 1 << 10;
+
+    @Override
+    public Class<StockDetailsResponseDto> type() {
+        return StockDetailsResponseDto.class;
+    }
+
+    @Override
+    public byte[] encode(StockDetailsResponseDto details) {
+        BinaryOutput out = new BinaryOutput(256);
+        out.writeByte(VERSION);
+        out.writeByte(0);
+        out.writeByte(0);
+
+        int mask = 0;
+        if (details.getSymbol() != null) {
+            mask |= SYMBOL;
+            out.writeString(details.getSymbol());
+        }
+        if (details.getCompanyName() != null) {
+            mask |= COMPANY_NAME;
+            out.writeString(details.getCompanyName());
+        }
+        if (details.getExchange() != null) {
+            mask |= EXCHANGE;
+            out.writeString(details.getExchange());
+        }
+        if (details.getSector() != null) {
+            mask |= SECTOR;
+            out.writeString(details.getSector());
+        }
+        if (details.getIndustry() != null) {
+            mask |= INDUSTRY;
+            out.writeString(details.getIndustry());
+        }
+        if (details.getMarketCap() != null) {
+            mask |= MARKET_CAP;
+            out.writeVarLong(details.getMarketCap());
+        }
+        if (details.getPeRatio() != null) {
+            mask |= PE_RATIO;
+            out.writeDecimal(details.getPeRatio());
+        }
+        if (details.getDividendYield() != null) {
+            mask |= DIVIDEND_YIELD;
+            out.writeDecimal(details.getDividendYield());
+        }
+        if (details.getWeek52High() != null) {
+            mask |= WEEK_52_HIGH;
+            out.writeDecimal(details.getWeek52High());
+        }
+        if (details.getWeek52Low() != null) {
+            mask |= WEEK_52_LOW;
+            out.writeDecimal(details.getWeek52Low());
+        }
+        if (details.getDescription() != null) {
+            mask |= DESCRIPTION;
+            out.writeString(details.getDescription());
+        }
+        out.setShort(1, mask);
+        return out.toByteArray();
+    }
+
+    @Override
+    public StockDetailsResponseDto decode(byte[] bytes) {
+        BinaryInput in = new BinaryInput(bytes);
+        if (in.readByte() != VERSION) {
+            return null;
+        }
+        int mask = in.readShort();
+
+        StockDetailsResponseDto details = new StockDetailsResponseDto();
+        if ((mask & SYMBOL) != 0) details.setSymbol(in.readString());
+        if ((mask & COMPANY_NAME) != 0) details.setCompanyName(in.readString());
+        if ((mask & EXCHANGE) != 0) details.setExchange(in.readString());
+        if ((mask & SECTOR) != 0) details.setSector(in.readString());
+        if ((mask & INDUSTRY) != 0) details.setIndustry(in.readString());
+        if ((mask & MARKET_CAP) != 0) details.setMarketCap(in.readVarLong());
+        if ((mask & PE_RATIO) != 0) details.setPeRatio(in.readDecimal());
+        if ((mask & DIVIDEND_YIELD) != 0) details.setDividendYield(in.readDecimal());
+        if ((mask & WEEK_52_HIGH) != 0) details.setWeek52High(in.readDecimal());
+        if ((mask & WEEK_52_LOW) != 0) details.setWeek52Low(in.readDecimal());
+        if ((mask & DESCRIPTION) != 0) details.setDescription(in.readString());
+        return details;
+    }
+}
@@ -0,0 +1,108 @@
+package com.tradingplatform.market_data_service.cache.codec;
+
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+
+/**
+ * Quote layout, version 1: version byte, 16-bit presence mask, then each non-null field in
+ * declaration order. A full quote with a company name encodes to about 80 bytes.
+ */
+public class QuoteCodec implements BinaryCodec<StockQuoteResponseDto> {
+
+    static final int VERSION = 1;
+
+    private static final int SYMBOL = 1;
+    private static final int COMPANY_NAME = 1 << 1;
+    private static final int PRICE = 1 << 2;
+    private static final int CHANGE = 1 << 3;
+    private static final int CHANGE_PERCENT = 1 << 4;
+    private static final int PREVIOUS_CLOSE = 1 << 5;
+    private static final int OPEN = 1 << 6;
+    private static final int DAY_HIGH = 1 << 7;
+    private static final int DAY_LOW = 1 << 8;
+    private static final int VOLUME = 1 << 9;
+    private static final int LAST_UPDATED = 1 << 10;
+
+    @Override
+    public Class<StockQuoteResponseDto> type() {
+        return StockQuoteResponseDto.class;
+    }
+
+    @Override
+    public byte[] encode(StockQuoteResponseDto quote) {
+        BinaryOutput out = new BinaryOutput(64);
+        out.writeByte(VERSION);
+        out.writeByte(0);
+        out.writeByte(0);
+
+        int mask = 0;
+        if (quote.getSymbol() != null) {
+            mask |= SYMBOL;
+            out.writeString(quote.getSymbol());
+        }
+        if (quote.getCompanyName() != null) {
+            mask |= COMPANY_NAME;
+            out.writeString(quote.getCompanyName());
+        }
+        if (quote.getPrice() != null) {
+            mask |= PRICE;
+            out.writeDecimal(quote.getPrice());
+        }
+        if (quote.getChange() != null) {
+            mask |= CHANGE;
+            out.writeDecimal(quote.getChange());
+        }
+        if (quote.getChangePercent() != null) {
+            mask |= CHANGE_PERCENT;
+            out.writeDecimal(quote.getChangePercent());
+        }
+        if (quote.getPreviousClose() != null) {
+            mask |= PREVIOUS_CLOSE;
+            out.writeDecimal(quote.getPreviousClose());
+        }
+        if (quote.getOpen() != null) {
+            mask |= OPEN;
+            out.writeDecimal(quote.getOpen());
+        }
+        if (quote.getDayHigh() != null) {
+            mask |= DAY_HIGH;
+            out.writeDecimal(quote.getDayHigh());
+        }
+        if (quote.getDayLow() != null) {
+            mask |= DAY_LOW;
+            out.writeDecimal(quote.getDayLow());
+        }
+        if (quote.getVolume() != null) {
+            mask |= VOLUME;
+            out.writeVarLong(quote.getVolume());
+        }
+        if (quote.getLastUpdated() != null) {
+            mask |= LAST_UPDATED;
+            out.writeDateTime(quote.getLastUpdated());
+        }
+        out.setShort(1, mask);
+        return out.toByteArray();
+    }
+
+    @Override
+    public StockQuoteResponseDto decode(byte[] bytes) {
+        BinaryInput in = new BinaryInput(bytes);
+        if (in.readByte() != VERSION) {
+            return null;
+        }
+        int mask = in.readShort();
+
+        StockQuoteResponseDto quote = new StockQuoteResponseDto();
+        if ((mask & SYMBOL) != 0) quote.setSymbol(in.readString());
+        if ((mask & COMPANY_NAME) != 0) quote.setCompanyName(in.readString());
+        if ((mask & PRICE) != 0) quote.setPrice(in.readDecimal());
+        if ((mask & CHANGE) != 0) quote.setChange(in.readDecimal());
+        if ((mask & CHANGE_PERCENT) != 0) quote.setChangePercent(in.readDecimal());
+        if ((mask & PREVIOUS_CLOSE) != 0) quote.setPreviousClose(in.readDecimal());
+        if ((mask & OPEN) != 0) quote.setOpen(in.readDecimal());
+        if ((mask & DAY_HIGH) != 0) quote.setDayHigh(in.readDecimal());
+        if ((mask & DAY_LOW) != 0) quote.setDayLow(in.readDecimal());
+        if ((mask & VOLUME) != 0) quote.setVolume(in.readVarLong());
+        if ((mask & LAST_UPDATED) != 0) quote.setLastUpdated(in.readDateTime());
+        return quote;
+    }
+}
@@ -1,236 +1,149 @@
 package com.tradingplatform.market_data_service.client;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tradingplatform.market_data_service.dto.StockDetailsResponseDto;
 import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
 import com.tradingplatform.market_data_service.dto.StockSearchResponseDto;
 import com.tradingplatform.market_data_service.exception.ApiException;
 import com.tradingplatform.market_data_service.exception.StockNotFoundException;
+import io.netty.channel.ChannelOption;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.time.Duration;
 
 @Component
 @Slf4j
 public class AlphaVantageClient {
 
     private final WebClient webClient;
-    private final ObjectMapper objectMapper;
+    private final AlphaVantageDecoder decoder = new AlphaVantageDecoder();
+
+    @Autowired
+    private UpstreamRateLimiter rateLimiter;
 
     @Value("${alpha-vantage.api-key}")
     private String apiKey;
 
-    public AlphaVantageClient(@Value("${alpha-vantage.base-url}") String baseUrl) {
+    public AlphaVantageClient(@Value("${alpha-vantage.base-url}") String baseUrl,
+                              @Value("${alpha-vantage.http.max-connections:50}") int maxConnections,
+                              @Value("${alpha-vantage.http.connect-timeout-ms:3000}") int connectTimeoutMs,
+                              @Value("${alpha-vantage.http.response-timeout-ms:10000}") long responseTimeoutMs) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("alpha-vantage")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(responseTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+
         this.webClient = WebClient.builder()
                 .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .build();
-        this.objectMapper = new ObjectMapper();
     }
 
     public StockQuoteResponseDto getQuote(String symbol) {
+        return getQuoteAsync(symbol, UpstreamPriority.current()).block();
+    }
+
+    public StockDetailsResponseDto getCompanyOverview(String symbol) {
+        return getCompanyOverviewAsync(symbol, UpstreamPriority.current()).block();
+    }
+
+    public StockSearchResponseDto searchSymbol(String keywords) {
+        return searchSymbolAsync(keywords, UpstreamPriority.current()).block();
+    }
+
+    /**
+     * Non-blocking quote fetch: no thread is held while waiting on the network, and only a
+     * caller that has to queue for a rate-limit token waits on a bounded elastic thread.
+     */
+    public Mono<StockQuoteResponseDto> getQuoteAsync(String symbol, UpstreamPriority priority) {
         log.info("Fetching quote for symbol: {}", symbol);
 
-        try {
-            String response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .queryParam("function", "GLOBAL_QUOTE")
-                            .queryParam("symbol", symbol)
-                            .queryParam("apikey", apiKey)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-
-            JsonNode root = objectMapper.readTree(response);
-
-            if (root.has("Note") || root.has("Information")) {
-                log.warn("API limit reached or info message: {}", root.toString());
-                throw new ApiException("API rate limit reached. Please try again later.");
-            }
-
-            JsonNode quote = root.get("Global Quote");
-
-            if (quote == null || quote.isEmpty()) {
-                throw new StockNotFoundException("Stock not found: " + symbol);
-            }
-
-            BigDecimal price = parseBigDecimal(quote.get("05. price"));
-            BigDecimal previousClose = parseBigDecimal(quote.get("08. previous close"));
-            BigDecimal change = parseBigDecimal(quote.get("09. change"));
-            BigDecimal changePercent = parsePercentage(quote.get("10. change percent"));
-
-            StockQuoteResponseDto quoteResponse = new StockQuoteResponseDto();
-            quoteResponse.setSymbol(symbol.toUpperCase());
-            quoteResponse.setPrice(price);
-            quoteResponse.setPreviousClose(previousClose);
-            quoteResponse.setChange(change);
-            quoteResponse.setChangePercent(changePercent);
-            quoteResponse.setOpen(parseBigDecimal(quote.get("02. open")));
-            quoteResponse.setDayHigh(parseBigDecimal(quote.get("03. high")));
-            quoteResponse.setDayLow(parseBigDecimal(quote.get("04. low")));
-            quoteResponse.setVolume(parseLong(quote.get("06. volume")));
-            quoteResponse.setLastUpdated(LocalDateTime.now());
-
-            return quoteResponse;
-
-        } catch (StockNotFoundException | ApiException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Error fetching quote for {}: {}", symbol, e.getMessage());
-            throw new ApiException("Failed to fetch stock quote: " + e.getMessage());
-        }
+        return call(priority, "GLOBAL_QUOTE", "symbol", symbol)
+                .map(body -> {
+                    StockQuoteResponseDto quote = decode(() -> decoder.decodeQuote(body, symbol));
+                    if (quote == null) {
+                        throw new StockNotFoundException("Stock not found: " + symbol);
+                    }
+                    return quote;
+                })
+                .onErrorMap(this::isUnexpected, e -> {
+                    log.error("Error fetching quote for {}: {}", symbol, e.getMessage());
+                    return new ApiException("Failed to fetch stock quote: " + e.getMessage());
+                });
     }
 
-    public StockDetailsResponseDto getCompanyOverview(String symbol) {
+    public Mono<StockDetailsResponseDto> getCompanyOverviewAsync(String symbol, UpstreamPriority priority) {
         log.info("Fetching company overview for symbol: {}", symbol);
 
-        try {
-            String response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .queryParam("function", "OVERVIEW")
-                            .queryParam("symbol", symbol)
-                            .queryParam("apikey", apiKey)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-
-            JsonNode root = objectMapper.readTree(response);
-
-            if (root.has("Note") || root.has("Information")) {
-                throw new ApiException("API rate limit reached. Please try again later.");
-            }
-
-            if (!root.has("Symbol") || root.get("Symbol").asText().isEmpty()) {
-                throw new StockNotFoundException("Company details not found: " + symbol);
-            }
-
-            StockDetailsResponseDto details = new StockDetailsResponseDto();
-            details.setSymbol(getTextValue(root, "Symbol"));
-            details.setCompanyName(getTextValue(root, "Name"));
-            details.setExchange(getTextValue(root, "Exchange"));
-            details.setSector(getTextValue(root, "Sector"));
-            details.setIndustry(getTextValue(root, "Industry"));
-            details.setMarketCap(parseLongValue(root, "MarketCapitalization"));
-            details.setPeRatio(parseBigDecimalValue(root, "PERatio"));
-            details.setDividendYield(parseBigDecimalValue(root, "DividendYield"));
-            details.setWeek52High(parseBigDecimalValue(root, "52WeekHigh"));
-            details.setWeek52Low(parseBigDecimalValue(root, "52WeekLow"));
-            details.setDescription(getTextValue(root, "Description"));
-
-            return details;
-
-        } catch (StockNotFoundException | ApiException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Error fetching company overview for {}: {}", symbol, e.getMessage());
-            throw new ApiException("Failed to fetch company details: " + e.getMessage());
-        }
+        return call(priority, "OVERVIEW", "symbol", symbol)
+                .map(body -> {
+                    StockDetailsResponseDto details = decode(() -> decoder.decodeOverview(body));
+                    if (details == null) {
+                        throw new StockNotFoundException("Company details not found: " + symbol);
+                    }
+                    return details;
+                })
+                .onErrorMap(this::isUnexpected, e -> {
+                    log.error("Error fetching company overview for {}: {}", symbol, e.getMessage());
+                    return new ApiException("Failed to fetch company details: " + e.getMessage());
+                });
     }
 
-    public StockSearchResponseDto searchSymbol(String keywords) {
+    public Mono<StockSearchResponseDto> searchSymbolAsync(String keywords, UpstreamPriority priority) {
         log.info("Searching for stocks with keywords: {}", keywords);
 
-        try {
-            String response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .queryParam("function", "SYMBOL_SEARCH")
-                            .queryParam("keywords", keywords)
-                            .queryParam("apikey", apiKey)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-
-            JsonNode root = objectMapper.readTree(response);
-
-            if (root.has("Note") || root.has("Information")) {
-                throw new ApiException("API rate limit reached. Please try again later.");
-            }
-
-            JsonNode matches = root.get("bestMatches");
-            List<StockSearchResponseDto.StockSearchResult> results = new ArrayList<>();
-
-            if (matches != null && matches.isArray()) {
-                for (JsonNode match : matches) {
-                    StockSearchResponseDto.StockSearchResult result = new StockSearchResponseDto.StockSearchResult();
-                    result.setSymbol(getTextValue(match, "1. symbol"));
-                    result.setName(getTextValue(match, "2. name"));
-                    result.setType(getTextValue(match, "3. type"));
-                    result.setRegion(getTextValue(match, "4. region"));
-                    result.setCurrency(getTextValue(match, "8. currency"));
-                    results.add(result);
-                }
-            }
-
-            return new StockSearchResponseDto(results);
-
-        } catch (ApiException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Error searching stocks: {}", e.getMessage());
-            throw new ApiException("Failed to search stocks: " + e.getMessage());
-        }
+        return call(priority, "SYMBOL_SEARCH", "keywords", keywords)
+                .map(body -> decode(() -> decoder.decodeSearch(body)))
+                .onErrorMap(this::isUnexpected, e -> {
+                    log.error("Error searching stocks: {}", e.getMessage());
+                    return new ApiException("Failed to search stocks: " + e.getMessage());
+                });
     }
 
     // Helper methods
-    private BigDecimal parseBigDecimal(JsonNode node) {
-        if (node == null || node.asText().isEmpty() || node.asText().equals("None")) {
-            return BigDecimal.ZERO;
-        }
-        try {
-            return new BigDecimal(node.asText()).setScale(4, RoundingMode.HALF_UP);
-        } catch (NumberFormatException e) {
-            return BigDecimal.ZERO;
-        }
+    private Mono<byte[]> call(UpstreamPriority priority, String function, String param, String value) {
+        return rateLimiter.acquireAsync(priority)
+                .then(webClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .queryParam("function", function)
+                                .queryParam(param, value)
+                                .queryParam("apikey", apiKey)
+                                .build())
+                        .retrieve()
+                        .bodyToMono(byte[].class))
+                .switchIfEmpty(Mono.error(() -> new ApiException("Empty response from market data provider")));
     }
 
-    private BigDecimal parsePercentage(JsonNode node) {
-        if (node == null || node.asText().isEmpty()) {
-            return BigDecimal.ZERO;
-        }
-        String value = node.asText().replace("%", "");
+    private <T> T decode(Decoding<T> decoding) {
         try {
-            return new BigDecimal(value).setScale(2, RoundingMode.HALF_UP);
-        } catch (NumberFormatException e) {
-            return BigDecimal.ZERO;
-        }
-    }
-
-    private Long parseLong(JsonNode node) {
-        if (node == null || node.asText().isEmpty()) {
-            return 0L;
-        }
-        try {
-            return Long.parseLong(node.asText());
-        } catch (NumberFormatException e) {
-            return 0L;
-        }
-    }
-
-    private String getTextValue(JsonNode node, String field) {
-        JsonNode fieldNode = node.get(field);
-        if (fieldNode == null || fieldNode.asText().equals("None") || fieldNode.asText().equals("-")) {
-            return null;
+            return decoding.decode();
+        } catch (AlphaVantageDecoder.LimitNotice e) {
+            log.warn("API limit reached or info message: {}", e.getMessage());
+            rateLimiter.onLimitReached();
+            throw new ApiException("API rate limit reached. Please try again later.");
+        } catch (IOException e) {
+            throw new ApiException("Malformed response from market data provider: " + e.getMessage());
         }
-        return fieldNode.asText();
     }
 
-    private BigDecimal parseBigDecimalValue(JsonNode node, String field) {
-        JsonNode fieldNode = node.get(field);
-        return parseBigDecimal(fieldNode);
+    private boolean isUnexpected(Throwable e) {
+        return !(e instanceof StockNotFoundException || e instanceof ApiException);
     }
 
-    private Long parseLongValue(JsonNode node, String field) {
-        JsonNode fieldNode = node.get(field);
-        return parseLong(fieldNode);
+    @FunctionalInterface
+    private interface Decoding<T> {
+        T decode() throws IOException;
     }
 }
@@ -0,0 +1,269 @@
+package com.tradingplatform.market_data_service.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.tradingplatform.market_data_service.dto.StockDetailsResponseDto;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import com.tradingplatform.market_data_service.dto.StockSearchResponseDto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming decoder for Alpha Vantage responses. Walks the token stream once, dispatches on the
+ * field name and parses numbers straight from the parser's character buffer, so decoding a quote
+ * allocates the DTO and its values but no intermediate String or tree. Value semantics match the
+ * previous tree-based parsing: "None"/empty numbers become zero, "None"/"-" text becomes null.
+ */
+public class AlphaVantageDecoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Returns the quote, or null if the response has no "Global Quote" data.
+     */
+    public StockQuoteResponseDto decodeQuote(byte[] body, String symbol) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            expectObject(parser);
+
+            StockQuoteResponseDto quote = null;
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                parser.nextToken();
+                switch (field) {
+                    case "Global Quote" -> quote = readQuote(parser, symbol);
+                    case "Note", "Information" -> throw new LimitNotice(parser.getValueAsString());
+                    default -> parser.skipChildren();
+                }
+            }
+            return quote;
+        }
+    }
+
+    /**
+     * Returns the company overview, or null if the response has no "Symbol".
+     */
+    public StockDetailsResponseDto decodeOverview(byte[] body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            expectObject(parser);
+
+            StockDetailsResponseDto details = new StockDetailsResponseDto();
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                parser.nextToken();
+                switch (field) {
+                    case "Symbol" -> details.setSymbol(text(parser));
+                    case "Name" -> details.setCompanyName(text(parser));
+                    case "Exchange" -> details.setExchange(text(parser));
+                    case "Sector" -> details.setSector(text(parser));
+                    case "Industry" -> details.setIndustry(text(parser));
+                    case "MarketCapitalization" -> details.setMarketCap(longValue(parser));
+                    case "PERatio" -> details.setPeRatio(decimal(parser, 4));
+                    case "DividendYield" -> details.setDividendYield(decimal(parser, 4));
+                    case "52WeekHigh" -> details.setWeek52High(decimal(parser, 4));
+                    case "52WeekLow" -> details.setWeek52Low(decimal(parser, 4));
+                    case "Description" -> details.setDescription(text(parser));
+                    case "Note", "Information" -> throw new LimitNotice(parser.getValueAsString());
+                    default -> parser.skipChildren();
+                }
+            }
+            return details.getSymbol() == null || details.getSymbol().isEmpty() ? null : details;
+        }
+    }
+
+    public StockSearchResponseDto decodeSearch(byte[] body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            expectObject(parser);
+
+            List<StockSearchResponseDto.StockSearchResult> results = new ArrayList<>();
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "bestMatches" -> {
+                        if (value == JsonToken.START_ARRAY) {
+                            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                                results.add(readSearchResult(parser));
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    case "Note", "Information" -> throw new LimitNotice(parser.getValueAsString());
+                    default -> parser.skipChildren();
+                }
+            }
+            return new StockSearchResponseDto(results);
+        }
+    }
+
+    /**
+     * The provider answered with a usage note instead of data, which means it is rate limiting us.
+     */
+    public static final class LimitNotice extends RuntimeException {
+        public LimitNotice(String message) {
+            super(message);
+        }
+    }
+
+    // Helper methods
+
+    private StockQuoteResponseDto readQuote(JsonParser parser, String symbol) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+
+        StockQuoteResponseDto quote = new StockQuoteResponseDto();
+        boolean empty = true;
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            empty = false;
+            switch (field) {
+                case "02. open" -> quote.setOpen(decimal(parser, 4));
+                case "03. high" -> quote.setDayHigh(decimal(parser, 4));
+                case "04. low" -> quote.setDayLow(decimal(parser, 4));
+                case "05. price" -> quote.setPrice(decimal(parser, 4));
+                case "06. volume" -> quote.setVolume(longValue(parser));
+                case "08. previous close" -> quote.setPreviousClose(decimal(parser, 4));
+                case "09. change" -> quote.setChange(decimal(parser, 4));
+                case "10. change percent" -> quote.setChangePercent(percent(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        if (empty) {
+            return null;
+        }
+
+        // Fields absent from the payload read as zero, as with the tree parser
+        if (quote.getPrice() == null) quote.setPrice(BigDecimal.ZERO);
+        if (quote.getPreviousClose() == null) quote.setPreviousClose(BigDecimal.ZERO);
+        if (quote.getChange() == null) quote.setChange(BigDecimal.ZERO);
+        if (quote.getChangePercent() == null) quote.setChangePercent(BigDecimal.ZERO);
+        if (quote.getOpen() == null) quote.setOpen(BigDecimal.ZERO);
+        if (quote.getDayHigh() == null) quote.setDayHigh(BigDecimal.ZERO);
+        if (quote.getDayLow() == null) quote.setDayLow(BigDecimal.ZERO);
+        if (quote.getVolume() == null) quote.setVolume(0L);
+
+        quote.setSymbol(symbol.toUpperCase());
+        quote.setLastUpdated(LocalDateTime.now());
+        return quote;
+    }
+
+    private StockSearchResponseDto.StockSearchResult readSearchResult(JsonParser parser) throws IOException {
+        StockSearchResponseDto.StockSearchResult result = new StockSearchResponseDto.StockSearchResult();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            switch (field) {
+                case "1. symbol" -> result.setSymbol(text(parser));
+                case "2. name" -> result.setName(text(parser));
+                case "3. type" -> result.setType(text(parser));
+                case "4. region" -> result.setRegion(text(parser));
+                case "8. currency" -> result.setCurrency(text(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    private void expectObject(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object from the market data provider");
+        }
+    }
+
+    private String text(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!parser.currentToken().isScalarValue()) {
+            parser.skipChildren();
+            return null;
+        }
+        String value = parser.getText();
+        return value.equals("None") || value.equals("-") ? null : value;
+    }
+
+    // Parses the value in place; the scale is applied without a second pass when it already matches
+    private BigDecimal decimal(JsonParser parser, int scale) throws IOException {
+        if (!parser.currentToken().isScalarValue()) {
+            parser.skipChildren();
+            return BigDecimal.ZERO;
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        if (length == 0 || isNone(chars, offset, length)) {
+            return BigDecimal.ZERO;
+        }
+        try {
+            return new BigDecimal(chars, offset, length).setScale(scale, RoundingMode.HALF_UP);
+        } catch (NumberFormatException e) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    private BigDecimal percent(JsonParser parser) throws IOException {
+        if (!parser.currentToken().isScalarValue()) {
+            parser.skipChildren();
+            return BigDecimal.ZERO;
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        if (length > 0 && chars[offset + length - 1] == '%') {
+            length--;
+        }
+        if (length == 0) {
+            return BigDecimal.ZERO;
+        }
+        try {
+            return new BigDecimal(chars, offset, length).setScale(2, RoundingMode.HALF_UP);
+        } catch (NumberFormatException e) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    private Long longValue(JsonParser parser) throws IOException {
+        if (!parser.currentToken().isScalarValue()) {
+            parser.skipChildren();
+            return 0L;
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        if (length == 0 || length > 18) {
+            return 0L;
+        }
+
+        int i = offset;
+        boolean negative = chars[i] == '-';
+        if (negative || chars[i] == '+') {
+            i++;
+        }
+        if (i == offset + length) {
+            return 0L;
+        }
+        long value = 0;
+        for (; i < offset + length; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                return 0L;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private boolean isNone(char[] chars, int offset, int length) {
+        return length == 4 && chars[offset] == 'N' && chars[offset + 1] == 'o'
+                && chars[offset + 2] == 'n' && chars[offset + 3] == 'e';
+    }
+}
@@ -0,0 +1,41 @@
+package com.tradingplatform.market_data_service.client;
+
+/**
+ * Priority classes for Alpha Vantage calls, highest first. The class of the current request is
+ * taken from the {@value #HEADER} header set by the calling service; anything without it
+ * (frontend browsing, search, details) is {@link #INTERACTIVE}.
+ */
+public enum UpstreamPriority {
+    ORDER,
+    PORTFOLIO,
+    INTERACTIVE,
+    BACKGROUND;
+
+    public static final String HEADER = "X-Request-Priority";
+
+    private static final ThreadLocal<UpstreamPriority> CURRENT = new ThreadLocal<>();
+
+    public static UpstreamPriority current() {
+        UpstreamPriority priority = CURRENT.get();
+        return priority != null ? priority : INTERACTIVE;
+    }
+
+    public static void set(UpstreamPriority priority) {
+        CURRENT.set(priority);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static UpstreamPriority fromHeader(String value) {
+        if (value == null || value.isBlank()) {
+            return INTERACTIVE;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return INTERACTIVE;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.tradingplatform.market_data_service.client;
+
+import com.tradingplatform.market_data_service.exception.UpstreamRateLimitException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket in front of Alpha Vantage. When no token is available callers queue by
+ * {@link UpstreamPriority} and only the highest-priority, longest-waiting caller may take the
+ * next token, so order pricing is never starved by search or background refreshes. Each class
+ * has its own maximum wait and queue length; callers past either get an
+ * {@link UpstreamRateLimitException} and can fall back to cached data.
+ */
+@Component
+@Slf4j
+public class UpstreamRateLimiter {
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final long limitCooldownNanos;
+    private final int maxQueuedPerClass;
+    private final Map<UpstreamPriority, Long> maxWaitNanos = new EnumMap<>(UpstreamPriority.class);
+
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparing(Waiter::priority).thenComparingLong(Waiter::sequence));
+    private final int[] queued = new int[UpstreamPriority.values().length];
+    private long nextSequence;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    private long blockedUntilNanos = System.nanoTime();
+
+    private final Map<UpstreamPriority, Counter> rejections = new EnumMap<>(UpstreamPriority.class);
+    private final Counter limitReached;
+
+    public UpstreamRateLimiter(MeterRegistry meterRegistry,
+                               @Value("${alpha-vantage.rate-limit.requests-per-minute:75}") double requestsPerMinute,
+                               @Value("${alpha-vantage.rate-limit.burst:5}") double burst,
+                               @Value("${alpha-vantage.rate-limit.cooldown-ms:60000}") long cooldownMs,
+                               @Value("${alpha-vantage.rate-limit.max-queued:100}") int maxQueuedPerClass,
+                               @Value("${alpha-vantage.rate-limit.max-wait-ms.order:10000}") long orderWaitMs,
+                               @Value("${alpha-vantage.rate-limit.max-wait-ms.portfolio:5000}") long portfolioWaitMs,
+                               @Value("${alpha-vantage.rate-limit.max-wait-ms.interactive:2000}") long interactiveWaitMs,
+                               @Value("${alpha-vantage.rate-limit.max-wait-ms.background:0}") long backgroundWaitMs) {
+        this.tokensPerNano = requestsPerMinute / TimeUnit.MINUTES.toNanos(1);
+        this.burst = Math.max(1.0, burst);
+        this.tokens = this.burst;
+        this.limitCooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMs);
+        this.maxQueuedPerClass = maxQueuedPerClass;
+        maxWaitNanos.put(UpstreamPriority.ORDER, TimeUnit.MILLISECONDS.toNanos(orderWaitMs));
+        maxWaitNanos.put(UpstreamPriority.PORTFOLIO, TimeUnit.MILLISECONDS.toNanos(portfolioWaitMs));
+        maxWaitNanos.put(UpstreamPriority.INTERACTIVE, TimeUnit.MILLISECONDS.toNanos(interactiveWaitMs));
+        maxWaitNanos.put(UpstreamPriority.BACKGROUND, TimeUnit.MILLISECONDS.toNanos(backgroundWaitMs));
+
+        for (UpstreamPriority priority : UpstreamPriority.values()) {
+            String tag = priority.name().toLowerCase();
+            Gauge.builder("market.upstream.queue.depth", this, limiter -> limiter.queuedCount(priority))
+                    .description("Callers waiting for an Alpha Vantage token")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+            rejections.put(priority, Counter.builder("market.upstream.rejected")
+                    .description("Alpha Vantage calls refused by the local rate limiter")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+        }
+        this.limitReached = Counter.builder("market.upstream.limit.reached")
+                .description("Alpha Vantage responses reporting the provider rate limit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Non-blocking form of {@link #acquire}: completes immediately when a token is free and only
+     * moves to a bounded elastic thread when the caller has to queue.
+     */
+    public Mono<Void> acquireAsync(UpstreamPriority priority) {
+        return Mono.defer(() -> tryAcquire()
+                ? Mono.<Void>empty()
+                : Mono.<Void>fromRunnable(() -> acquire(priority)).subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    /**
+     * Blocks until a token is granted to this caller or its class's wait budget runs out.
+     */
+    public synchronized void acquire(UpstreamPriority priority) {
+        if (tryAcquire()) {
+            return;
+        }
+        long now = System.nanoTime();
+
+        long maxWait = maxWaitNanos.get(priority);
+        if (maxWait <= 0 || queued[priority.ordinal()] >= maxQueuedPerClass) {
+            throw reject(priority);
+        }
+
+        Waiter waiter = new Waiter(priority, nextSequence++);
+        waiters.add(waiter);
+        queued[priority.ordinal()]++;
+        long deadline = now + maxWait;
+        try {
+            while (true) {
+                now = System.nanoTime();
+                refill(now);
+                if (waiters.peek() == waiter && canTake(now)) {
+                    tokens -= 1.0;
+                    return;
+                }
+
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    throw reject(priority);
+                }
+                long sleep = waiters.peek() == waiter ? Math.min(remaining, nanosUntilToken(now)) : remaining;
+                TimeUnit.NANOSECONDS.timedWait(this, Math.max(sleep, TimeUnit.MILLISECONDS.toNanos(1)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject(priority);
+        } finally {
+            waiters.remove(waiter);
+            queued[priority.ordinal()]--;
+            notifyAll();
+        }
+    }
+
+    // The provider told us we are over its limit: stop spending tokens until the cooldown passes
+    public synchronized void onLimitReached() {
+        limitReached.increment();
+        tokens = 0;
+        blockedUntilNanos = System.nanoTime() + limitCooldownNanos;
+        log.warn("Alpha Vantage rate limit reported, pausing upstream calls for {} ms",
+                TimeUnit.NANOSECONDS.toMillis(limitCooldownNanos));
+    }
+
+    // Helper methods
+
+    private synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        refill(now);
+        if (waiters.isEmpty() && canTake(now)) {
+            tokens -= 1.0;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized int queuedCount(UpstreamPriority priority) {
+        return queued[priority.ordinal()];
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+
+    private boolean canTake(long now) {
+        return tokens >= 1.0 && now - blockedUntilNanos >= 0;
+    }
+
+    private long nanosUntilToken(long now) {
+        long untilUnblocked = Math.max(0, blockedUntilNanos - now);
+        long untilRefilled = tokens >= 1.0 ? 0 : (long) Math.ceil((1.0 - tokens) / tokensPerNano);
+        return Math.max(untilUnblocked, untilRefilled);
+    }
+
+    private UpstreamRateLimitException reject(UpstreamPriority priority) {
+        rejections.get(priority).increment();
+        return new UpstreamRateLimitException("Market data provider is busy, please retry shortly");
+    }
+
+    private record Waiter(UpstreamPriority priority, long sequence) {
+    }
+}
@@ -5,6 +5,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tradingplatform.market_data_service.cache.CacheInvalidationBus;
+import com.tradingplatform.market_data_service.cache.TwoTierCacheManager;
+import com.tradingplatform.market_data_service.cache.codec.BinaryCodec;
+import com.tradingplatform.market_data_service.cache.codec.BinaryRedisSerializer;
+import com.tradingplatform.market_data_service.cache.codec.DetailsCodec;
+import com.tradingplatform.market_data_service.cache.codec.QuoteCodec;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,6 +22,7 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -49,10 +60,31 @@ public class RedisConfig {
         return template;
     }
 
+    // Bulk quote reads and writes use the same binary encoding as the stockQuotes cache
     @Bean
-    public RedisCacheManager cacheManager(
+    public RedisTemplate<String, StockQuoteResponseDto> quoteRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, StockQuoteResponseDto> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new BinaryRedisSerializer<>(new QuoteCodec()));
+        return template;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    @Bean
+    public CacheManager cacheManager(
             RedisConnectionFactory connectionFactory
-            ,ObjectMapper objectMapper) {
+            ,ObjectMapper objectMapper
+            ,CacheInvalidationBus invalidationBus
+            ,MeterRegistry meterRegistry
+            ,@Value("${cache.local.max-size:10000}") long localMaxSize
+            ,@Value("${cache.local.ttl-seconds:30}") long localTtlSeconds) {
 
         objectMapper.activateDefaultTyping(
                 BasicPolymorphicTypeValidator.builder()
@@ -74,15 +106,30 @@ public class RedisConfig {
 
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
 
-        cacheConfigurations.put("stockQuotes", defaultConfig.entryTtl(Duration.ofMinutes(1)));
+        cacheConfigurations.put("stockQuotes", binary(defaultConfig, new QuoteCodec())
+                .entryTtl(Duration.ofMinutes(1)));
 
-        cacheConfigurations.put("stockDetails", defaultConfig.entryTtl(Duration.ofHours(1)));
+        cacheConfigurations.put("stockDetails", binary(defaultConfig, new DetailsCodec())
+                .entryTtl(Duration.ofHours(1)));
 
-        cacheConfigurations.put("stockSearch", defaultConfig.entryTtl(Duration.ofMinutes(10)));
-
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+        // Not a bean itself, so initialise the configured caches here
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoTierCacheManager(redisCacheManager, invalidationBus, meterRegistry,
+                localMaxSize, Duration.ofSeconds(localTtlSeconds));
+    }
+
+    // Helper methods
+
+    // Binary codecs have no encoding for the null placeholder, so null results are not cached
+    private RedisCacheConfiguration binary(RedisCacheConfiguration config, BinaryCodec<?> codec) {
+        return config
+                .disableCachingNullValues()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair
+                        .fromSerializer(new BinaryRedisSerializer<>(codec)));
     }
 }
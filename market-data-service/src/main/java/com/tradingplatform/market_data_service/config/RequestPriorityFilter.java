@@ -0,0 +1,26 @@
+package com.tradingplatform.market_data_service.config;
+
+import com.tradingplatform.market_data_service.client.UpstreamPriority;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+@Component
+public class RequestPriorityFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        UpstreamPriority.set(UpstreamPriority.fromHeader(request.getHeader(UpstreamPriority.HEADER)));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            UpstreamPriority.clear();
+        }
+    }
+}
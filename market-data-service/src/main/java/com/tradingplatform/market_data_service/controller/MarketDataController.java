@@ -1,16 +1,24 @@
 package com.tradingplatform.market_data_service.controller;
 
 import com.tradingplatform.market_data_service.dto.*;
+import com.tradingplatform.market_data_service.history.PriceHistoryStore;
 import com.tradingplatform.market_data_service.service.MarketDataService;
+import com.tradingplatform.market_data_service.stream.QuoteStreamHub;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/market")
@@ -20,15 +28,32 @@ public class MarketDataController {
     @Autowired
     private MarketDataService marketDataService;
 
+    @Autowired
+    private QuoteStreamHub quoteStreamHub;
+
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
     @GetMapping("/test")
     public ResponseEntity<String> test() {
         return ResponseEntity.ok("Market Data Service is running!");
     }
 
     @GetMapping("/quote/{symbol}")
-    public ResponseEntity<StockQuoteResponseDto> getQuote(@PathVariable("symbol") String symbol) {
-        StockQuoteResponseDto quote = marketDataService.getQuote(symbol);
-        return ResponseEntity.ok(quote);
+    public Mono<ResponseEntity<StockQuoteResponseDto>> getQuote(@PathVariable("symbol") String symbol) {
+        return marketDataService.getQuoteAsync(symbol)
+                .map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/quotes")
+    public Mono<ResponseEntity<List<StockQuoteResponseDto>>> getQuotes(@RequestParam("symbols") List<String> symbols) {
+        return marketDataService.getQuotesAsync(symbols)
+                .map(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamQuotes(@RequestParam("symbols") List<String> symbols) {
+        return quoteStreamHub.subscribe(symbols);
     }
 
     @GetMapping("/details/{symbol}")
@@ -37,6 +62,17 @@ public class MarketDataController {
         return ResponseEntity.ok(details);
     }
 
+    @GetMapping("/history/{symbol}")
+    public ResponseEntity<PriceHistoryResponseDto> getPriceHistory(
+            @PathVariable("symbol") String symbol,
+            @RequestParam(value = "interval", defaultValue = "1m") String interval,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to
+    ) {
+        PriceHistoryResponseDto history = priceHistoryStore.getHistory(symbol, interval, from, to);
+        return ResponseEntity.ok(history);
+    }
+
     @GetMapping("/search")
     public ResponseEntity<StockSearchResponseDto> searchStocks(@RequestParam("keywords") String keywords) {
         StockSearchResponseDto results = marketDataService.searchStocks(keywords);
@@ -49,6 +85,12 @@ public class MarketDataController {
         return ResponseEntity.ok(price);
     }
 
+    @GetMapping("/prices")
+    public ResponseEntity<Map<String, BigDecimal>> getCurrentPrices(@RequestParam("symbols") List<String> symbols) {
+        Map<String, BigDecimal> prices = marketDataService.getCurrentPrices(symbols);
+        return ResponseEntity.ok(prices);
+    }
+
     @PostMapping("/quote/{symbol}/refresh")
     public ResponseEntity<StockQuoteResponseDto> refreshQuote(@PathVariable("symbol") String symbol) {
         marketDataService.refreshQuote(symbol);
@@ -0,0 +1,24 @@
+package com.tradingplatform.market_data_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * OHLCV bars in column form: element i of every array belongs to the bar starting at
+ * {@code timestamps[i]} (epoch millis, UTC). Columns keep large ranges compact on the wire.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceHistoryResponseDto {
+
+    private String symbol;
+    private String interval;
+    private long[] timestamps;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private long[] volume;
+}
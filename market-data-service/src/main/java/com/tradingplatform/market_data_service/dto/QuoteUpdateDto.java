@@ -0,0 +1,32 @@
+package com.tradingplatform.market_data_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QuoteUpdateDto {
+
+    private String symbol;
+    private BigDecimal price;
+    private BigDecimal change;
+    private BigDecimal changePercent;
+    private Long volume;
+    private LocalDateTime lastUpdated;
+
+    public static QuoteUpdateDto from(StockQuoteResponseDto quote) {
+        return new QuoteUpdateDto(
+                quote.getSymbol(),
+                quote.getPrice(),
+                quote.getChange(),
+                quote.getChangePercent(),
+                quote.getVolume(),
+                quote.getLastUpdated()
+        );
+    }
+}
@@ -0,0 +1,11 @@
+package com.tradingplatform.market_data_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidHistoryRequestException extends RuntimeException {
+    public InvalidHistoryRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.tradingplatform.market_data_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class UpstreamRateLimitException extends ApiException {
+    public UpstreamRateLimitException(String message) {
+        super(message);
+    }
+}
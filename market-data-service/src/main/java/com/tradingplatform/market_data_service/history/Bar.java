@@ -0,0 +1,63 @@
+package com.tradingplatform.market_data_service.history;
+
+/**
+ * One OHLCV bucket. Prices are fixed-point with {@link #PRICE_SCALE} decimal places, matching
+ * the four-decimal quotes we receive, so bars aggregate and store without rounding.
+ */
+final class Bar {
+
+    static final int PRICE_SCALE = 4;
+    static final double PRICE_FACTOR = 10_000.0;
+
+    final BarInterval interval;
+    long bucket;
+    long open;
+    long high;
+    long low;
+    long close;
+    long volume;
+    long ticks;
+
+    Bar(BarInterval interval) {
+        this.interval = interval;
+    }
+
+    void start(long bucket, long price, long volume) {
+        this.bucket = bucket;
+        this.open = price;
+        this.high = price;
+        this.low = price;
+        this.close = price;
+        this.volume = volume;
+        this.ticks = 1;
+    }
+
+    void update(long price, long volume) {
+        high = Math.max(high, price);
+        low = Math.min(low, price);
+        close = price;
+        this.volume += volume;
+        ticks++;
+    }
+
+    // Folds in a bar for the same bucket that was stored before this one was started
+    void mergeEarlier(Bar earlier) {
+        open = earlier.open;
+        high = Math.max(high, earlier.high);
+        low = Math.min(low, earlier.low);
+        volume += earlier.volume;
+        ticks += earlier.ticks;
+    }
+
+    Bar copy() {
+        Bar copy = new Bar(interval);
+        copy.bucket = bucket;
+        copy.open = open;
+        copy.high = high;
+        copy.low = low;
+        copy.close = close;
+        copy.volume = volume;
+        copy.ticks = ticks;
+        return copy;
+    }
+}
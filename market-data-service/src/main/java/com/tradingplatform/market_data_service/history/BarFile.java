@@ -0,0 +1,163 @@
+package com.tradingplatform.market_data_service.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Column-oriented bar partition. After a 16-byte header the file holds six fixed-size columns
+ * (open, high, low, close, volume, tick count), each a long per slot, where the slot is the bar's
+ * offset from the partition start. Bars are addressed directly, so rewriting a bar is idempotent
+ * and a range read is a sequential scan of the tick-count column. Slots never written read as
+ * zero ticks and are skipped; the file is created sparse at full size.
+ */
+final class BarFile {
+
+    private static final int MAGIC = 0x42415253; // "BARS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private static final int OPEN = 0;
+    private static final int HIGH = 1;
+    private static final int LOW = 2;
+    private static final int CLOSE = 3;
+    private static final int VOLUME = 4;
+    private static final int TICKS = 5;
+    private static final int COLUMNS = 6;
+
+    private BarFile() {
+    }
+
+    static void write(Path path, BarInterval interval, List<Bar> bars) throws IOException {
+        Files.createDirectories(path.getParent());
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() == 0) {
+                initialize(channel, interval);
+            }
+
+            int capacity = interval.getCapacity();
+            ByteBuffer value = ByteBuffer.allocate(Long.BYTES);
+            for (Bar bar : bars) {
+                int slot = interval.slot(bar.bucket);
+                writeLong(channel, value, offset(capacity, OPEN, slot), bar.open);
+                writeLong(channel, value, offset(capacity, HIGH, slot), bar.high);
+                writeLong(channel, value, offset(capacity, LOW, slot), bar.low);
+                writeLong(channel, value, offset(capacity, CLOSE, slot), bar.close);
+                writeLong(channel, value, offset(capacity, VOLUME, slot), bar.volume);
+                // Written last: a reader never sees a slot with ticks but no prices
+                writeLong(channel, value, offset(capacity, TICKS, slot), bar.ticks);
+            }
+        }
+    }
+
+    /**
+     * Returns the stored bar for the bucket, or null if the slot is empty or the file missing.
+     */
+    static Bar readBar(Path path, BarInterval interval, long bucket) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int capacity = interval.getCapacity();
+            int slot = interval.slot(bucket);
+            ByteBuffer value = ByteBuffer.allocate(Long.BYTES);
+            long ticks = readLong(channel, value, offset(capacity, TICKS, slot));
+            if (ticks == 0) {
+                return null;
+            }
+
+            Bar bar = new Bar(interval);
+            bar.bucket = bucket;
+            bar.open = readLong(channel, value, offset(capacity, OPEN, slot));
+            bar.high = readLong(channel, value, offset(capacity, HIGH, slot));
+            bar.low = readLong(channel, value, offset(capacity, LOW, slot));
+            bar.close = readLong(channel, value, offset(capacity, CLOSE, slot));
+            bar.volume = readLong(channel, value, offset(capacity, VOLUME, slot));
+            bar.ticks = ticks;
+            return bar;
+        }
+    }
+
+    /**
+     * Appends the bars in [fromSlot, toSlot) to the series, reading the partition through a
+     * read-only mapping.
+     */
+    static void read(Path path, BarInterval interval, long partitionStart, int fromSlot, int toSlot,
+                     BarSeries series) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int capacity = interval.getCapacity();
+            if (channel.size() < fileSize(capacity) || readHeader(channel) != capacity) {
+                throw new IOException("Unrecognized bar file " + path);
+            }
+
+            MappedByteBuffer columns = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize(capacity));
+            for (int slot = fromSlot; slot < toSlot; slot++) {
+                long ticks = columns.getLong(offset(capacity, TICKS, slot));
+                if (ticks == 0) {
+                    continue;
+                }
+                series.add(partitionStart + slot * interval.getMillis(),
+                        columns.getLong(offset(capacity, OPEN, slot)),
+                        columns.getLong(offset(capacity, HIGH, slot)),
+                        columns.getLong(offset(capacity, LOW, slot)),
+                        columns.getLong(offset(capacity, CLOSE, slot)),
+                        columns.getLong(offset(capacity, VOLUME, slot)));
+            }
+        }
+    }
+
+    // Helper methods
+
+    private static void initialize(FileChannel channel, BarInterval interval) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(interval.getCapacity()).putInt(0).flip();
+        channel.write(header, 0);
+        // Extend to full size without allocating the empty columns
+        channel.write(ByteBuffer.allocate(1), fileSize(interval.getCapacity()) - 1);
+    }
+
+    private static int readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            return -1;
+        }
+        return header.getInt();
+    }
+
+    private static long fileSize(int capacity) {
+        return HEADER_BYTES + (long) COLUMNS * capacity * Long.BYTES;
+    }
+
+    private static int offset(int capacity, int column, int slot) {
+        return HEADER_BYTES + (column * capacity + slot) * Long.BYTES;
+    }
+
+    private static void writeLong(FileChannel channel, ByteBuffer value, long position, long v) throws IOException {
+        value.clear();
+        value.putLong(v).flip();
+        while (value.hasRemaining()) {
+            channel.write(value, position + value.position());
+        }
+    }
+
+    private static long readLong(FileChannel channel, ByteBuffer value, long position) throws IOException {
+        value.clear();
+        while (value.hasRemaining()) {
+            if (channel.read(value, position + value.position()) < 0) {
+                return 0;
+            }
+        }
+        return value.flip().getLong();
+    }
+}
@@ -0,0 +1,99 @@
+package com.tradingplatform.market_data_service.history;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Bar resolutions kept by the {@link PriceHistoryStore}. Each resolution is stored in UTC
+ * partitions sized so one partition file holds at most a few tens of thousands of slots:
+ * seconds per day, minutes per month, hours and days per year.
+ */
+public enum BarInterval {
+
+    SECOND("1s", 1_000L, ChronoUnit.DAYS),
+    MINUTE("1m", 60_000L, ChronoUnit.MONTHS),
+    HOUR("1h", 3_600_000L, ChronoUnit.YEARS),
+    DAY("1d", 86_400_000L, ChronoUnit.YEARS);
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final String code;
+    private final long millis;
+    private final ChronoUnit partition;
+    private final int capacity;
+
+    BarInterval(String code, long millis, ChronoUnit partition) {
+        this.code = code;
+        this.millis = millis;
+        this.partition = partition;
+        // Longest possible partition: a day, a 31-day month or a leap year
+        long longest = switch (partition) {
+            case DAYS -> MILLIS_PER_DAY;
+            case MONTHS -> 31 * MILLIS_PER_DAY;
+            default -> 366 * MILLIS_PER_DAY;
+        };
+        this.capacity = (int) (longest / millis);
+    }
+
+    public static BarInterval fromCode(String code) {
+        for (BarInterval interval : values()) {
+            if (interval.code.equalsIgnoreCase(code)) {
+                return interval;
+            }
+        }
+        return null;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    long bucketStart(long epochMillis) {
+        return Math.floorDiv(epochMillis, millis) * millis;
+    }
+
+    long partitionStart(long epochMillis) {
+        return toMillis(partitionDate(epochMillis));
+    }
+
+    long partitionEnd(long epochMillis) {
+        return toMillis(partitionDate(epochMillis).plus(1, partition));
+    }
+
+    int slot(long bucketStart) {
+        return (int) ((bucketStart - partitionStart(bucketStart)) / millis);
+    }
+
+    String partitionKey(long epochMillis) {
+        LocalDate start = partitionDate(epochMillis);
+        return switch (partition) {
+            case DAYS -> start.toString();
+            case MONTHS -> start.toString().substring(0, 7);
+            default -> String.valueOf(start.getYear());
+        };
+    }
+
+    // Helper methods
+
+    private LocalDate partitionDate(long epochMillis) {
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochMillis, MILLIS_PER_DAY));
+        return switch (partition) {
+            case DAYS -> date;
+            case MONTHS -> date.withDayOfMonth(1);
+            default -> date.withDayOfYear(1);
+        };
+    }
+
+    private static long toMillis(LocalDate date) {
+        return date.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,80 @@
+package com.tradingplatform.market_data_service.history;
+
+import com.tradingplatform.market_data_service.dto.PriceHistoryResponseDto;
+
+import java.util.Arrays;
+
+/**
+ * Growable column buffers for a range query, so a year of minute bars is collected without
+ * allocating an object per bar.
+ */
+final class BarSeries {
+
+    private long[] times;
+    private long[] opens;
+    private long[] highs;
+    private long[] lows;
+    private long[] closes;
+    private long[] volumes;
+    private int size;
+
+    BarSeries(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        times = new long[capacity];
+        opens = new long[capacity];
+        highs = new long[capacity];
+        lows = new long[capacity];
+        closes = new long[capacity];
+        volumes = new long[capacity];
+    }
+
+    void add(long time, long open, long high, long low, long close, long volume) {
+        if (size == times.length) {
+            grow();
+        }
+        times[size] = time;
+        opens[size] = open;
+        highs[size] = high;
+        lows[size] = low;
+        closes[size] = close;
+        volumes[size] = volume;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    PriceHistoryResponseDto toResponse(String symbol, BarInterval interval) {
+        return new PriceHistoryResponseDto(
+                symbol,
+                interval.getCode(),
+                Arrays.copyOf(times, size),
+                toPrices(opens),
+                toPrices(highs),
+                toPrices(lows),
+                toPrices(closes),
+                Arrays.copyOf(volumes, size)
+        );
+    }
+
+    // Helper methods
+
+    private void grow() {
+        int capacity = times.length * 2;
+        times = Arrays.copyOf(times, capacity);
+        opens = Arrays.copyOf(opens, capacity);
+        highs = Arrays.copyOf(highs, capacity);
+        lows = Arrays.copyOf(lows, capacity);
+        closes = Arrays.copyOf(closes, capacity);
+        volumes = Arrays.copyOf(volumes, capacity);
+    }
+
+    private double[] toPrices(long[] fixed) {
+        double[] prices = new double[size];
+        for (int i = 0; i < size; i++) {
+            prices[i] = fixed[i] / Bar.PRICE_FACTOR;
+        }
+        return prices;
+    }
+}
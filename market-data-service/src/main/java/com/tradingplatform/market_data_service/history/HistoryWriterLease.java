@@ -0,0 +1,139 @@
+package com.tradingplatform.market_data_service.history;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Elects the one market-data instance that writes price history. The writer holds a Redis lease
+ * and renews it well inside its TTL; every other instance forwards the ticks it sees on a Redis
+ * channel so the writer records quotes whichever instance fetched them. Messages are
+ * {@code instanceId \n symbol \n epochMillis \n price \n cumulativeVolume}.
+ *
+ * <p>The lease only counts as held until its TTL has run out since the last successful renewal
+ * began, so a stalled writer stops writing before a successor can take over. On every takeover
+ * the store is told to drop what it buffered under an earlier lease, since another writer may
+ * have rewritten those bars since.
+ */
+@Component
+@Slf4j
+public class HistoryWriterLease implements MessageListener {
+
+    public static final String LEASE_KEY = "market-data:history:writer";
+    public static final String CHANNEL = "market-data:history:ticks";
+
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Duration leaseTtl;
+
+    private volatile long heldUntilNanos = Long.MIN_VALUE;
+    private volatile boolean held;
+    private volatile Runnable acquiredListener = () -> { };
+    private volatile TickListener tickListener;
+
+    public HistoryWriterLease(StringRedisTemplate stringRedisTemplate,
+                              RedisMessageListenerContainer listenerContainer,
+                              @Value("${market.history.lease-ttl-ms:15000}") long leaseTtlMs) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.leaseTtl = Duration.ofMillis(leaseTtlMs);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public boolean isWriter() {
+        return held && System.nanoTime() - heldUntilNanos < 0;
+    }
+
+    void setListeners(Runnable acquiredListener, TickListener tickListener) {
+        this.acquiredListener = acquiredListener;
+        this.tickListener = tickListener;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${market.history.lease-renew-ms:5000}")
+    public void renew() {
+        long started = System.nanoTime();
+        try {
+            boolean acquired = held
+                    ? Long.valueOf(1).equals(stringRedisTemplate.execute(RENEW, List.of(LEASE_KEY),
+                            instanceId, String.valueOf(leaseTtl.toMillis())))
+                    : Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(LEASE_KEY, instanceId, leaseTtl));
+            if (acquired) {
+                heldUntilNanos = started + leaseTtl.toNanos();
+                if (!held) {
+                    acquiredListener.run();
+                    log.info("Took over as the price history writer");
+                }
+            } else if (held) {
+                log.warn("Lost the price history writer lease");
+            }
+            held = acquired;
+        } catch (Exception e) {
+            // Keep the lease until it runs out locally; a renewal may still succeed before then
+            log.warn("Failed to renew the price history writer lease: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (!held) {
+            return;
+        }
+        held = false;
+        try {
+            stringRedisTemplate.execute(RELEASE, List.of(LEASE_KEY), instanceId);
+        } catch (Exception e) {
+            log.warn("Failed to release the price history writer lease, it expires in {}: {}", leaseTtl, e.getMessage());
+        }
+    }
+
+    void forward(String symbol, long time, long price, long cumulativeVolume) {
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL,
+                    instanceId + "\n" + symbol + "\n" + time + "\n" + price + "\n" + cumulativeVolume);
+        } catch (Exception e) {
+            log.debug("Failed to forward a {} tick to the price history writer: {}", symbol, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        TickListener listener = tickListener;
+        if (listener == null || !isWriter()) {
+            return;
+        }
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n");
+        if (parts.length != 5 || parts[0].equals(instanceId)) {
+            return;
+        }
+        try {
+            listener.onTick(parts[1], Long.parseLong(parts[2]), Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed price history tick: {}", e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    interface TickListener {
+        void onTick(String symbol, long time, long price, long cumulativeVolume);
+    }
+}
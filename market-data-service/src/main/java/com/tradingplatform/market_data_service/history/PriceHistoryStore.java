@@ -0,0 +1,346 @@
+package com.tradingplatform.market_data_service.history;
+
+import com.tradingplatform.market_data_service.dto.PriceHistoryResponseDto;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import com.tradingplatform.market_data_service.exception.ApiException;
+import com.tradingplatform.market_data_service.exception.InvalidHistoryRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only price history. Every fresh quote is appended to a per-symbol, per-day tick log and
+ * folded into open 1s/1m/1h/1d OHLCV bars in memory. A scheduled flush writes the ticks and every
+ * changed bar to its {@link BarFile} partition, so range queries read columns straight from
+ * memory-mapped files instead of replaying ticks.
+ *
+ * <p>Layout under {@code market.history.dir}: {@code SYMBOL/ticks/yyyy-MM-dd.ticks} and
+ * {@code SYMBOL/<interval>/<partition>.bars}. Volume per tick is the increase in the quote's
+ * cumulative day volume.
+ *
+ * <p>With several instances the directory must be a volume they all mount. Only the instance
+ * holding the {@link HistoryWriterLease} records and writes; the others forward their quotes to it
+ * and serve reads from the shared files, which lag the writer by up to one flush interval.
+ */
+@Component
+@Slf4j
+public class PriceHistoryStore {
+
+    private static final Pattern SYMBOL = Pattern.compile("[A-Z0-9.\\-]{1,12}");
+    private static final int TICK_LONGS = 3;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final HistoryWriterLease writerLease;
+    private final Path root;
+    private final long maxBars;
+    private final Map<String, SymbolHistory> histories = new ConcurrentHashMap<>();
+
+    private final Counter ticksRecorded;
+    private final Counter writeFailures;
+    private final Timer flushTimer;
+
+    public PriceHistoryStore(MeterRegistry meterRegistry, HistoryWriterLease writerLease,
+                             @Value("${market.history.dir:./data/market-history}") String dir,
+                             @Value("${market.history.max-bars:1000000}") long maxBars) {
+        this.writerLease = writerLease;
+        this.root = Paths.get(dir);
+        this.maxBars = maxBars;
+        this.ticksRecorded = Counter.builder("market.history.ticks")
+                .description("Quote ticks appended to the price history")
+                .register(meterRegistry);
+        this.writeFailures = Counter.builder("market.history.write.failures")
+                .description("Price history flushes that failed to write")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("market.history.flush")
+                .description("Time to write buffered ticks and bars to disk")
+                .register(meterRegistry);
+        writerLease.setListeners(histories::clear, this::recordTick);
+    }
+
+    /**
+     * Records a freshly loaded quote, or forwards it to the writer instance. Repeated or
+     * out-of-order quotes are ignored.
+     */
+    public void record(StockQuoteResponseDto quote) {
+        if (quote == null || quote.getSymbol() == null || quote.getPrice() == null
+                || !SYMBOL.matcher(quote.getSymbol()).matches()) {
+            return;
+        }
+
+        long time = quote.getLastUpdated() != null
+                ? quote.getLastUpdated().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+        long price = quote.getPrice().setScale(Bar.PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValue();
+        long cumulativeVolume = quote.getVolume() != null ? quote.getVolume() : 0L;
+
+        if (writerLease.isWriter()) {
+            recordTick(quote.getSymbol(), time, price, cumulativeVolume);
+        } else {
+            writerLease.forward(quote.getSymbol(), time, price, cumulativeVolume);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${market.history.flush-interval-ms:5000}")
+    public void flush() {
+        if (!writerLease.isWriter()) {
+            // Whatever was buffered under a lost lease is dropped; the next writer has taken over
+            histories.clear();
+            return;
+        }
+        flushTimer.record(() -> histories.values().forEach(this::flush));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Request form of {@link #getHistory(String, BarInterval, long, long)}: the interval by code,
+     * the range ending now and spanning one day when not given.
+     */
+    public PriceHistoryResponseDto getHistory(String symbol, String intervalCode, Instant from, Instant to) {
+        BarInterval interval = BarInterval.fromCode(intervalCode);
+        if (interval == null) {
+            throw new InvalidHistoryRequestException("Unsupported interval " + intervalCode + ", use 1s, 1m, 1h or 1d");
+        }
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(1));
+        return getHistory(symbol == null ? null : symbol.trim().toUpperCase(), interval,
+                start.toEpochMilli(), end.toEpochMilli());
+    }
+
+    /**
+     * Bars of the given interval overlapping [from, to), epoch millis. Buffered bars for the
+     * symbol are flushed first so the result includes the current, still open bar.
+     */
+    public PriceHistoryResponseDto getHistory(String symbol, BarInterval interval, long from, long to) {
+        if (symbol == null || !SYMBOL.matcher(symbol).matches()) {
+            throw new InvalidHistoryRequestException("Invalid symbol: " + symbol);
+        }
+        if (from >= to) {
+            throw new InvalidHistoryRequestException("Range start must be before its end");
+        }
+        long requested = (to - from) / interval.getMillis();
+        if (requested > maxBars) {
+            throw new InvalidHistoryRequestException("Range spans " + requested + " " + interval.getCode()
+                    + " bars, the limit is " + maxBars);
+        }
+
+        SymbolHistory history = histories.get(symbol);
+        if (history != null && writerLease.isWriter()) {
+            flush(history);
+        }
+
+        BarSeries series = new BarSeries((int) Math.min(requested, 4096));
+        long partition = interval.partitionStart(from);
+        while (partition < to) {
+            long end = interval.partitionEnd(partition);
+            int fromSlot = (int) ((Math.max(from, partition) - partition) / interval.getMillis());
+            int toSlot = (int) ((Math.min(to, end) - partition + interval.getMillis() - 1) / interval.getMillis());
+            try {
+                BarFile.read(barPath(symbol, interval, partition), interval, partition, fromSlot, toSlot, series);
+            } catch (IOException e) {
+                log.error("Failed to read {} bars for {} from partition {}: {}",
+                        interval.getCode(), symbol, interval.partitionKey(partition), e.getMessage());
+                throw new ApiException("Price history for " + symbol + " is unavailable");
+            }
+            partition = end;
+        }
+        return series.toResponse(symbol, interval);
+    }
+
+    // Helper methods
+
+    private void recordTick(String symbol, long time, long price, long cumulativeVolume) {
+        SymbolHistory history = histories.computeIfAbsent(symbol, SymbolHistory::new);
+        if (history.onTick(time, price, cumulativeVolume)) {
+            ticksRecorded.increment();
+        }
+    }
+
+    private void flush(SymbolHistory history) {
+        history.flushLock.lock();
+        try {
+            List<Bar> bars;
+            long[] ticks;
+            synchronized (history) {
+                bars = history.drainBars();
+                ticks = history.drainTicks();
+            }
+            if (bars.isEmpty() && ticks.length == 0 || !writerLease.isWriter()) {
+                return;
+            }
+
+            try {
+                appendTicks(history.symbol, ticks);
+                writeBars(history.symbol, bars);
+            } catch (IOException e) {
+                writeFailures.increment();
+                log.warn("Failed to write price history for {}: {}", history.symbol, e.getMessage());
+            }
+        } finally {
+            history.flushLock.unlock();
+        }
+    }
+
+    private void appendTicks(String symbol, long[] ticks) throws IOException {
+        int start = 0;
+        while (start < ticks.length) {
+            long day = Math.floorDiv(ticks[start], MILLIS_PER_DAY);
+            int end = start;
+            while (end < ticks.length && Math.floorDiv(ticks[end], MILLIS_PER_DAY) == day) {
+                end += TICK_LONGS;
+            }
+
+            Path path = root.resolve(symbol).resolve("ticks").resolve(LocalDate.ofEpochDay(day) + ".ticks");
+            Files.createDirectories(path.getParent());
+            ByteBuffer rows = ByteBuffer.allocate((end - start) * Long.BYTES);
+            rows.asLongBuffer().put(ticks, start, end - start);
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (rows.hasRemaining()) {
+                    channel.write(rows);
+                }
+            }
+            start = end;
+        }
+    }
+
+    private void writeBars(String symbol, List<Bar> bars) throws IOException {
+        Map<Path, List<Bar>> byPartition = new LinkedHashMap<>();
+        for (Bar bar : bars) {
+            byPartition.computeIfAbsent(barPath(symbol, bar.interval, bar.bucket), path -> new ArrayList<>()).add(bar);
+        }
+        for (Map.Entry<Path, List<Bar>> entry : byPartition.entrySet()) {
+            BarInterval interval = entry.getValue().get(0).interval;
+            BarFile.write(entry.getKey(), interval, entry.getValue());
+        }
+    }
+
+    private Bar storedBar(String symbol, BarInterval interval, long bucket) {
+        try {
+            return BarFile.readBar(barPath(symbol, interval, bucket), interval, bucket);
+        } catch (IOException e) {
+            log.warn("Could not read stored {} bar for {}: {}", interval.getCode(), symbol, e.getMessage());
+            return null;
+        }
+    }
+
+    private Path barPath(String symbol, BarInterval interval, long time) {
+        return root.resolve(symbol).resolve(interval.getCode()).resolve(interval.partitionKey(time) + ".bars");
+    }
+
+    private final class SymbolHistory {
+        private final String symbol;
+        private final ReentrantLock flushLock = new ReentrantLock();
+
+        private final BarInterval[] intervals = BarInterval.values();
+        private final Bar[] openBars = new Bar[intervals.length];
+        private final boolean[] dirty = new boolean[intervals.length];
+        private final List<Bar> completed = new ArrayList<>();
+
+        private long[] ticks = new long[TICK_LONGS * 16];
+        private int tickLongs;
+        private long lastTime = Long.MIN_VALUE;
+        private long lastPrice;
+        private long lastCumulativeVolume = -1;
+
+        SymbolHistory(String symbol) {
+            this.symbol = symbol;
+        }
+
+        synchronized boolean onTick(long time, long price, long cumulativeVolume) {
+            if (time < lastTime) {
+                return false;
+            }
+            // First tick since startup carries the whole day's volume, which belongs to earlier bars
+            long volume = lastCumulativeVolume < 0 ? 0
+                    : cumulativeVolume >= lastCumulativeVolume ? cumulativeVolume - lastCumulativeVolume
+                    : cumulativeVolume;
+            if (time == lastTime && price == lastPrice && volume == 0) {
+                return false;
+            }
+            lastTime = time;
+            lastPrice = price;
+            lastCumulativeVolume = cumulativeVolume;
+
+            if (tickLongs == ticks.length) {
+                ticks = Arrays.copyOf(ticks, ticks.length * 2);
+            }
+            ticks[tickLongs++] = time;
+            ticks[tickLongs++] = price;
+            ticks[tickLongs++] = volume;
+
+            for (int i = 0; i < intervals.length; i++) {
+                long bucket = intervals[i].bucketStart(time);
+                Bar bar = openBars[i];
+                if (bar != null && bar.bucket == bucket) {
+                    bar.update(price, volume);
+                } else {
+                    Bar next = new Bar(intervals[i]);
+                    next.start(bucket, price, volume);
+                    if (bar == null) {
+                        // Continue a bar written before a restart instead of overwriting it
+                        Bar stored = storedBar(symbol, intervals[i], bucket);
+                        if (stored != null) {
+                            next.mergeEarlier(stored);
+                        }
+                    } else if (dirty[i]) {
+                        completed.add(bar);
+                    }
+                    openBars[i] = next;
+                }
+                dirty[i] = true;
+            }
+            return true;
+        }
+
+        List<Bar> drainBars() {
+            List<Bar> bars = new ArrayList<>(completed);
+            completed.clear();
+            for (int i = 0; i < openBars.length; i++) {
+                if (dirty[i]) {
+                    bars.add(openBars[i].copy());
+                    dirty[i] = false;
+                }
+            }
+            return bars;
+        }
+
+        long[] drainTicks() {
+            long[] drained = Arrays.copyOf(ticks, tickLongs);
+            tickLongs = 0;
+            if (ticks.length > TICK_LONGS * 1024) {
+                ticks = new long[TICK_LONGS * 16];
+            }
+            return drained;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.tradingplatform.market_data_service.model.Stock;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +15,8 @@ public interface StockRepository extends CrudRepository<Stock, Long> {
 
     boolean existsBySymbol(String symbol);
 
+    List<Stock> findBySymbolIn(Collection<String> symbols);
+
     List<Stock> findBySymbolContainingIgnoreCaseOrCompanyNameContainingIgnoreCase(
             String symbol, String companyName);
 
@@ -0,0 +1,114 @@
+package com.tradingplatform.market_data_service.repository;
+
+import com.tradingplatform.market_data_service.dto.StockDetailsResponseDto;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Batched upserts into the stocks table. Quote and company-overview writes touch disjoint
+ * column sets, so neither overwrites what the other stored. Rows are written in symbol order,
+ * so concurrent batches take their row locks in the same order and wait on each other rather
+ * than deadlock.
+ */
+@Repository
+public class StockUpsertRepository {
+
+    private static final String UPSERT_QUOTE_SQL = """
+            INSERT INTO stocks
+                (symbol, company_name, current_price, previous_close, open_price, day_high, day_low, volume,
+                 last_updated, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+            ON CONFLICT (symbol) DO UPDATE SET
+                company_name = COALESCE(EXCLUDED.company_name, stocks.company_name),
+                current_price = EXCLUDED.current_price,
+                previous_close = EXCLUDED.previous_close,
+                open_price = EXCLUDED.open_price,
+                day_high = EXCLUDED.day_high,
+                day_low = EXCLUDED.day_low,
+                volume = EXCLUDED.volume,
+                last_updated = EXCLUDED.last_updated,
+                updated_at = CURRENT_TIMESTAMP
+            """;
+
+    private static final String UPSERT_DETAILS_SQL = """
+            INSERT INTO stocks
+                (symbol, company_name, exchange, sector, industry, market_cap, pe_ratio, dividend_yield,
+                 week_52_high, week_52_low, last_updated, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+            ON CONFLICT (symbol) DO UPDATE SET
+                company_name = EXCLUDED.company_name,
+                exchange = EXCLUDED.exchange,
+                sector = EXCLUDED.sector,
+                industry = EXCLUDED.industry,
+                market_cap = EXCLUDED.market_cap,
+                pe_ratio = EXCLUDED.pe_ratio,
+                dividend_yield = EXCLUDED.dividend_yield,
+                week_52_high = EXCLUDED.week_52_high,
+                week_52_low = EXCLUDED.week_52_low,
+                last_updated = EXCLUDED.last_updated,
+                updated_at = CURRENT_TIMESTAMP
+            """;
+
+    private static final Comparator<Object[]> BY_SYMBOL =
+            Comparator.comparing(row -> (String) row[0], Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockUpsertRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void upsertQuotes(Collection<StockQuoteResponseDto> quotes) {
+        List<Object[]> rows = new ArrayList<>(quotes.size());
+        for (StockQuoteResponseDto quote : quotes) {
+            rows.add(new Object[]{
+                    quote.getSymbol(),
+                    quote.getCompanyName(),
+                    quote.getPrice(),
+                    quote.getPreviousClose(),
+                    quote.getOpen(),
+                    quote.getDayHigh(),
+                    quote.getDayLow(),
+                    quote.getVolume(),
+                    timestamp(quote.getLastUpdated())
+            });
+        }
+        rows.sort(BY_SYMBOL);
+        jdbcTemplate.batchUpdate(UPSERT_QUOTE_SQL, rows);
+    }
+
+    public void upsertDetails(Collection<StockDetailsResponseDto> details) {
+        List<Object[]> rows = new ArrayList<>(details.size());
+        for (StockDetailsResponseDto overview : details) {
+            rows.add(new Object[]{
+                    overview.getSymbol(),
+                    overview.getCompanyName(),
+                    overview.getExchange(),
+                    overview.getSector(),
+                    overview.getIndustry(),
+                    overview.getMarketCap(),
+                    overview.getPeRatio(),
+                    overview.getDividendYield(),
+                    overview.getWeek52High(),
+                    overview.getWeek52Low(),
+                    timestamp(LocalDateTime.now())
+            });
+        }
+        rows.sort(BY_SYMBOL);
+        jdbcTemplate.batchUpdate(UPSERT_DETAILS_SQL, rows);
+    }
+
+    // Helper methods
+
+    private Timestamp timestamp(LocalDateTime time) {
+        return Timestamp.valueOf(time != null ? time : LocalDateTime.now());
+    }
+}
@@ -1,7 +1,9 @@
 package com.tradingplatform.market_data_service.repository;
 
 import com.tradingplatform.market_data_service.model.Watchlist;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -19,4 +21,13 @@ public interface WatchlistRepository extends JpaRepository<Watchlist, Long> {
     void deleteByUserIdAndSymbol(Long userId, String symbol);
 
     long countByUserId(Long userId);
+
+    @Query("SELECT w.symbol AS symbol, COUNT(w) AS watchers FROM Watchlist w GROUP BY w.symbol ORDER BY COUNT(w) DESC")
+    List<SymbolWatchers> findMostWatchedSymbols(Pageable pageable);
+
+    interface SymbolWatchers {
+        String getSymbol();
+
+        long getWatchers();
+    }
 }
@@ -0,0 +1,265 @@
+package com.tradingplatform.market_data_service.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tradingplatform.market_data_service.dto.StockSearchResponseDto;
+import com.tradingplatform.market_data_service.model.Stock;
+import com.tradingplatform.market_data_service.repository.StockRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory typeahead index over symbols and company names, seeded from the stocks table and
+ * grown from upstream search results and company overviews. Three structures answer a query:
+ * a sorted symbol map for symbol prefixes, a sorted map of name words for word prefixes, and a
+ * trigram map for matches inside a name. Reads are lock-free; writers serialize on the index.
+ */
+@Component
+@Slf4j
+public class SymbolSearchIndex {
+
+    private static final int MAX_CANDIDATES = 1000;
+    private static final int MIN_TRIGRAM_QUERY = 3;
+
+    private static final int EXACT_SYMBOL = 1000;
+    private static final int SYMBOL_PREFIX = 800;
+    private static final int NAME_PREFIX = 700;
+    private static final int NAME_WORD_PREFIX = 600;
+    private static final int NAME_SUBSTRING = 300;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    private final NavigableMap<String, Entry> symbols = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Set<String>> words = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<String>> trigrams = new ConcurrentHashMap<>();
+
+    // Keywords upstream had nothing for, so repeated typos do not spend the API budget
+    private final Cache<String, Boolean> upstreamMisses;
+
+    public SymbolSearchIndex(MeterRegistry meterRegistry,
+                             @Value("${market.search.miss-ttl-seconds:600}") long missTtlSeconds) {
+        this.upstreamMisses = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofSeconds(missTtlSeconds))
+                .build();
+        Gauge.builder("market.search.index.size", symbols, Map::size)
+                .description("Symbols in the local search index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromStocks() {
+        try {
+            int loaded = 0;
+            for (Stock stock : stockRepository.findAll()) {
+                if (stock.getSymbol() != null && stock.getCompanyName() != null) {
+                    add(stock.getSymbol(), stock.getCompanyName(), null, null, null);
+                    loaded++;
+                }
+            }
+            log.info("Search index loaded {} symbols from the stocks table", loaded);
+        } catch (DataAccessException e) {
+            log.warn("Could not seed the search index from the stocks table: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Adds or updates a symbol. Type, region and currency left null keep what is already indexed.
+     */
+    public synchronized void add(String symbol, String name, String type, String region, String currency) {
+        if (symbol == null || symbol.isBlank() || name == null || name.isBlank()) {
+            return;
+        }
+        String key = symbol.trim().toUpperCase();
+        Entry previous = symbols.get(key);
+        Entry entry = new Entry(key, name.trim(), name.trim().toLowerCase(),
+                type != null ? type : previous != null ? previous.type : null,
+                region != null ? region : previous != null ? previous.region : null,
+                currency != null ? currency : previous != null ? previous.currency : null);
+
+        if (previous != null) {
+            if (previous.lowerName.equals(entry.lowerName)) {
+                symbols.put(key, entry);
+                return;
+            }
+            unindexName(key, previous.lowerName);
+        }
+        symbols.put(key, entry);
+        indexName(key, entry.lowerName);
+    }
+
+    public void addAll(List<StockSearchResponseDto.StockSearchResult> results) {
+        for (StockSearchResponseDto.StockSearchResult result : results) {
+            add(result.getSymbol(), result.getName(), result.getType(), result.getRegion(), result.getCurrency());
+        }
+    }
+
+    /**
+     * Best local matches, ranked: exact symbol, symbol prefix, name prefix, name word prefixes,
+     * then anywhere in the name. Shorter symbols win ties.
+     */
+    public List<StockSearchResponseDto.StockSearchResult> search(String keywords, int limit) {
+        String query = keywords == null ? "" : keywords.trim().toLowerCase();
+        if (query.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Integer> scores = new HashMap<>();
+        matchSymbols(query.toUpperCase(), scores);
+        matchNameWords(query, scores);
+        if (scores.size() < limit && query.length() >= MIN_TRIGRAM_QUERY) {
+            matchNameSubstring(query, scores);
+        }
+
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Comparator.<Map.Entry<String, Integer>>comparingInt(Map.Entry::getValue).reversed()
+                .thenComparingInt(match -> match.getKey().length())
+                .thenComparing(Map.Entry::getKey));
+
+        List<StockSearchResponseDto.StockSearchResult> results = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (Map.Entry<String, Integer> match : ranked) {
+            Entry entry = symbols.get(match.getKey());
+            if (entry != null) {
+                results.add(entry.toResult());
+                if (results.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+
+    public boolean isKnownUpstreamMiss(String keywords) {
+        return upstreamMisses.getIfPresent(keywords.trim().toLowerCase()) != null;
+    }
+
+    public void recordUpstreamMiss(String keywords) {
+        upstreamMisses.put(keywords.trim().toLowerCase(), Boolean.TRUE);
+    }
+
+    private record Entry(String symbol, String name, String lowerName, String type, String region, String currency) {
+        StockSearchResponseDto.StockSearchResult toResult() {
+            return new StockSearchResponseDto.StockSearchResult(symbol, name, type, region, currency);
+        }
+    }
+
+    // Helper methods
+
+    private void matchSymbols(String prefix, Map<String, Integer> scores) {
+        int seen = 0;
+        for (String symbol : symbols.subMap(prefix, true, prefix + Character.MAX_VALUE, false).keySet()) {
+            scores.merge(symbol, symbol.equals(prefix) ? EXACT_SYMBOL : SYMBOL_PREFIX, Math::max);
+            if (++seen == MAX_CANDIDATES) {
+                break;
+            }
+        }
+    }
+
+    // Every query word must prefix some word of the name
+    private void matchNameWords(String query, Map<String, Integer> scores) {
+        Set<String> matched = null;
+        for (String word : query.split("[^a-z0-9]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            Set<String> withWord = new HashSet<>();
+            for (Set<String> owners : words.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                withWord.addAll(owners);
+                if (withWord.size() >= MAX_CANDIDATES) {
+                    break;
+                }
+            }
+            if (matched == null) {
+                matched = withWord;
+            } else {
+                matched.retainAll(withWord);
+            }
+            if (matched.isEmpty()) {
+                return;
+            }
+        }
+        if (matched == null) {
+            return;
+        }
+
+        for (String symbol : matched) {
+            Entry entry = symbols.get(symbol);
+            if (entry != null) {
+                scores.merge(symbol, entry.lowerName.startsWith(query) ? NAME_PREFIX : NAME_WORD_PREFIX, Math::max);
+            }
+        }
+    }
+
+    private void matchNameSubstring(String query, Map<String, Integer> scores) {
+        Set<String> candidates = null;
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            Set<String> owners = trigrams.get(query.substring(i, i + 3));
+            if (owners == null) {
+                return;
+            }
+            if (candidates == null) {
+                candidates = new HashSet<>(owners);
+            } else {
+                candidates.retainAll(owners);
+            }
+            if (candidates.isEmpty()) {
+                return;
+            }
+        }
+
+        for (String symbol : candidates) {
+            Entry entry = symbols.get(symbol);
+            // Trigram hits are only candidates; confirm the whole query occurs in the name
+            if (entry != null && entry.lowerName.contains(query)) {
+                scores.merge(symbol, NAME_SUBSTRING, Math::max);
+            }
+        }
+    }
+
+    private void indexName(String symbol, String lowerName) {
+        for (String word : lowerName.split("[^a-z0-9]+")) {
+            if (!word.isEmpty()) {
+                words.computeIfAbsent(word, key -> ConcurrentHashMap.newKeySet()).add(symbol);
+            }
+        }
+        for (int i = 0; i + 3 <= lowerName.length(); i++) {
+            trigrams.computeIfAbsent(lowerName.substring(i, i + 3), key -> ConcurrentHashMap.newKeySet()).add(symbol);
+        }
+    }
+
+    private void unindexName(String symbol, String lowerName) {
+        for (String word : lowerName.split("[^a-z0-9]+")) {
+            Set<String> owners = words.get(word);
+            if (owners != null && owners.remove(symbol) && owners.isEmpty()) {
+                words.remove(word);
+            }
+        }
+        for (int i = 0; i + 3 <= lowerName.length(); i++) {
+            String trigram = lowerName.substring(i, i + 3);
+            Set<String> owners = trigrams.get(trigram);
+            if (owners != null && owners.remove(symbol) && owners.isEmpty()) {
+                trigrams.remove(trigram);
+            }
+        }
+    }
+}
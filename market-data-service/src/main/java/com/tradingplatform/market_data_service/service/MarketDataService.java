@@ -2,14 +2,22 @@ package com.tradingplatform.market_data_service.service;
 
 import com.tradingplatform.market_data_service.dto.*;
 import com.tradingplatform.market_data_service.model.Stock;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 public interface MarketDataService {
 
     StockQuoteResponseDto getQuote(String symbol);
 
+    List<StockQuoteResponseDto> getQuotes(List<String> symbols);
+
+    Mono<StockQuoteResponseDto> getQuoteAsync(String symbol);
+
+    Mono<List<StockQuoteResponseDto>> getQuotesAsync(List<String> symbols);
+
     StockDetailsResponseDto getStockDetails(String symbol);
 
     StockSearchResponseDto searchStocks(String keywords);
@@ -25,4 +33,6 @@ public interface MarketDataService {
     Stock getStockFromDb(String symbol);
 
     BigDecimal getCurrentPrice(String symbol);
+
+    Map<String, BigDecimal> getCurrentPrices(List<String> symbols);
 }
@@ -1,26 +1,38 @@
 package com.tradingplatform.market_data_service.service;
 
 import com.tradingplatform.market_data_service.client.AlphaVantageClient;
+import com.tradingplatform.market_data_service.client.UpstreamPriority;
 import com.tradingplatform.market_data_service.dto.*;
+import com.tradingplatform.market_data_service.exception.ApiException;
 import com.tradingplatform.market_data_service.exception.StockNotFoundException;
 import com.tradingplatform.market_data_service.model.Stock;
 import com.tradingplatform.market_data_service.model.Watchlist;
 import com.tradingplatform.market_data_service.repository.StockRepository;
 import com.tradingplatform.market_data_service.repository.WatchlistRepository;
+import com.tradingplatform.market_data_service.search.SymbolSearchIndex;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
+@Profile("!dev")
 @RequiredArgsConstructor
 @Slf4j
 public class MarketDataServiceImpl implements MarketDataService {
@@ -34,17 +46,134 @@ public class MarketDataServiceImpl implements MarketDataService {
     @Autowired
     private final WatchlistRepository watchlistRepository;
 
+    @Autowired
+    private final QuoteCache quoteCache;
+
+    @Autowired
+    private final QuoteLoader quoteLoader;
+
+    @Autowired
+    private final QuoteRefresher quoteRefresher;
+
+    @Autowired
+    private final StockWriteBehind stockWriteBehind;
+
+    @Autowired
+    private final SymbolSearchIndex symbolSearchIndex;
+
+    private static final int MAX_BULK_SYMBOLS = 100;
+    private static final int ASYNC_FETCH_CONCURRENCY = 16;
+    private static final int MAX_SEARCH_RESULTS = 10;
+
     @Override
-    @Cacheable(value = "stockQuotes", key = "#symbol != null ? #symbol.toUpperCase() : 'NULL'")
     public StockQuoteResponseDto getQuote(String symbol) {
         validateSymbol(symbol);
+        String normalized = symbol.toUpperCase();
+        quoteRefresher.recordDemand(normalized);
+
+        StockQuoteResponseDto cached = quoteCache.get(normalized);
+        if (cached != null) {
+            if (!quoteCache.isFresh(cached)) {
+                quoteLoader.refreshInBackground(normalized);
+            }
+            return cached;
+        }
+
         log.info("Getting quote for symbol: {}", symbol);
+        return quoteLoader.load(normalized);
+    }
+
+    @Override
+    public List<StockQuoteResponseDto> getQuotes(List<String> symbols) {
+        List<String> normalized = normalizeSymbols(symbols);
+        quoteRefresher.recordDemand(normalized);
+
+        Map<String, StockQuoteResponseDto> quotes = quoteCache.getAll(normalized);
+        quotes.values().stream()
+                .filter(quote -> !quoteCache.isFresh(quote))
+                .forEach(quote -> quoteLoader.refreshInBackground(quote.getSymbol()));
+
+        List<String> misses = normalized.stream()
+                .filter(symbol -> !quotes.containsKey(symbol))
+                .toList();
+
+        log.info("Getting {} quotes: {} cached, {} from upstream", normalized.size(), quotes.size(), misses.size());
+
+        if (!misses.isEmpty()) {
+            List<StockQuoteResponseDto> fetched = new ArrayList<>();
+            for (String symbol : misses) {
+                try {
+                    fetched.add(quoteLoader.load(symbol));
+                } catch (StockNotFoundException e) {
+                    log.warn("Skipping unknown symbol {} in bulk quote", symbol);
+                } catch (ApiException e) {
+                    // Remaining misses would hit the same limit, so return what we have
+                    log.warn("Upstream unavailable during bulk quote, {} symbols left unresolved: {}",
+                            misses.size() - fetched.size(), e.getMessage());
+                    break;
+                }
+            }
 
-        StockQuoteResponseDto quote = alphaVantageClient.getQuote(symbol.toUpperCase());
+            fetched.forEach(quote -> quotes.put(quote.getSymbol(), quote));
+        }
 
-        updateStockFromQuote(quote);
+        return normalized.stream()
+                .map(quotes::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 
-        return quote;
+    @Override
+    public Mono<StockQuoteResponseDto> getQuoteAsync(String symbol) {
+        validateSymbol(symbol);
+        String normalized = symbol.toUpperCase();
+        quoteRefresher.recordDemand(normalized);
+        UpstreamPriority priority = UpstreamPriority.current();
+
+        return Mono.fromCallable(() -> Optional.ofNullable(quoteCache.get(normalized)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cached -> {
+                    if (cached.isEmpty()) {
+                        return quoteLoader.loadAsync(normalized, priority);
+                    }
+                    if (!quoteCache.isFresh(cached.get())) {
+                        quoteLoader.refreshInBackground(normalized);
+                    }
+                    return Mono.just(cached.get());
+                });
+    }
+
+    @Override
+    public Mono<List<StockQuoteResponseDto>> getQuotesAsync(List<String> symbols) {
+        List<String> normalized = normalizeSymbols(symbols);
+        quoteRefresher.recordDemand(normalized);
+        UpstreamPriority priority = UpstreamPriority.current();
+
+        return Mono.fromCallable(() -> quoteCache.getAll(normalized))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(quotes -> {
+                    quotes.values().stream()
+                            .filter(quote -> !quoteCache.isFresh(quote))
+                            .forEach(quote -> quoteLoader.refreshInBackground(quote.getSymbol()));
+
+                    List<String> misses = normalized.stream()
+                            .filter(symbol -> !quotes.containsKey(symbol))
+                            .toList();
+
+                    // Misses are fetched concurrently; unknown or unavailable symbols are left out
+                    return Flux.fromIterable(misses)
+                            .flatMap(symbol -> quoteLoader.loadAsync(symbol, priority)
+                                    .onErrorResume(StockNotFoundException.class, e -> Mono.empty())
+                                    .onErrorResume(ApiException.class, e -> {
+                                        log.warn("Skipping {} in bulk quote: {}", symbol, e.getMessage());
+                                        return Mono.empty();
+                                    }), ASYNC_FETCH_CONCURRENCY)
+                            .doOnNext(quote -> quotes.put(quote.getSymbol(), quote))
+                            .then(Mono.fromSupplier(() -> normalized.stream()
+                                    .map(quotes::get)
+                                    .filter(Objects::nonNull)
+                                    .collect(Collectors.toList())));
+                });
     }
 
     @Override
@@ -54,25 +183,37 @@ public class MarketDataServiceImpl implements MarketDataService {
         log.info("Getting details for symbol: {}", symbol);
 
         StockDetailsResponseDto details = alphaVantageClient.getCompanyOverview(symbol.toUpperCase());
-        
-        updateStockFromDetails(details);
+        stockWriteBehind.enqueue(details);
+        symbolSearchIndex.add(details.getSymbol(), details.getCompanyName(), null, null, null);
 
         return details;
     }
 
     @Override
-    @Cacheable(value = "stockSearch", key = "#keywords != null ? #keywords.toLowerCase() : 'NULL'")
     public StockSearchResponseDto searchStocks(String keywords) {
         validateKeywords(keywords);
-        log.info("Searching stocks with keywords: {}", keywords);
-        return alphaVantageClient.searchSymbol(keywords);
+
+        // Typeahead is answered from the local index; upstream is asked only when it knows nothing
+        List<StockSearchResponseDto.StockSearchResult> local = symbolSearchIndex.search(keywords, MAX_SEARCH_RESULTS);
+        if (!local.isEmpty() || symbolSearchIndex.isKnownUpstreamMiss(keywords)) {
+            return new StockSearchResponseDto(local);
+        }
+
+        log.info("Searching stocks upstream with keywords: {}", keywords);
+        StockSearchResponseDto results = alphaVantageClient.searchSymbol(keywords);
+        if (results.getResults().isEmpty()) {
+            symbolSearchIndex.recordUpstreamMiss(keywords);
+        } else {
+            symbolSearchIndex.addAll(results.getResults());
+        }
+        return results;
     }
 
     @Override
-    @CacheEvict(value = "stockQuotes", key = "#symbol != null ? #symbol.toUpperCase() : 'NULL'")
     public void refreshQuote(String symbol) {
         validateSymbol(symbol);
         log.info("Refreshing quote cache for symbol: {}", symbol);
+        quoteCache.evict(symbol.toUpperCase());
     }
 
     // Watchlist methods
@@ -115,13 +256,22 @@ public class MarketDataServiceImpl implements MarketDataService {
     public List<WatchlistResponseDto> getWatchlist(Long userId) {
         List<Watchlist> watchlistItems = watchlistRepository.findByUserIdOrderByCreatedAtDesc(userId);
         List<WatchlistResponseDto> responses = new ArrayList<>();
+        if (watchlistItems.isEmpty()) {
+            return responses;
+        }
+
+        List<String> symbols = watchlistItems.stream().map(Watchlist::getSymbol).distinct().toList();
+        Map<String, StockQuoteResponseDto> quotes = new HashMap<>();
+        for (int from = 0; from < symbols.size(); from += MAX_BULK_SYMBOLS) {
+            getQuotes(symbols.subList(from, Math.min(from + MAX_BULK_SYMBOLS, symbols.size())))
+                    .forEach(quote -> quotes.put(quote.getSymbol(), quote));
+        }
 
         for (Watchlist item : watchlistItems) {
-            try {
-                StockQuoteResponseDto quote = getQuote(item.getSymbol());
+            StockQuoteResponseDto quote = quotes.get(item.getSymbol());
+            if (quote != null) {
                 responses.add(mapToWatchlistResponseDto(item, quote));
-            } catch (Exception e) {
-
+            } else {
                 WatchlistResponseDto response = new WatchlistResponseDto();
                 response.setId(item.getId());
                 response.setUserId(item.getUserId());
@@ -147,46 +297,16 @@ public class MarketDataServiceImpl implements MarketDataService {
         return quote.getPrice();
     }
 
-    // Helper methods
-    private void updateStockFromQuote(StockQuoteResponseDto quote) {
-        Stock stock = stockRepository.findBySymbol(quote.getSymbol())
-                .orElse(new Stock());
-
-        stock.setSymbol(quote.getSymbol());
-        stock.setCurrentPrice(quote.getPrice());
-        stock.setPreviousClose(quote.getPreviousClose());
-        stock.setOpenPrice(quote.getOpen());
-        stock.setDayHigh(quote.getDayHigh());
-        stock.setDayLow(quote.getDayLow());
-        stock.setVolume(quote.getVolume());
-        stock.setLastUpdated(LocalDateTime.now());
-
-        if (quote.getCompanyName() != null) {
-            stock.setCompanyName(quote.getCompanyName());
+    @Override
+    public Map<String, BigDecimal> getCurrentPrices(List<String> symbols) {
+        Map<String, BigDecimal> prices = new LinkedHashMap<>();
+        for (StockQuoteResponseDto quote : getQuotes(symbols)) {
+            prices.put(quote.getSymbol(), quote.getPrice());
         }
-
-        stockRepository.save(stock);
-    }
-
-    private void updateStockFromDetails(StockDetailsResponseDto details) {
-        Stock stock = stockRepository.findBySymbol(details.getSymbol())
-                .orElse(new Stock());
-
-        stock.setSymbol(details.getSymbol());
-        stock.setCompanyName(details.getCompanyName());
-        stock.setExchange(details.getExchange());
-        stock.setSector(details.getSector());
-        stock.setIndustry(details.getIndustry());
-        stock.setMarketCap(details.getMarketCap());
-        stock.setPeRatio(details.getPeRatio());
-        stock.setDividendYield(details.getDividendYield());
-        stock.setWeek52High(details.getWeek52High());
-        stock.setWeek52Low(details.getWeek52Low());
-        stock.setLastUpdated(LocalDateTime.now());
-
-        stockRepository.save(stock);
+        return prices;
     }
 
+    // Helper methods
     private WatchlistResponseDto mapToWatchlistResponseDto(Watchlist watchlist, StockQuoteResponseDto quote) {
         WatchlistResponseDto response = new WatchlistResponseDto();
         response.setId(watchlist.getId());
@@ -206,6 +326,28 @@ public class MarketDataServiceImpl implements MarketDataService {
         }
     }
 
+    private List<String> normalizeSymbols(List<String> symbols) {
+        if (symbols == null || symbols.isEmpty()) {
+            throw new IllegalArgumentException("At least one symbol is required");
+        }
+
+        List<String> normalized = symbols.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(symbol -> !symbol.isEmpty())
+                .map(String::toUpperCase)
+                .distinct()
+                .toList();
+
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("At least one symbol is required");
+        }
+        if (normalized.size() > MAX_BULK_SYMBOLS) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_SYMBOLS + " symbols per request");
+        }
+        return normalized;
+    }
+
     private void validateKeywords(String keywords) {
         if (keywords == null || keywords.trim().isEmpty()) {
             throw new IllegalArgumentException("Search keywords cannot be null or empty");
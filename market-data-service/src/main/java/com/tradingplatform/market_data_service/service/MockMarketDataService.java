@@ -1,63 +1,201 @@
 package com.tradingplatform.market_data_service.service;
 
 import com.tradingplatform.market_data_service.dto.*;
+import com.tradingplatform.market_data_service.exception.StockNotFoundException;
 import com.tradingplatform.market_data_service.model.Stock;
+import com.tradingplatform.market_data_service.search.SymbolSearchIndex;
+import com.tradingplatform.market_data_service.simulation.SimulatedMarketFeed;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
-import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Offline implementation for the {@code dev} profile, backed by {@link SimulatedMarketFeed}.
+ * The simulated universe is searchable through the shared {@link SymbolSearchIndex}, and
+ * watchlists are kept in memory, so the service runs without Alpha Vantage.
+ */
 @Service
 @Profile("dev")
 @RequiredArgsConstructor
 @Slf4j
-public class MockMarketDataService implements MarketDataService{
+public class MockMarketDataService implements MarketDataService {
+
+    private static final int MAX_SEARCH_RESULTS = 10;
+
+    @Autowired
+    private SimulatedMarketFeed feed;
+
+    @Autowired
+    private SymbolSearchIndex symbolSearchIndex;
+
+    private final Map<Long, Map<String, WatchlistResponseDto>> watchlists = new ConcurrentHashMap<>();
+    private final AtomicLong watchlistIds = new AtomicLong();
+
+    @PostConstruct
+    public void indexUniverse() {
+        for (SimulatedMarketFeed.SimulatedStock stock : feed.getStocks()) {
+            symbolSearchIndex.add(stock.getSymbol(), stock.getCompanyName(), "Equity", "United States", "USD");
+        }
+    }
+
     @Override
     public StockQuoteResponseDto getQuote(String symbol) {
-        return null;
+        StockQuoteResponseDto quote = feed.getQuote(normalize(symbol));
+        if (quote == null) {
+            throw new StockNotFoundException("Stock not found: " + symbol);
+        }
+        return quote;
+    }
+
+    @Override
+    public List<StockQuoteResponseDto> getQuotes(List<String> symbols) {
+        return symbols.stream()
+                .filter(Objects::nonNull)
+                .map(this::normalize)
+                .distinct()
+                .map(feed::getQuote)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public Mono<StockQuoteResponseDto> getQuoteAsync(String symbol) {
+        return Mono.fromSupplier(() -> getQuote(symbol));
+    }
+
+    @Override
+    public Mono<List<StockQuoteResponseDto>> getQuotesAsync(List<String> symbols) {
+        return Mono.fromSupplier(() -> getQuotes(symbols));
     }
 
     @Override
     public StockDetailsResponseDto getStockDetails(String symbol) {
-        return null;
+        StockDetailsResponseDto details = feed.getDetails(normalize(symbol));
+        if (details == null) {
+            throw new StockNotFoundException("Company details not found: " + symbol);
+        }
+        return details;
     }
 
     @Override
     public StockSearchResponseDto searchStocks(String keywords) {
-        return null;
+        return new StockSearchResponseDto(symbolSearchIndex.search(keywords, MAX_SEARCH_RESULTS));
     }
 
     @Override
     public void refreshQuote(String symbol) {
-
+        // Simulated quotes are always current
     }
 
     @Override
     public WatchlistResponseDto addToWatchlist(WatchlistRequestDto request) {
-        return null;
+        StockQuoteResponseDto quote = getQuote(request.getSymbol());
+        Map<String, WatchlistResponseDto> watchlist =
+                watchlists.computeIfAbsent(request.getUserId(), id -> new LinkedHashMap<>());
+
+        synchronized (watchlist) {
+            if (watchlist.containsKey(quote.getSymbol())) {
+                throw new RuntimeException("Stock already in watchlist");
+            }
+            WatchlistResponseDto entry = new WatchlistResponseDto(
+                    watchlistIds.incrementAndGet(),
+                    request.getUserId(),
+                    quote.getSymbol(),
+                    quote.getCompanyName(),
+                    quote.getPrice(),
+                    quote.getChangePercent(),
+                    request.getNotes(),
+                    LocalDateTime.now()
+            );
+            watchlist.put(quote.getSymbol(), entry);
+            return entry;
+        }
     }
 
     @Override
     public void removeFromWatchlist(Long userId, String symbol) {
-
+        Map<String, WatchlistResponseDto> watchlist = watchlists.getOrDefault(userId, Map.of());
+        synchronized (watchlist) {
+            if (watchlist.remove(normalize(symbol)) == null) {
+                throw new StockNotFoundException("Stock not in watchlist: " + symbol);
+            }
+        }
     }
 
     @Override
     public List<WatchlistResponseDto> getWatchlist(Long userId) {
-        return List.of();
+        Map<String, WatchlistResponseDto> watchlist = watchlists.getOrDefault(userId, Map.of());
+        synchronized (watchlist) {
+            return watchlist.values().stream()
+                    .map(entry -> {
+                        StockQuoteResponseDto quote = feed.getQuote(entry.getSymbol());
+                        return new WatchlistResponseDto(entry.getId(), entry.getUserId(), entry.getSymbol(),
+                                entry.getCompanyName(), quote.getPrice(), quote.getChangePercent(),
+                                entry.getNotes(), entry.getAddedAt());
+                    })
+                    .toList();
+        }
     }
 
     @Override
     public Stock getStockFromDb(String symbol) {
-        return null;
+        StockQuoteResponseDto quote = getQuote(symbol);
+        StockDetailsResponseDto details = feed.getDetails(quote.getSymbol());
+
+        Stock stock = new Stock();
+        stock.setSymbol(quote.getSymbol());
+        stock.setCompanyName(quote.getCompanyName());
+        stock.setExchange(details.getExchange());
+        stock.setSector(details.getSector());
+        stock.setIndustry(details.getIndustry());
+        stock.setCurrentPrice(quote.getPrice());
+        stock.setPreviousClose(quote.getPreviousClose());
+        stock.setOpenPrice(quote.getOpen());
+        stock.setDayHigh(quote.getDayHigh());
+        stock.setDayLow(quote.getDayLow());
+        stock.setVolume(quote.getVolume());
+        stock.setMarketCap(details.getMarketCap());
+        stock.setPeRatio(details.getPeRatio());
+        stock.setDividendYield(details.getDividendYield());
+        stock.setWeek52High(details.getWeek52High());
+        stock.setWeek52Low(details.getWeek52Low());
+        stock.setLastUpdated(quote.getLastUpdated());
+        return stock;
     }
 
     @Override
     public BigDecimal getCurrentPrice(String symbol) {
-        return null;
+        return getQuote(symbol).getPrice();
+    }
+
+    @Override
+    public Map<String, BigDecimal> getCurrentPrices(List<String> symbols) {
+        Map<String, BigDecimal> prices = new LinkedHashMap<>();
+        for (StockQuoteResponseDto quote : getQuotes(symbols)) {
+            prices.put(quote.getSymbol(), quote.getPrice());
+        }
+        return prices;
+    }
+
+    // Helper methods
+
+    private String normalize(String symbol) {
+        if (symbol == null || symbol.trim().isEmpty()) {
+            throw new IllegalArgumentException("Symbol cannot be null or empty");
+        }
+        return symbol.trim().toUpperCase();
     }
 }
@@ -0,0 +1,212 @@
+package com.tradingplatform.market_data_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tradingplatform.market_data_service.cache.CacheInvalidationBus;
+import com.tradingplatform.market_data_service.cache.TierMetrics;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Two-tier {@code stockQuotes} cache: an in-process L1 in front of Redis. Entries live for the
+ * fresh TTL plus a stale window; a quote older than the fresh TTL is still served while
+ * {@link QuoteLoader} refreshes it. Writes are broadcast on the {@link CacheInvalidationBus} so
+ * other instances drop their L1 copy and re-read Redis.
+ */
+@Component
+@Slf4j
+public class QuoteCache {
+
+    private static final String CACHE_NAME = "stockQuotes";
+    private static final String KEY_PREFIX = CACHE_NAME + "::";
+
+    @Autowired
+    private RedisTemplate<String, StockQuoteResponseDto> quoteRedisTemplate;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cache.stock-quote-ttl:60}")
+    private long freshSeconds;
+
+    @Value("${cache.stock-quote-stale-ttl:300}")
+    private long staleSeconds;
+
+    @Value("${cache.local.max-size:10000}")
+    private long localMaxSize;
+
+    private Cache<String, StockQuoteResponseDto> local;
+    private TierMetrics metrics;
+
+    // Notified with the symbol whenever a quote is written here or by another instance
+    private final List<Consumer<String>> updateListeners = new CopyOnWriteArrayList<>();
+
+    // Notified with the quote only for writes made by this instance, so each write is seen once cluster-wide
+    private final List<Consumer<StockQuoteResponseDto>> writeListeners = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(freshSeconds + staleSeconds))
+                .build();
+        metrics = new TierMetrics(meterRegistry, CACHE_NAME);
+        invalidationBus.register(CACHE_NAME, symbol -> {
+            if (CacheInvalidationBus.ALL_KEYS.equals(symbol)) {
+                local.invalidateAll();
+            } else {
+                local.invalidate(symbol);
+                notifyUpdated(symbol);
+            }
+        });
+    }
+
+    public void addUpdateListener(Consumer<String> listener) {
+        updateListeners.add(listener);
+    }
+
+    public void addWriteListener(Consumer<StockQuoteResponseDto> listener) {
+        writeListeners.add(listener);
+    }
+
+    public StockQuoteResponseDto get(String symbol) {
+        return getAll(List.of(symbol)).get(symbol);
+    }
+
+    public void put(StockQuoteResponseDto quote) {
+        putAll(List.of(quote));
+    }
+
+    public void evict(String symbol) {
+        local.invalidate(symbol);
+        invalidationBus.publish(CACHE_NAME, List.of(symbol));
+        try {
+            quoteRedisTemplate.delete(key(symbol));
+        } catch (DataAccessException e) {
+            log.warn("Quote cache evict failed for {}: {}", symbol, e.getMessage());
+        }
+    }
+
+    public boolean isFresh(StockQuoteResponseDto quote) {
+        return isFreshFor(quote, 0);
+    }
+
+    // True if the quote will still be fresh in the given number of seconds
+    public boolean isFreshFor(StockQuoteResponseDto quote, long seconds) {
+        return quote.getLastUpdated() != null
+                && quote.getLastUpdated().isAfter(LocalDateTime.now().minusSeconds(freshSeconds - seconds));
+    }
+
+    public Map<String, StockQuoteResponseDto> getAll(List<String> symbols) {
+        Map<String, StockQuoteResponseDto> quotes = new HashMap<>();
+        if (symbols.isEmpty()) {
+            return quotes;
+        }
+
+        List<String> remoteSymbols = new ArrayList<>();
+        for (String symbol : symbols) {
+            StockQuoteResponseDto quote = local.getIfPresent(symbol);
+            metrics.l1(quote != null);
+            if (quote != null) {
+                quotes.put(symbol, quote);
+            } else {
+                remoteSymbols.add(symbol);
+            }
+        }
+        if (remoteSymbols.isEmpty()) {
+            return quotes;
+        }
+
+        try {
+            List<StockQuoteResponseDto> values =
+                    quoteRedisTemplate.opsForValue().multiGet(remoteSymbols.stream().map(this::key).toList());
+            for (int i = 0; i < remoteSymbols.size(); i++) {
+                StockQuoteResponseDto quote = values != null ? values.get(i) : null;
+                metrics.l2(quote != null);
+                if (quote != null) {
+                    quotes.put(remoteSymbols.get(i), quote);
+                    local.put(remoteSymbols.get(i), quote);
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Quote cache read failed, treating {} symbols as misses: {}", remoteSymbols.size(), e.getMessage());
+        }
+        return quotes;
+    }
+
+    public void putAll(Collection<StockQuoteResponseDto> quotes) {
+        if (quotes.isEmpty()) {
+            return;
+        }
+
+        quotes.forEach(quote -> local.put(quote.getSymbol(), quote));
+
+        Duration ttl = Duration.ofSeconds(freshSeconds + staleSeconds);
+        try {
+            quoteRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    for (StockQuoteResponseDto quote : quotes) {
+                        operations.opsForValue().set(key(quote.getSymbol()), quote, ttl);
+                    }
+                    return null;
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("Quote cache write failed for {} quotes: {}", quotes.size(), e.getMessage());
+        }
+        List<String> symbols = quotes.stream().map(StockQuoteResponseDto::getSymbol).toList();
+        invalidationBus.publish(CACHE_NAME, symbols);
+        symbols.forEach(this::notifyUpdated);
+        quotes.forEach(this::notifyWritten);
+    }
+
+    // Helper methods
+
+    private void notifyUpdated(String symbol) {
+        for (Consumer<String> listener : updateListeners) {
+            try {
+                listener.accept(symbol);
+            } catch (RuntimeException e) {
+                log.warn("Quote update listener failed for {}: {}", symbol, e.getMessage());
+            }
+        }
+    }
+
+    private void notifyWritten(StockQuoteResponseDto quote) {
+        for (Consumer<StockQuoteResponseDto> listener : writeListeners) {
+            try {
+                listener.accept(quote);
+            } catch (RuntimeException e) {
+                log.warn("Quote write listener failed for {}: {}", quote.getSymbol(), e.getMessage());
+            }
+        }
+    }
+
+    private String key(String symbol) {
+        return KEY_PREFIX + symbol;
+    }
+}
@@ -0,0 +1,269 @@
+package com.tradingplatform.market_data_service.service;
+
+import com.tradingplatform.market_data_service.client.AlphaVantageClient;
+import com.tradingplatform.market_data_service.client.UpstreamPriority;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import com.tradingplatform.market_data_service.exception.ApiException;
+import com.tradingplatform.market_data_service.exception.UpstreamRateLimitException;
+import com.tradingplatform.market_data_service.history.PriceHistoryStore;
+import com.tradingplatform.market_data_service.repository.StockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads quotes from Alpha Vantage with at most one upstream call in flight per symbol. Concurrent
+ * callers for a symbol that is already being fetched wait for that result instead of spending
+ * another request from the API quota.
+ */
+@Component
+@Slf4j
+public class QuoteLoader {
+
+    @Autowired
+    private AlphaVantageClient alphaVantageClient;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private QuoteCache quoteCache;
+
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
+    @Autowired
+    private StockWriteBehind stockWriteBehind;
+
+    @Value("${cache.stock-quote-wait-ms:10000}")
+    private long waitTimeoutMs;
+
+    private final Map<String, CompletableFuture<StockQuoteResponseDto>> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> pendingRefreshes = ConcurrentHashMap.newKeySet();
+
+    private final ThreadPoolExecutor refreshExecutor;
+    private final Counter upstreamCalls;
+    private final Counter coalescedCalls;
+    private final Counter staleServed;
+    private final Counter degradedServed;
+
+    public QuoteLoader(MeterRegistry meterRegistry,
+                       @Value("${cache.stock-quote-refresh-threads:2}") int refreshThreads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(500), runnable -> {
+                    Thread thread = new Thread(runnable, "quote-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.upstreamCalls = Counter.builder("market.quote.upstream.calls")
+                .description("Quote requests sent to Alpha Vantage")
+                .register(meterRegistry);
+        this.coalescedCalls = Counter.builder("market.quote.coalesced")
+                .description("Quote loads that waited on a fetch already in flight")
+                .register(meterRegistry);
+        this.staleServed = Counter.builder("market.quote.stale.served")
+                .description("Expired quotes served while a background refresh runs")
+                .register(meterRegistry);
+        this.degradedServed = Counter.builder("market.quote.degraded")
+                .description("Quotes served from the stocks table because the upstream budget was exhausted")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Fetches the quote upstream, or joins the fetch another caller already started, and stores
+     * the result in the cache and, through {@link StockWriteBehind}, the stocks table. If the rate
+     * limiter turns the call away, the last stored price is returned instead, when there is one.
+     */
+    public StockQuoteResponseDto load(String symbol) {
+        try {
+            return fetch(symbol);
+        } catch (UpstreamRateLimitException e) {
+            StockQuoteResponseDto lastKnown = lastKnownQuote(symbol);
+            if (lastKnown == null) {
+                throw e;
+            }
+            degradedServed.increment();
+            log.debug("Upstream budget exhausted, serving last stored quote for {}", symbol);
+            return lastKnown;
+        }
+    }
+
+    /**
+     * Non-blocking {@link #load}. Shares the in-flight map with the blocking path, so sync and
+     * async callers for the same symbol still cause a single upstream call. Only the cache write
+     * runs on a bounded elastic thread.
+     */
+    public Mono<StockQuoteResponseDto> loadAsync(String symbol, UpstreamPriority priority) {
+        return Mono.defer(() -> {
+                    CompletableFuture<StockQuoteResponseDto> flight = new CompletableFuture<>();
+                    CompletableFuture<StockQuoteResponseDto> existing = inFlight.putIfAbsent(symbol, flight);
+                    if (existing != null) {
+                        coalescedCalls.increment();
+                        return Mono.fromFuture(existing, true)
+                                .timeout(Duration.ofMillis(waitTimeoutMs), Mono.error(() ->
+                                        new ApiException("Timed out waiting for quote of " + symbol)));
+                    }
+
+                    upstreamCalls.increment();
+                    return alphaVantageClient.getQuoteAsync(symbol, priority)
+                            .publishOn(Schedulers.boundedElastic())
+                            .doOnNext(quote -> {
+                                quoteCache.put(quote);
+                                priceHistoryStore.record(quote);
+                                stockWriteBehind.enqueue(quote);
+                            })
+                            .doOnNext(flight::complete)
+                            .doOnError(flight::completeExceptionally)
+                            .doFinally(signal -> {
+                                inFlight.remove(symbol, flight);
+                                // Cancelled or empty: release anyone who joined this flight
+                                flight.completeExceptionally(new ApiException("Quote fetch for " + symbol + " was abandoned"));
+                            });
+                })
+                .onErrorResume(UpstreamRateLimitException.class, e -> Mono.fromCallable(() -> lastKnownQuote(symbol))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .doOnNext(quote -> degradedServed.increment())
+                        .switchIfEmpty(Mono.error(e)));
+    }
+
+    // Background refreshes only ever use spare upstream budget
+    public StockQuoteResponseDto loadInBackground(String symbol) {
+        UpstreamPriority.set(UpstreamPriority.BACKGROUND);
+        try {
+            return fetch(symbol);
+        } finally {
+            UpstreamPriority.clear();
+        }
+    }
+
+    private StockQuoteResponseDto fetch(String symbol) {
+        CompletableFuture<StockQuoteResponseDto> flight = new CompletableFuture<>();
+        CompletableFuture<StockQuoteResponseDto> existing = inFlight.putIfAbsent(symbol, flight);
+        if (existing != null) {
+            coalescedCalls.increment();
+            return await(symbol, existing);
+        }
+
+        try {
+            upstreamCalls.increment();
+            StockQuoteResponseDto quote = alphaVantageClient.getQuote(symbol);
+            quoteCache.put(quote);
+            priceHistoryStore.record(quote);
+            stockWriteBehind.enqueue(quote);
+            flight.complete(quote);
+            return quote;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(symbol, flight);
+        }
+    }
+
+    // Serves a stale quote: schedules one refresh per symbol and never blocks the caller
+    public void refreshInBackground(String symbol) {
+        staleServed.increment();
+        scheduleRefresh(symbol);
+    }
+
+    /**
+     * Queues an upstream fetch for the symbol. Returns false if one is already queued or in
+     * flight, or the refresh queue is full.
+     */
+    public boolean scheduleRefresh(String symbol) {
+        if (inFlight.containsKey(symbol) || !pendingRefreshes.add(symbol)) {
+            return false;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    loadInBackground(symbol);
+                } catch (RuntimeException e) {
+                    log.warn("Background refresh of {} failed, stale quote kept: {}", symbol, e.getMessage());
+                } finally {
+                    pendingRefreshes.remove(symbol);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            pendingRefreshes.remove(symbol);
+            log.debug("Refresh queue full, {} stays stale until the next request", symbol);
+            return false;
+        }
+    }
+
+    // Helper methods
+
+    private StockQuoteResponseDto lastKnownQuote(String symbol) {
+        StockQuoteResponseDto pending = stockWriteBehind.pendingQuote(symbol);
+        if (pending != null) {
+            return pending;
+        }
+        return stockRepository.findBySymbol(symbol)
+                .filter(stock -> stock.getCurrentPrice() != null)
+                .map(stock -> {
+                    StockQuoteResponseDto quote = new StockQuoteResponseDto();
+                    quote.setSymbol(stock.getSymbol());
+                    quote.setCompanyName(stock.getCompanyName());
+                    quote.setPrice(stock.getCurrentPrice());
+                    quote.setPreviousClose(stock.getPreviousClose());
+                    quote.setOpen(stock.getOpenPrice());
+                    quote.setDayHigh(stock.getDayHigh());
+                    quote.setDayLow(stock.getDayLow());
+                    quote.setVolume(stock.getVolume());
+                    quote.setLastUpdated(stock.getLastUpdated());
+                    if (stock.getPreviousClose() != null && stock.getPreviousClose().signum() != 0) {
+                        quote.setChange(stock.getCurrentPrice().subtract(stock.getPreviousClose()));
+                        quote.setChangePercent(quote.getChange()
+                                .multiply(BigDecimal.valueOf(100))
+                                .divide(stock.getPreviousClose(), 2, RoundingMode.HALF_UP));
+                    }
+                    return quote;
+                })
+                .orElse(null);
+    }
+
+    private StockQuoteResponseDto await(String symbol, CompletableFuture<StockQuoteResponseDto> flight) {
+        try {
+            return flight.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ApiException("Failed to fetch stock quote: " + e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            throw new ApiException("Timed out waiting for quote of " + symbol);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Interrupted while waiting for quote of " + symbol);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.tradingplatform.market_data_service.service;
+
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import com.tradingplatform.market_data_service.repository.WatchlistRepository;
+import com.tradingplatform.market_data_service.stream.QuoteStreamHub;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Refreshes hot symbols before their cached quote goes stale, so reads on them never wait for
+ * Alpha Vantage. A symbol's demand is the sum of its watchlist count, open stream subscriptions
+ * and recent lookups (decaying with a configurable half-life). Each run spends at most the
+ * upstream budget accrued since the previous run on the highest-demand symbols that are due.
+ */
+@Component
+@Profile("!dev")
+@Slf4j
+public class QuoteRefresher {
+
+    private static final double LOOKUP_WEIGHT = 1.0;
+    private static final double WATCHER_WEIGHT = 2.0;
+    private static final double STREAM_WEIGHT = 5.0;
+    private static final double MIN_LOOKUP_DEMAND = 0.05;
+
+    @Autowired
+    private QuoteCache quoteCache;
+
+    @Autowired
+    private QuoteLoader quoteLoader;
+
+    @Autowired
+    private WatchlistRepository watchlistRepository;
+
+    @Autowired
+    private QuoteStreamHub quoteStreamHub;
+
+    @Value("${market.refresh.requests-per-minute:30}")
+    private double requestsPerMinute;
+
+    @Value("${market.refresh.max-symbols:200}")
+    private int maxSymbols;
+
+    @Value("${market.refresh.lead-seconds:15}")
+    private long leadSeconds;
+
+    @Value("${market.refresh.demand-half-life-seconds:600}")
+    private double demandHalfLifeSeconds;
+
+    private final Map<String, Double> lookupDemand = new ConcurrentHashMap<>();
+    private volatile Map<String, Double> watchlistDemand = Map.of();
+
+    // Only touched from the scheduler thread
+    private double tokens;
+    private long lastRunNanos = System.nanoTime();
+    private int hotSymbols;
+
+    private final Counter refreshedAhead;
+
+    public QuoteRefresher(MeterRegistry meterRegistry) {
+        this.refreshedAhead = Counter.builder("market.quote.refresh.ahead")
+                .description("Quotes fetched upstream ahead of expiry by the background refresher")
+                .register(meterRegistry);
+        Gauge.builder("market.quote.refresh.hot.symbols", this, refresher -> refresher.hotSymbols)
+                .description("Symbols ranked for background refresh on the last run")
+                .register(meterRegistry);
+    }
+
+    public void recordDemand(String symbol) {
+        lookupDemand.merge(symbol, LOOKUP_WEIGHT, Double::sum);
+    }
+
+    public void recordDemand(Collection<String> symbols) {
+        symbols.forEach(this::recordDemand);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${market.refresh.watchlist-reload-ms:300000}")
+    public void reloadWatchlistDemand() {
+        try {
+            Map<String, Double> demand = new HashMap<>();
+            for (WatchlistRepository.SymbolWatchers watched
+                    : watchlistRepository.findMostWatchedSymbols(PageRequest.of(0, maxSymbols))) {
+                demand.put(watched.getSymbol(), watched.getWatchers() * WATCHER_WEIGHT);
+            }
+            watchlistDemand = demand;
+            log.debug("Loaded watchlist demand for {} symbols", demand.size());
+        } catch (DataAccessException e) {
+            log.warn("Failed to load watchlist demand, keeping the previous set: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${market.refresh.interval-ms:5000}")
+    public void refreshHotSymbols() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRunNanos) / 1_000_000_000.0;
+        lastRunNanos = now;
+
+        // Unused budget carries over for at most ten seconds so a quiet spell cannot turn into a burst
+        double ratePerSecond = requestsPerMinute / 60.0;
+        tokens = Math.min(Math.max(1.0, ratePerSecond * 10), tokens + ratePerSecond * elapsedSeconds);
+        decayLookupDemand(elapsedSeconds);
+
+        List<String> ranked = rankSymbols();
+        hotSymbols = ranked.size();
+
+        int scheduled = 0;
+        for (String symbol : ranked) {
+            if (tokens < 1.0) {
+                break;
+            }
+            StockQuoteResponseDto cached = quoteCache.get(symbol);
+            if (cached != null && quoteCache.isFreshFor(cached, leadSeconds)) {
+                continue;
+            }
+            if (quoteLoader.scheduleRefresh(symbol)) {
+                tokens -= 1.0;
+                scheduled++;
+                refreshedAhead.increment();
+            }
+        }
+
+        if (scheduled > 0) {
+            log.debug("Scheduled {} ahead-of-expiry quote refreshes from {} hot symbols", scheduled, ranked.size());
+        }
+    }
+
+    // Helper methods
+
+    private List<String> rankSymbols() {
+        Map<String, Double> demand = new HashMap<>(watchlistDemand);
+        lookupDemand.forEach((symbol, score) -> demand.merge(symbol, score, Double::sum));
+        quoteStreamHub.getSubscribedSymbols().forEach(symbol -> demand.merge(symbol, STREAM_WEIGHT, Double::sum));
+
+        return demand.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(maxSymbols)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private void decayLookupDemand(double elapsedSeconds) {
+        double factor = Math.pow(0.5, elapsedSeconds / demandHalfLifeSeconds);
+        lookupDemand.replaceAll((symbol, score) -> score * factor);
+        lookupDemand.values().removeIf(score -> score < MIN_LOOKUP_DEMAND);
+    }
+}
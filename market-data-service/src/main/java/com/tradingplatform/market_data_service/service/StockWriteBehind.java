@@ -0,0 +1,117 @@
+package com.tradingplatform.market_data_service.service;
+
+import com.tradingplatform.market_data_service.dto.StockDetailsResponseDto;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import com.tradingplatform.market_data_service.repository.StockUpsertRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps stocks-table writes off the quote path. Updates are buffered per symbol, a newer one
+ * replacing any not yet written, and a scheduled flush upserts whatever is pending in one JDBC
+ * batch per kind. Updates from a failed flush are put back unless a newer one arrived meanwhile.
+ */
+@Component
+@Slf4j
+public class StockWriteBehind {
+
+    @Autowired
+    private StockUpsertRepository stockUpsertRepository;
+
+    private final Map<String, StockQuoteResponseDto> pendingQuotes = new ConcurrentHashMap<>();
+    private final Map<String, StockDetailsResponseDto> pendingDetails = new ConcurrentHashMap<>();
+
+    private final Counter rowsWritten;
+    private final Counter coalesced;
+    private final Counter flushFailures;
+
+    public StockWriteBehind(MeterRegistry meterRegistry) {
+        Gauge.builder("market.stock.write.pending", this, writeBehind -> writeBehind.pendingQuotes.size()
+                        + writeBehind.pendingDetails.size())
+                .description("Stock updates waiting to be written")
+                .register(meterRegistry);
+        this.rowsWritten = Counter.builder("market.stock.write.rows")
+                .description("Stock rows upserted by the write-behind flush")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("market.stock.write.coalesced")
+                .description("Stock updates replaced by a newer one before being written")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("market.stock.write.failures")
+                .description("Write-behind flushes that failed and were retried")
+                .register(meterRegistry);
+    }
+
+    public void enqueue(StockQuoteResponseDto quote) {
+        if (pendingQuotes.put(quote.getSymbol(), quote) != null) {
+            coalesced.increment();
+        }
+    }
+
+    public void enqueue(StockDetailsResponseDto details) {
+        if (pendingDetails.put(details.getSymbol(), details) != null) {
+            coalesced.increment();
+        }
+    }
+
+    // The newest quote not yet in the stocks table, if any
+    public StockQuoteResponseDto pendingQuote(String symbol) {
+        return pendingQuotes.get(symbol);
+    }
+
+    @Scheduled(fixedDelayString = "${market.write-behind.flush-interval-ms:1000}")
+    public void flush() {
+        List<StockQuoteResponseDto> quotes = drain(pendingQuotes);
+        if (!quotes.isEmpty()) {
+            try {
+                stockUpsertRepository.upsertQuotes(quotes);
+                rowsWritten.increment(quotes.size());
+            } catch (DataAccessException e) {
+                flushFailures.increment();
+                log.warn("Failed to write {} stock quotes, will retry: {}", quotes.size(), e.getMessage());
+                quotes.forEach(quote -> pendingQuotes.putIfAbsent(quote.getSymbol(), quote));
+            }
+        }
+
+        List<StockDetailsResponseDto> details = drain(pendingDetails);
+        if (!details.isEmpty()) {
+            try {
+                stockUpsertRepository.upsertDetails(details);
+                rowsWritten.increment(details.size());
+            } catch (DataAccessException e) {
+                flushFailures.increment();
+                log.warn("Failed to write {} stock overviews, will retry: {}", details.size(), e.getMessage());
+                details.forEach(overview -> pendingDetails.putIfAbsent(overview.getSymbol(), overview));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Helper methods
+
+    private <T> List<T> drain(Map<String, T> pending) {
+        List<T> drained = new ArrayList<>(pending.size());
+        for (String symbol : pending.keySet()) {
+            T update = pending.remove(symbol);
+            if (update != null) {
+                drained.add(update);
+            }
+        }
+        return drained;
+    }
+}
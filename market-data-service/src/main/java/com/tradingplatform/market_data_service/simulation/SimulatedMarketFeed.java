@@ -0,0 +1,251 @@
+package com.tradingplatform.market_data_service.simulation;
+
+import com.tradingplatform.market_data_service.dto.StockDetailsResponseDto;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import com.tradingplatform.market_data_service.history.PriceHistoryStore;
+import com.tradingplatform.market_data_service.stream.PriceEventPublisher;
+import com.tradingplatform.market_data_service.stream.QuoteStreamHub;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic market for the {@code dev} profile. A universe of symbols is generated
+ * from a seed, and every tick moves each symbol's price by a random-walk step with its own
+ * volatility, tracking the day's open/high/low/volume. The same seed and tick count always give
+ * the same prices, so load tests are repeatable without calling Alpha Vantage.
+ */
+@Component
+@Profile("dev")
+@Slf4j
+public class SimulatedMarketFeed {
+
+    private static final List<String> WELL_KNOWN = List.of(
+            "AAPL", "MSFT", "GOOGL", "AMZN", "TSLA", "META", "NVDA", "JPM", "V", "JNJ",
+            "WMT", "PG", "MA", "HD", "DIS", "BAC", "NFLX", "ADBE", "KO", "PEP", "INTC", "CSCO", "IBM", "ORCL");
+    private static final String[] SYLLABLES = {
+            "ac", "al", "ar", "bel", "cor", "dyn", "en", "gen", "hel", "in", "lux", "mar",
+            "nov", "om", "par", "quin", "ro", "sol", "ter", "ul", "ver", "xen", "zen", "tri"};
+    private static final String[] SUFFIXES = {"Corp", "Holdings", "Group", "Systems", "Industries", "Labs", "Partners"};
+    private static final String[] SECTORS = {
+            "TECHNOLOGY", "HEALTHCARE", "FINANCIAL SERVICES", "ENERGY", "INDUSTRIALS", "CONSUMER CYCLICAL", "UTILITIES"};
+    private static final String[] EXCHANGES = {"NASDAQ", "NYSE"};
+
+    @Autowired
+    private QuoteStreamHub quoteStreamHub;
+
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
+    @Autowired
+    private PriceEventPublisher priceEventPublisher;
+
+    // History is kept for the leading symbols only; recording the whole universe every tick
+    // would write gigabytes of second bars a day
+    @Value("${market.simulation.history-symbols:50}")
+    private int historySymbols;
+
+    private final Map<String, SimulatedStock> universe;
+    private final List<SimulatedStock> stocks;
+    private final int ticksPerDay;
+    private long tick;
+
+    public SimulatedMarketFeed(@Value("${market.simulation.seed:42}") long seed,
+                               @Value("${market.simulation.symbols:5000}") int symbolCount,
+                               @Value("${market.simulation.ticks-per-day:23400}") int ticksPerDay) {
+        this.ticksPerDay = ticksPerDay;
+        this.universe = generateUniverse(seed, symbolCount);
+        this.stocks = List.copyOf(universe.values());
+        log.info("Simulated market feed ready with {} symbols (seed {})", stocks.size(), seed);
+    }
+
+    @Scheduled(fixedRateString = "${market.simulation.tick-interval-ms:1000}")
+    public void tick() {
+        tick++;
+        boolean newDay = ticksPerDay > 0 && tick % ticksPerDay == 0;
+        Set<String> subscribed = quoteStreamHub.getSubscribedSymbols();
+
+        for (int i = 0; i < stocks.size(); i++) {
+            SimulatedStock stock = stocks.get(i);
+            if (newDay) {
+                stock.rollDay();
+            }
+            stock.step();
+            if (i < historySymbols) {
+                priceHistoryStore.record(stock.quote);
+            }
+            if (subscribed.contains(stock.symbol)) {
+                quoteStreamHub.publish(stock.quote);
+            }
+            priceEventPublisher.offer(stock.quote);
+        }
+    }
+
+    public StockQuoteResponseDto getQuote(String symbol) {
+        SimulatedStock stock = universe.get(symbol);
+        return stock != null ? stock.quote : null;
+    }
+
+    public StockDetailsResponseDto getDetails(String symbol) {
+        SimulatedStock stock = universe.get(symbol);
+        return stock != null ? stock.details() : null;
+    }
+
+    public List<SimulatedStock> getStocks() {
+        return stocks;
+    }
+
+    public static final class SimulatedStock {
+        final String symbol;
+        final String companyName;
+        final String sector;
+        final String exchange;
+        final long sharesOutstanding;
+        final double earningsPerShare;
+        final double dividendYield;
+        private final double volatility;
+        private final SplittableRandom random;
+
+        private double price;
+        private double previousClose;
+        private double open;
+        private double high;
+        private double low;
+        private double yearHigh;
+        private double yearLow;
+        private long volume;
+        private volatile StockQuoteResponseDto quote;
+
+        SimulatedStock(String symbol, String companyName, SplittableRandom random) {
+            this.symbol = symbol;
+            this.companyName = companyName;
+            this.random = random;
+            this.sector = SECTORS[random.nextInt(SECTORS.length)];
+            this.exchange = EXCHANGES[random.nextInt(EXCHANGES.length)];
+            this.volatility = 0.0005 + random.nextDouble() * 0.0025;
+            this.sharesOutstanding = 50_000_000L + random.nextLong(5_000_000_000L);
+
+            // Log-uniform starting prices between $5 and $800
+            this.price = Math.exp(Math.log(5) + random.nextDouble() * (Math.log(800) - Math.log(5)));
+            this.earningsPerShare = price / (8 + random.nextDouble() * 40);
+            this.dividendYield = random.nextInt(3) == 0 ? 0 : 0.005 + random.nextDouble() * 0.03;
+            this.previousClose = price;
+            this.yearHigh = price * (1.05 + random.nextDouble() * 0.4);
+            this.yearLow = price * (0.6 + random.nextDouble() * 0.35);
+            rollDay();
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public String getCompanyName() {
+            return companyName;
+        }
+
+        void rollDay() {
+            previousClose = price;
+            open = price;
+            high = price;
+            low = price;
+            volume = 0;
+            publish();
+        }
+
+        void step() {
+            price = Math.max(0.01, price * Math.exp(volatility * random.nextGaussian()));
+            high = Math.max(high, price);
+            low = Math.min(low, price);
+            yearHigh = Math.max(yearHigh, price);
+            yearLow = Math.min(yearLow, price);
+            volume += 100L * (1 + random.nextInt(50));
+            publish();
+        }
+
+        // Readers only ever see a complete snapshot
+        private void publish() {
+            BigDecimal last = money(price, 4);
+            BigDecimal close = money(previousClose, 4);
+            BigDecimal change = last.subtract(close);
+            quote = new StockQuoteResponseDto(
+                    symbol,
+                    companyName,
+                    last,
+                    change,
+                    change.multiply(BigDecimal.valueOf(100)).divide(close, 2, RoundingMode.HALF_UP),
+                    close,
+                    money(open, 4),
+                    money(high, 4),
+                    money(low, 4),
+                    volume,
+                    LocalDateTime.now()
+            );
+        }
+
+        StockDetailsResponseDto details() {
+            StockQuoteResponseDto current = quote;
+            return new StockDetailsResponseDto(
+                    symbol,
+                    companyName,
+                    exchange,
+                    sector,
+                    sector + " SERVICES",
+                    current.getPrice().multiply(BigDecimal.valueOf(sharesOutstanding)).longValue(),
+                    current.getPrice().divide(money(earningsPerShare, 4), 2, RoundingMode.HALF_UP),
+                    money(dividendYield, 4),
+                    money(yearHigh, 4),
+                    money(yearLow, 4),
+                    companyName + " is a simulated " + sector.toLowerCase() + " company used for offline testing."
+            );
+        }
+
+        private static BigDecimal money(double value, int scale) {
+            return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP);
+        }
+    }
+
+    // Helper methods
+
+    private Map<String, SimulatedStock> generateUniverse(long seed, int symbolCount) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<String, SimulatedStock> generated = new LinkedHashMap<>();
+
+        Set<String> symbols = new LinkedHashSet<>(WELL_KNOWN.subList(0, Math.min(symbolCount, WELL_KNOWN.size())));
+        while (symbols.size() < symbolCount) {
+            symbols.add(randomSymbol(random));
+        }
+
+        for (String symbol : symbols) {
+            // Each symbol gets its own stream so its walk does not depend on the others
+            generated.put(symbol, new SimulatedStock(symbol, randomName(random), random.split()));
+        }
+        return generated;
+    }
+
+    private String randomSymbol(SplittableRandom random) {
+        int length = 3 + random.nextInt(2);
+        StringBuilder symbol = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            symbol.append((char) ('A' + random.nextInt(26)));
+        }
+        return symbol.toString();
+    }
+
+    private String randomName(SplittableRandom random) {
+        String stem = SYLLABLES[random.nextInt(SYLLABLES.length)] + SYLLABLES[random.nextInt(SYLLABLES.length)];
+        return Character.toUpperCase(stem.charAt(0)) + stem.substring(1) + " " + SUFFIXES[random.nextInt(SUFFIXES.length)];
+    }
+}
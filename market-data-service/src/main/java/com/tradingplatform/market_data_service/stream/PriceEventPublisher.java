@@ -0,0 +1,104 @@
+package com.tradingplatform.market_data_service.stream;
+
+import com.tradingplatform.market_data_service.dto.QuoteUpdateDto;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import com.tradingplatform.market_data_service.service.QuoteCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes price changes to Kafka for services that mark positions to market. Updates are
+ * conflated per symbol between flushes, so a symbol that ticks many times in an interval costs
+ * one record carrying its latest price, and a quote rewritten at an unchanged price costs none.
+ * Records are keyed by symbol, which keeps each symbol's updates in order on one partition.
+ */
+@Component
+@Slf4j
+public class PriceEventPublisher {
+
+    @Autowired
+    private KafkaTemplate<String, QuoteUpdateDto> priceUpdateKafkaTemplate;
+
+    @Autowired
+    private QuoteCache quoteCache;
+
+    @Value("${market.price-events.topic:price-updates}")
+    private String topic;
+
+    private final Map<String, QuoteUpdateDto> pending = new ConcurrentHashMap<>();
+    private final Map<String, BigDecimal> lastPublished = new ConcurrentHashMap<>();
+
+    private final Counter published;
+    private final Counter conflated;
+    private final Counter failures;
+
+    public PriceEventPublisher(MeterRegistry meterRegistry) {
+        this.published = Counter.builder("market.price-events.published")
+                .description("Price updates sent to Kafka")
+                .register(meterRegistry);
+        this.conflated = Counter.builder("market.price-events.conflated")
+                .description("Price updates replaced by a newer price before they were sent")
+                .register(meterRegistry);
+        this.failures = Counter.builder("market.price-events.failures")
+                .description("Price updates Kafka did not accept")
+                .register(meterRegistry);
+        Gauge.builder("market.price-events.pending", pending, Map::size)
+                .description("Symbols with a price update waiting for the next flush")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        quoteCache.addWriteListener(this::offer);
+    }
+
+    public void offer(StockQuoteResponseDto quote) {
+        if (quote.getSymbol() == null || quote.getPrice() == null) {
+            return;
+        }
+        BigDecimal last = lastPublished.get(quote.getSymbol());
+        if (last != null && last.compareTo(quote.getPrice()) == 0) {
+            // Back at the published price, so a different price still pending is stale and must not go out
+            if (pending.remove(quote.getSymbol()) != null) {
+                conflated.increment();
+            }
+            return;
+        }
+        if (pending.put(quote.getSymbol(), QuoteUpdateDto.from(quote)) != null) {
+            conflated.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${market.price-events.flush-interval-ms:1000}")
+    public void flush() {
+        for (String symbol : pending.keySet()) {
+            QuoteUpdateDto update = pending.remove(symbol);
+            if (update == null) {
+                continue;
+            }
+            lastPublished.put(symbol, update.getPrice());
+            priceUpdateKafkaTemplate.send(topic, symbol, update).whenComplete((result, e) -> {
+                if (e == null) {
+                    published.increment();
+                } else {
+                    failures.increment();
+                    // Not resent: forgetting it lets the symbol's next write go out even at the same price
+                    lastPublished.remove(symbol, update.getPrice());
+                    log.debug("Failed to publish price update for {}: {}", symbol, e.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.tradingplatform.market_data_service.stream;
+
+import com.tradingplatform.market_data_service.dto.QuoteUpdateDto;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import com.tradingplatform.market_data_service.service.QuoteCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes quote changes to SSE subscribers. There is one topic per symbol: a cache write for a
+ * symbol is compared against the last streamed price once and, if it moved, the same update
+ * object is handed to every subscriber of that symbol. Writes from other instances arrive
+ * through the cache invalidation channel, so any instance can serve any subscriber.
+ */
+@Component
+@Slf4j
+public class QuoteStreamHub {
+
+    private static final int MAX_SYMBOLS_PER_SUBSCRIPTION = 100;
+
+    @Autowired
+    private QuoteCache quoteCache;
+
+    @Value("${market.stream.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    private final Map<String, SymbolTopic> topics = new ConcurrentHashMap<>();
+    private final Set<QuoteSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final ThreadPoolExecutor sendExecutor;
+    private final Counter updatesSent;
+    private final Counter updatesConflated;
+
+    public QuoteStreamHub(MeterRegistry meterRegistry,
+                          @Value("${market.stream.send-threads:4}") int sendThreads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sendExecutor = new ThreadPoolExecutor(sendThreads, sendThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(10000), runnable -> {
+                    Thread thread = new Thread(runnable, "quote-stream-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.updatesSent = Counter.builder("market.stream.updates.sent")
+                .description("Quote updates written to SSE subscribers")
+                .register(meterRegistry);
+        this.updatesConflated = Counter.builder("market.stream.updates.conflated")
+                .description("Quote updates replaced by a newer price before a slow subscriber received them")
+                .register(meterRegistry);
+        Gauge.builder("market.stream.subscribers", subscribers, Set::size)
+                .description("Open quote stream connections")
+                .register(meterRegistry);
+        Gauge.builder("market.stream.symbols", topics, Map::size)
+                .description("Symbols with at least one stream subscriber")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        quoteCache.addUpdateListener(this::onQuoteUpdated);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.getEmitter().complete());
+        sendExecutor.shutdownNow();
+    }
+
+    /**
+     * Opens a stream for the given symbols. Whatever is cached for them is sent first so the
+     * client does not need a separate quote request; after that only price changes are pushed.
+     * Nothing is fetched upstream here: a symbol missing from the cache is picked up by the
+     * refresher as a streamed symbol, and its quote arrives as an update.
+     */
+    public SseEmitter subscribe(List<String> symbols) {
+        Set<String> normalized = normalizeSymbols(symbols);
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        QuoteSubscriber subscriber = new QuoteSubscriber(emitter, normalized, sendExecutor,
+                updatesSent, updatesConflated);
+        subscriber.onClose(() -> unsubscribe(subscriber));
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        subscribers.add(subscriber);
+        for (String symbol : normalized) {
+            // Inside compute so a concurrent unsubscribe cannot drop the topic we are joining
+            topics.compute(symbol, (key, topic) -> {
+                SymbolTopic joined = topic != null ? topic : new SymbolTopic();
+                joined.subscribers.add(subscriber);
+                return joined;
+            });
+        }
+        for (StockQuoteResponseDto quote : quoteCache.getAll(List.copyOf(normalized)).values()) {
+            if (quote.getPrice() != null) {
+                subscriber.offer(QuoteUpdateDto.from(quote));
+            }
+        }
+
+        log.debug("Quote stream opened for {} symbols, {} subscribers", normalized.size(), subscribers.size());
+        return emitter;
+    }
+
+    public Set<String> getSubscribedSymbols() {
+        return topics.keySet();
+    }
+
+    /**
+     * Fans a quote out to the symbol's subscribers if its price differs from the last one streamed.
+     */
+    public void publish(StockQuoteResponseDto quote) {
+        SymbolTopic topic = topics.get(quote.getSymbol());
+        if (topic == null || quote.getPrice() == null) {
+            return;
+        }
+        BigDecimal previous = topic.lastPrice.getAndSet(quote.getPrice());
+        if (previous != null && previous.compareTo(quote.getPrice()) == 0) {
+            return;
+        }
+
+        QuoteUpdateDto update = QuoteUpdateDto.from(quote);
+        topic.subscribers.forEach(subscriber -> subscriber.offer(update));
+    }
+
+    // Keeps idle connections from being dropped by proxies and detects clients that went away
+    @Scheduled(fixedDelayString = "${market.stream.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        subscribers.forEach(QuoteSubscriber::heartbeat);
+    }
+
+    // Helper methods
+
+    private void onQuoteUpdated(String symbol) {
+        if (!topics.containsKey(symbol)) {
+            return;
+        }
+
+        StockQuoteResponseDto quote = quoteCache.get(symbol);
+        if (quote != null) {
+            publish(quote);
+        }
+    }
+
+    private void unsubscribe(QuoteSubscriber subscriber) {
+        subscribers.remove(subscriber);
+        for (String symbol : subscriber.getSymbols()) {
+            topics.computeIfPresent(symbol, (key, topic) -> {
+                topic.subscribers.remove(subscriber);
+                return topic.subscribers.isEmpty() ? null : topic;
+            });
+        }
+    }
+
+    private Set<String> normalizeSymbols(List<String> symbols) {
+        Set<String> normalized = new LinkedHashSet<>();
+        if (symbols != null) {
+            symbols.stream()
+                    .filter(Objects::nonNull)
+                    .map(String::trim)
+                    .filter(symbol -> !symbol.isEmpty())
+                    .map(String::toUpperCase)
+                    .forEach(normalized::add);
+        }
+
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("At least one symbol is required");
+        }
+        if (normalized.size() > MAX_SYMBOLS_PER_SUBSCRIPTION) {
+            throw new IllegalArgumentException("At most " + MAX_SYMBOLS_PER_SUBSCRIPTION + " symbols per stream");
+        }
+        return Set.copyOf(normalized);
+    }
+
+    private static final class SymbolTopic {
+        final Set<QuoteSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+        final AtomicReference<BigDecimal> lastPrice = new AtomicReference<>();
+    }
+}
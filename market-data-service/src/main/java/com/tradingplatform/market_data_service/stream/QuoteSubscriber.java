@@ -0,0 +1,122 @@
+package com.tradingplatform.market_data_service.stream;
+
+import com.tradingplatform.market_data_service.dto.QuoteUpdateDto;
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One SSE connection. Updates are conflated per symbol: while a send is in progress only the
+ * latest update for each symbol is kept, so a slow client skips intermediate prices instead of
+ * building an unbounded backlog.
+ */
+@Slf4j
+class QuoteSubscriber {
+
+    private final SseEmitter emitter;
+    private final Set<String> symbols;
+    private final Executor executor;
+    private final Counter sent;
+    private final Counter conflated;
+
+    private final Map<String, QuoteUpdateDto> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean heartbeatDue;
+    private volatile Runnable onClose = () -> { };
+
+    QuoteSubscriber(SseEmitter emitter, Set<String> symbols, Executor executor, Counter sent, Counter conflated) {
+        this.emitter = emitter;
+        this.symbols = symbols;
+        this.executor = executor;
+        this.sent = sent;
+        this.conflated = conflated;
+    }
+
+    Set<String> getSymbols() {
+        return symbols;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    void onClose(Runnable onClose) {
+        this.onClose = onClose;
+    }
+
+    void offer(QuoteUpdateDto update) {
+        if (pending.put(update.getSymbol(), update) != null) {
+            conflated.increment();
+        }
+        scheduleDrain();
+    }
+
+    void heartbeat() {
+        heartbeatDue = true;
+        scheduleDrain();
+    }
+
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            pending.clear();
+            onClose.run();
+        }
+    }
+
+    // Helper methods
+
+    private void scheduleDrain() {
+        if (closed.get() || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Updates stay conflated in pending and go out with the next offer
+            draining.set(false);
+        }
+    }
+
+    private void drain() {
+        try {
+            do {
+                sendPending();
+                draining.set(false);
+            } while (hasWork() && draining.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Quote stream closed by client: {}", e.getMessage());
+            draining.set(false);
+            emitter.completeWithError(e);
+            close();
+        }
+    }
+
+    private void sendPending() throws IOException {
+        Iterator<String> iterator = pending.keySet().iterator();
+        while (iterator.hasNext() && !closed.get()) {
+            QuoteUpdateDto update = pending.remove(iterator.next());
+            if (update != null) {
+                emitter.send(SseEmitter.event().name("quote").data(update));
+                sent.increment();
+            }
+        }
+        if (heartbeatDue && !closed.get()) {
+            heartbeatDue = false;
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    private boolean hasWork() {
+        return !closed.get() && (!pending.isEmpty() || heartbeatDue);
+    }
+}
@@ -0,0 +1,112 @@
+package com.tradingplatform.market_data_service.cache.codec;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tradingplatform.market_data_service.dto.StockDetailsResponseDto;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis value codecs: the binary {@link QuoteCodec}/{@link DetailsCodec} against the typed JSON
+ * serializer they replaced, configured as RedisConfig had it. Bytes per entry are printed at
+ * setup; run {@code main} for ns/op and, from the GC profiler, bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CacheCodecBenchmark {
+
+    private final QuoteCodec quoteCodec = new QuoteCodec();
+    private final DetailsCodec detailsCodec = new DetailsCodec();
+    private GenericJackson2JsonRedisSerializer json;
+
+    private StockQuoteResponseDto quote;
+    private byte[] quoteBinary;
+    private byte[] quoteJson;
+    private byte[] detailsBinary;
+    private byte[] detailsJson;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.activateDefaultTyping(
+                BasicPolymorphicTypeValidator.builder().allowIfBaseType(Object.class).build(),
+                ObjectMapper.DefaultTyping.NON_FINAL,
+                JsonTypeInfo.As.PROPERTY);
+        json = new GenericJackson2JsonRedisSerializer(mapper);
+
+        quote = new StockQuoteResponseDto("IBM", "International Business Machines",
+                new BigDecimal("169.8400"), new BigDecimal("1.7200"), new BigDecimal("1.02"),
+                new BigDecimal("168.1200"), new BigDecimal("168.4500"), new BigDecimal("170.2200"),
+                new BigDecimal("167.9100"), 4_128_391L, LocalDateTime.now());
+        StockDetailsResponseDto details = new StockDetailsResponseDto("IBM", "International Business Machines",
+                "NYSE", "TECHNOLOGY", "INFORMATION TECHNOLOGY SERVICES", 155_400_000_000L,
+                new BigDecimal("19.2400"), new BigDecimal("0.0390"), new BigDecimal("199.1800"),
+                new BigDecimal("135.8700"),
+                "International Business Machines Corporation provides integrated solutions and services worldwide.");
+
+        quoteBinary = quoteCodec.encode(quote);
+        quoteJson = json.serialize(quote);
+        detailsBinary = detailsCodec.encode(details);
+        detailsJson = json.serialize(details);
+
+        System.out.printf("%nBytes per entry - quote: binary %d, json %d; details: binary %d, json %d%n",
+                quoteBinary.length, quoteJson.length, detailsBinary.length, detailsJson.length);
+    }
+
+    @Benchmark
+    public byte[] quoteEncodeBinary() {
+        return quoteCodec.encode(quote);
+    }
+
+    @Benchmark
+    public byte[] quoteEncodeJson() {
+        return json.serialize(quote);
+    }
+
+    @Benchmark
+    public StockQuoteResponseDto quoteDecodeBinary() {
+        return quoteCodec.decode(quoteBinary);
+    }
+
+    @Benchmark
+    public Object quoteDecodeJson() {
+        return json.deserialize(quoteJson);
+    }
+
+    @Benchmark
+    public StockDetailsResponseDto detailsDecodeBinary() {
+        return detailsCodec.decode(detailsBinary);
+    }
+
+    @Benchmark
+    public Object detailsDecodeJson() {
+        return json.deserialize(detailsJson);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CacheCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,190 @@
+package com.tradingplatform.market_data_service.cache.codec;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tradingplatform.market_data_service.dto.StockDetailsResponseDto;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CacheCodecTest {
+
+    // Values the fixed-point and varint encodings have to get right at their edges
+    private static final List<BigDecimal> DECIMALS = List.of(
+            BigDecimal.ZERO,
+            new BigDecimal("0.0000"),
+            new BigDecimal("-0.00005"),
+            new BigDecimal("169.8400"),
+            new BigDecimal("-12345678.12345678"),
+            new BigDecimal("1E+3"),
+            BigDecimal.valueOf(Long.MAX_VALUE),
+            BigDecimal.valueOf(Long.MIN_VALUE, 4),
+            new BigDecimal("92233720368547758070.5"),
+            new BigDecimal("1E-127"),
+            new BigDecimal("1E-128"),
+            new BigDecimal("1E+200"));
+
+    private final QuoteCodec quoteCodec = new QuoteCodec();
+    private final DetailsCodec detailsCodec = new DetailsCodec();
+    private GenericJackson2JsonRedisSerializer json;
+
+    @BeforeEach
+    void setUp() {
+        // Configured as RedisConfig had it before the stockQuotes and stockDetails caches went binary
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.activateDefaultTyping(
+                BasicPolymorphicTypeValidator.builder().allowIfBaseType(Object.class).build(),
+                ObjectMapper.DefaultTyping.NON_FINAL,
+                JsonTypeInfo.As.PROPERTY);
+        json = new GenericJackson2JsonRedisSerializer(mapper);
+    }
+
+    @Test
+    void quoteRoundTripsLikeTheJsonSerializer() {
+        StockQuoteResponseDto quote = quote();
+
+        StockQuoteResponseDto decoded = quoteCodec.decode(quoteCodec.encode(quote));
+
+        assertEquals(quote, decoded);
+        assertEquals(json.deserialize(json.serialize(quote)), decoded);
+    }
+
+    @Test
+    void detailsRoundTripLikeTheJsonSerializer() {
+        StockDetailsResponseDto details = details();
+
+        StockDetailsResponseDto decoded = detailsCodec.decode(detailsCodec.encode(details));
+
+        assertEquals(details, decoded);
+        assertEquals(json.deserialize(json.serialize(details)), decoded);
+    }
+
+    @Test
+    void nullFieldsStayNull() {
+        assertEquals(new StockQuoteResponseDto(), quoteCodec.decode(quoteCodec.encode(new StockQuoteResponseDto())));
+        assertEquals(new StockDetailsResponseDto(), detailsCodec.decode(detailsCodec.encode(new StockDetailsResponseDto())));
+
+        StockQuoteResponseDto quote = quote();
+        quote.setCompanyName(null);
+        quote.setChangePercent(null);
+        quote.setVolume(null);
+        assertEquals(quote, quoteCodec.decode(quoteCodec.encode(quote)));
+
+        StockDetailsResponseDto details = details();
+        details.setIndustry(null);
+        details.setPeRatio(null);
+        details.setDescription(null);
+        assertEquals(details, detailsCodec.decode(detailsCodec.encode(details)));
+    }
+
+    @Test
+    void decimalsKeepTheirValueAndScale() {
+        for (BigDecimal value : DECIMALS) {
+            StockQuoteResponseDto quote = new StockQuoteResponseDto();
+            quote.setPrice(value);
+
+            StockQuoteResponseDto decoded = quoteCodec.decode(quoteCodec.encode(quote));
+
+            // BigDecimal equality includes the scale, so 169.84 and 169.8400 are told apart
+            assertEquals(quote, decoded, value.toString());
+            assertEquals(json.deserialize(json.serialize(quote)), decoded, value.toString());
+        }
+    }
+
+    @Test
+    void longsRoundTripAtTheirLimits() {
+        for (long value : new long[]{0L, 1L, -1L, 63L, -64L, 64L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            StockQuoteResponseDto quote = new StockQuoteResponseDto();
+            quote.setVolume(value);
+            StockDetailsResponseDto details = new StockDetailsResponseDto();
+            details.setMarketCap(value);
+
+            assertEquals(value, quoteCodec.decode(quoteCodec.encode(quote)).getVolume());
+            assertEquals(value, detailsCodec.decode(detailsCodec.encode(details)).getMarketCap());
+        }
+    }
+
+    @Test
+    void stringsRoundTripAsUtf8() {
+        StockDetailsResponseDto details = details();
+        details.setCompanyName("Société Générale – 日本電信電話 🚀");
+        details.setExchange("");
+        details.setDescription("x".repeat(100_000));
+
+        assertEquals(details, detailsCodec.decode(detailsCodec.encode(details)));
+    }
+
+    @Test
+    void lastUpdatedKeepsMillisecondPrecision() {
+        StockQuoteResponseDto quote = quote();
+        quote.setLastUpdated(LocalDateTime.of(2024, 5, 17, 15, 59, 59, 123_456_789));
+
+        assertEquals(LocalDateTime.of(2024, 5, 17, 15, 59, 59, 123_000_000),
+                quoteCodec.decode(quoteCodec.encode(quote)).getLastUpdated());
+    }
+
+    @Test
+    void unknownVersionDecodesToNull() {
+        byte[] quoteBytes = quoteCodec.encode(quote());
+        quoteBytes[0] = (byte) (QuoteCodec.VERSION + 1);
+        byte[] detailsBytes = detailsCodec.encode(details());
+        detailsBytes[0] = (byte) (DetailsCodec.VERSION + 1);
+
+        assertNull(quoteCodec.decode(quoteBytes));
+        assertNull(detailsCodec.decode(detailsBytes));
+    }
+
+    @Test
+    void serializerTreatsUnreadableEntriesAsMisses() {
+        BinaryRedisSerializer<StockQuoteResponseDto> serializer = new BinaryRedisSerializer<>(quoteCodec);
+        byte[] encoded = serializer.serialize(quote());
+
+        assertEquals(quote(), serializer.deserialize(encoded));
+        assertNull(serializer.deserialize(Arrays.copyOf(encoded, encoded.length / 2)));
+        assertNull(serializer.deserialize(json.serialize(quote())));
+        assertNull(serializer.deserialize(new byte[0]));
+        assertNull(serializer.deserialize(null));
+        assertNull(serializer.serialize(null));
+    }
+
+    @Test
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    void serializerRejectsTheWrongType() {
+        BinaryRedisSerializer serializer = new BinaryRedisSerializer<>(quoteCodec);
+
+        assertThrows(SerializationException.class, () -> serializer.serialize(details()));
+    }
+
+    // Helper methods
+
+    private static StockQuoteResponseDto quote() {
+        return new StockQuoteResponseDto("IBM", "International Business Machines",
+                new BigDecimal("169.8400"), new BigDecimal("-1.7200"), new BigDecimal("-1.02"),
+                new BigDecimal("168.1200"), new BigDecimal("168.4500"), new BigDecimal("170.2200"),
+                new BigDecimal("167.9100"), 4_128_391L, LocalDateTime.of(2024, 5, 17, 15, 59, 59, 123_000_000));
+    }
+
+    private static StockDetailsResponseDto details() {
+        return new StockDetailsResponseDto("IBM", "International Business Machines",
+                "NYSE", "TECHNOLOGY", "INFORMATION TECHNOLOGY SERVICES", 155_400_000_000L,
+                new BigDecimal("19.2400"), new BigDecimal("0.0390"), new BigDecimal("199.1800"),
+                new BigDecimal("135.8700"),
+                "International Business Machines Corporation provides integrated solutions and services worldwide.");
+    }
+}
@@ -0,0 +1,98 @@
+package com.tradingplatform.market_data_service.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quote decoding cost: the streaming {@link AlphaVantageDecoder} against the String + JsonNode
+ * tree parsing it replaced. Run {@code main} to get ns/op and, from the GC profiler,
+ * {@code gc.alloc.rate.norm} (bytes allocated per decoded quote).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AlphaVantageDecoderBenchmark {
+
+    private static final byte[] QUOTE = """
+            {
+                "Global Quote": {
+                    "01. symbol": "IBM",
+                    "02. open": "168.4500",
+                    "03. high": "170.2200",
+                    "04. low": "167.9100",
+                    "05. price": "169.8400",
+                    "06. volume": "4128391",
+                    "07. latest trading day": "2024-05-17",
+                    "08. previous close": "168.1200",
+                    "09. change": "1.7200",
+                    "10. change percent": "1.0231%"
+                }
+            }""".getBytes(StandardCharsets.UTF_8);
+
+    private final AlphaVantageDecoder decoder = new AlphaVantageDecoder();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Benchmark
+    public StockQuoteResponseDto streaming() throws IOException {
+        return decoder.decodeQuote(QUOTE, "IBM");
+    }
+
+    @Benchmark
+    public StockQuoteResponseDto tree() throws IOException {
+        String response = new String(QUOTE, StandardCharsets.UTF_8);
+        JsonNode quote = objectMapper.readTree(response).get("Global Quote");
+
+        StockQuoteResponseDto quoteResponse = new StockQuoteResponseDto();
+        quoteResponse.setSymbol("IBM");
+        quoteResponse.setPrice(parseBigDecimal(quote.get("05. price")));
+        quoteResponse.setPreviousClose(parseBigDecimal(quote.get("08. previous close")));
+        quoteResponse.setChange(parseBigDecimal(quote.get("09. change")));
+        quoteResponse.setChangePercent(parsePercentage(quote.get("10. change percent")));
+        quoteResponse.setOpen(parseBigDecimal(quote.get("02. open")));
+        quoteResponse.setDayHigh(parseBigDecimal(quote.get("03. high")));
+        quoteResponse.setDayLow(parseBigDecimal(quote.get("04. low")));
+        quoteResponse.setVolume(Long.parseLong(quote.get("06. volume").asText()));
+        quoteResponse.setLastUpdated(LocalDateTime.now());
+        return quoteResponse;
+    }
+
+    // Previous AlphaVantageClient parsing, kept here as the baseline
+    private static BigDecimal parseBigDecimal(JsonNode node) {
+        if (node == null || node.asText().isEmpty() || node.asText().equals("None")) {
+            return BigDecimal.ZERO;
+        }
+        return new BigDecimal(node.asText()).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal parsePercentage(JsonNode node) {
+        if (node == null || node.asText().isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        return new BigDecimal(node.asText().replace("%", "")).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AlphaVantageDecoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
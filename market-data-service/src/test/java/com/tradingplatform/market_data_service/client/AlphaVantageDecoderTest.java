@@ -0,0 +1,277 @@
+package com.tradingplatform.market_data_service.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tradingplatform.market_data_service.dto.StockDetailsResponseDto;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import com.tradingplatform.market_data_service.dto.StockSearchResponseDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AlphaVantageDecoderTest {
+
+    private static final String QUOTE = """
+            {
+                "Global Quote": {
+                    "01. symbol": "IBM",
+                    "02. open": "168.4500",
+                    "03. high": "170.2200",
+                    "04. low": "167.9100",
+                    "05. price": "169.8400",
+                    "06. volume": "4128391",
+                    "07. latest trading day": "2024-05-17",
+                    "08. previous close": "168.1200",
+                    "09. change": "1.7200",
+                    "10. change percent": "1.0231%"
+                }
+            }""";
+
+    // Odd values the provider sends: placeholders, blanks, bare numbers and extra precision
+    private static final String IRREGULAR_QUOTE = """
+            {
+                "Meta": {"note": ["ignored", {"nested": true}]},
+                "Global Quote": {
+                    "02. open": "None",
+                    "03. high": "",
+                    "04. low": 12.5,
+                    "05. price": "13.123456",
+                    "06. volume": "+42",
+                    "09. change": "-0.00005",
+                    "10. change percent": "-0.375%",
+                    "11. unknown": {"skipped": [1, 2, 3]}
+                }
+            }""";
+
+    private static final String OVERVIEW = """
+            {
+                "Symbol": "IBM",
+                "AssetType": "Common Stock",
+                "Name": "International Business Machines",
+                "Description": "IBM is an American multinational technology company.",
+                "Exchange": "NYSE",
+                "Sector": "TECHNOLOGY",
+                "Industry": "-",
+                "MarketCapitalization": "155628937000",
+                "PERatio": "None",
+                "DividendYield": "0.0389",
+                "52WeekHigh": "199.18",
+                "52WeekLow": "",
+                "AnalystRatings": [{"rating": "Buy"}]
+            }""";
+
+    private static final String SEARCH = """
+            {
+                "bestMatches": [
+                    {
+                        "1. symbol": "TSCO.LON",
+                        "2. name": "Tesco PLC",
+                        "3. type": "Equity",
+                        "4. region": "United Kingdom",
+                        "5. marketOpen": "08:00",
+                        "8. currency": "GBX",
+                        "9. matchScore": "0.7273"
+                    },
+                    {
+                        "1. symbol": "TSCDY",
+                        "2. name": "Tesco plc",
+                        "3. type": "None",
+                        "4. region": "United States",
+                        "8. currency": "USD"
+                    }
+                ]
+            }""";
+
+    private final AlphaVantageDecoder decoder = new AlphaVantageDecoder();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void decodesQuoteLikeTheTreeParser() throws IOException {
+        for (String body : List.of(QUOTE, IRREGULAR_QUOTE)) {
+            StockQuoteResponseDto streamed = decoder.decodeQuote(bytes(body), "ibm");
+            StockQuoteResponseDto tree = treeQuote(body, "ibm");
+
+            assertNotNull(streamed.getLastUpdated());
+            streamed.setLastUpdated(null);
+            assertEquals(tree, streamed);
+        }
+    }
+
+    @Test
+    void decodesQuoteValuesAtTheirScale() throws IOException {
+        StockQuoteResponseDto quote = decoder.decodeQuote(bytes(QUOTE), "ibm");
+
+        assertEquals("IBM", quote.getSymbol());
+        assertEquals(new BigDecimal("169.8400"), quote.getPrice());
+        assertEquals(new BigDecimal("1.02"), quote.getChangePercent());
+        assertEquals(4128391L, quote.getVolume());
+    }
+
+    @Test
+    void fillsAbsentQuoteFieldsWithZero() throws IOException {
+        StockQuoteResponseDto quote = decoder.decodeQuote(bytes("{\"Global Quote\": {\"05. price\": \"10\"}}"), "X");
+
+        assertEquals(new BigDecimal("10.0000"), quote.getPrice());
+        assertEquals(BigDecimal.ZERO, quote.getOpen());
+        assertEquals(BigDecimal.ZERO, quote.getChangePercent());
+        assertEquals(0L, quote.getVolume());
+    }
+
+    @Test
+    void returnsNullForAMissingOrEmptyQuote() throws IOException {
+        assertNull(decoder.decodeQuote(bytes("{}"), "X"));
+        assertNull(decoder.decodeQuote(bytes("{\"Global Quote\": {}}"), "X"));
+        assertNull(decoder.decodeQuote(bytes("{\"Global Quote\": []}"), "X"));
+    }
+
+    @Test
+    void decodesOverviewLikeTheTreeParser() throws IOException {
+        StockDetailsResponseDto details = decoder.decodeOverview(bytes(OVERVIEW));
+
+        assertEquals(treeOverview(OVERVIEW), details);
+        assertNull(details.getIndustry());
+        assertEquals(BigDecimal.ZERO, details.getPeRatio());
+        assertEquals(155628937000L, details.getMarketCap());
+    }
+
+    @Test
+    void returnsNullForAnOverviewWithoutASymbol() throws IOException {
+        assertNull(decoder.decodeOverview(bytes("{}")));
+        assertNull(decoder.decodeOverview(bytes("{\"Symbol\": \"\", \"Name\": \"Nobody\"}")));
+    }
+
+    @Test
+    void decodesSearchLikeTheTreeParser() throws IOException {
+        StockSearchResponseDto results = decoder.decodeSearch(bytes(SEARCH));
+
+        assertEquals(treeSearch(SEARCH), results);
+        assertEquals(2, results.getResults().size());
+        assertNull(results.getResults().get(1).getType());
+        assertEquals(List.of(), decoder.decodeSearch(bytes("{\"bestMatches\": {}}")).getResults());
+    }
+
+    @Test
+    void throwsOnAUsageNotice() {
+        String note = "{\"Note\": \"Thank you for using Alpha Vantage! Our standard API rate limit is 25 requests per day.\"}";
+        String information = "{\"Information\": \"Please subscribe to any of the premium plans.\"}";
+
+        AlphaVantageDecoder.LimitNotice notice =
+                assertThrows(AlphaVantageDecoder.LimitNotice.class, () -> decoder.decodeQuote(bytes(note), "X"));
+        assertEquals("Thank you for using Alpha Vantage! Our standard API rate limit is 25 requests per day.", notice.getMessage());
+        assertThrows(AlphaVantageDecoder.LimitNotice.class, () -> decoder.decodeOverview(bytes(information)));
+        assertThrows(AlphaVantageDecoder.LimitNotice.class, () -> decoder.decodeSearch(bytes(note)));
+    }
+
+    @Test
+    void rejectsAResponseThatIsNotAnObject() {
+        assertThrows(IOException.class, () -> decoder.decodeQuote(bytes("[]"), "X"));
+        assertThrows(IOException.class, () -> decoder.decodeSearch(bytes("\"error\"")));
+    }
+
+    // Helper methods
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // The String + JsonNode parsing the decoder replaced, kept as the reference for its results
+
+    private StockQuoteResponseDto treeQuote(String body, String symbol) throws IOException {
+        JsonNode quote = objectMapper.readTree(body).get("Global Quote");
+
+        StockQuoteResponseDto quoteResponse = new StockQuoteResponseDto();
+        quoteResponse.setSymbol(symbol.toUpperCase());
+        quoteResponse.setPrice(parseBigDecimal(quote.get("05. price")));
+        quoteResponse.setPreviousClose(parseBigDecimal(quote.get("08. previous close")));
+        quoteResponse.setChange(parseBigDecimal(quote.get("09. change")));
+        quoteResponse.setChangePercent(parsePercentage(quote.get("10. change percent")));
+        quoteResponse.setOpen(parseBigDecimal(quote.get("02. open")));
+        quoteResponse.setDayHigh(parseBigDecimal(quote.get("03. high")));
+        quoteResponse.setDayLow(parseBigDecimal(quote.get("04. low")));
+        quoteResponse.setVolume(parseLong(quote.get("06. volume")));
+        return quoteResponse;
+    }
+
+    private StockDetailsResponseDto treeOverview(String body) throws IOException {
+        JsonNode root = objectMapper.readTree(body);
+
+        StockDetailsResponseDto details = new StockDetailsResponseDto();
+        details.setSymbol(getTextValue(root, "Symbol"));
+        details.setCompanyName(getTextValue(root, "Name"));
+        details.setExchange(getTextValue(root, "Exchange"));
+        details.setSector(getTextValue(root, "Sector"));
+        details.setIndustry(getTextValue(root, "Industry"));
+        details.setMarketCap(parseLong(root.get("MarketCapitalization")));
+        details.setPeRatio(parseBigDecimal(root.get("PERatio")));
+        details.setDividendYield(parseBigDecimal(root.get("DividendYield")));
+        details.setWeek52High(parseBigDecimal(root.get("52WeekHigh")));
+        details.setWeek52Low(parseBigDecimal(root.get("52WeekLow")));
+        details.setDescription(getTextValue(root, "Description"));
+        return details;
+    }
+
+    private StockSearchResponseDto treeSearch(String body) throws IOException {
+        StockSearchResponseDto response = new StockSearchResponseDto(new ArrayList<>());
+        for (JsonNode match : objectMapper.readTree(body).get("bestMatches")) {
+            StockSearchResponseDto.StockSearchResult result = new StockSearchResponseDto.StockSearchResult();
+            result.setSymbol(getTextValue(match, "1. symbol"));
+            result.setName(getTextValue(match, "2. name"));
+            result.setType(getTextValue(match, "3. type"));
+            result.setRegion(getTextValue(match, "4. region"));
+            result.setCurrency(getTextValue(match, "8. currency"));
+            response.getResults().add(result);
+        }
+        return response;
+    }
+
+    private static BigDecimal parseBigDecimal(JsonNode node) {
+        if (node == null || node.asText().isEmpty() || node.asText().equals("None")) {
+            return BigDecimal.ZERO;
+        }
+        try {
+            return new BigDecimal(node.asText()).setScale(4, RoundingMode.HALF_UP);
+        } catch (NumberFormatException e) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    private static BigDecimal parsePercentage(JsonNode node) {
+        if (node == null || node.asText().isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        try {
+            return new BigDecimal(node.asText().replace("%", "")).setScale(2, RoundingMode.HALF_UP);
+        } catch (NumberFormatException e) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    private static Long parseLong(JsonNode node) {
+        if (node == null || node.asText().isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(node.asText());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private static String getTextValue(JsonNode node, String field) {
+        JsonNode fieldNode = node.get(field);
+        if (fieldNode == null || fieldNode.asText().equals("None") || fieldNode.asText().equals("-")) {
+            return null;
+        }
+        return fieldNode.asText();
+    }
+}
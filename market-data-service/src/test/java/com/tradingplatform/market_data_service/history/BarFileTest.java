@@ -0,0 +1,118 @@
+package com.tradingplatform.market_data_service.history;
+
+import com.tradingplatform.market_data_service.dto.PriceHistoryResponseDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BarFileTest {
+
+    private static final BarInterval MINUTE = BarInterval.MINUTE;
+    private static final long PARTITION = Instant.parse("2024-02-01T00:00:00Z").toEpochMilli();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void barsRoundTripThroughTheColumns() throws IOException {
+        Path path = dir.resolve("IBM/1m/2024-02.bars");
+        Bar first = bar(PARTITION, 1_698_400, 1_702_200, 1_679_100, 1_681_200, 4_128, 3);
+        Bar leapDay = bar(PARTITION + (28L * 1_440 + 570) * 60_000, 1_700_000, 1_700_000, 1_700_000, 1_700_000, 0, 1);
+        Bar last = bar(MINUTE.partitionEnd(PARTITION) - 60_000, 1, 2, -3, Long.MAX_VALUE, Long.MIN_VALUE, 7);
+
+        BarFile.write(path, MINUTE, List.of(first, leapDay, last));
+
+        BarSeries series = new BarSeries(4);
+        BarFile.read(path, MINUTE, PARTITION, 0, MINUTE.slot(last.bucket) + 1, series);
+        PriceHistoryResponseDto response = series.toResponse("IBM", MINUTE);
+
+        assertArrayEquals(new long[]{first.bucket, leapDay.bucket, last.bucket}, response.getTimestamps());
+        assertArrayEquals(new double[]{169.84, 170.0, 0.0001}, response.getOpen());
+        assertArrayEquals(new double[]{170.22, 170.0, 0.0002}, response.getHigh());
+        assertArrayEquals(new double[]{167.91, 170.0, -0.0003}, response.getLow());
+        assertArrayEquals(new long[]{4_128, 0, Long.MIN_VALUE}, response.getVolume());
+
+        assertBar(last, BarFile.readBar(path, MINUTE, last.bucket));
+        assertNull(BarFile.readBar(path, MINUTE, PARTITION + 60_000));
+    }
+
+    @Test
+    void readsOnlyTheRequestedSlots() throws IOException {
+        Path path = dir.resolve("IBM/1m/2024-02.bars");
+        BarFile.write(path, MINUTE, List.of(
+                bar(PARTITION, 1, 1, 1, 1, 1, 1),
+                bar(PARTITION + 60_000, 2, 2, 2, 2, 2, 1),
+                bar(PARTITION + 120_000, 3, 3, 3, 3, 3, 1)));
+
+        BarSeries series = new BarSeries(4);
+        BarFile.read(path, MINUTE, PARTITION, 1, 2, series);
+
+        assertArrayEquals(new long[]{PARTITION + 60_000}, series.toResponse("IBM", MINUTE).getTimestamps());
+    }
+
+    @Test
+    void rewritingABarReplacesIt() throws IOException {
+        Path path = dir.resolve("IBM/1m/2024-02.bars");
+        BarFile.write(path, MINUTE, List.of(bar(PARTITION, 10, 12, 9, 11, 100, 2)));
+        Bar rewritten = bar(PARTITION, 10, 15, 8, 14, 250, 5);
+
+        BarFile.write(path, MINUTE, List.of(rewritten));
+
+        assertBar(rewritten, BarFile.readBar(path, MINUTE, PARTITION));
+        BarSeries series = new BarSeries(4);
+        BarFile.read(path, MINUTE, PARTITION, 0, MINUTE.getCapacity(), series);
+        assertEquals(1, series.size());
+    }
+
+    @Test
+    void missingFilesReadAsEmpty() throws IOException {
+        Path path = dir.resolve("IBM/1m/2024-02.bars");
+
+        BarSeries series = new BarSeries(4);
+        BarFile.read(path, MINUTE, PARTITION, 0, MINUTE.getCapacity(), series);
+
+        assertEquals(0, series.size());
+        assertNull(BarFile.readBar(path, MINUTE, PARTITION));
+    }
+
+    @Test
+    void fileOfAnotherIntervalIsRejected() throws IOException {
+        Path path = dir.resolve("IBM/1m/2024-02.bars");
+        BarFile.write(path, MINUTE, List.of(bar(PARTITION, 1, 1, 1, 1, 1, 1)));
+        Path truncated = dir.resolve("IBM/1m/2024-03.bars");
+        Files.write(truncated, new byte[64]);
+
+        assertThrows(IOException.class, () -> BarFile.read(path, BarInterval.HOUR, PARTITION, 0, 1, new BarSeries(4)));
+        assertThrows(IOException.class, () -> BarFile.read(truncated, MINUTE, PARTITION, 0, 1, new BarSeries(4)));
+    }
+
+    // Helper methods
+
+    private static Bar bar(long bucket, long open, long high, long low, long close, long volume, long ticks) {
+        Bar bar = new Bar(MINUTE);
+        bar.bucket = bucket;
+        bar.open = open;
+        bar.high = high;
+        bar.low = low;
+        bar.close = close;
+        bar.volume = volume;
+        bar.ticks = ticks;
+        return bar;
+    }
+
+    private static void assertBar(Bar expected, Bar actual) {
+        assertArrayEquals(
+                new long[]{expected.bucket, expected.open, expected.high, expected.low, expected.close, expected.volume, expected.ticks},
+                new long[]{actual.bucket, actual.open, actual.high, actual.low, actual.close, actual.volume, actual.ticks});
+    }
+}
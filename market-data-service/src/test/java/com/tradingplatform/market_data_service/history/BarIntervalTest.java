@@ -0,0 +1,88 @@
+package com.tradingplatform.market_data_service.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BarIntervalTest {
+
+    @Test
+    void capacityCoversTheLongestPartition() {
+        assertEquals(86_400, BarInterval.SECOND.getCapacity());
+        assertEquals(31 * 1_440, BarInterval.MINUTE.getCapacity());
+        assertEquals(366 * 24, BarInterval.HOUR.getCapacity());
+        assertEquals(366, BarInterval.DAY.getCapacity());
+    }
+
+    @Test
+    void lastBarOfTheLongestPartitionTakesTheLastSlot() {
+        BarInterval minute = BarInterval.MINUTE;
+        assertEquals(minute.getCapacity() - 1, minute.slot(millis("2024-01-31T23:59:00Z")));
+        assertEquals(minute.getCapacity() - 1, minute.slot(millis("2024-12-31T23:59:00Z")));
+
+        BarInterval hour = BarInterval.HOUR;
+        assertEquals(hour.getCapacity() - 1, hour.slot(millis("2024-12-31T23:00:00Z")));
+        assertEquals(hour.getCapacity() - 25, hour.slot(millis("2023-12-31T23:00:00Z")));
+
+        assertEquals(BarInterval.DAY.getCapacity() - 1, BarInterval.DAY.slot(millis("2024-12-31T00:00:00Z")));
+        assertEquals(BarInterval.SECOND.getCapacity() - 1, BarInterval.SECOND.slot(millis("2024-06-15T23:59:59Z")));
+    }
+
+    @Test
+    void leapDayFallsInsideFebruary() {
+        BarInterval minute = BarInterval.MINUTE;
+        long leapDay = millis("2024-02-29T12:30:00Z");
+
+        assertEquals(millis("2024-02-01T00:00:00Z"), minute.partitionStart(leapDay));
+        assertEquals(millis("2024-03-01T00:00:00Z"), minute.partitionEnd(leapDay));
+        assertEquals("2024-02", minute.partitionKey(leapDay));
+        assertEquals(28 * 1_440 + 12 * 60 + 30, minute.slot(leapDay));
+        assertEquals(0, minute.slot(millis("2024-03-01T00:00:00Z")));
+
+        assertEquals(59, BarInterval.DAY.slot(millis("2024-02-29T00:00:00Z")));
+        assertEquals(59, BarInterval.DAY.slot(millis("2023-03-01T00:00:00Z")));
+        assertEquals(60, BarInterval.DAY.slot(millis("2024-03-01T00:00:00Z")));
+    }
+
+    @Test
+    void partitionsFollowCalendarBoundaries() {
+        long time = millis("2024-12-31T18:45:30.250Z");
+
+        assertEquals("2024-12-31", BarInterval.SECOND.partitionKey(time));
+        assertEquals("2024-12", BarInterval.MINUTE.partitionKey(time));
+        assertEquals("2024", BarInterval.HOUR.partitionKey(time));
+        assertEquals("2024", BarInterval.DAY.partitionKey(time));
+
+        assertEquals(millis("2025-01-01T00:00:00Z"), BarInterval.SECOND.partitionEnd(time));
+        assertEquals(millis("2025-01-01T00:00:00Z"), BarInterval.MINUTE.partitionEnd(time));
+        assertEquals(millis("2025-01-01T00:00:00Z"), BarInterval.HOUR.partitionEnd(time));
+        assertEquals(millis("2024-01-01T00:00:00Z"), BarInterval.DAY.partitionStart(time));
+    }
+
+    @Test
+    void bucketsRoundDownIncludingBeforeTheEpoch() {
+        assertEquals(millis("2024-05-17T15:59:00Z"), BarInterval.MINUTE.bucketStart(millis("2024-05-17T15:59:59.999Z")));
+        assertEquals(millis("2024-05-17T15:00:00Z"), BarInterval.HOUR.bucketStart(millis("2024-05-17T15:59:59.999Z")));
+
+        assertEquals(-1_000L, BarInterval.SECOND.bucketStart(-1L));
+        assertEquals(BarInterval.SECOND.getCapacity() - 1, BarInterval.SECOND.slot(-1_000L));
+        assertEquals("1969-12-31", BarInterval.SECOND.partitionKey(-1L));
+        assertEquals("1969-12", BarInterval.MINUTE.partitionKey(-1L));
+    }
+
+    @Test
+    void codesAreCaseInsensitive() {
+        assertEquals(BarInterval.MINUTE, BarInterval.fromCode("1m"));
+        assertEquals(BarInterval.DAY, BarInterval.fromCode("1D"));
+        assertNull(BarInterval.fromCode("5m"));
+    }
+
+    // Helper methods
+
+    private static long millis(String instant) {
+        return Instant.parse(instant).toEpochMilli();
+    }
+}
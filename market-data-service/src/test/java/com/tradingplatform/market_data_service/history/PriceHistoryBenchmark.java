@@ -0,0 +1,92 @@
+package com.tradingplatform.market_data_service.history;
+
+import com.tradingplatform.market_data_service.dto.PriceHistoryResponseDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Range reads from the {@link PriceHistoryStore}: a full leap year of minute bars (527,040 bars
+ * over twelve partitions) and a single trading day of them, read from warm partition files as a
+ * non-writer instance serves them. Run {@code main} for ms/op and bytes allocated per read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriceHistoryBenchmark {
+
+    private static final String SYMBOL = "IBM";
+    private static final long YEAR_START = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final long YEAR_END = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final long DAY_START = Instant.parse("2024-05-17T13:30:00Z").toEpochMilli();
+    private static final long DAY_END = Instant.parse("2024-05-17T20:00:00Z").toEpochMilli();
+
+    private Path dir;
+    private PriceHistoryStore store;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("price-history-benchmark");
+        BarInterval interval = BarInterval.MINUTE;
+        long price = 1_698_400;
+        for (long partition = YEAR_START; partition < YEAR_END; partition = interval.partitionEnd(partition)) {
+            List<Bar> bars = new ArrayList<>();
+            for (long bucket = partition; bucket < interval.partitionEnd(partition); bucket += interval.getMillis()) {
+                price += (bucket / interval.getMillis()) % 7 - 3;
+                Bar bar = new Bar(interval);
+                bar.start(bucket, price, 100);
+                bar.update(price + 25, 40);
+                bars.add(bar);
+            }
+            BarFile.write(dir.resolve(SYMBOL).resolve(interval.getCode()).resolve(interval.partitionKey(partition) + ".bars"),
+                    interval, bars);
+        }
+        store = new PriceHistoryStore(new SimpleMeterRegistry(), mock(HistoryWriterLease.class), dir.toString(), 1_000_000L);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public PriceHistoryResponseDto yearOfMinuteBars() {
+        return store.getHistory(SYMBOL, BarInterval.MINUTE, YEAR_START, YEAR_END);
+    }
+
+    @Benchmark
+    public PriceHistoryResponseDto dayOfMinuteBars() {
+        return store.getHistory(SYMBOL, BarInterval.MINUTE, DAY_START, DAY_END);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PriceHistoryBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
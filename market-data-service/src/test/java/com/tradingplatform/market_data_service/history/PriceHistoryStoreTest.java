@@ -0,0 +1,110 @@
+package com.tradingplatform.market_data_service.history;
+
+import com.tradingplatform.market_data_service.dto.PriceHistoryResponseDto;
+import com.tradingplatform.market_data_service.dto.StockQuoteResponseDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PriceHistoryStoreTest {
+
+    private static final Instant MINUTE = Instant.parse("2024-02-29T14:30:00Z");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void barsContinueAcrossARestart() {
+        PriceHistoryStore before = store(writer());
+        before.record(quote(MINUTE.plusSeconds(5), "100.00", 1_000));
+        before.record(quote(MINUTE.plusSeconds(20), "105.00", 1_500));
+        before.shutdown();
+
+        PriceHistoryStore after = store(writer());
+        // The first tick after startup has no volume of its own, its day volume is already in stored bars
+        after.record(quote(MINUTE.plusSeconds(40), "98.00", 1_600));
+        after.record(quote(MINUTE.plusSeconds(50), "101.00", 1_700));
+        after.record(quote(MINUTE.plusSeconds(65), "102.00", 1_750));
+
+        PriceHistoryResponseDto bars = after.getHistory("IBM", BarInterval.MINUTE,
+                MINUTE.toEpochMilli(), MINUTE.plusSeconds(120).toEpochMilli());
+
+        assertArrayEquals(new long[]{MINUTE.toEpochMilli(), MINUTE.plusSeconds(60).toEpochMilli()}, bars.getTimestamps());
+        assertArrayEquals(new double[]{100.0, 102.0}, bars.getOpen());
+        assertArrayEquals(new double[]{105.0, 102.0}, bars.getHigh());
+        assertArrayEquals(new double[]{98.0, 102.0}, bars.getLow());
+        assertArrayEquals(new double[]{101.0, 102.0}, bars.getClose());
+        assertArrayEquals(new long[]{600, 50}, bars.getVolume());
+
+        PriceHistoryResponseDto hour = after.getHistory("IBM", BarInterval.HOUR,
+                MINUTE.toEpochMilli(), MINUTE.plusSeconds(60).toEpochMilli());
+        assertArrayEquals(new double[]{100.0}, hour.getOpen());
+        assertArrayEquals(new double[]{102.0}, hour.getClose());
+        assertArrayEquals(new long[]{650}, hour.getVolume());
+    }
+
+    @Test
+    void onlyTheLeaseHolderWrites() throws IOException {
+        HistoryWriterLease follower = mock(HistoryWriterLease.class);
+        PriceHistoryStore store = store(follower);
+
+        store.record(quote(MINUTE.plusSeconds(5), "100.00", 1_000));
+        store.flush();
+
+        verify(follower).forward("IBM", MINUTE.plusSeconds(5).toEpochMilli(), 1_000_000L, 1_000L);
+        try (Stream<Path> files = Files.walk(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void writerRecordsItsOwnQuotes() {
+        HistoryWriterLease writer = writer();
+        PriceHistoryStore store = store(writer);
+
+        store.record(quote(MINUTE.plusSeconds(5), "100.00", 1_000));
+
+        verify(writer, never()).forward(anyString(), anyLong(), anyLong(), anyLong());
+        assertArrayEquals(new double[]{100.0}, store.getHistory("IBM", BarInterval.MINUTE,
+                MINUTE.toEpochMilli(), MINUTE.plusSeconds(60).toEpochMilli()).getClose());
+    }
+
+    // Helper methods
+
+    private PriceHistoryStore store(HistoryWriterLease writerLease) {
+        return new PriceHistoryStore(new SimpleMeterRegistry(), writerLease, dir.toString(), 1_000_000L);
+    }
+
+    private static HistoryWriterLease writer() {
+        HistoryWriterLease writerLease = mock(HistoryWriterLease.class);
+        when(writerLease.isWriter()).thenReturn(true);
+        return writerLease;
+    }
+
+    private static StockQuoteResponseDto quote(Instant time, String price, long volume) {
+        StockQuoteResponseDto quote = new StockQuoteResponseDto();
+        quote.setSymbol("IBM");
+        quote.setPrice(new BigDecimal(price));
+        quote.setVolume(volume);
+        quote.setLastUpdated(LocalDateTime.ofInstant(time, ZoneId.systemDefault()));
+        return quote;
+    }
+}
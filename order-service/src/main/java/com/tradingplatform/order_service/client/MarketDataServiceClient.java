@@ -3,18 +3,27 @@ package com.tradingplatform.order_service.client;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 
 @FeignClient(name = "market-data-service")
 public interface MarketDataServiceClient {
 
-    @GetMapping("/api/market/price/{symbol}")
+    // Tells market-data which upstream rate-limit class these lookups belong to
+    String PRIORITY_HEADER = "X-Request-Priority=ORDER";
+
+    @GetMapping(value = "/api/market/price/{symbol}", headers = PRIORITY_HEADER)
     BigDecimal getCurrentPrice(@PathVariable("symbol") String symbol);
 
-    @GetMapping("/api/market/quote/{symbol}")
+    @GetMapping(value = "/api/market/quote/{symbol}", headers = PRIORITY_HEADER)
     StockQuoteResponse getQuote(@PathVariable("symbol") String symbol);
 
+    @GetMapping(value = "/api/market/prices", headers = PRIORITY_HEADER)
+    Map<String, BigDecimal> getCurrentPrices(@RequestParam("symbols") List<String> symbols);
+
     class StockQuoteResponse {
         public String symbol;
         public String companyName;
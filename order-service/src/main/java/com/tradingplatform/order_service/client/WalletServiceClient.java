@@ -26,6 +26,24 @@ public interface WalletServiceClient {
             @RequestBody TransactionRequest request
     );
 
+    @PostMapping("/api/wallet/user/{userId}/holds")
+    HoldResponse reserveFunds(
+            @PathVariable("userId") Long userId,
+            @RequestBody HoldRequest request
+    );
+
+    @PostMapping("/api/wallet/holds/{referenceId}/settle")
+    TransactionResponse settleHold(
+            @PathVariable("referenceId") String referenceId,
+            @RequestBody TransactionRequest request
+    );
+
+    @PostMapping("/api/wallet/holds/{referenceId}/release")
+    HoldResponse releaseHold(@PathVariable("referenceId") String referenceId);
+
+    @PostMapping("/api/wallet/trades/settle")
+    TradeSettlementResponse settleTrade(@RequestBody TradeSettlementRequest request);
+
     class BalanceResponse {
         public Long userId;
         public BigDecimal balance;
@@ -45,6 +63,42 @@ public interface WalletServiceClient {
         }
     }
 
+    class HoldRequest {
+        public BigDecimal amount;
+        public String referenceId;
+        public String description;
+
+        public HoldRequest(BigDecimal amount, String referenceId, String description) {
+            this.amount = amount;
+            this.referenceId = referenceId;
+            this.description = description;
+        }
+    }
+
+    class TradeSettlementRequest {
+        public String tradeReference;
+        public String holdReferenceId;
+        public BigDecimal debitAmount;
+        public String debitDescription;
+        public Long sellerUserId;
+        public BigDecimal creditAmount;
+        public String creditDescription;
+    }
+
+    class TradeSettlementResponse {
+        public String tradeReference;
+        public boolean alreadySettled;
+    }
+
+    class HoldResponse {
+        public Long id;
+        public String referenceId;
+        public BigDecimal amount;
+        public BigDecimal settledAmount;
+        public String status;
+        public BigDecimal availableBalance;
+    }
+
     class TransactionResponse {
         public Long id;
         public String transactionType;
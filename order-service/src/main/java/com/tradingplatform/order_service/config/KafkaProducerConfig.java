@@ -0,0 +1,78 @@
+package com.tradingplatform.order_service.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class KafkaProducerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${order.outbox.producer.linger-ms:20}")
+    private int lingerMs;
+
+    @Value("${order.outbox.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${order.outbox.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${order.events.partitions:6}")
+    private int orderEventPartitions;
+
+    @Value("${order.events.replicas:1}")
+    private int orderEventReplicas;
+
+    /**
+     * Partitions bound how many consumers can apply order events in parallel. On an existing topic
+     * with fewer partitions, KafkaAdmin adds partitions at startup; it never removes them.
+     * <p>
+     * Events are keyed by user id; before this they were keyed by order id. Neither the key change
+     * nor added partitions move records already on the topic, so one user's older events can sit
+     * on other partitions than their newer ones, and Kafka gives no order across partitions. To
+     * keep per-user order, roll both changes out together, after the portfolio consumers have
+     * drained the topic to zero lag. A projection rebuild that replays records from before the
+     * cutover still sees them in no particular per-user order, so a sell can arrive ahead of its buy.
+     */
+    @Bean
+    public NewTopic orderEventsTopic() {
+        return TopicBuilder.name("order-events")
+                .partitions(orderEventPartitions)
+                .replicas(orderEventReplicas)
+                .build();
+    }
+
+    // Outbox payloads are already JSON, so they go out as strings without a second serialization pass
+    @Bean
+    public ProducerFactory<String, String> producerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    @Bean
+    public KafkaTemplate<String, String> kafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
+}
@@ -1,11 +1,14 @@
 package com.tradingplatform.order_service.dto;
 
 import com.tradingplatform.order_service.model.OrderType;
+import com.tradingplatform.order_service.model.PriceType;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -26,5 +29,13 @@ public class CreateOrderRequestDto {
     @Max(value = 10000, message = "Quantity cannot exceed 10,000")
     private Integer quantity;
 
+    private PriceType priceType = PriceType.MARKET;
+
+    @Positive(message = "Limit price must be positive")
+    private BigDecimal limitPrice;
+
+    @Positive(message = "Stop price must be positive")
+    private BigDecimal stopPrice;
+
     private String notes;
 }
@@ -2,6 +2,7 @@ package com.tradingplatform.order_service.dto;
 
 import com.tradingplatform.order_service.model.OrderStatus;
 import com.tradingplatform.order_service.model.OrderType;
+import com.tradingplatform.order_service.model.PriceType;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,9 +19,13 @@ public class OrderResponseDto {
     private Long userId;
     private String symbol;
     private OrderType orderType;
+    private PriceType priceType;
     private OrderStatus status;
     private Integer quantity;
+    private Integer filledQuantity;
     private BigDecimal pricePerShare;
+    private BigDecimal limitPrice;
+    private BigDecimal stopPrice;
     private BigDecimal totalAmount;
     private BigDecimal commission;
     private String notes;
@@ -22,6 +22,7 @@ public class OrderEvent {
     private BigDecimal totalAmount;
     private LocalDateTime executedAt;
     private String eventType;  // ORDER_CREATED, ORDER_EXECUTED, ORDER_FAILED
+    private String failureReason;
 
     public static OrderEvent orderExecuted(Long orderId, Long userId, String symbol,
                                            OrderType orderType, Integer quantity,
@@ -38,4 +39,17 @@ public class OrderEvent {
         event.setEventType("ORDER_EXECUTED");
         return event;
     }
+
+    public static OrderEvent orderFailed(Long orderId, Long userId, String symbol,
+                                         OrderType orderType, Integer quantity, String failureReason) {
+        OrderEvent event = new OrderEvent();
+        event.setOrderId(orderId);
+        event.setUserId(userId);
+        event.setSymbol(symbol);
+        event.setOrderType(orderType);
+        event.setQuantity(quantity);
+        event.setFailureReason(failureReason);
+        event.setEventType("ORDER_FAILED");
+        return event;
+    }
 }
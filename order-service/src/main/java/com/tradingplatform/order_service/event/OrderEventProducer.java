@@ -1,20 +1,53 @@
 package com.tradingplatform.order_service.event;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tradingplatform.order_service.model.OutboxEvent;
+import com.tradingplatform.order_service.repository.OutboxEventRepository;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+/**
+ * Writes order events to the outbox table in the caller's transaction. {@link OutboxRelay}
+ * publishes them to Kafka once that transaction has committed.
+ */
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class OrderEventProducer {
 
-    private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
     private static final String TOPIC = "order-events";
 
+    // Advisory lock namespace for per-user outbox writes, apart from the relay's single-key lock
+    private static final int USER_LOCK_NAMESPACE = 0x6f757462;
+
+    @Transactional(Transactional.TxType.MANDATORY)
     public void publishOrderEvent(OrderEvent event) {
-        log.info("Publishing order event: {}", event);
-        kafkaTemplate.send(TOPIC, event.getOrderId().toString(), event);
+        log.debug("Queueing order event: {}", event);
+
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setTopic(TOPIC);
+        // Keyed by user so all of a user's events share a partition and are consumed in order
+        outboxEvent.setMessageKey(event.getUserId().toString());
+        outboxEvent.setEventType(event.getEventType());
+        outboxEvent.setPayload(toJson(event));
+        // Consumers treat a user's outbox ids as increasing, so a second order of the same user waits
+        // here until the first commits rather than taking a lower id and committing after it
+        outboxEventRepository.lockMessageKey(USER_LOCK_NAMESPACE, outboxEvent.getMessageKey());
+        outboxEventRepository.save(outboxEvent);
+    }
+
+    // Helper methods
+
+    private String toJson(OrderEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize order event for order " + event.getOrderId(), e);
+        }
     }
 }
@@ -0,0 +1,163 @@
+package com.tradingplatform.order_service.event;
+
+import com.tradingplatform.order_service.model.OutboxEvent;
+import com.tradingplatform.order_service.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the order outbox to Kafka. Each batch is locked, sent with a single flush, and deleted
+ * in one transaction; rows whose send failed stay behind and are retried on the next run, so
+ * delivery is at-least-once.
+ * <p>
+ * Only one instance relays at a time: each batch transaction first takes a Postgres advisory
+ * lock and instances that miss it skip the run. Consumers rely on a user's events arriving in
+ * order, which concurrent relays sending interleaved batches could not guarantee.
+ * <p>
+ * Every record carries its outbox row id in the {@value #OUTBOX_ID_HEADER} header. A resent event
+ * (acknowledged by Kafka but behind a failed one, or sent again after a crash before the delete
+ * committed) lands at a new offset with the same id, and a user's ids only increase, so consumers
+ * deduplicate on the highest id they have applied per user. That relies on the idempotent producer
+ * failing a user's later sends on a partition whenever an earlier one fails.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public static final String OUTBOX_ID_HEADER = "outbox-id";
+
+    // Advisory lock key shared by every order-service instance
+    private static final long RELAY_LOCK_KEY = 0x6f726465725f6fL;
+
+    @Value("${order.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${order.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    private TransactionTemplate transactionTemplate;
+    private Timer relayLag;
+
+    // Creation time of the oldest event still waiting to be published, 0 when the outbox is empty
+    private final AtomicLong oldestPendingMillis = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        relayLag = Timer.builder("order.outbox.relay.lag")
+                .description("Time from an event being written to the outbox to Kafka acknowledging it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("order.outbox.oldest.age", oldestPendingMillis,
+                        oldest -> oldest.get() == 0 ? 0 : (System.currentTimeMillis() - oldest.get()) / 1000.0)
+                .description("Age in seconds of the oldest unpublished order event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:200}")
+    public void relay() {
+        try {
+            int published;
+            do {
+                Integer count = transactionTemplate.execute(status -> relayBatch());
+                published = count == null ? 0 : count;
+            } while (published == batchSize);
+        } finally {
+            updateOldestPending();
+        }
+    }
+
+    // Helper methods
+
+    private int relayBatch() {
+        if (!outboxEventRepository.tryLockRelay(RELAY_LOCK_KEY)) {
+            log.debug("Another instance is relaying the outbox");
+            return 0;
+        }
+
+        List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            ProducerRecord<String, String> record =
+                    new ProducerRecord<>(event.getTopic(), event.getMessageKey(), event.getPayload());
+            record.headers().add(OUTBOX_ID_HEADER, event.getId().toString().getBytes(StandardCharsets.UTF_8));
+            sends.add(kafkaTemplate.send(record));
+        }
+        kafkaTemplate.flush();
+
+        // Only the leading run of acknowledged events is removed, so a retried event is never
+        // overtaken by a later event for the same order
+        List<Long> published = new ArrayList<>(batch.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            try {
+                sends.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Failed to publish outbox event {} for user {}: {}",
+                        event.getId(), event.getMessageKey(), e.getMessage());
+                break;
+            }
+            published.add(event.getId());
+            relayLag.record(Duration.between(event.getCreatedAt(), now));
+        }
+
+        if (!published.isEmpty()) {
+            outboxEventRepository.deleteAllByIdInBatch(published);
+        }
+        log.debug("Relayed {}/{} outbox events", published.size(), batch.size());
+        return published.size();
+    }
+
+    private void updateOldestPending() {
+        try {
+            LocalDateTime oldest = outboxEventRepository.findOldestCreatedAt();
+            oldestPendingMillis.set(oldest == null ? 0
+                    : oldest.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        } catch (Exception e) {
+            log.warn("Failed to read outbox backlog age: {}", e.getMessage());
+        }
+    }
+}
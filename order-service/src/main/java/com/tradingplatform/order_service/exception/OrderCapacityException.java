@@ -0,0 +1,11 @@
+package com.tradingplatform.order_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OrderCapacityException extends RuntimeException {
+    public OrderCapacityException() {
+        super("Order service is at capacity, please retry shortly");
+    }
+}
@@ -0,0 +1,49 @@
+package com.tradingplatform.order_service.matching;
+
+/**
+ * Resting or incoming order as the matching engine sees it. Prices are fixed-point ticks
+ * (see {@link OrderBook#toTicks}) so the hot path never touches BigDecimal.
+ */
+public final class BookOrder {
+
+    final long orderId;
+    final boolean buy;
+    final boolean stop;
+    final long limitPrice;
+    final long stopPrice;
+    int remaining;
+
+    PriceLevel level;
+    BookOrder prev;
+    BookOrder next;
+
+    private BookOrder(long orderId, boolean buy, boolean stop, long limitPrice, long stopPrice, int quantity) {
+        this.orderId = orderId;
+        this.buy = buy;
+        this.stop = stop;
+        this.limitPrice = limitPrice;
+        this.stopPrice = stopPrice;
+        this.remaining = quantity;
+    }
+
+    public static BookOrder limit(long orderId, boolean buy, long limitPrice, int quantity) {
+        return new BookOrder(orderId, buy, false, limitPrice, 0L, quantity);
+    }
+
+    public static BookOrder stop(long orderId, boolean buy, long stopPrice, int quantity) {
+        return new BookOrder(orderId, buy, true, 0L, stopPrice, quantity);
+    }
+
+    // Once triggered, takes book liquidity only up to the limit; 0 means no limit
+    public static BookOrder stop(long orderId, boolean buy, long stopPrice, long limitPrice, int quantity) {
+        return new BookOrder(orderId, buy, true, limitPrice, stopPrice, quantity);
+    }
+
+    public long getOrderId() {
+        return orderId;
+    }
+
+    public int getRemaining() {
+        return remaining;
+    }
+}
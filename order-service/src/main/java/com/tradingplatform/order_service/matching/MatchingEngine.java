@@ -0,0 +1,80 @@
+package com.tradingplatform.order_service.matching;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Routes commands to per-symbol order books. Each symbol is pinned to one single-threaded
+ * shard, so a book is only ever touched by its owning thread and needs no locking.
+ */
+public class MatchingEngine {
+
+    private final ExecutorService[] shards;
+    private final Map<String, OrderBook> books = new ConcurrentHashMap<>();
+    private final TradeListener listener;
+
+    public MatchingEngine(int shardCount, TradeListener listener) {
+        this.listener = listener;
+        this.shards = new ExecutorService[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            String threadName = "matching-" + i;
+            shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public CompletableFuture<Void> submit(String symbol, BookOrder order) {
+        return execute(symbol, book -> {
+            book.add(order);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Boolean> cancel(String symbol, long orderId) {
+        return execute(symbol, book -> book.cancel(orderId));
+    }
+
+    public CompletableFuture<Void> onMarketPrice(String symbol, long priceTicks) {
+        return execute(symbol, book -> {
+            book.onMarketPrice(priceTicks);
+            return null;
+        });
+    }
+
+    public Set<String> activeSymbols() {
+        return books.values().stream()
+                .filter(book -> book.getOpenOrders() > 0)
+                .map(OrderBook::getSymbol)
+                .collect(Collectors.toSet());
+    }
+
+    public void shutdown() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+        for (ExecutorService shard : shards) {
+            try {
+                shard.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private <T> CompletableFuture<T> execute(String symbol, Function<OrderBook, T> command) {
+        ExecutorService shard = shards[Math.floorMod(symbol.hashCode(), shards.length)];
+        return CompletableFuture.supplyAsync(
+                () -> command.apply(books.computeIfAbsent(symbol, s -> new OrderBook(s, listener))),
+                shard);
+    }
+}
@@ -0,0 +1,235 @@
+package com.tradingplatform.order_service.matching;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Price-time priority book for a single symbol. Not thread-safe: every call for a symbol
+ * must come from the one thread that owns it (see {@link MatchingEngine}).
+ */
+public class OrderBook {
+
+    public static final long MARKET_ID = 0L;
+    public static final int PRICE_SCALE = 4;
+
+    private final String symbol;
+    private final TradeListener listener;
+
+    private final TreeMap<Long, PriceLevel> bids = new TreeMap<>(Collections.reverseOrder());
+    private final TreeMap<Long, PriceLevel> asks = new TreeMap<>();
+
+    // Buy stops fire when the price rises to the stop, sell stops when it falls to it
+    private final TreeMap<Long, PriceLevel> buyStops = new TreeMap<>();
+    private final TreeMap<Long, PriceLevel> sellStops = new TreeMap<>(Collections.reverseOrder());
+
+    private final Map<Long, BookOrder> orders = new HashMap<>();
+    private final ArrayDeque<BookOrder> triggered = new ArrayDeque<>();
+
+    private long lastPrice;
+    private volatile int openOrders;
+
+    public OrderBook(String symbol, TradeListener listener) {
+        this.symbol = symbol;
+        this.listener = listener;
+    }
+
+    public void add(BookOrder order) {
+        if (order.stop) {
+            if (isTriggered(order.buy, order.stopPrice)) {
+                triggered.add(order);
+            } else {
+                rest(order, order.buy ? buyStops : sellStops, order.stopPrice);
+            }
+        } else {
+            match(order, order.limitPrice);
+            if (order.remaining > 0) {
+                rest(order, order.buy ? bids : asks, order.limitPrice);
+            }
+        }
+        drainTriggeredStops();
+    }
+
+    public boolean cancel(long orderId) {
+        BookOrder order = orders.remove(orderId);
+        if (order == null) {
+            return false;
+        }
+        unlink(order);
+        openOrders = orders.size();
+        return true;
+    }
+
+    /**
+     * Applies an external price tick: triggers stops and fills resting limit orders that the
+     * market has crossed, at the market price.
+     */
+    public void onMarketPrice(long priceTicks) {
+        lastPrice = priceTicks;
+        collectTriggeredStops();
+        drainTriggeredStops();
+
+        fillAgainstMarket(bids, priceTicks, true);
+        fillAgainstMarket(asks, priceTicks, false);
+        openOrders = orders.size();
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getOpenOrders() {
+        return openOrders;
+    }
+
+    public long getLastPrice() {
+        return lastPrice;
+    }
+
+    public long bestBid() {
+        return bids.isEmpty() ? 0L : bids.firstKey();
+    }
+
+    public long bestAsk() {
+        return asks.isEmpty() ? 0L : asks.firstKey();
+    }
+
+    public static long toTicks(BigDecimal price) {
+        return price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromTicks(long ticks) {
+        return BigDecimal.valueOf(ticks, PRICE_SCALE);
+    }
+
+    // Helper methods
+
+    // limitPrice == 0 means no limit (triggered stop without one)
+    private void match(BookOrder taker, long limitPrice) {
+        TreeMap<Long, PriceLevel> opposite = taker.buy ? asks : bids;
+
+        while (taker.remaining > 0 && !opposite.isEmpty()) {
+            PriceLevel level = opposite.firstEntry().getValue();
+            if (limitPrice != 0L && (taker.buy ? level.price > limitPrice : level.price < limitPrice)) {
+                break;
+            }
+
+            while (taker.remaining > 0 && level.head != null) {
+                BookOrder maker = level.head;
+                int quantity = Math.min(taker.remaining, maker.remaining);
+
+                maker.remaining -= quantity;
+                taker.remaining -= quantity;
+                level.totalQuantity -= quantity;
+                lastPrice = level.price;
+
+                if (taker.buy) {
+                    listener.onTrade(symbol, taker.orderId, maker.orderId, level.price, quantity);
+                } else {
+                    listener.onTrade(symbol, maker.orderId, taker.orderId, level.price, quantity);
+                }
+
+                if (maker.remaining == 0) {
+                    level.remove(maker);
+                    orders.remove(maker.orderId);
+                }
+            }
+
+            if (level.isEmpty()) {
+                opposite.pollFirstEntry();
+            }
+        }
+
+        openOrders = orders.size();
+        collectTriggeredStops();
+    }
+
+    private void rest(BookOrder order, TreeMap<Long, PriceLevel> side, long price) {
+        PriceLevel level = side.get(price);
+        if (level == null) {
+            level = new PriceLevel(price);
+            side.put(price, level);
+        }
+        level.append(order);
+        orders.put(order.orderId, order);
+        openOrders = orders.size();
+    }
+
+    private void unlink(BookOrder order) {
+        PriceLevel level = order.level;
+        level.remove(order);
+        if (level.isEmpty()) {
+            sideOf(order).remove(level.price);
+        }
+    }
+
+    private TreeMap<Long, PriceLevel> sideOf(BookOrder order) {
+        if (order.stop) {
+            return order.buy ? buyStops : sellStops;
+        }
+        return order.buy ? bids : asks;
+    }
+
+    private boolean isTriggered(boolean buy, long stopPrice) {
+        if (lastPrice == 0L) {
+            return false;
+        }
+        return buy ? lastPrice >= stopPrice : lastPrice <= stopPrice;
+    }
+
+    private void collectTriggeredStops() {
+        collectTriggered(buyStops, true);
+        collectTriggered(sellStops, false);
+    }
+
+    private void collectTriggered(TreeMap<Long, PriceLevel> stops, boolean buy) {
+        while (!stops.isEmpty() && isTriggered(buy, stops.firstKey())) {
+            PriceLevel level = stops.pollFirstEntry().getValue();
+            for (BookOrder order = level.head; order != null; ) {
+                BookOrder next = order.next;
+                orders.remove(order.orderId);
+                order.prev = null;
+                order.next = null;
+                order.level = null;
+                triggered.add(order);
+                order = next;
+            }
+        }
+    }
+
+    // Triggered stops become market orders, bounded by their limit if they have one; a fill can
+    // move the price and trigger further stops
+    private void drainTriggeredStops() {
+        BookOrder order;
+        while ((order = triggered.poll()) != null) {
+            match(order, order.limitPrice);
+            if (order.remaining > 0) {
+                listener.onStopTriggered(symbol, order.orderId, order.remaining);
+            }
+        }
+        openOrders = orders.size();
+    }
+
+    private void fillAgainstMarket(TreeMap<Long, PriceLevel> side, long marketPrice, boolean buy) {
+        while (!side.isEmpty()) {
+            PriceLevel level = side.firstEntry().getValue();
+            if (buy ? level.price < marketPrice : level.price > marketPrice) {
+                return;
+            }
+            for (BookOrder order = level.head; order != null; order = order.next) {
+                orders.remove(order.orderId);
+                if (buy) {
+                    listener.onTrade(symbol, order.orderId, MARKET_ID, marketPrice, order.remaining);
+                } else {
+                    listener.onTrade(symbol, MARKET_ID, order.orderId, marketPrice, order.remaining);
+                }
+                order.remaining = 0;
+            }
+            side.pollFirstEntry();
+        }
+    }
+}
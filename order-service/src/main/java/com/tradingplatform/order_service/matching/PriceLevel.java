@@ -0,0 +1,51 @@
+package com.tradingplatform.order_service.matching;
+
+/**
+ * FIFO queue of orders at one price, kept as an intrusive linked list so a cancel
+ * unlinks in O(1) without scanning the level.
+ */
+final class PriceLevel {
+
+    final long price;
+    BookOrder head;
+    BookOrder tail;
+    long totalQuantity;
+
+    PriceLevel(long price) {
+        this.price = price;
+    }
+
+    void append(BookOrder order) {
+        order.level = this;
+        order.prev = tail;
+        order.next = null;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        totalQuantity += order.remaining;
+    }
+
+    void remove(BookOrder order) {
+        if (order.prev == null) {
+            head = order.next;
+        } else {
+            order.prev.next = order.next;
+        }
+        if (order.next == null) {
+            tail = order.prev;
+        } else {
+            order.next.prev = order.prev;
+        }
+        totalQuantity -= order.remaining;
+        order.prev = null;
+        order.next = null;
+        order.level = null;
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+}
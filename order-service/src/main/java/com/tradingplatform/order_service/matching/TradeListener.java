@@ -0,0 +1,20 @@
+package com.tradingplatform.order_service.matching;
+
+/**
+ * Callbacks fired on the matching thread that owns the symbol. Implementations must hand
+ * any blocking work (DB, Feign) off to another thread.
+ */
+public interface TradeListener {
+
+    /**
+     * A fill between two orders. Either id may be {@link OrderBook#MARKET_ID} when a resting
+     * order crossed the external market price instead of another order.
+     */
+    void onTrade(String symbol, long buyOrderId, long sellOrderId, long priceTicks, int quantity);
+
+    /**
+     * A stop order was triggered and the book had no liquidity left for the remaining quantity,
+     * so it has to be filled at the market.
+     */
+    void onStopTriggered(String symbol, long orderId, int remainingQuantity);
+}
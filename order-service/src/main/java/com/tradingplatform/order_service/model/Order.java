@@ -9,6 +9,8 @@ import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @Entity
@@ -31,6 +33,10 @@ public class Order {
     @Column(name = "order_type", nullable = false)
     private OrderType orderType;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "price_type", length = 10)
+    private PriceType priceType = PriceType.MARKET;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private OrderStatus status = OrderStatus.PENDING;
@@ -38,9 +44,18 @@ public class Order {
     @Column(nullable = false)
     private Integer quantity;
 
+    @Column(name = "filled_quantity")
+    private Integer filledQuantity = 0;
+
     @Column(name = "price_per_share", precision = 15, scale = 4)
     private BigDecimal pricePerShare;
 
+    @Column(name = "limit_price", precision = 15, scale = 4)
+    private BigDecimal limitPrice;
+
+    @Column(name = "stop_price", precision = 15, scale = 4)
+    private BigDecimal stopPrice;
+
     @Column(name = "total_amount", nullable = false, precision = 15, scale = 2)
     private BigDecimal totalAmount;
 
@@ -63,4 +78,16 @@ public class Order {
 
     @Column(name = "executed_at")
     private LocalDateTime executedAt;
+
+    // Rows written before this column existed start at 0
+    @Version
+    @Column(columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version;
+
+    // In-memory only: status changes and row writes since this instance was loaded or created
+    @Transient
+    private List<OrderTransition> transitions = new ArrayList<>();
+
+    @Transient
+    private int dbWrites;
 }
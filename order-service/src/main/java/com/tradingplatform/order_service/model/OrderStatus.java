@@ -4,7 +4,24 @@ public enum OrderStatus {
     PENDING,
     VALIDATING,
     EXECUTING,
+    OPEN,
+    PARTIALLY_FILLED,
     EXECUTED,
     FAILED,
-    CANCELLED
+    CANCELLED;
+
+    public boolean isTerminal() {
+        return this == EXECUTED || this == FAILED || this == CANCELLED;
+    }
+
+    public boolean canTransitionTo(OrderStatus next) {
+        return switch (this) {
+            case PENDING -> next == VALIDATING || next == CANCELLED || next == FAILED;
+            case VALIDATING -> next == EXECUTING || next == CANCELLED || next == FAILED;
+            case EXECUTING -> next == EXECUTED || next == OPEN || next == FAILED;
+            case OPEN, PARTIALLY_FILLED -> next == PARTIALLY_FILLED || next == EXECUTED
+                    || next == CANCELLED || next == FAILED;
+            case EXECUTED, FAILED, CANCELLED -> false;
+        };
+    }
 }
@@ -0,0 +1,6 @@
+package com.tradingplatform.order_service.model;
+
+import java.time.LocalDateTime;
+
+public record OrderTransition(OrderStatus from, OrderStatus to, LocalDateTime at) {
+}
@@ -0,0 +1,7 @@
+package com.tradingplatform.order_service.model;
+
+public enum PriceType {
+    MARKET,
+    LIMIT,
+    STOP
+}
@@ -3,9 +3,11 @@ package com.tradingplatform.order_service.repository;
 import com.tradingplatform.order_service.model.Order;
 import com.tradingplatform.order_service.model.OrderStatus;
 import com.tradingplatform.order_service.model.OrderType;
+import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -29,6 +31,8 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     List<Order> findByStatusIn(List<OrderStatus> statuses);
 
+    List<Order> findByStatusAndUpdatedAtBefore(OrderStatus status, LocalDateTime before);
+
     @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.userId = :userId AND o.orderType = :orderType AND o.status = 'EXECUTED'")
     BigDecimal getTotalAmountByUserAndType(@Param("userId") Long userId, @Param("orderType") OrderType orderType);
 
@@ -37,4 +41,31 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     long countByUserId(Long userId);
 
     long countByUserIdAndStatus(Long userId, OrderStatus status);
+
+    /**
+     * Cancels the order only if it is still in one of the given statuses, returning the number of
+     * rows changed. Bumps the version, so a write from a copy read before the cancel fails instead
+     * of undoing it.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :cancelled, o.version = o.version + 1, o.updatedAt = LOCAL DATETIME " +
+            "WHERE o.id = :orderId AND o.status IN :cancellable")
+    int cancelIfIn(@Param("orderId") Long orderId,
+                   @Param("cancellable") List<OrderStatus> cancellable,
+                   @Param("cancelled") OrderStatus cancelled);
+
+    /**
+     * Claims a PENDING order for a resubmit, returning the number of rows changed. Matches only if
+     * the row is still at the version the caller read and has not been written since
+     * {@code staleBefore}; the version bump means at most one claim of that copy succeeds.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.version = o.version + 1, o.updatedAt = LOCAL DATETIME " +
+            "WHERE o.id = :orderId AND o.status = :pending AND o.version = :version AND o.updatedAt < :staleBefore")
+    int claimPending(@Param("orderId") Long orderId,
+                     @Param("version") Long version,
+                     @Param("pending") OrderStatus pending,
+                     @Param("staleBefore") LocalDateTime staleBefore);
 }
@@ -0,0 +1,29 @@
+package com.tradingplatform.order_service.repository;
+
+import com.tradingplatform.order_service.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Only called by the instance holding the relay lock, so batches always leave in id order
+    @Query(value = "SELECT * FROM order_outbox ORDER BY id LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+
+    // Held until the calling transaction ends; false if another instance holds it
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryLockRelay(@Param("key") long key);
+
+    // Serializes a user's outbox writes until the calling transaction ends, so their ids commit in order
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:namespace, hashtext(:key))) AS lock", nativeQuery = true)
+    int lockMessageKey(@Param("namespace") int namespace, @Param("key") String key);
+
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e")
+    LocalDateTime findOldestCreatedAt();
+}
@@ -0,0 +1,399 @@
+package com.tradingplatform.order_service.service;
+
+import com.tradingplatform.order_service.client.MarketDataServiceClient;
+import com.tradingplatform.order_service.client.WalletServiceClient;
+import com.tradingplatform.order_service.event.OrderEvent;
+import com.tradingplatform.order_service.exception.OrderNotFoundException;
+import com.tradingplatform.order_service.matching.BookOrder;
+import com.tradingplatform.order_service.matching.MatchingEngine;
+import com.tradingplatform.order_service.matching.OrderBook;
+import com.tradingplatform.order_service.matching.TradeListener;
+import com.tradingplatform.order_service.model.Order;
+import com.tradingplatform.order_service.model.OrderStatus;
+import com.tradingplatform.order_service.model.OrderType;
+import com.tradingplatform.order_service.model.PriceType;
+import com.tradingplatform.order_service.repository.OrderRepository;
+import feign.FeignException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Service
+@Slf4j
+public class OrderMatchingService implements TradeListener {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private WalletServiceClient walletServiceClient;
+
+    @Autowired
+    private MarketDataServiceClient marketDataServiceClient;
+
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    @Autowired
+    private WalletFundsService walletFundsService;
+
+    @Autowired
+    private StopOrderLimits stopOrderLimits;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${order.commission.rate:0.001}")
+    private BigDecimal commissionRate;
+
+    @Value("${order.matching.shards:4}")
+    private int shardCount;
+
+    @Value("${order.matching.cancel-timeout-ms:2000}")
+    private long cancelTimeoutMs;
+
+    @Value("${order.matching.settlement-retry-max-interval-ms:30000}")
+    private long settlementRetryMaxIntervalMs;
+
+    // Matches the per-request symbol limit of the market-data bulk endpoints
+    private static final int PRICE_BATCH_SIZE = 100;
+
+    private static final long SETTLEMENT_INITIAL_BACKOFF_MS = 200;
+
+    private MatchingEngine matchingEngine;
+    private TransactionTemplate transactionTemplate;
+
+    // Trades and cancels are settled off the matching threads, one at a time and in the order the
+    // books produced them, so fills of the same order never race and a cancel never overtakes a fill
+    private final ExecutorService settlementExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-settlement");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        matchingEngine = new MatchingEngine(shardCount, this);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        matchingEngine.shutdown();
+        settlementExecutor.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreOpenOrders() {
+        List<Order> openOrders = orderRepository.findByStatusIn(
+                List.of(OrderStatus.OPEN, OrderStatus.PARTIALLY_FILLED));
+
+        openOrders.stream()
+                .sorted(Comparator.comparing(Order::getId))
+                .forEach(this::place);
+
+        log.info("Restored {} open orders into the order book", openOrders.size());
+    }
+
+    public void place(Order order) {
+        int remaining = order.getQuantity() - order.getFilledQuantity();
+        boolean buy = order.getOrderType() == OrderType.BUY;
+
+        BigDecimal maxFillPrice = stopOrderLimits.maxFillPrice(order);
+        BookOrder bookOrder = order.getPriceType() == PriceType.STOP
+                ? BookOrder.stop(order.getId(), buy, OrderBook.toTicks(order.getStopPrice()),
+                        maxFillPrice != null ? OrderBook.toTicks(maxFillPrice) : 0L, remaining)
+                : BookOrder.limit(order.getId(), buy, OrderBook.toTicks(order.getLimitPrice()), remaining);
+
+        matchingEngine.submit(order.getSymbol(), bookOrder);
+    }
+
+    /**
+     * Takes the order out of the book and records the cancel on the settlement thread, behind any
+     * fills the book made before it, so those fills settle first and the cancel writes the order
+     * as they left it. Empty if the order was no longer resting in the book. Once it is out of the
+     * book the cancel is committed, so if the write is still queued at the timeout the order is
+     * returned as cancelled all the same.
+     */
+    public Optional<Order> cancel(Order order) {
+        if (!removeFromBook(order.getSymbol(), order.getId())) {
+            return Optional.empty();
+        }
+
+        Future<Order> cancelled = settlementExecutor.submit(() -> recordCancel(order.getId()));
+        try {
+            return Optional.of(cancelled.get(cancelTimeoutMs, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            // Out of the book already; the cancel is written once the fills ahead of it settle
+            log.warn("Cancel of order {} is queued behind pending fills", order.getId());
+            return Optional.of(asCancelled(order));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.of(asCancelled(order));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to record cancel of order " + order.getId(), e.getCause());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.matching.price-poll-interval-ms:5000}")
+    public void pollMarketPrices() {
+        List<String> symbols = new ArrayList<>(matchingEngine.activeSymbols());
+
+        for (int from = 0; from < symbols.size(); from += PRICE_BATCH_SIZE) {
+            List<String> batch = symbols.subList(from, Math.min(from + PRICE_BATCH_SIZE, symbols.size()));
+            try {
+                marketDataServiceClient.getCurrentPrices(batch).forEach((symbol, price) -> {
+                    if (price != null && price.compareTo(BigDecimal.ZERO) > 0) {
+                        matchingEngine.onMarketPrice(symbol, OrderBook.toTicks(price));
+                    }
+                });
+            } catch (FeignException e) {
+                log.warn("Failed to get prices for {} symbols: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onTrade(String symbol, long buyOrderId, long sellOrderId, long priceTicks, int quantity) {
+        BigDecimal price = OrderBook.fromTicks(priceTicks);
+        settlementExecutor.execute(() -> settleTrade(buyOrderId, sellOrderId, price, quantity));
+    }
+
+    @Override
+    public void onStopTriggered(String symbol, long orderId, int remainingQuantity) {
+        settlementExecutor.execute(() -> {
+            Order order = orderRepository.findById(orderId).orElse(null);
+            if (order == null) {
+                return;
+            }
+
+            BigDecimal price;
+            try {
+                price = marketDataServiceClient.getCurrentPrice(symbol);
+            } catch (FeignException e) {
+                log.error("Failed to get market price for triggered stop order {}: {}", orderId, e.getMessage());
+                markFailed(orderId, "Market data unavailable when stop was triggered");
+                return;
+            }
+
+            if (order.getOrderType() == OrderType.BUY) {
+                // Filling past the price its hold was sized for would spend the user's free balance
+                BigDecimal maxFillPrice = stopOrderLimits.maxFillPrice(order);
+                if (maxFillPrice != null && price.compareTo(maxFillPrice) > 0) {
+                    log.info("Market price ${} is past the ${} limit of stop order {}, resting it as a limit order",
+                            price, maxFillPrice, orderId);
+                    matchingEngine.submit(symbol, BookOrder.limit(orderId, true, OrderBook.toTicks(maxFillPrice), remainingQuantity));
+                    return;
+                }
+                settleTrade(orderId, OrderBook.MARKET_ID, price, remainingQuantity);
+            } else {
+                settleTrade(OrderBook.MARKET_ID, orderId, price, remainingQuantity);
+            }
+        });
+    }
+
+    // Helper methods
+
+    /**
+     * Settles both sides of a trade as one unit: one wallet call moves the buyer's and seller's
+     * money together, and both order rows are then written in one transaction. Failures that may
+     * be transient are retried until the trade goes through, holding back later fills so they stay
+     * in order; the wallet call is idempotent per trade, so a retry never moves money twice. A
+     * trade the wallet rejects outright, or whose other side is no longer open, fails both orders
+     * instead, since settling either side alone would create or destroy money.
+     */
+    private void settleTrade(long buyOrderId, long sellOrderId, BigDecimal price, int quantity) {
+        long backoffMs = SETTLEMENT_INITIAL_BACKOFF_MS;
+        while (true) {
+            try {
+                trySettleTrade(buyOrderId, sellOrderId, price, quantity);
+                return;
+            } catch (FeignException.FeignClientException e) {
+                log.error("Settlement of trade {} was rejected: {}", tradeReference(buyOrderId, sellOrderId), e.getMessage());
+                failTrade(buyOrderId, sellOrderId, "Settlement rejected: " + e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                if (settlementExecutor.isShutdown()) {
+                    log.warn("Abandoning settlement of trade {} on shutdown; the orders are restored open on restart",
+                            tradeReference(buyOrderId, sellOrderId));
+                    return;
+                }
+                log.warn("Failed to settle trade {}, retrying in {} ms: {}",
+                        tradeReference(buyOrderId, sellOrderId), backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, settlementRetryMaxIntervalMs);
+            }
+        }
+    }
+
+    private void trySettleTrade(long buyOrderId, long sellOrderId, BigDecimal price, int quantity) {
+        // Read fresh on every attempt; a failed attempt may have left the previous copies stale
+        Order buyOrder = buyOrderId == OrderBook.MARKET_ID ? null : orderRepository.findById(buyOrderId).orElse(null);
+        Order sellOrder = sellOrderId == OrderBook.MARKET_ID ? null : orderRepository.findById(sellOrderId).orElse(null);
+        if (!isOpen(buyOrderId, buyOrder) || !isOpen(sellOrderId, sellOrder)) {
+            log.warn("Dropping trade {} of {} shares: an order on it is no longer open",
+                    tradeReference(buyOrderId, sellOrderId), quantity);
+            failTrade(buyOrderId, sellOrderId, "Counterparty order is no longer open");
+            return;
+        }
+
+        String symbol = buyOrder != null ? buyOrder.getSymbol() : sellOrder.getSymbol();
+        BigDecimal fillAmount = price.multiply(new BigDecimal(quantity)).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal fillCommission = fillAmount.multiply(commissionRate).setScale(2, RoundingMode.HALF_UP);
+
+        WalletServiceClient.TradeSettlementRequest request = new WalletServiceClient.TradeSettlementRequest();
+        request.tradeReference = tradeReference(buyOrderId, sellOrderId);
+        if (buyOrder != null) {
+            request.holdReferenceId = walletFundsService.referenceId(buyOrder);
+            request.debitAmount = fillAmount.add(fillCommission);
+            request.debitDescription = String.format("Buy %d shares of %s at $%.2f", quantity, symbol, price);
+        }
+        if (sellOrder != null) {
+            request.sellerUserId = sellOrder.getUserId();
+            request.creditAmount = fillAmount.subtract(fillCommission);
+            request.creditDescription = String.format("Sell %d shares of %s at $%.2f", quantity, symbol, price);
+        }
+        walletServiceClient.settleTrade(request);
+
+        List<Order> executed = transactionTemplate.execute(status -> {
+            List<Order> completed = new ArrayList<>(2);
+            for (Order order : new Order[]{buyOrder, sellOrder}) {
+                if (order != null && recordFill(order, price, quantity, fillAmount)) {
+                    completed.add(order);
+                }
+            }
+            return completed;
+        });
+
+        // Fills at better than the limit leave part of the hold unused
+        executed.forEach(walletFundsService::release);
+    }
+
+    // Returns true if the fill completed the order
+    private boolean recordFill(Order order, BigDecimal price, int quantity, BigDecimal fillAmount) {
+        int previouslyFilled = order.getFilledQuantity();
+        int filled = previouslyFilled + quantity;
+        BigDecimal averagePrice = previouslyFilled == 0
+                ? price
+                : order.getPricePerShare().multiply(new BigDecimal(previouslyFilled))
+                        .add(price.multiply(new BigDecimal(quantity)))
+                        .divide(new BigDecimal(filled), 4, RoundingMode.HALF_UP);
+
+        order.setFilledQuantity(filled);
+        order.setPricePerShare(averagePrice);
+
+        OrderEvent fillEvent = OrderEvent.orderExecuted(
+                order.getId(),
+                order.getUserId(),
+                order.getSymbol(),
+                order.getOrderType(),
+                quantity,
+                price,
+                fillAmount
+        );
+
+        boolean complete = filled >= order.getQuantity();
+        if (complete) {
+            BigDecimal totalAmount = averagePrice.multiply(new BigDecimal(filled)).setScale(2, RoundingMode.HALF_UP);
+            order.setTotalAmount(totalAmount);
+            order.setCommission(totalAmount.multiply(commissionRate).setScale(2, RoundingMode.HALF_UP));
+            order.setExecutedAt(LocalDateTime.now());
+            orderStateMachine.persist(order, OrderStatus.EXECUTED, fillEvent);
+        } else {
+            orderStateMachine.persist(order, OrderStatus.PARTIALLY_FILLED, fillEvent);
+        }
+
+        log.info("{} order {} filled {} shares of {} at ${} ({}/{})", order.getOrderType(), order.getId(),
+                quantity, order.getSymbol(), price, filled, order.getQuantity());
+        return complete;
+    }
+
+    private Order recordCancel(long orderId) {
+        Order order = orderRepository.findById(orderId).orElseThrow(() -> new OrderNotFoundException(orderId));
+        // A fill ahead of the cancel may have failed the order already
+        if (order.getStatus().isTerminal()) {
+            return order;
+        }
+
+        Order saved = orderStateMachine.persist(order, OrderStatus.CANCELLED);
+        walletFundsService.release(saved);
+        return saved;
+    }
+
+    // A detached copy, so the caller's entity never carries a status the settlement thread has yet to write
+    private static Order asCancelled(Order order) {
+        Order cancelled = new Order();
+        BeanUtils.copyProperties(order, cancelled);
+        cancelled.setStatus(OrderStatus.CANCELLED);
+        return cancelled;
+    }
+
+    private void failTrade(long buyOrderId, long sellOrderId, String reason) {
+        if (buyOrderId != OrderBook.MARKET_ID) {
+            markFailed(buyOrderId, reason);
+        }
+        if (sellOrderId != OrderBook.MARKET_ID) {
+            markFailed(sellOrderId, reason);
+        }
+    }
+
+    private void markFailed(long orderId, String reason) {
+        orderRepository.findById(orderId)
+                .filter(order -> !order.getStatus().isTerminal())
+                .ifPresent(order -> {
+                    removeFromBook(order.getSymbol(), orderId);
+                    order.setFailureReason(reason);
+                    orderStateMachine.persist(order, OrderStatus.FAILED);
+                    walletFundsService.release(order);
+                });
+    }
+
+    private boolean removeFromBook(String symbol, long orderId) {
+        try {
+            return matchingEngine.cancel(symbol, orderId).get(cancelTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.error("Failed to cancel order {} in the order book: {}", orderId, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isOpen(long orderId, Order order) {
+        return orderId == OrderBook.MARKET_ID || (order != null && !order.getStatus().isTerminal());
+    }
+
+    // Two orders meet at most once, so the pair identifies the trade, even across a restart
+    private String tradeReference(long buyOrderId, long sellOrderId) {
+        return "TRADE-" + buyOrderId + "-" + sellOrderId;
+    }
+}
@@ -0,0 +1,384 @@
+package com.tradingplatform.order_service.service;
+
+import com.tradingplatform.order_service.client.MarketDataServiceClient;
+import com.tradingplatform.order_service.client.WalletServiceClient;
+import com.tradingplatform.order_service.event.OrderEvent;
+import com.tradingplatform.order_service.exception.InvalidOrderException;
+import com.tradingplatform.order_service.model.Order;
+import com.tradingplatform.order_service.model.OrderStatus;
+import com.tradingplatform.order_service.model.OrderType;
+import com.tradingplatform.order_service.model.PriceType;
+import com.tradingplatform.order_service.repository.OrderRepository;
+import feign.FeignException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives accepted (PENDING) orders through pricing, funding and execution on separate bounded
+ * stages. Downstream stages block their producers when full, so a slow wallet or market-data
+ * service backs up into the pricing queue and new orders are refused at intake instead of
+ * piling up on Tomcat threads.
+ */
+@Component
+@Slf4j
+public class OrderPipeline {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private WalletServiceClient walletServiceClient;
+
+    @Autowired
+    private MarketDataServiceClient marketDataServiceClient;
+
+    @Autowired
+    private OrderMatchingService orderMatchingService;
+
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    @Autowired
+    private WalletFundsService walletFundsService;
+
+    @Autowired
+    private StopOrderLimits stopOrderLimits;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${order.commission.rate:0.001}")
+    private BigDecimal commissionRate;
+
+    @Value("${order.pipeline.pricing-threads:8}")
+    private int pricingThreads;
+
+    @Value("${order.pipeline.funding-threads:8}")
+    private int fundingThreads;
+
+    @Value("${order.pipeline.execution-threads:8}")
+    private int executionThreads;
+
+    @Value("${order.pipeline.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${order.pipeline.resubmit-after-ms:300000}")
+    private long resubmitAfterMs;
+
+    private ThreadPoolExecutor pricingStage;
+    private ThreadPoolExecutor fundingStage;
+    private ThreadPoolExecutor executionStage;
+
+    // Orders currently inside the pipeline and the stage they have reached
+    private final Map<Long, OrderStatus> inFlight = new ConcurrentHashMap<>();
+
+    private static final RejectedExecutionHandler BLOCK_WHEN_FULL = (task, executor) -> {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Order pipeline stage is shut down");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for stage capacity", e);
+        }
+    };
+
+    @PostConstruct
+    public void init() {
+        pricingStage = newStage("order-pricing", pricingThreads, new ThreadPoolExecutor.AbortPolicy());
+        fundingStage = newStage("order-funding", fundingThreads, BLOCK_WHEN_FULL);
+        executionStage = newStage("order-execution", executionThreads, BLOCK_WHEN_FULL);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pricingStage.shutdown();
+        fundingStage.shutdown();
+        executionStage.shutdown();
+    }
+
+    public boolean hasCapacity() {
+        return pricingStage.getQueue().remainingCapacity() > 0;
+    }
+
+    public boolean submit(Order order) {
+        Long orderId = order.getId();
+        if (inFlight.putIfAbsent(orderId, OrderStatus.PENDING) != null) {
+            return true;
+        }
+        try {
+            pricingStage.execute(() -> price(order));
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(orderId);
+            log.warn("Order pipeline is full, order {} stays PENDING until the next sweep", orderId);
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if the order was stopped before execution, false if it is not in the
+     * pipeline or has already reached the execution stage.
+     */
+    public boolean cancel(Long orderId) {
+        OrderStatus status = inFlight.computeIfPresent(orderId,
+                (id, current) -> current == OrderStatus.EXECUTING ? current : OrderStatus.CANCELLED);
+        return status == OrderStatus.CANCELLED;
+    }
+
+    public boolean isInFlight(Long orderId) {
+        return inFlight.containsKey(orderId);
+    }
+
+    /**
+     * Picks up orders left PENDING by a full pipeline or a crashed instance. An order stays PENDING
+     * in the database for as long as it is in any instance's pipeline, so only rows untouched for
+     * {@code resubmit-after-ms} are considered, and each is claimed with a conditional update before
+     * it runs: a row another instance or sweep has claimed or finished since the read is skipped.
+     */
+    @Scheduled(fixedDelayString = "${order.pipeline.sweep-interval-ms:30000}")
+    public void resubmitPendingOrders() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(Duration.ofMillis(resubmitAfterMs));
+        for (Order order : orderRepository.findByStatusAndUpdatedAtBefore(OrderStatus.PENDING, staleBefore)) {
+            if (inFlight.containsKey(order.getId())
+                    || orderRepository.claimPending(order.getId(), order.getVersion(), OrderStatus.PENDING, staleBefore) == 0) {
+                continue;
+            }
+            Order claimed = orderRepository.findById(order.getId()).orElse(null);
+            if (claimed != null && !submit(claimed)) {
+                return;
+            }
+        }
+    }
+
+    // Stages
+
+    private void price(Order order) {
+        if (!advance(order.getId(), OrderStatus.PENDING, OrderStatus.VALIDATING)) {
+            inFlight.remove(order.getId());
+            return;
+        }
+
+        try {
+            BigDecimal price = switch (order.getPriceType() == null ? PriceType.MARKET : order.getPriceType()) {
+                case LIMIT -> order.getLimitPrice();
+                case STOP -> order.getStopPrice();
+                case MARKET -> getCurrentStockPrice(order.getSymbol());
+            };
+
+            BigDecimal totalAmount = calculateTotalAmount(order.getQuantity(), price);
+            order.setPricePerShare(price);
+            order.setTotalAmount(totalAmount);
+            order.setCommission(calculateCommission(totalAmount));
+            orderStateMachine.transition(order, OrderStatus.VALIDATING);
+
+            fundingStage.execute(() -> fund(order));
+        } catch (Exception e) {
+            fail(order, e);
+        }
+    }
+
+    private void fund(Order order) {
+        if (isCancelled(order.getId())) {
+            return;
+        }
+
+        try {
+            // One call checks and earmarks the funds, so nothing can spend them before execution
+            if (order.getOrderType() == OrderType.BUY) {
+                walletFundsService.reserve(order, holdAmount(order));
+            }
+            // For now we'll assume a seller has the shares (Portfolio Service will validate later)
+
+            executionStage.execute(() -> execute(order));
+        } catch (Exception e) {
+            fail(order, e);
+        }
+    }
+
+    private void execute(Order order) {
+        if (!advance(order.getId(), OrderStatus.VALIDATING, OrderStatus.EXECUTING)) {
+            inFlight.remove(order.getId());
+            walletFundsService.release(order);
+            return;
+        }
+
+        try {
+            orderStateMachine.transition(order, OrderStatus.EXECUTING);
+
+            if (order.getPriceType() == PriceType.LIMIT || order.getPriceType() == PriceType.STOP) {
+                orderStateMachine.persist(order, OrderStatus.OPEN);
+                orderMatchingService.place(order);
+
+                log.info("{} {} order {} placed in the order book for {}", order.getPriceType(),
+                        order.getOrderType(), order.getId(), order.getSymbol());
+            } else if (order.getOrderType() == OrderType.BUY) {
+                processBuyOrder(order);
+            } else {
+                processSellOrder(order);
+            }
+            inFlight.remove(order.getId());
+        } catch (Exception e) {
+            fail(order, e);
+        }
+    }
+
+    // Helper methods
+
+    private void processBuyOrder(Order order) {
+        log.info("Processing BUY order {} for user {}", order.getId(), order.getUserId());
+
+        BigDecimal totalCost = order.getTotalAmount().add(order.getCommission());
+
+        try {
+            walletFundsService.settle(order, totalCost, String.format("Buy %d shares of %s at $%.2f",
+                    order.getQuantity(), order.getSymbol(), order.getPricePerShare()));
+
+            markExecuted(order);
+            log.info("BUY order {} executed successfully", order.getId());
+
+        } catch (FeignException e) {
+            throw new InvalidOrderException("Service communication error: " + e.getMessage());
+        }
+    }
+
+    private void processSellOrder(Order order) {
+        log.info("Processing SELL order {} for user {}", order.getId(), order.getUserId());
+
+        try {
+            BigDecimal saleAmount = order.getTotalAmount().subtract(order.getCommission());
+
+            WalletServiceClient.TransactionRequest creditRequest =
+                    new WalletServiceClient.TransactionRequest(
+                            saleAmount,
+                            String.format("Sell %d shares of %s at $%.2f",
+                                    order.getQuantity(), order.getSymbol(), order.getPricePerShare()),
+                            "ORDER-" + order.getId()
+                    );
+
+            walletServiceClient.creditFromSale(order.getUserId(), creditRequest);
+
+            markExecuted(order);
+            log.info("SELL order {} executed successfully", order.getId());
+
+        } catch (FeignException e) {
+            throw new InvalidOrderException("Service communication error: " + e.getMessage());
+        }
+    }
+
+    private void markExecuted(Order order) {
+        order.setFilledQuantity(order.getQuantity());
+        order.setExecutedAt(LocalDateTime.now());
+        orderStateMachine.persist(order, OrderStatus.EXECUTED, OrderEvent.orderExecuted(
+                order.getId(),
+                order.getUserId(),
+                order.getSymbol(),
+                order.getOrderType(),
+                order.getQuantity(),
+                order.getPricePerShare(),
+                order.getTotalAmount()
+        ));
+    }
+
+    private void fail(Order order, Exception e) {
+        inFlight.remove(order.getId());
+        log.error("Failed to process order {}: {}", order.getId(), e.getMessage());
+
+        if (order.getStatus().isTerminal()) {
+            return;
+        }
+        walletFundsService.release(order);
+
+        order.setFailureReason(e.getMessage());
+        orderStateMachine.persist(order, OrderStatus.FAILED, OrderEvent.orderFailed(
+                order.getId(),
+                order.getUserId(),
+                order.getSymbol(),
+                order.getOrderType(),
+                order.getQuantity(),
+                e.getMessage()
+        ));
+    }
+
+    private boolean advance(Long orderId, OrderStatus from, OrderStatus to) {
+        return inFlight.replace(orderId, from, to);
+    }
+
+    private boolean isCancelled(Long orderId) {
+        if (inFlight.get(orderId) == OrderStatus.CANCELLED) {
+            inFlight.remove(orderId);
+            return true;
+        }
+        return false;
+    }
+
+    private BigDecimal getCurrentStockPrice(String symbol) {
+        try {
+            BigDecimal price = marketDataServiceClient.getCurrentPrice(symbol.toUpperCase());
+
+            if (price == null || price.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new InvalidOrderException("Invalid stock price for symbol: " + symbol);
+            }
+
+            return price;
+        } catch (FeignException e) {
+            log.error("Failed to get price for {}: {}", symbol, e.getMessage());
+            throw new InvalidOrderException("Stock not found or market data unavailable: " + symbol);
+        }
+    }
+
+    // A buy stop fills at the market, so its hold covers the highest price it is allowed to fill at
+    private BigDecimal holdAmount(Order order) {
+        BigDecimal maxFillPrice = stopOrderLimits.maxFillPrice(order);
+        if (maxFillPrice == null) {
+            return order.getTotalAmount().add(order.getCommission());
+        }
+        BigDecimal maxAmount = calculateTotalAmount(order.getQuantity(), maxFillPrice);
+        return maxAmount.add(calculateCommission(maxAmount));
+    }
+
+    private BigDecimal calculateTotalAmount(Integer quantity, BigDecimal pricePerShare) {
+        return pricePerShare.multiply(new BigDecimal(quantity))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private BigDecimal calculateCommission(BigDecimal totalAmount) {
+        return totalAmount.multiply(commissionRate)
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private ThreadPoolExecutor newStage(String name, int threads, RejectedExecutionHandler rejectionHandler) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor stage = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, name + "-" + counter.incrementAndGet()),
+                rejectionHandler);
+
+        Gauge.builder("order.pipeline.queue.size", stage, executor -> executor.getQueue().size())
+                .tag("stage", name)
+                .register(meterRegistry);
+        return stage;
+    }
+}
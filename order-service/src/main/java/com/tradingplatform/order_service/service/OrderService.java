@@ -14,7 +14,6 @@ import java.util.List;
 
 public interface OrderService {
 
-    @Transactional
     OrderResponseDto createOrder(CreateOrderRequestDto request);
 
     OrderResponseDto getOrderById(Long orderId);
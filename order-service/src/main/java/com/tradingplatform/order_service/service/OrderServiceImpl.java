@@ -1,21 +1,16 @@
 package com.tradingplatform.order_service.service;
 
-import com.tradingplatform.order_service.client.MarketDataServiceClient;
-import com.tradingplatform.order_service.client.WalletServiceClient;
 import com.tradingplatform.order_service.dto.CreateOrderRequestDto;
 import com.tradingplatform.order_service.dto.OrderResponseDto;
 import com.tradingplatform.order_service.dto.OrderSummaryResponseDto;
-import com.tradingplatform.order_service.event.OrderEvent;
-import com.tradingplatform.order_service.event.OrderEventProducer;
-import com.tradingplatform.order_service.exception.InsufficientBalanceException;
 import com.tradingplatform.order_service.exception.InvalidOrderException;
+import com.tradingplatform.order_service.exception.OrderCapacityException;
 import com.tradingplatform.order_service.exception.OrderNotFoundException;
 import com.tradingplatform.order_service.model.Order;
 import com.tradingplatform.order_service.model.OrderStatus;
 import com.tradingplatform.order_service.model.OrderType;
+import com.tradingplatform.order_service.model.PriceType;
 import com.tradingplatform.order_service.repository.OrderRepository;
-import feign.FeignException;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,8 +20,6 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -39,16 +32,18 @@ public class OrderServiceImpl implements OrderService {
     private OrderRepository orderRepository;
 
     @Autowired
-    private WalletServiceClient walletServiceClient;
+    private OrderMatchingService orderMatchingService;
 
     @Autowired
-    private MarketDataServiceClient marketDataServiceClient;
+    private OrderPipeline orderPipeline;
 
     @Autowired
-    private OrderEventProducer orderEventProducer;
+    private OrderStateMachine orderStateMachine;
 
-    @Value("${order.commission.rate:0.001}")
-    private BigDecimal commissionRate;
+    @Autowired
+    private WalletFundsService walletFundsService;
+
+    private static final List<OrderStatus> CANCELLABLE_PENDING = List.of(OrderStatus.PENDING, OrderStatus.VALIDATING);
 
     @Value("${order.limits.max-quantity:10000}")
     private Integer maxQuantity;
@@ -56,7 +51,6 @@ public class OrderServiceImpl implements OrderService {
     @Value("${order.limits.min-quantity:1}")
     private Integer minQuantity;
 
-    @Transactional
     @Override
     public OrderResponseDto createOrder(CreateOrderRequestDto request) {
         log.info("Creating order for user {}: {} {} shares of {}",
@@ -64,24 +58,14 @@ public class OrderServiceImpl implements OrderService {
 
         validateOrderRequest(request);
 
-        BigDecimal currentPrice = getCurrentStockPrice(request.getSymbol());
-
-        BigDecimal totalAmount = calculateTotalAmount(request.getQuantity(), currentPrice);
-        BigDecimal commission = calculateCommission(totalAmount);
-        BigDecimal totalCost = totalAmount.add(commission);
-
-        Order order = createPendingOrder(request, currentPrice, totalAmount, commission);
-        Order savedOrder = orderRepository.save(order);
-
-        try {
-            processOrder(savedOrder, totalCost);
-        } catch (Exception e) {
-            log.error("Failed to process order {}: {}", savedOrder.getId(), e.getMessage());
-            savedOrder.setStatus(OrderStatus.FAILED);
-            savedOrder.setFailureReason(e.getMessage());
-            orderRepository.save(savedOrder);
+        if (!orderPipeline.hasCapacity()) {
+            throw new OrderCapacityException();
         }
 
+        // Committed as PENDING before it is handed to the pipeline; the client polls or listens for the outcome
+        Order savedOrder = orderStateMachine.accept(createPendingOrder(request));
+        orderPipeline.submit(savedOrder);
+
         return mapToOrderResponse(savedOrder);
     }
 
@@ -114,7 +98,6 @@ public class OrderServiceImpl implements OrderService {
                 .collect(Collectors.toList());
     }
 
-    @Transactional
     @Override
     public OrderResponseDto cancelOrder(Long orderId, Long userId) {
         Order order = orderRepository.findById(orderId)
@@ -124,16 +107,32 @@ public class OrderServiceImpl implements OrderService {
             throw new InvalidOrderException("You can only cancel your own orders");
         }
 
+        if (order.getStatus() == OrderStatus.OPEN || order.getStatus() == OrderStatus.PARTIALLY_FILLED) {
+            // Written on the settlement thread after any fills already matched, not from this stale copy
+            Order cancelled = orderMatchingService.cancel(order)
+                    .orElseThrow(() -> new InvalidOrderException("Order is no longer open in the order book"));
+            log.info("Order {} cancelled by user {}", orderId, userId);
+            return mapToOrderResponse(cancelled);
+        }
+
         if (order.getStatus() != OrderStatus.PENDING && order.getStatus() != OrderStatus.VALIDATING) {
-            throw new InvalidOrderException("Can only cancel pending orders");
+            throw new InvalidOrderException("Can only cancel pending or open orders");
+        }
+        if (orderPipeline.isInFlight(orderId) && !orderPipeline.cancel(orderId)) {
+            throw new InvalidOrderException("Order is already executing");
         }
 
-        order.setStatus(OrderStatus.CANCELLED);
-        Order saved = orderRepository.save(order);
+        // The copy read above may be stale by now: the pipeline can finish the order in between, so
+        // the cancel only applies if the row is still pending, and only then is the hold released
+        int cancelled = orderRepository.cancelIfIn(orderId, CANCELLABLE_PENDING, OrderStatus.CANCELLED);
+        if (cancelled == 0) {
+            throw new InvalidOrderException("Order is already executing");
+        }
+        walletFundsService.release(order);
 
         log.info("Order {} cancelled by user {}", orderId, userId);
 
-        return mapToOrderResponse(saved);
+        return mapToOrderResponse(orderRepository.findById(orderId).orElse(order));
     }
 
     @Override
@@ -165,114 +164,6 @@ public class OrderServiceImpl implements OrderService {
         );
     }
 
-    private void processOrder(Order order, BigDecimal totalCost) {
-        order.setStatus(OrderStatus.VALIDATING);
-        orderRepository.save(order);
-
-        if (order.getOrderType() == OrderType.BUY) {
-            processBuyOrder(order, totalCost);
-        } else {
-            processSellOrder(order);
-        }
-    }
-
-    private void processBuyOrder(Order order, BigDecimal totalCost) {
-        log.info("Processing BUY order {} for user {}", order.getId(), order.getUserId());
-
-        try {
-            WalletServiceClient.BalanceResponse balance = walletServiceClient.getBalance(order.getUserId());
-
-            if (balance.balance.compareTo(totalCost) < 0) {
-                throw new InsufficientBalanceException(totalCost, balance.balance);
-            }
-
-            order.setStatus(OrderStatus.EXECUTING);
-            orderRepository.save(order);
-
-            WalletServiceClient.TransactionRequest deductRequest =
-                    new WalletServiceClient.TransactionRequest(
-                            totalCost,
-                            String.format("Buy %d shares of %s at $%.2f",
-                                    order.getQuantity(), order.getSymbol(), order.getPricePerShare()),
-                            "ORDER-" + order.getId()
-                    );
-
-            walletServiceClient.deductForPurchase(order.getUserId(), deductRequest);
-
-            order.setStatus(OrderStatus.EXECUTED);
-            order.setExecutedAt(LocalDateTime.now());
-            orderRepository.save(order);
-
-            log.info("BUY order {} executed successfully", order.getId());
-
-            OrderEvent event = OrderEvent.orderExecuted(
-                    order.getId(),
-                    order.getUserId(),
-                    order.getSymbol(),
-                    order.getOrderType(),
-                    order.getQuantity(),
-                    order.getPricePerShare(),
-                    order.getTotalAmount()
-            );
-            orderEventProducer.publishOrderEvent(event);
-
-        } catch (FeignException e) {
-            log.error("Error processing order {}: {}", order.getId(), e.getMessage());
-            order.setStatus(OrderStatus.FAILED);
-            order.setFailureReason("Service communication error: " + e.getMessage());
-            orderRepository.save(order);
-            throw new InvalidOrderException("Failed to process order: " + e.getMessage());
-        }
-    }
-
-    private void processSellOrder(Order order) {
-        log.info("Processing SELL order {} for user {}", order.getId(), order.getUserId());
-
-        try {
-            // For now we'll assume user has shares (Portfolio Service will validate later)
-            // In real implementation, check Portfolio Service first
-
-            order.setStatus(OrderStatus.EXECUTING);
-            orderRepository.save(order);
-
-            BigDecimal saleAmount = order.getTotalAmount().subtract(order.getCommission());
-
-            WalletServiceClient.TransactionRequest creditRequest =
-                    new WalletServiceClient.TransactionRequest(
-                            saleAmount,
-                            String.format("Sell %d shares of %s at $%.2f",
-                                    order.getQuantity(), order.getSymbol(), order.getPricePerShare()),
-                            "ORDER-" + order.getId()
-                    );
-
-            walletServiceClient.creditFromSale(order.getUserId(), creditRequest);
-
-            order.setStatus(OrderStatus.EXECUTED);
-            order.setExecutedAt(LocalDateTime.now());
-            orderRepository.save(order);
-
-            log.info("SELL order {} executed successfully", order.getId());
-
-            OrderEvent event = OrderEvent.orderExecuted(
-                    order.getId(),
-                    order.getUserId(),
-                    order.getSymbol(),
-                    order.getOrderType(),
-                    order.getQuantity(),
-                    order.getPricePerShare(),
-                    order.getTotalAmount()
-            );
-            orderEventProducer.publishOrderEvent(event);
-
-        } catch (FeignException e) {
-            log.error("Error processing sell order {}: {}", order.getId(), e.getMessage());
-            order.setStatus(OrderStatus.FAILED);
-            order.setFailureReason("Service communication error: " + e.getMessage());
-            orderRepository.save(order);
-            throw new InvalidOrderException("Failed to process sell order: " + e.getMessage());
-        }
-    }
-
     private void validateOrderRequest(CreateOrderRequestDto request) {
         if (request.getQuantity() < minQuantity || request.getQuantity() > maxQuantity) {
             throw new InvalidOrderException(
@@ -282,45 +173,29 @@ public class OrderServiceImpl implements OrderService {
         if (request.getSymbol() == null || request.getSymbol().trim().isEmpty()) {
             throw new InvalidOrderException("Symbol cannot be empty");
         }
-    }
 
-    private BigDecimal getCurrentStockPrice(String symbol) {
-        try {
-            BigDecimal price = marketDataServiceClient.getCurrentPrice(symbol.toUpperCase());
-
-            if (price == null || price.compareTo(BigDecimal.ZERO) <= 0) {
-                throw new InvalidOrderException("Invalid stock price for symbol: " + symbol);
-            }
-
-            return price;
-        } catch (FeignException e) {
-            log.error("Failed to get price for {}: {}", symbol, e.getMessage());
-            throw new InvalidOrderException("Stock not found or market data unavailable: " + symbol);
+        if (request.getPriceType() == PriceType.LIMIT && request.getLimitPrice() == null) {
+            throw new InvalidOrderException("Limit price is required for LIMIT orders");
         }
-    }
 
-    private BigDecimal calculateTotalAmount(Integer quantity, BigDecimal pricePerShare) {
-        return pricePerShare.multiply(new BigDecimal(quantity))
-                .setScale(2, RoundingMode.HALF_UP);
-    }
-
-    private BigDecimal calculateCommission(BigDecimal totalAmount) {
-        return totalAmount.multiply(commissionRate)
-                .setScale(2, RoundingMode.HALF_UP);
+        if (request.getPriceType() == PriceType.STOP && request.getStopPrice() == null) {
+            throw new InvalidOrderException("Stop price is required for STOP orders");
+        }
     }
 
-    private Order createPendingOrder(CreateOrderRequestDto request, BigDecimal currentPrice,
-                                     BigDecimal totalAmount, BigDecimal commission) {
+    private Order createPendingOrder(CreateOrderRequestDto request) {
         Order order = new Order();
         order.setUserId(request.getUserId());
         order.setSymbol(request.getSymbol().toUpperCase());
         order.setOrderType(request.getOrderType());
+        order.setPriceType(request.getPriceType() != null ? request.getPriceType() : PriceType.MARKET);
         order.setQuantity(request.getQuantity());
-        order.setPricePerShare(currentPrice);
-        order.setTotalAmount(totalAmount);
-        order.setCommission(commission);
+        order.setFilledQuantity(0);
+        order.setLimitPrice(request.getLimitPrice());
+        order.setStopPrice(request.getStopPrice());
+        order.setTotalAmount(BigDecimal.ZERO);
+        order.setCommission(BigDecimal.ZERO);
         order.setNotes(request.getNotes());
-        order.setStatus(OrderStatus.PENDING);
         return order;
     }
 
@@ -330,9 +205,13 @@ public class OrderServiceImpl implements OrderService {
                 order.getUserId(),
                 order.getSymbol(),
                 order.getOrderType(),
+                order.getPriceType(),
                 order.getStatus(),
                 order.getQuantity(),
+                order.getFilledQuantity(),
                 order.getPricePerShare(),
+                order.getLimitPrice(),
+                order.getStopPrice(),
                 order.getTotalAmount(),
                 order.getCommission(),
                 order.getNotes(),
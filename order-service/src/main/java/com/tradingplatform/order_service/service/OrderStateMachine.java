@@ -0,0 +1,102 @@
+package com.tradingplatform.order_service.service;
+
+import com.tradingplatform.order_service.event.OrderEvent;
+import com.tradingplatform.order_service.event.OrderEventProducer;
+import com.tradingplatform.order_service.model.Order;
+import com.tradingplatform.order_service.model.OrderStatus;
+import com.tradingplatform.order_service.model.OrderTransition;
+import com.tradingplatform.order_service.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Single place where order status changes. {@link #transition} only records the step in memory;
+ * the row is written by {@link #accept} and {@link #persist}, which the pipeline calls once when
+ * the order is accepted and once when it reaches a durable state (OPEN or terminal).
+ */
+@Component
+@Slf4j
+public class OrderStateMachine {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderEventProducer orderEventProducer;
+
+    private final Counter dbWrites;
+    private final DistributionSummary dbWritesPerOrder;
+
+    public OrderStateMachine(MeterRegistry meterRegistry) {
+        this.dbWrites = Counter.builder("order.db.writes")
+                .description("Order row inserts and updates")
+                .register(meterRegistry);
+        this.dbWritesPerOrder = DistributionSummary.builder("order.db.writes.per.order")
+                .description("Order row writes made for one order from acceptance to its terminal state")
+                .register(meterRegistry);
+    }
+
+    public Order accept(Order order) {
+        order.setStatus(OrderStatus.PENDING);
+        order.getTransitions().add(new OrderTransition(null, OrderStatus.PENDING, LocalDateTime.now()));
+        return write(order);
+    }
+
+    public void transition(Order order, OrderStatus next) {
+        OrderStatus current = order.getStatus();
+        if (!current.canTransitionTo(next)) {
+            throw new IllegalStateException(
+                    String.format("Order %d cannot move from %s to %s", order.getId(), current, next));
+        }
+        order.setStatus(next);
+        order.getTransitions().add(new OrderTransition(current, next, LocalDateTime.now()));
+    }
+
+    public Order persist(Order order, OrderStatus next) {
+        if (order.getStatus() != next) {
+            transition(order, next);
+        }
+        Order saved = write(order);
+
+        // Only orders accepted by this instance carry their full write history
+        if (next.isTerminal() && acceptedHere(order)) {
+            dbWritesPerOrder.record(order.getDbWrites());
+            log.debug("Order {} reached {} after {} writes: {}",
+                    order.getId(), next, order.getDbWrites(), order.getTransitions());
+        }
+        return saved;
+    }
+
+    /**
+     * Writes the order and queues its event in the outbox in one transaction, so the event is
+     * published if and only if the status change commits.
+     */
+    @Transactional
+    public Order persist(Order order, OrderStatus next, OrderEvent event) {
+        Order saved = persist(order, next);
+        orderEventProducer.publishOrderEvent(event);
+        return saved;
+    }
+
+    private boolean acceptedHere(Order order) {
+        return !order.getTransitions().isEmpty() && order.getTransitions().get(0).from() == null;
+    }
+
+    private Order write(Order order) {
+        Order saved = orderRepository.save(order);
+        // Keeps the caller's copy current, so its next write is not rejected as stale
+        order.setVersion(saved.getVersion());
+        order.setDbWrites(order.getDbWrites() + 1);
+        saved.setDbWrites(order.getDbWrites());
+        saved.setTransitions(order.getTransitions());
+        dbWrites.increment();
+        return saved;
+    }
+}
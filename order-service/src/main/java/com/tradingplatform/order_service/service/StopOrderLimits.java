@@ -0,0 +1,32 @@
+package com.tradingplatform.order_service.service;
+
+import com.tradingplatform.order_service.model.Order;
+import com.tradingplatform.order_service.model.OrderType;
+import com.tradingplatform.order_service.model.PriceType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * A triggered buy stop fills at the market, which may already be above its stop. Its funds hold
+ * is sized at the stop plus a configurable slippage allowance, and no part of the order fills
+ * above that price: the book sweeps asks only up to it, and a market price past it leaves the
+ * remainder resting as a limit order at it. So a fill can never draw on more than was held.
+ * Sell stops are not capped; they spend nothing.
+ */
+@Component
+public class StopOrderLimits {
+
+    @Value("${order.stop.buy-slippage:0.05}")
+    private BigDecimal buySlippage;
+
+    // Highest price the order may fill at, or null if it is not a buy stop
+    public BigDecimal maxFillPrice(Order order) {
+        if (order.getPriceType() != PriceType.STOP || order.getOrderType() != OrderType.BUY) {
+            return null;
+        }
+        return order.getStopPrice().multiply(BigDecimal.ONE.add(buySlippage)).setScale(4, RoundingMode.DOWN);
+    }
+}
@@ -0,0 +1,64 @@
+package com.tradingplatform.order_service.service;
+
+import com.tradingplatform.order_service.client.WalletServiceClient;
+import com.tradingplatform.order_service.exception.InvalidOrderException;
+import com.tradingplatform.order_service.model.Order;
+import com.tradingplatform.order_service.model.OrderType;
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+
+/**
+ * Buy-side funds lifecycle against wallet-service: a hold keyed by the order reference is
+ * placed once during funding, settled per fill, and released when the order ends early.
+ */
+@Service
+@Slf4j
+public class WalletFundsService {
+
+    @Autowired
+    private WalletServiceClient walletServiceClient;
+
+    public void reserve(Order order, BigDecimal amount) {
+        try {
+            walletServiceClient.reserveFunds(order.getUserId(), new WalletServiceClient.HoldRequest(
+                    amount,
+                    referenceId(order),
+                    String.format("Hold for %s %d shares of %s", order.getOrderType(), order.getQuantity(), order.getSymbol())
+            ));
+        } catch (FeignException.BadRequest e) {
+            throw new InvalidOrderException("Funds could not be reserved: " + e.contentUTF8());
+        } catch (FeignException e) {
+            throw new InvalidOrderException("Service communication error: " + e.getMessage());
+        }
+    }
+
+    public void settle(Order order, BigDecimal amount, String description) {
+        walletServiceClient.settleHold(referenceId(order),
+                new WalletServiceClient.TransactionRequest(amount, description, referenceId(order)));
+    }
+
+    // Best effort: a hold that was never placed or is already closed needs no release
+    public void release(Order order) {
+        if (order.getOrderType() != OrderType.BUY) {
+            return;
+        }
+        try {
+            walletServiceClient.releaseHold(referenceId(order));
+        } catch (FeignException.NotFound e) {
+            log.debug("No funds hold to release for order {}", order.getId());
+        } catch (FeignException e) {
+            log.error("Failed to release funds hold for order {}: {}", order.getId(), e.getMessage());
+        }
+    }
+
+    // Helper methods
+
+    // Reference of the order's hold, also used to settle its fills against it
+    String referenceId(Order order) {
+        return "ORDER-" + order.getId();
+    }
+}
@@ -0,0 +1,95 @@
+package com.tradingplatform.order_service.matching;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatchingEngineTest {
+
+    private static final long PRICE = 1_000_000L;
+
+    private OrderBookTest.RecordingListener listener;
+    private MatchingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        listener = new OrderBookTest.RecordingListener();
+        engine = new MatchingEngine(4, listener);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void matchesOrdersForTheSameSymbol() throws Exception {
+        await(engine.submit("AAPL", BookOrder.limit(1, false, PRICE, 10)));
+        await(engine.submit("AAPL", BookOrder.limit(2, true, PRICE, 10)));
+
+        assertEquals(List.of(new OrderBookTest.Trade(2, 1, PRICE, 10)), listener.trades);
+    }
+
+    @Test
+    void keepsSymbolsInSeparateBooks() throws Exception {
+        await(engine.submit("AAPL", BookOrder.limit(1, false, PRICE, 10)));
+        await(engine.submit("MSFT", BookOrder.limit(2, true, PRICE, 10)));
+
+        assertTrue(listener.trades.isEmpty());
+        assertEquals(Set.of("AAPL", "MSFT"), engine.activeSymbols());
+    }
+
+    @Test
+    void cancelReportsWhetherTheOrderWasResting() throws Exception {
+        await(engine.submit("AAPL", BookOrder.limit(1, true, PRICE, 10)));
+
+        assertTrue(await(engine.cancel("AAPL", 1)));
+        assertFalse(await(engine.cancel("AAPL", 1)));
+        assertFalse(await(engine.cancel("MSFT", 1)));
+        assertTrue(engine.activeSymbols().isEmpty());
+    }
+
+    @Test
+    void appliesCommandsForASymbolInSubmissionOrder() throws Exception {
+        for (int i = 1; i <= 100; i++) {
+            engine.submit("AAPL", BookOrder.limit(i, false, PRICE, 1));
+        }
+        await(engine.submit("AAPL", BookOrder.limit(101, true, PRICE, 100)));
+
+        assertEquals(100, listener.trades.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i + 1, listener.trades.get(i).sellOrderId());
+        }
+    }
+
+    @Test
+    void marketPriceTriggersStopsBeforeFillingCrossedOrders() throws Exception {
+        await(engine.submit("AAPL", BookOrder.limit(1, true, PRICE, 10)));
+        await(engine.submit("AAPL", BookOrder.stop(2, false, PRICE - 100, 5)));
+
+        await(engine.onMarketPrice("AAPL", PRICE - 200));
+
+        // The triggered stop sells into the resting bid, and the market fills what is left of it
+        assertEquals(List.of(
+                new OrderBookTest.Trade(1, 2, PRICE, 5),
+                new OrderBookTest.Trade(1, OrderBook.MARKET_ID, PRICE - 200, 5)
+        ), listener.trades);
+        assertTrue(listener.stops.isEmpty());
+        assertTrue(engine.activeSymbols().isEmpty());
+    }
+
+    // Helper methods
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,133 @@
+package com.tradingplatform.order_service.matching;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Add / cancel / match latency percentiles for a single {@link OrderBook}, plus raw
+ * matching throughput. Run with {@code main} from the IDE or the test classpath.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderBookBenchmark {
+
+    private static final long MID = 1_000_000L;     // $100.0000 in ticks
+    private static final int LEVELS = 100;
+    private static final int ORDERS_PER_LEVEL = 10;
+
+    @State(Scope.Thread)
+    public static class BookState {
+        OrderBook book;
+        SplittableRandom random;
+        long nextId;
+        long lastAdded;
+        long pendingCancel;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            book = new OrderBook("BENCH", new CountingListener());
+            random = new SplittableRandom(42);
+            nextId = 1;
+            for (int level = 1; level <= LEVELS; level++) {
+                for (int i = 0; i < ORDERS_PER_LEVEL; i++) {
+                    book.add(BookOrder.limit(nextId++, true, MID - level, 100));
+                    book.add(BookOrder.limit(nextId++, false, MID + level, 100));
+                }
+            }
+        }
+
+        BookOrder passiveOrder() {
+            boolean buy = random.nextBoolean();
+            long offset = 1 + random.nextInt(LEVELS);
+            return BookOrder.limit(nextId++, buy, buy ? MID - offset : MID + offset, 100);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AddState extends BookState {
+        // Keep the book at a steady depth; runs outside the timed region in SampleTime mode
+        @Setup(Level.Invocation)
+        public void removePrevious() {
+            if (lastAdded != 0) {
+                book.cancel(lastAdded);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CancelState extends BookState {
+        @Setup(Level.Invocation)
+        public void addOne() {
+            BookOrder order = passiveOrder();
+            book.add(order);
+            pendingCancel = order.getOrderId();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class MatchState extends BookState {
+        @Setup(Level.Invocation)
+        public void replenish() {
+            book.add(BookOrder.limit(nextId++, false, MID, 100));
+        }
+    }
+
+    @Benchmark
+    public void add(AddState state) {
+        BookOrder order = state.passiveOrder();
+        state.book.add(order);
+        state.lastAdded = order.getOrderId();
+    }
+
+    @Benchmark
+    public boolean cancel(CancelState state) {
+        return state.book.cancel(state.pendingCancel);
+    }
+
+    @Benchmark
+    public void match(MatchState state) {
+        state.book.add(BookOrder.limit(state.nextId++, true, MID, 100));
+    }
+
+    // Alternating resting sell / crossing buy: every op is one order, every second op is a full match
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void matchThroughput(BookState state, Blackhole blackhole) {
+        long id = state.nextId++;
+        state.book.add(BookOrder.limit(id, (id & 1) == 0, MID, 100));
+        blackhole.consume(state.book.bestAsk());
+    }
+
+    private static final class CountingListener implements TradeListener {
+        long trades;
+        long stops;
+
+        @Override
+        public void onTrade(String symbol, long buyOrderId, long sellOrderId, long priceTicks, int quantity) {
+            trades++;
+        }
+
+        @Override
+        public void onStopTriggered(String symbol, long orderId, int remainingQuantity) {
+            stops++;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OrderBookBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,282 @@
+package com.tradingplatform.order_service.matching;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderBookTest {
+
+    private static final long P100 = OrderBook.toTicks(new BigDecimal("100.00"));
+    private static final long P101 = OrderBook.toTicks(new BigDecimal("101.00"));
+    private static final long P102 = OrderBook.toTicks(new BigDecimal("102.00"));
+    private static final long P103 = OrderBook.toTicks(new BigDecimal("103.00"));
+    private static final long P105 = OrderBook.toTicks(new BigDecimal("105.00"));
+
+    private RecordingListener listener;
+    private OrderBook book;
+
+    @BeforeEach
+    void setUp() {
+        listener = new RecordingListener();
+        book = new OrderBook("TEST", listener);
+    }
+
+    @Test
+    void matchesBestPriceFirstThenEarliestAtThatPrice() {
+        book.add(BookOrder.limit(1, false, P101, 10));
+        book.add(BookOrder.limit(2, false, P101, 10));
+        book.add(BookOrder.limit(3, false, P100, 10));
+
+        book.add(BookOrder.limit(4, true, P101, 25));
+
+        assertEquals(List.of(
+                new Trade(4, 3, P100, 10),
+                new Trade(4, 1, P101, 10),
+                new Trade(4, 2, P101, 5)
+        ), listener.trades);
+        assertEquals(P101, book.bestAsk());
+        assertEquals(1, book.getOpenOrders());
+    }
+
+    @Test
+    void tradesAtTheRestingOrdersPrice() {
+        book.add(BookOrder.limit(1, true, P102, 10));
+
+        book.add(BookOrder.limit(2, false, P100, 10));
+
+        assertEquals(List.of(new Trade(1, 2, P102, 10)), listener.trades);
+        assertEquals(P102, book.getLastPrice());
+    }
+
+    @Test
+    void restsTheUnfilledRemainderOfAPartiallyFilledOrder() {
+        book.add(BookOrder.limit(1, false, P100, 4));
+
+        BookOrder buy = BookOrder.limit(2, true, P100, 10);
+        book.add(buy);
+
+        assertEquals(List.of(new Trade(2, 1, P100, 4)), listener.trades);
+        assertEquals(6, buy.getRemaining());
+        assertEquals(P100, book.bestBid());
+        assertEquals(0L, book.bestAsk());
+        assertEquals(1, book.getOpenOrders());
+    }
+
+    @Test
+    void partiallyFillsTheRestingOrderAndKeepsItsPlace() {
+        book.add(BookOrder.limit(1, false, P100, 10));
+        book.add(BookOrder.limit(2, false, P100, 10));
+
+        book.add(BookOrder.limit(3, true, P100, 4));
+        book.add(BookOrder.limit(4, true, P100, 8));
+
+        assertEquals(List.of(
+                new Trade(3, 1, P100, 4),
+                new Trade(4, 1, P100, 6),
+                new Trade(4, 2, P100, 2)
+        ), listener.trades);
+    }
+
+    @Test
+    void doesNotMatchOrdersThatDoNotCross() {
+        book.add(BookOrder.limit(1, false, P102, 10));
+        book.add(BookOrder.limit(2, true, P101, 10));
+
+        assertTrue(listener.trades.isEmpty());
+        assertEquals(P101, book.bestBid());
+        assertEquals(P102, book.bestAsk());
+        assertEquals(2, book.getOpenOrders());
+    }
+
+    @Test
+    void cancelledOrderNoLongerMatches() {
+        book.add(BookOrder.limit(1, false, P100, 10));
+        book.add(BookOrder.limit(2, false, P101, 10));
+
+        assertTrue(book.cancel(1));
+        assertFalse(book.cancel(1));
+        assertEquals(P101, book.bestAsk());
+
+        book.add(BookOrder.limit(3, true, P101, 5));
+
+        assertEquals(List.of(new Trade(3, 2, P101, 5)), listener.trades);
+    }
+
+    @Test
+    void cancelOfTheOnlyOrderAtALevelRemovesTheLevel() {
+        book.add(BookOrder.limit(1, true, P100, 10));
+
+        assertTrue(book.cancel(1));
+
+        assertEquals(0L, book.bestBid());
+        assertEquals(0, book.getOpenOrders());
+    }
+
+    @Test
+    void cancelOfAFilledOrderFails() {
+        book.add(BookOrder.limit(1, false, P100, 10));
+        book.add(BookOrder.limit(2, true, P100, 10));
+
+        assertFalse(book.cancel(1));
+        assertFalse(book.cancel(2));
+    }
+
+    @Test
+    void buyStopTriggersWhenThePriceRisesToIt() {
+        book.add(BookOrder.stop(1, true, P103, 10));
+
+        book.onMarketPrice(P102);
+        assertTrue(listener.stops.isEmpty());
+
+        book.onMarketPrice(P103);
+        assertEquals(List.of(new Stop(1, 10)), listener.stops);
+        assertEquals(0, book.getOpenOrders());
+    }
+
+    @Test
+    void sellStopTriggersWhenThePriceFallsToIt() {
+        book.add(BookOrder.stop(1, false, P100, 10));
+
+        book.onMarketPrice(P101);
+        assertTrue(listener.stops.isEmpty());
+
+        book.onMarketPrice(P100 - 1);
+        assertEquals(List.of(new Stop(1, 10)), listener.stops);
+    }
+
+    @Test
+    void stopAddedPastItsTriggerFiresImmediately() {
+        book.onMarketPrice(P105);
+
+        book.add(BookOrder.stop(1, true, P103, 10));
+
+        assertEquals(List.of(new Stop(1, 10)), listener.stops);
+    }
+
+    @Test
+    void triggeredStopTakesBookLiquidityBeforeGoingToTheMarket() {
+        book.add(BookOrder.limit(1, false, P105, 4));
+        book.add(BookOrder.stop(2, true, P103, 10));
+
+        book.onMarketPrice(P103);
+
+        assertEquals(List.of(new Trade(2, 1, P105, 4)), listener.trades);
+        assertEquals(List.of(new Stop(2, 6)), listener.stops);
+    }
+
+    @Test
+    void triggeredStopWithALimitTakesBookLiquidityOnlyUpToIt() {
+        book.add(BookOrder.limit(1, false, P103, 3));
+        book.add(BookOrder.limit(2, false, P105, 3));
+        book.add(BookOrder.stop(3, true, P101, P103, 8));
+
+        book.onMarketPrice(P101);
+
+        assertEquals(List.of(new Trade(3, 1, P103, 3)), listener.trades);
+        assertEquals(List.of(new Stop(3, 5)), listener.stops);
+        assertEquals(P105, book.bestAsk());
+    }
+
+    @Test
+    void fillThatMovesThePriceTriggersFurtherStops() {
+        book.add(BookOrder.stop(1, true, P102, 5));
+        book.add(BookOrder.limit(2, false, P102, 5));
+        book.add(BookOrder.limit(3, false, P103, 5));
+        book.onMarketPrice(P101);
+
+        // Trades at 102, which triggers stop 1 against the remaining ask at 103
+        book.add(BookOrder.limit(4, true, P102, 5));
+
+        assertEquals(List.of(
+                new Trade(4, 2, P102, 5),
+                new Trade(1, 3, P103, 5)
+        ), listener.trades);
+        assertTrue(listener.stops.isEmpty());
+    }
+
+    @Test
+    void triggeredStopSweepsSeveralPriceLevels() {
+        book.add(BookOrder.limit(1, false, P101, 3));
+        book.add(BookOrder.limit(2, false, P102, 3));
+        book.add(BookOrder.limit(3, false, P103, 3));
+        book.add(BookOrder.stop(4, true, P100, 8));
+
+        book.onMarketPrice(P100);
+
+        assertEquals(List.of(
+                new Trade(4, 1, P101, 3),
+                new Trade(4, 2, P102, 3),
+                new Trade(4, 3, P103, 2)
+        ), listener.trades);
+        assertTrue(listener.stops.isEmpty());
+        assertEquals(P103, book.bestAsk());
+    }
+
+    @Test
+    void limitOrderSweepsLevelsUpToItsLimit() {
+        book.add(BookOrder.limit(1, true, P103, 3));
+        book.add(BookOrder.limit(2, true, P102, 3));
+        book.add(BookOrder.limit(3, true, P100, 3));
+
+        BookOrder sell = BookOrder.limit(4, false, P101, 10);
+        book.add(sell);
+
+        assertEquals(List.of(
+                new Trade(1, 4, P103, 3),
+                new Trade(2, 4, P102, 3)
+        ), listener.trades);
+        assertEquals(4, sell.getRemaining());
+        assertEquals(P101, book.bestAsk());
+        assertEquals(P100, book.bestBid());
+    }
+
+    @Test
+    void restingOrdersCrossedByTheMarketFillAtTheMarketPrice() {
+        book.add(BookOrder.limit(1, true, P102, 10));
+        book.add(BookOrder.limit(2, true, P100, 10));
+        book.add(BookOrder.limit(3, false, P105, 10));
+
+        book.onMarketPrice(P101);
+
+        assertEquals(List.of(new Trade(1, OrderBook.MARKET_ID, P101, 10)), listener.trades);
+        assertEquals(P100, book.bestBid());
+        assertEquals(2, book.getOpenOrders());
+    }
+
+    @Test
+    void ticksRoundTripToFourDecimals() {
+        assertEquals(1_000_000L, OrderBook.toTicks(new BigDecimal("100")));
+        assertEquals(1_234_568L, OrderBook.toTicks(new BigDecimal("123.45675")));
+        assertEquals(new BigDecimal("123.4568"), OrderBook.fromTicks(1_234_568L));
+    }
+
+    // Helper methods
+
+    record Trade(long buyOrderId, long sellOrderId, long priceTicks, int quantity) {
+    }
+
+    record Stop(long orderId, int remainingQuantity) {
+    }
+
+    static final class RecordingListener implements TradeListener {
+        final List<Trade> trades = new ArrayList<>();
+        final List<Stop> stops = new ArrayList<>();
+
+        @Override
+        public synchronized void onTrade(String symbol, long buyOrderId, long sellOrderId, long priceTicks, int quantity) {
+            trades.add(new Trade(buyOrderId, sellOrderId, priceTicks, quantity));
+        }
+
+        @Override
+        public synchronized void onStopTriggered(String symbol, long orderId, int remainingQuantity) {
+            stops.add(new Stop(orderId, remainingQuantity));
+        }
+    }
+}
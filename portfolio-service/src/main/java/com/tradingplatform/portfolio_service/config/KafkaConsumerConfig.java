@@ -1,8 +1,13 @@
 package com.tradingplatform.portfolio_service.config;
 
 import com.tradingplatform.portfolio_service.event.OrderEvent;
+import com.tradingplatform.portfolio_service.event.PriceUpdateEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,11 +15,15 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @EnableKafka
@@ -24,13 +33,30 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${portfolio.orders.concurrency:3}")
+    private int orderConcurrency;
+
+    @Value("${portfolio.orders.max-poll-records:500}")
+    private int orderMaxPollRecords;
+
+    @Value("${portfolio.orders.retry-max-interval-ms:30000}")
+    private long orderRetryMaxIntervalMs;
+
+    @Value("${portfolio.projection.rebuild:false}")
+    private boolean rebuildProjection;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Bean
     public ConsumerFactory<String, OrderEvent> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "portfolio-service-group");
-        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        // Applying is idempotent, so a group without committed offsets can safely start from the beginning
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, orderMaxPollRecords);
 
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         props.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
@@ -42,8 +68,11 @@ public class KafkaConsumerConfig {
         props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
         props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, OrderEvent.class.getName());
 
-        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
-                new JsonDeserializer<>(OrderEvent.class, false));
+        DefaultKafkaConsumerFactory<String, OrderEvent> factory = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new JsonDeserializer<>(OrderEvent.class, false));
+        // Exports the client's fetch metrics, including records-lag per partition and records-lag-max
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
@@ -51,7 +80,70 @@ public class KafkaConsumerConfig {
         ConcurrentKafkaListenerContainerFactory<String, OrderEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        // Partitions are split across this many threads; a user's events share a partition, so one thread applies them in order
+        factory.setConcurrency(orderConcurrency);
+        factory.setBatchListener(true);
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        // A failed batch is redelivered until it applies; events are not skipped on infrastructure errors
+        ExponentialBackOff backOff = new ExponentialBackOff(500L, 2.0);
+        backOff.setMaxInterval(orderRetryMaxIntervalMs);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+
+        // ProjectionRebuilder starts the listener once the rebuilt projection is written
+        factory.setAutoStartup(!rebuildProjection);
         return factory;
     }
+
+    // Every instance marks its own position cache to market and reads all prices, by assigning itself
+    // every partition rather than joining a group, so no consumer group is left behind per instance
+    @Bean
+    public ConsumerFactory<String, PriceUpdateEvent> priceUpdateConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 1000);
+
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new JsonDeserializer<>(PriceUpdateEvent.class, false)));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, PriceUpdateEvent> priceUpdateListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, PriceUpdateEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(priceUpdateConsumerFactory());
+        factory.setBatchListener(true);
+        // Without a group there is nowhere to commit, so nothing is acknowledged; each start reads from the latest price
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+
+    @Bean
+    public PartitionFinder pricePartitionFinder() {
+        return new PartitionFinder(priceUpdateConsumerFactory());
+    }
+
+    // Partitions of a topic as it is at startup; partitions added later are read after a restart
+    public static class PartitionFinder {
+
+        private final ConsumerFactory<String, ?> consumerFactory;
+
+        public PartitionFinder(ConsumerFactory<String, ?> consumerFactory) {
+            this.consumerFactory = consumerFactory;
+        }
+
+        public String[] partitions(String topic) {
+            try (Consumer<String, ?> consumer = consumerFactory.createConsumer()) {
+                List<PartitionInfo> partitions = consumer.partitionsFor(topic);
+                if (partitions == null || partitions.isEmpty()) {
+                    throw new IllegalStateException("No partitions found for topic " + topic);
+                }
+                return partitions.stream()
+                        .map(info -> String.valueOf(info.partition()))
+                        .toArray(String[]::new);
+            }
+        }
+    }
 }
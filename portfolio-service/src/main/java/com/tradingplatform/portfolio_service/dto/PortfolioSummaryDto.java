@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Data
 @AllArgsConstructor
@@ -18,4 +19,6 @@ public class PortfolioSummaryDto {
     private BigDecimal totalProfitLoss;
     private BigDecimal totalProfitLossPercent;
     private Integer totalHoldings;
+    private BigDecimal realizedProfitLoss;
+    private LocalDateTime valuedAt;
 }
@@ -0,0 +1,37 @@
+package com.tradingplatform.portfolio_service.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An order event with what identifies it for deduplication: the order service's outbox id, which
+ * survives a resend, and the Kafka position it was read from, for records published before the
+ * outbox id was.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConsumedOrderEvent {
+
+    public static final String OUTBOX_ID_HEADER = "outbox-id";
+
+    private OrderEvent event;
+    private Long eventId;
+    private int partition;
+    private long offset;
+
+    public static ConsumedOrderEvent from(ConsumerRecord<String, OrderEvent> record) {
+        return new ConsumedOrderEvent(record.value(), eventId(record), record.partition(), record.offset());
+    }
+
+    // Null for records the order service published before it stamped its outbox id on them
+    public static Long eventId(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(OUTBOX_ID_HEADER);
+        return header != null ? Long.valueOf(new String(header.value(), StandardCharsets.UTF_8)) : null;
+    }
+}
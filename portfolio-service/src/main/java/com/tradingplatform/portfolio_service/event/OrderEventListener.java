@@ -1,56 +1,108 @@
 package com.tradingplatform.portfolio_service.event;
 
 import com.tradingplatform.portfolio_service.service.PortfolioService;
-import lombok.RequiredArgsConstructor;
+import com.tradingplatform.portfolio_service.service.PositionCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies order events a poll at a time. Records are grouped by user and each user's events are
+ * applied in one transaction, in offset order; events are keyed by user, so all of a user's
+ * events arrive on the same partition and thread. Each portfolio records the last event applied,
+ * so when a failure makes the container redeliver the batch, or the order service resends an
+ * event it already published, users already applied skip it.
+ */
 @Component
 @Slf4j
-@RequiredArgsConstructor
 public class OrderEventListener {
 
+    public static final String ORDER_LISTENER_ID = "orderEventListener";
+
     @Autowired
     private PortfolioService portfolioService;
 
-    @KafkaListener(topics = "order-events", groupId = "portfolio-service-group")
-    public void handleOrderEvent(OrderEvent event, Acknowledgment acknowledgment) {
-        log.info("Received order event: {}", event);
-
-        try {
-            if ("ORDER_EXECUTED".equals(event.getEventType())) {
-                processOrderExecuted(event);
-                acknowledgment.acknowledge();
-                log.info("Successfully processed order event: {}", event.getOrderId());
-            } else {
-                log.warn("Unknown event type: {}", event.getEventType());
-                acknowledgment.acknowledge();
+    @Autowired
+    private PositionCache positionCache;
+
+    private final DistributionSummary batchSize;
+    private final DistributionSummary usersPerBatch;
+    private final Timer batchTimer;
+    private final Counter rejectedEvents;
+
+    public OrderEventListener(MeterRegistry meterRegistry) {
+        this.batchSize = DistributionSummary.builder("portfolio.orders.batch.size")
+                .description("Order events per consumed batch")
+                .register(meterRegistry);
+        this.usersPerBatch = DistributionSummary.builder("portfolio.orders.batch.users")
+                .description("Distinct users, and so transactions, per consumed batch")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("portfolio.orders.batch")
+                .description("Time to apply a consumed batch of order events")
+                .register(meterRegistry);
+        this.rejectedEvents = Counter.builder("portfolio.orders.rejected")
+                .description("Order events the portfolio could not apply, such as oversells, and skipped")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(id = ORDER_LISTENER_ID, topics = "order-events", groupId = "portfolio-service-group")
+    public void handleOrderEvents(List<ConsumerRecord<String, OrderEvent>> records, Acknowledgment acknowledgment) {
+        log.info("Received {} order events", records.size());
+        Timer.Sample sample = Timer.start();
+
+        Map<Long, List<ConsumedOrderEvent>> eventsByUser = new LinkedHashMap<>();
+        for (ConsumerRecord<String, OrderEvent> record : records) {
+            OrderEvent event = record.value();
+            if (event == null || event.getUserId() == null) {
+                log.warn("Skipping unreadable order event at {}-{} offset {}",
+                        record.topic(), record.partition(), record.offset());
+                continue;
             }
-        } catch (Exception e) {
-            log.error("Failed to process order event {}: {}", event.getOrderId(), e.getMessage(), e);
+            eventsByUser.computeIfAbsent(event.getUserId(), userId -> new ArrayList<>())
+                    .add(ConsumedOrderEvent.from(record));
         }
+
+        eventsByUser.forEach(this::applyUserEvents);
+        acknowledgment.acknowledge();
+
+        batchSize.record(records.size());
+        usersPerBatch.record(eventsByUser.size());
+        sample.stop(batchTimer);
     }
 
-    private void processOrderExecuted(OrderEvent event) {
-        if ("BUY".equals(event.getOrderType())) {
-            portfolioService.processBuyOrder(
-                    event.getUserId(),
-                    event.getSymbol(),
-                    event.getQuantity(),
-                    event.getPricePerShare()
-            );
-        } else if ("SELL".equals(event.getOrderType())) {
-            portfolioService.processSellOrder(
-                    event.getUserId(),
-                    event.getSymbol(),
-                    event.getQuantity(),
-                    event.getPricePerShare()
-            );
-        } else {
-            log.warn("Unknown order type: {}", event.getOrderType());
-        }
+    // Helper methods
+
+    // Anything but a rejection propagates, and the container retries the batch after a backoff
+    private void applyUserEvents(Long userId, List<ConsumedOrderEvent> events) {
+        int rejected = portfolioService.applyOrderEvents(userId, events);
+        rejectedEvents.increment(rejected);
+        log.info("Successfully processed {} order events for user {}", events.size() - rejected, userId);
+        refreshPositions(userId, events);
+    }
+
+    // The events are committed by now, so a cache failure must not fail the batch
+    private void refreshPositions(Long userId, List<ConsumedOrderEvent> events) {
+        events.stream()
+                .map(consumed -> consumed.getEvent().getSymbol())
+                .distinct()
+                .forEach(symbol -> {
+                    try {
+                        positionCache.onOrderApplied(userId, symbol);
+                    } catch (Exception e) {
+                        log.warn("Failed to refresh cached {} position for user {}: {}", symbol, userId, e.getMessage());
+                    }
+                });
     }
 }
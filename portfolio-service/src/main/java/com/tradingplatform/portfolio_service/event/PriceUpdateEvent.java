@@ -0,0 +1,21 @@
+package com.tradingplatform.portfolio_service.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceUpdateEvent {
+
+    private String symbol;
+    private BigDecimal price;
+    private BigDecimal change;
+    private BigDecimal changePercent;
+    private Long volume;
+    private LocalDateTime lastUpdated;
+}
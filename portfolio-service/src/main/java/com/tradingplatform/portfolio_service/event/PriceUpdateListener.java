@@ -0,0 +1,28 @@
+package com.tradingplatform.portfolio_service.event;
+
+import com.tradingplatform.portfolio_service.service.PositionCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PriceUpdateListener {
+
+    @Autowired
+    private PositionCache positionCache;
+
+    @KafkaListener(topicPartitions = @TopicPartition(topic = "${portfolio.positions.price-topic:price-updates}",
+            partitions = "#{@pricePartitionFinder.partitions('${portfolio.positions.price-topic:price-updates}')}"),
+            containerFactory = "priceUpdateListenerContainerFactory")
+    public void handlePriceUpdates(List<PriceUpdateEvent> events) {
+        log.debug("Received {} price updates", events.size());
+        positionCache.applyPrices(events);
+    }
+}
@@ -39,6 +39,9 @@ public class Holding {
     @Column(name = "total_invested", precision = 15, scale = 2)
     private BigDecimal totalInvested = BigDecimal.ZERO;
 
+    @Column(name = "last_price", precision = 15, scale = 4)
+    private BigDecimal lastPrice;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -10,7 +10,9 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Entity
@@ -38,6 +40,31 @@ public class Portfolio {
     @Column(name = "total_profit_loss", precision = 15, scale = 2)
     private BigDecimal totalProfitLoss = BigDecimal.ZERO;
 
+    // Summary kept current on every fill, so reading it never touches the holdings table
+    @Column(name = "holding_count")
+    private Integer holdingCount = 0;
+
+    @Column(name = "realized_profit_loss", precision = 15, scale = 2)
+    private BigDecimal realizedProfitLoss = BigDecimal.ZERO;
+
+    // Holdings marked at each position's last fill price
+    @Column(name = "last_valuation", precision = 15, scale = 2)
+    private BigDecimal lastValuation = BigDecimal.ZERO;
+
+    @Column(name = "valued_at")
+    private LocalDateTime valuedAt;
+
+    // Outbox id of the last order event applied; a user's ids only increase, so any event at or below it is a resend
+    @Column(name = "last_event_id")
+    private Long lastEventId;
+
+    // Offset of the last order event applied to this portfolio from each Kafka partition; skips redeliveries of events without an outbox id
+    @ElementCollection
+    @CollectionTable(name = "portfolio_event_offsets", joinColumns = @JoinColumn(name = "portfolio_id"))
+    @MapKeyColumn(name = "event_partition")
+    @Column(name = "last_offset", nullable = false)
+    private Map<Integer, Long> eventOffsets = new HashMap<>();
+
     @OneToMany(mappedBy = "portfolio", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<Holding> holdings = new ArrayList<>();
 
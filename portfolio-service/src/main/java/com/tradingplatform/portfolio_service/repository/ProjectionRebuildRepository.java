@@ -0,0 +1,161 @@
+package com.tradingplatform.portfolio_service.repository;
+
+import com.tradingplatform.portfolio_service.model.Holding;
+import com.tradingplatform.portfolio_service.model.Portfolio;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bulk writes for replacing the whole portfolio projection in one pass. Portfolio rows are kept
+ * and reset rather than deleted, so their ids and creation times survive a rebuild.
+ */
+@Repository
+public class ProjectionRebuildRepository {
+
+    private static final String DELETE_HOLDINGS_SQL = "DELETE FROM holdings";
+
+    private static final String DELETE_EVENT_OFFSETS_SQL = "DELETE FROM portfolio_event_offsets";
+
+    private static final String RESET_PORTFOLIOS_SQL = """
+            UPDATE portfolios SET
+                invested_amount = 0,
+                holding_count = 0,
+                realized_profit_loss = 0,
+                last_valuation = 0,
+                valued_at = NULL,
+                last_event_id = NULL,
+                updated_at = CURRENT_TIMESTAMP
+            """;
+
+    private static final String UPSERT_PORTFOLIO_SQL = """
+            INSERT INTO portfolios
+                (user_id, total_value, cash_balance, invested_amount, total_profit_loss,
+                 holding_count, realized_profit_loss, last_valuation, valued_at, last_event_id, created_at, updated_at)
+            VALUES (?, 0, 0, ?, 0, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+            ON CONFLICT (user_id) DO UPDATE SET
+                invested_amount = EXCLUDED.invested_amount,
+                holding_count = EXCLUDED.holding_count,
+                realized_profit_loss = EXCLUDED.realized_profit_loss,
+                last_valuation = EXCLUDED.last_valuation,
+                valued_at = EXCLUDED.valued_at,
+                last_event_id = EXCLUDED.last_event_id,
+                updated_at = CURRENT_TIMESTAMP
+            """;
+
+    private static final String INSERT_EVENT_OFFSET_SQL = """
+            INSERT INTO portfolio_event_offsets (portfolio_id, event_partition, last_offset)
+            SELECT id, ?, ? FROM portfolios WHERE user_id = ?
+            """;
+
+    private static final String INSERT_HOLDING_SQL = """
+            INSERT INTO holdings
+                (portfolio_id, symbol, quantity, average_price, total_invested, last_price, created_at, updated_at)
+            SELECT id, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+            FROM portfolios WHERE user_id = ?
+            """;
+
+    // Fills summary columns for portfolios written before they existed; realized P&L from then is unknown
+    private static final String BACKFILL_SUMMARIES_SQL = """
+            UPDATE portfolios p SET
+                holding_count = (SELECT COUNT(*) FROM holdings h WHERE h.portfolio_id = p.id),
+                realized_profit_loss = COALESCE(p.realized_profit_loss, 0),
+                last_valuation = (SELECT COALESCE(SUM(h.total_invested), 0) FROM holdings h WHERE h.portfolio_id = p.id),
+                valued_at = CURRENT_TIMESTAMP
+            WHERE p.holding_count IS NULL
+            """;
+
+    // Portfolios written while the mark was a single partition and offset on the row carry it over once
+    private static final String LEGACY_MARK_SQL = """
+            SELECT COUNT(*) FROM information_schema.columns
+            WHERE table_name = 'portfolios' AND column_name = 'last_event_partition'
+            """;
+
+    private static final String BACKFILL_EVENT_OFFSETS_SQL = """
+            INSERT INTO portfolio_event_offsets (portfolio_id, event_partition, last_offset)
+            SELECT id, last_event_partition, last_event_offset FROM portfolios
+            WHERE last_event_partition IS NOT NULL AND last_event_offset IS NOT NULL
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String DROP_LEGACY_MARK_SQL =
+            "ALTER TABLE portfolios DROP COLUMN last_event_partition, DROP COLUMN last_event_offset";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProjectionRebuildRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void clear() {
+        jdbcTemplate.update(DELETE_EVENT_OFFSETS_SQL);
+        jdbcTemplate.update(DELETE_HOLDINGS_SQL);
+        jdbcTemplate.update(RESET_PORTFOLIOS_SQL);
+    }
+
+    public int backfillSummaries() {
+        return jdbcTemplate.update(BACKFILL_SUMMARIES_SQL);
+    }
+
+    public int backfillEventOffsets() {
+        Integer legacyColumns = jdbcTemplate.queryForObject(LEGACY_MARK_SQL, Integer.class);
+        if (legacyColumns == null || legacyColumns == 0) {
+            return 0;
+        }
+        int backfilled = jdbcTemplate.update(BACKFILL_EVENT_OFFSETS_SQL);
+        jdbcTemplate.execute(DROP_LEGACY_MARK_SQL);
+        return backfilled;
+    }
+
+    public void upsertPortfolios(Collection<Portfolio> portfolios) {
+        List<Object[]> rows = new ArrayList<>(portfolios.size());
+        for (Portfolio portfolio : portfolios) {
+            rows.add(new Object[]{
+                    portfolio.getUserId(),
+                    portfolio.getInvestedAmount(),
+                    portfolio.getHoldingCount(),
+                    portfolio.getRealizedProfitLoss(),
+                    portfolio.getLastValuation(),
+                    timestamp(portfolio.getValuedAt()),
+                    portfolio.getLastEventId()
+            });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_PORTFOLIO_SQL, rows);
+    }
+
+    public void insertEventOffsets(Collection<Portfolio> portfolios) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Portfolio portfolio : portfolios) {
+            portfolio.getEventOffsets().forEach((partition, offset) ->
+                    rows.add(new Object[]{partition, offset, portfolio.getUserId()}));
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT_OFFSET_SQL, rows);
+    }
+
+    // Each holding's portfolio only needs its user id; the row id is looked up on insert
+    public void insertHoldings(Collection<Holding> holdings) {
+        List<Object[]> rows = new ArrayList<>(holdings.size());
+        for (Holding holding : holdings) {
+            rows.add(new Object[]{
+                    holding.getSymbol(),
+                    holding.getQuantity(),
+                    holding.getAveragePrice(),
+                    holding.getTotalInvested(),
+                    holding.getLastPrice(),
+                    holding.getPortfolio().getUserId()
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_HOLDING_SQL, rows);
+    }
+
+    // Helper methods
+
+    private Timestamp timestamp(LocalDateTime dateTime) {
+        return dateTime != null ? Timestamp.valueOf(dateTime) : null;
+    }
+}
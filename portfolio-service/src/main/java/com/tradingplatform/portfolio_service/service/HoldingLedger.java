@@ -0,0 +1,82 @@
+package com.tradingplatform.portfolio_service.service;
+
+import com.tradingplatform.portfolio_service.exception.InsufficientSharesException;
+import com.tradingplatform.portfolio_service.model.Holding;
+import com.tradingplatform.portfolio_service.model.Portfolio;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+/**
+ * Position arithmetic for fills, shared by the live projection and the rebuild so both derive
+ * the same holdings and portfolio summary from the same events. Besides the holding, each fill
+ * updates the portfolio's invested amount, holding count, realized P&L and last valuation, with
+ * the filled position re-marked at the fill price.
+ */
+final class HoldingLedger {
+
+    private HoldingLedger() {
+    }
+
+    // Adds bought shares at the fill price
+    static void buy(Portfolio portfolio, Holding holding, int quantity, BigDecimal pricePerShare) {
+        BigDecimal markedBefore = markedValue(holding);
+        boolean opening = holding.getQuantity() == 0;
+
+        BigDecimal currentTotalInvested = holding.getAveragePrice()
+                .multiply(new BigDecimal(holding.getQuantity()));
+        BigDecimal newInvestment = pricePerShare.multiply(new BigDecimal(quantity));
+        BigDecimal totalInvested = currentTotalInvested.add(newInvestment);
+
+        int newQuantity = holding.getQuantity() + quantity;
+        holding.setQuantity(newQuantity);
+        holding.setAveragePrice(totalInvested.divide(new BigDecimal(newQuantity), 4, RoundingMode.HALF_UP));
+        holding.setTotalInvested(totalInvested);
+        holding.setLastPrice(pricePerShare);
+
+        portfolio.setInvestedAmount(portfolio.getInvestedAmount().add(newInvestment));
+        if (opening) {
+            portfolio.setHoldingCount(portfolio.getHoldingCount() + 1);
+        }
+        revalue(portfolio, markedBefore, holding);
+    }
+
+    // Removes sold shares at the average price and returns the P&L the sale realized
+    static BigDecimal sell(Portfolio portfolio, Holding holding, int quantity, BigDecimal pricePerShare) {
+        if (holding.getQuantity() < quantity) {
+            throw new InsufficientSharesException(holding.getSymbol(), holding.getQuantity(), quantity);
+        }
+        BigDecimal markedBefore = markedValue(holding);
+
+        BigDecimal costBasis = holding.getAveragePrice().multiply(new BigDecimal(quantity));
+        BigDecimal saleProceeds = pricePerShare.multiply(new BigDecimal(quantity));
+        BigDecimal profitLoss = saleProceeds.subtract(costBasis);
+
+        int newQuantity = holding.getQuantity() - quantity;
+        holding.setQuantity(newQuantity);
+        holding.setTotalInvested(holding.getAveragePrice().multiply(new BigDecimal(newQuantity)));
+        holding.setLastPrice(pricePerShare);
+
+        portfolio.setInvestedAmount(portfolio.getInvestedAmount().subtract(costBasis));
+        portfolio.setRealizedProfitLoss(portfolio.getRealizedProfitLoss().add(profitLoss));
+        if (newQuantity == 0) {
+            portfolio.setHoldingCount(portfolio.getHoldingCount() - 1);
+        }
+        revalue(portfolio, markedBefore, holding);
+        return profitLoss;
+    }
+
+    // Helper methods
+
+    // At the last fill price, or at cost for holdings filled before prices were recorded
+    private static BigDecimal markedValue(Holding holding) {
+        BigDecimal price = holding.getLastPrice() != null ? holding.getLastPrice() : holding.getAveragePrice();
+        return price.multiply(new BigDecimal(holding.getQuantity()));
+    }
+
+    private static void revalue(Portfolio portfolio, BigDecimal markedBefore, Holding holding) {
+        portfolio.setLastValuation(portfolio.getLastValuation().subtract(markedBefore).add(markedValue(holding)));
+        portfolio.setValuedAt(LocalDateTime.now());
+    }
+}
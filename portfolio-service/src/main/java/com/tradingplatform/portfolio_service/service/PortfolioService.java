@@ -3,6 +3,7 @@ package com.tradingplatform.portfolio_service.service;
 import com.tradingplatform.portfolio_service.dto.HoldingResponseDto;
 import com.tradingplatform.portfolio_service.dto.PortfolioResponseDto;
 import com.tradingplatform.portfolio_service.dto.PortfolioSummaryDto;
+import com.tradingplatform.portfolio_service.event.ConsumedOrderEvent;
 import jakarta.transaction.Transactional;
 
 import java.math.BigDecimal;
@@ -26,4 +27,8 @@ public interface PortfolioService {
 
     @Transactional
     void processSellOrder(Long userId, String symbol, Integer quantity, BigDecimal pricePerShare);
+
+    // Applies one user's order events, in order, in a single transaction; returns how many were rejected
+    @Transactional
+    int applyOrderEvents(Long userId, List<ConsumedOrderEvent> events);
 }
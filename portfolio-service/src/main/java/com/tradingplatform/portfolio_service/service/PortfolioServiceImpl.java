@@ -1,17 +1,17 @@
 package com.tradingplatform.portfolio_service.service;
 
 import com.tradingplatform.portfolio_service.client.MarketDataServiceClient;
-import com.tradingplatform.portfolio_service.client.WalletServiceClient;
 import com.tradingplatform.portfolio_service.dto.HoldingResponseDto;
 import com.tradingplatform.portfolio_service.dto.PortfolioResponseDto;
 import com.tradingplatform.portfolio_service.dto.PortfolioSummaryDto;
+import com.tradingplatform.portfolio_service.event.ConsumedOrderEvent;
+import com.tradingplatform.portfolio_service.event.OrderEvent;
 import com.tradingplatform.portfolio_service.exception.InsufficientSharesException;
 import com.tradingplatform.portfolio_service.exception.PortfolioNotFoundException;
 import com.tradingplatform.portfolio_service.model.Holding;
 import com.tradingplatform.portfolio_service.model.Portfolio;
 import com.tradingplatform.portfolio_service.repository.HoldingRepository;
 import com.tradingplatform.portfolio_service.repository.PortfolioRepository;
-import feign.FeignException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,7 +20,11 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,10 +39,10 @@ public class PortfolioServiceImpl implements PortfolioService {
     private HoldingRepository holdingRepository;
 
     @Autowired
-    private MarketDataServiceClient marketDataServiceClient;
+    private ValuationFetcher valuationFetcher;
 
     @Autowired
-    private WalletServiceClient walletServiceClient;
+    private PositionCache positionCache;
 
     @Transactional
     @Override
@@ -65,30 +69,30 @@ public class PortfolioServiceImpl implements PortfolioService {
 
     @Override
     public PortfolioResponseDto getPortfolio(Long userId) {
-        Portfolio portfolio = portfolioRepository.findByUserId(userId)
-                .orElseThrow(() -> new PortfolioNotFoundException(userId));
-
-        return mapToPortfolioResponse(portfolio);
+        return positionCache.getPortfolio(userId);
     }
+
+    /**
+     * Built from the portfolio row, whose summary columns every fill keeps current, and the wallet
+     * balance. Holdings are valued from this instance's cached position book when it has one and
+     * at the row's last valuation otherwise; the holdings table is never read.
+     */
     @Override
     public PortfolioSummaryDto getPortfolioSummary(Long userId) {
         Portfolio portfolio = portfolioRepository.findByUserId(userId)
                 .orElseThrow(() -> new PortfolioNotFoundException(userId));
 
-        // Get current wallet balance
-        BigDecimal cashBalance = BigDecimal.ZERO;
-        try {
-            WalletServiceClient.BalanceResponse walletBalance = walletServiceClient.getBalance(userId);
-            cashBalance = walletBalance.balance;
-        } catch (Exception e) {
-            log.error("Failed to get wallet balance for user {}: {}", userId, e.getMessage());
-        }
+        long deadline = valuationFetcher.newDeadline();
+        CompletableFuture<BigDecimal> cashFuture = valuationFetcher.fetchCashBalance(userId);
 
-        // Calculate current holdings value
-        BigDecimal holdingsValue = calculateTotalHoldingsValue(portfolio.getId());
-        BigDecimal totalValue = cashBalance.add(holdingsValue);
+        BigDecimal holdingsValue = positionCache.getCachedHoldingsValue(userId);
+        LocalDateTime valuedAt = LocalDateTime.now();
+        if (holdingsValue == null) {
+            holdingsValue = portfolio.getLastValuation();
+            valuedAt = portfolio.getValuedAt();
+        }
+        BigDecimal cashBalance = cashOrZero(valuationFetcher.awaitCashBalance(cashFuture, userId, deadline));
 
-        // Calculate total profit/loss
         BigDecimal totalProfitLoss = holdingsValue.subtract(portfolio.getInvestedAmount());
         BigDecimal totalProfitLossPercent = BigDecimal.ZERO;
         if (portfolio.getInvestedAmount().compareTo(BigDecimal.ZERO) > 0) {
@@ -100,33 +104,29 @@ public class PortfolioServiceImpl implements PortfolioService {
 
         return new PortfolioSummaryDto(
                 userId,
-                totalValue,
+                cashBalance.add(holdingsValue),
                 cashBalance,
                 portfolio.getInvestedAmount(),
                 totalProfitLoss,
                 totalProfitLossPercent,
-                portfolio.getHoldings().size()
+                portfolio.getHoldingCount(),
+                portfolio.getRealizedProfitLoss(),
+                valuedAt
         );
     }
 
     @Override
     public List<HoldingResponseDto> getUserHoldings(Long userId) {
-        Portfolio portfolio = portfolioRepository.findByUserId(userId)
-                .orElseThrow(() -> new PortfolioNotFoundException(userId));
-
-        List<Holding> holdings = holdingRepository.findByPortfolioId(portfolio.getId());
-
-        return holdings.stream()
-                .map(this::mapToHoldingResponse)
-                .collect(Collectors.toList());
+        return positionCache.getHoldings(userId);
     }
 
     @Override
     public HoldingResponseDto getHoldingBySymbol(Long userId, String symbol) {
-        Holding holding = holdingRepository.findByUserIdAndSymbol(userId, symbol.toUpperCase())
-                .orElseThrow(() -> new RuntimeException("Holding not found: " + symbol));
-
-        return mapToHoldingResponse(holding);
+        HoldingResponseDto holding = positionCache.getHolding(userId, symbol);
+        if (holding == null) {
+            throw new RuntimeException("Holding not found: " + symbol);
+        }
+        return holding;
     }
 
     @Transactional
@@ -153,25 +153,12 @@ public class PortfolioServiceImpl implements PortfolioService {
                     return newHolding;
                 });
 
-        BigDecimal currentTotalInvested = holding.getAveragePrice()
-                .multiply(new BigDecimal(holding.getQuantity()));
-        BigDecimal newInvestment = pricePerShare.multiply(new BigDecimal(quantity));
-        BigDecimal totalInvested = currentTotalInvested.add(newInvestment);
-
-        int newQuantity = holding.getQuantity() + quantity;
-        BigDecimal newAveragePrice = totalInvested.divide(new BigDecimal(newQuantity), 4, RoundingMode.HALF_UP);
-
-        holding.setQuantity(newQuantity);
-        holding.setAveragePrice(newAveragePrice);
-        holding.setTotalInvested(totalInvested);
-
+        HoldingLedger.buy(portfolio, holding, quantity, pricePerShare);
         holdingRepository.save(holding);
-
-        portfolio.setInvestedAmount(portfolio.getInvestedAmount().add(newInvestment));
         portfolioRepository.save(portfolio);
 
         log.info("BUY order processed: {} now has {} shares of {} at avg price ${}",
-                userId, newQuantity, symbol, newAveragePrice);
+                userId, holding.getQuantity(), symbol, holding.getAveragePrice());
     }
 
     @Transactional
@@ -186,70 +173,124 @@ public class PortfolioServiceImpl implements PortfolioService {
         Holding holding = holdingRepository.findByPortfolioIdAndSymbol(portfolio.getId(), symbol)
                 .orElseThrow(() -> new InsufficientSharesException(symbol, 0, quantity));
 
-        if (holding.getQuantity() < quantity) {
-            throw new InsufficientSharesException(symbol, holding.getQuantity(), quantity);
-        }
-
-        BigDecimal costBasis = holding.getAveragePrice().multiply(new BigDecimal(quantity));
-        BigDecimal saleProceeds = pricePerShare.multiply(new BigDecimal(quantity));
-        BigDecimal profitLoss = saleProceeds.subtract(costBasis);
+        BigDecimal profitLoss = HoldingLedger.sell(portfolio, holding, quantity, pricePerShare);
 
         log.info("SELL realizes P&L of ${} on {} shares of {}", profitLoss, quantity, symbol);
 
-        int newQuantity = holding.getQuantity() - quantity;
+        int newQuantity = holding.getQuantity();
 
         if (newQuantity == 0) {
             holdingRepository.delete(holding);
             log.info("All shares of {} sold, removing holding", symbol);
         } else {
-            holding.setQuantity(newQuantity);
-            BigDecimal newTotalInvested = holding.getAveragePrice()
-                    .multiply(new BigDecimal(newQuantity));
-            holding.setTotalInvested(newTotalInvested);
             holdingRepository.save(holding);
         }
 
-        portfolio.setInvestedAmount(portfolio.getInvestedAmount().subtract(costBasis));
         portfolioRepository.save(portfolio);
 
         log.info("SELL order processed: {} now has {} shares of {}",
                 userId, newQuantity, symbol);
     }
 
+    /**
+     * Events at or below the portfolio's last outbox id were applied by an earlier delivery or are
+     * a resend of one, and are skipped; events published before the outbox id was fall back to the
+     * offset mark of their partition. An order this projection cannot apply, such as a sell of
+     * more shares than are held, is rejected the same way on every delivery and replay, so it is
+     * logged and skipped rather than failing the batch.
+     */
+    @Transactional
+    @Override
+    public int applyOrderEvents(Long userId, List<ConsumedOrderEvent> events) {
+        Portfolio current = portfolioRepository.findByUserId(userId).orElse(null);
+        Long lastEventId = current != null ? current.getLastEventId() : null;
+        Map<Integer, Long> applied = current != null ? new HashMap<>(current.getEventOffsets()) : new HashMap<>();
+        Map<Integer, Long> marks = new HashMap<>();
+        int rejected = 0;
+
+        for (ConsumedOrderEvent consumed : events) {
+            if (isApplied(lastEventId, applied, consumed)) {
+                log.info("Skipping order event {} (outbox id {}) already applied, redelivered at {}-{}",
+                        consumed.getEvent().getOrderId(), consumed.getEventId(), consumed.getPartition(), consumed.getOffset());
+                continue;
+            }
+            try {
+                applyOrderEvent(userId, consumed.getEvent());
+            } catch (InsufficientSharesException | PortfolioNotFoundException e) {
+                rejected++;
+                log.warn("Rejected order event {}: {}", consumed.getEvent().getOrderId(), e.getMessage());
+            }
+            if (consumed.getEventId() != null) {
+                lastEventId = consumed.getEventId();
+            }
+            applied.put(consumed.getPartition(), consumed.getOffset());
+            marks.put(consumed.getPartition(), consumed.getOffset());
+        }
+
+        if (!marks.isEmpty()) {
+            Portfolio portfolio = portfolioRepository.findByUserId(userId).orElse(null);
+            if (portfolio != null) {
+                portfolio.setLastEventId(lastEventId);
+                portfolio.getEventOffsets().putAll(marks);
+                portfolioRepository.save(portfolio);
+            }
+        }
+        return rejected;
+    }
+
     // Helper methods
 
-    private BigDecimal calculateTotalHoldingsValue(Long portfolioId) {
-        List<Holding> holdings = holdingRepository.findByPortfolioId(portfolioId);
+    // Bulk quote calls for all holdings, in parallel batches; symbols without a quote in time are absent
+    private Map<String, MarketDataServiceClient.StockQuoteResponse> fetchQuotes(List<Holding> holdings, long deadline) {
+        if (holdings.isEmpty()) {
+            return new HashMap<>();
+        }
+        return valuationFetcher.awaitQuotes(valuationFetcher.fetchQuotes(symbolsOf(holdings)), deadline);
+    }
 
-        BigDecimal totalValue = BigDecimal.ZERO;
+    private void applyOrderEvent(Long userId, OrderEvent event) {
+        if (!"ORDER_EXECUTED".equals(event.getEventType())) {
+            log.warn("Unknown event type: {}", event.getEventType());
+        } else if ("BUY".equals(event.getOrderType())) {
+            processBuyOrder(userId, event.getSymbol(), event.getQuantity(), event.getPricePerShare());
+        } else if ("SELL".equals(event.getOrderType())) {
+            processSellOrder(userId, event.getSymbol(), event.getQuantity(), event.getPricePerShare());
+        } else {
+            log.warn("Unknown order type: {}", event.getOrderType());
+        }
+    }
 
-        for (Holding holding : holdings) {
-            try {
-                BigDecimal currentPrice = marketDataServiceClient.getCurrentPrice(holding.getSymbol());
-                BigDecimal value = currentPrice.multiply(new BigDecimal(holding.getQuantity()));
-                totalValue = totalValue.add(value);
-            } catch (FeignException e) {
-                log.warn("Failed to get price for {}, using average price", holding.getSymbol());
-                BigDecimal value = holding.getAveragePrice().multiply(new BigDecimal(holding.getQuantity()));
-                totalValue = totalValue.add(value);
-            }
+    // A resend carries its original outbox id at a new offset, so offsets only decide for events without one
+    static boolean isApplied(Long lastEventId, Map<Integer, Long> applied, ConsumedOrderEvent consumed) {
+        if (consumed.getEventId() != null) {
+            return lastEventId != null && lastEventId >= consumed.getEventId();
         }
+        Long offset = applied.get(consumed.getPartition());
+        return offset != null && offset >= consumed.getOffset();
+    }
 
-        return totalValue;
+    private BigDecimal cashOrZero(BigDecimal cashBalance) {
+        return cashBalance != null ? cashBalance : BigDecimal.ZERO;
+    }
+
+    private List<String> symbolsOf(List<Holding> holdings) {
+        return holdings.stream()
+                .map(Holding::getSymbol)
+                .distinct()
+                .collect(Collectors.toList());
     }
 
     private PortfolioResponseDto mapToPortfolioResponse(Portfolio portfolio) {
-        BigDecimal cashBalance = BigDecimal.ZERO;
-        try {
-            WalletServiceClient.BalanceResponse walletBalance = walletServiceClient.getBalance(portfolio.getUserId());
-            cashBalance = walletBalance.balance;
-        } catch (Exception e) {
-            log.error("Failed to get wallet balance: {}", e.getMessage());
-        }
+        // Wallet and quote calls run concurrently under one deadline
+        long deadline = valuationFetcher.newDeadline();
+        CompletableFuture<BigDecimal> cashFuture = valuationFetcher.fetchCashBalance(portfolio.getUserId());
+
+        List<Holding> holdings = holdingRepository.findByPortfolioId(portfolio.getId());
+        Map<String, MarketDataServiceClient.StockQuoteResponse> quotes = fetchQuotes(holdings, deadline);
+        BigDecimal cashBalance = cashOrZero(valuationFetcher.awaitCashBalance(cashFuture, portfolio.getUserId(), deadline));
 
-        List<HoldingResponseDto> holdingResponses = holdingRepository.findByPortfolioId(portfolio.getId())
-                .stream()
-                .map(this::mapToHoldingResponse)
+        List<HoldingResponseDto> holdingResponses = holdings.stream()
+                .map(holding -> mapToHoldingResponse(holding, quotes.get(holding.getSymbol())))
                 .collect(Collectors.toList());
 
         // Calculate total holdings value
@@ -286,7 +327,7 @@ public class PortfolioServiceImpl implements PortfolioService {
         return response;
     }
 
-    private HoldingResponseDto mapToHoldingResponse(Holding holding) {
+    private HoldingResponseDto mapToHoldingResponse(Holding holding, MarketDataServiceClient.StockQuoteResponse quote) {
         HoldingResponseDto response = new HoldingResponseDto();
         response.setId(holding.getId());
         response.setSymbol(holding.getSymbol());
@@ -294,11 +335,7 @@ public class PortfolioServiceImpl implements PortfolioService {
         response.setAveragePrice(holding.getAveragePrice());
         response.setTotalInvested(holding.getTotalInvested());
 
-        // Get current price and company name
-        try {
-            MarketDataServiceClient.StockQuoteResponse quote =
-                    marketDataServiceClient.getQuote(holding.getSymbol());
-
+        if (quote != null && quote.price != null) {
             response.setCompanyName(quote.companyName);
             response.setCurrentPrice(quote.price);
 
@@ -319,9 +356,8 @@ public class PortfolioServiceImpl implements PortfolioService {
             } else {
                 response.setProfitLossPercent(BigDecimal.ZERO);
             }
-
-        } catch (FeignException e) {
-            log.warn("Failed to get current price for {}, using average price", holding.getSymbol());
+        } else {
+            log.warn("No current price for {}, using average price", holding.getSymbol());
             response.setCompanyName(holding.getSymbol());
             response.setCurrentPrice(holding.getAveragePrice());
             response.setTotalValue(holding.getTotalInvested());
@@ -0,0 +1,33 @@
+package com.tradingplatform.portfolio_service.service;
+
+import com.tradingplatform.portfolio_service.repository.ProjectionRebuildRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Derives the summary columns of portfolios written before those columns existed, from their
+ * holdings, and moves event marks kept on the portfolio row into the per-partition table. Runs
+ * once the schema is up to date but before the order event listener starts, so no fill ever
+ * updates a summary that was never initialized or re-applies an event the old mark covered.
+ */
+@Component
+@Slf4j
+public class PortfolioSummaryBackfill implements SmartInitializingSingleton {
+
+    @Autowired
+    private ProjectionRebuildRepository projectionRebuildRepository;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int backfilled = projectionRebuildRepository.backfillSummaries();
+        if (backfilled > 0) {
+            log.info("Backfilled summaries for {} portfolios", backfilled);
+        }
+        int marks = projectionRebuildRepository.backfillEventOffsets();
+        if (marks > 0) {
+            log.info("Moved event marks for {} portfolios to per-partition offsets", marks);
+        }
+    }
+}
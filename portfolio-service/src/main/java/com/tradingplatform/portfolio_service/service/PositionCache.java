@@ -0,0 +1,499 @@
+package com.tradingplatform.portfolio_service.service;
+
+import com.tradingplatform.portfolio_service.client.MarketDataServiceClient;
+import com.tradingplatform.portfolio_service.dto.HoldingResponseDto;
+import com.tradingplatform.portfolio_service.dto.PortfolioResponseDto;
+import com.tradingplatform.portfolio_service.event.PriceUpdateEvent;
+import com.tradingplatform.portfolio_service.exception.PortfolioNotFoundException;
+import com.tradingplatform.portfolio_service.model.Holding;
+import com.tradingplatform.portfolio_service.model.Portfolio;
+import com.tradingplatform.portfolio_service.repository.HoldingRepository;
+import com.tradingplatform.portfolio_service.repository.PortfolioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-user position books kept in memory and marked to market from the {@code price-updates}
+ * topic. A book holds each position's current value and P&L plus the portfolio totals; a price
+ * update touches only the books holding that symbol and adjusts their totals by the position's
+ * change, so reading a portfolio is a map lookup rather than a holdings query and a quote call
+ * per symbol.
+ * <p>
+ * A book is built from the database on first read, with prices from the shared per-symbol marks
+ * and a bulk quote call only for symbols no cached book holds yet. Order events applied by this
+ * instance refresh the affected position. Books are rebuilt after a maximum age, which bounds
+ * staleness from order events consumed by other instances; the wallet balance, which changes
+ * outside of order events too, is refetched after a shorter TTL.
+ * <p>
+ * Market data only publishes a price when its quote cache is rewritten, which a symbol nobody
+ * looks up may never be. Marks that have not moved within their TTL are therefore refetched in
+ * bulk; the lookup also counts as demand for the symbol, so the quote refresher keeps held
+ * symbols fresh upstream.
+ */
+@Component
+@Slf4j
+public class PositionCache {
+
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private HoldingRepository holdingRepository;
+
+    @Autowired
+    private ValuationFetcher valuationFetcher;
+
+    private final Map<Long, PositionBook> books = new ConcurrentHashMap<>();
+    private final Map<String, SymbolMark> marks = new ConcurrentHashMap<>();
+
+    private final long maxAgeNanos;
+    private final long cashTtlNanos;
+    private final long markTtlNanos;
+
+    private final Counter loads;
+    private final Counter pricesApplied;
+    private final Counter marksRefetched;
+
+    public PositionCache(MeterRegistry meterRegistry,
+                         @Value("${portfolio.positions.max-age-seconds:60}") long maxAgeSeconds,
+                         @Value("${portfolio.positions.cash-ttl-seconds:15}") long cashTtlSeconds,
+                         @Value("${portfolio.positions.mark-ttl-seconds:60}") long markTtlSeconds) {
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+        this.cashTtlNanos = TimeUnit.SECONDS.toNanos(cashTtlSeconds);
+        this.markTtlNanos = TimeUnit.SECONDS.toNanos(markTtlSeconds);
+        this.loads = Counter.builder("portfolio.positions.loads")
+                .description("Position books built from the database")
+                .register(meterRegistry);
+        this.pricesApplied = Counter.builder("portfolio.positions.prices.applied")
+                .description("Price updates for symbols held in a cached position book")
+                .register(meterRegistry);
+        this.marksRefetched = Counter.builder("portfolio.positions.marks.refetched")
+                .description("Held symbols requoted because no price update arrived within the mark TTL")
+                .register(meterRegistry);
+        Gauge.builder("portfolio.positions.books", books, Map::size)
+                .description("Users with a cached position book")
+                .register(meterRegistry);
+        Gauge.builder("portfolio.positions.symbols", marks, Map::size)
+                .description("Symbols held in at least one cached position book")
+                .register(meterRegistry);
+    }
+
+    public PortfolioResponseDto getPortfolio(Long userId) {
+        PositionBook book = book(userId);
+        return book.toResponse(cashBalance(book));
+    }
+
+    /**
+     * The holdings value of the user's current book, or null if this instance has none. Never
+     * builds one, so callers that must not read holdings can use it.
+     */
+    public BigDecimal getCachedHoldingsValue(Long userId) {
+        PositionBook book = books.get(userId);
+        if (book == null || System.nanoTime() - book.loadedAt > maxAgeNanos) {
+            return null;
+        }
+        return book.holdingsValue();
+    }
+
+    public List<HoldingResponseDto> getHoldings(Long userId) {
+        return book(userId).holdings();
+    }
+
+    /**
+     * The holding for the symbol, or null if the user does not hold it.
+     */
+    public HoldingResponseDto getHolding(Long userId, String symbol) {
+        return book(userId).holding(symbol.toUpperCase());
+    }
+
+    /**
+     * Marks cached positions in the updated symbols to market. Symbols no cached book holds are
+     * skipped with a single map lookup.
+     */
+    public void applyPrices(List<PriceUpdateEvent> events) {
+        for (PriceUpdateEvent event : events) {
+            if (event == null || event.getSymbol() == null || event.getPrice() == null) {
+                continue;
+            }
+            SymbolMark mark = marks.get(event.getSymbol());
+            if (mark == null) {
+                continue;
+            }
+            mark.setPrice(event.getPrice());
+            repriceHolders(event.getSymbol(), mark);
+            pricesApplied.increment();
+        }
+    }
+
+    /**
+     * Brings a cached book in line with an order this instance has just committed: the position in
+     * the symbol and the invested amount are reread, and the wallet balance is refetched on the
+     * next read.
+     */
+    public void onOrderApplied(Long userId, String symbol) {
+        PositionBook book = books.get(userId);
+        if (book == null) {
+            return;
+        }
+
+        String normalized = symbol.toUpperCase();
+        Portfolio portfolio = portfolioRepository.findByUserId(userId).orElse(null);
+        if (portfolio == null) {
+            evict(userId, book);
+            return;
+        }
+        Holding holding = holdingRepository.findByPortfolioIdAndSymbol(portfolio.getId(), normalized).orElse(null);
+
+        book.setInvestedAmount(portfolio.getInvestedAmount());
+        if (holding == null) {
+            book.remove(normalized);
+            leave(normalized, userId);
+        } else {
+            book.put(holding);
+            join(normalized, userId);
+            markToMarket(book, List.of(normalized));
+        }
+        book.cashFetchedAt = 0;
+    }
+
+    // Drops every book, for when the projection underneath has been replaced wholesale
+    public void invalidateAll() {
+        books.forEach(this::evict);
+    }
+
+    // Rebuilds books past their maximum age on the next read instead of holding them forever
+    @Scheduled(fixedDelayString = "${portfolio.positions.sweep-interval-ms:30000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        books.forEach((userId, book) -> {
+            if (now - book.loadedAt > maxAgeNanos) {
+                evict(userId, book);
+            }
+        });
+    }
+
+    // Requotes held symbols whose mark has no price or no price update has moved within the TTL
+    @Scheduled(fixedDelayString = "${portfolio.positions.mark-refresh-interval-ms:15000}")
+    public void refreshStaleMarks() {
+        long requestedAt = System.nanoTime();
+        List<String> stale = new ArrayList<>();
+        marks.forEach((symbol, mark) -> {
+            // Includes marks whose first quote failed, which would otherwise stay at cost
+            if (mark.price.get() == null || requestedAt - mark.pricedAt > markTtlNanos) {
+                stale.add(symbol);
+            }
+        });
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        Map<String, MarketDataServiceClient.StockQuoteResponse> quotes =
+                valuationFetcher.awaitQuotes(valuationFetcher.fetchQuotes(stale), valuationFetcher.newDeadline());
+        quotes.forEach((symbol, quote) -> {
+            SymbolMark mark = marks.get(symbol);
+            // A streamed price that arrived while the quotes were fetched is newer than them
+            if (mark != null && quote.price != null && (mark.price.get() == null || mark.pricedAt - requestedAt < 0)) {
+                mark.setPrice(quote.price);
+                mark.companyName = quote.companyName;
+                repriceHolders(symbol, mark);
+            }
+        });
+        marksRefetched.increment(quotes.size());
+        log.debug("Requoted {} of {} held symbols with stale marks", quotes.size(), stale.size());
+    }
+
+    // Helper methods
+
+    private PositionBook book(Long userId) {
+        PositionBook book = books.get(userId);
+        if (book != null && System.nanoTime() - book.loadedAt <= maxAgeNanos) {
+            return book;
+        }
+        return load(userId);
+    }
+
+    private PositionBook load(Long userId) {
+        Portfolio portfolio = portfolioRepository.findByUserId(userId)
+                .orElseThrow(() -> new PortfolioNotFoundException(userId));
+        List<Holding> holdings = holdingRepository.findByPortfolioId(portfolio.getId());
+
+        PositionBook book = new PositionBook(portfolio.getId(), userId, portfolio.getInvestedAmount());
+        List<String> symbols = new ArrayList<>();
+        for (Holding holding : holdings) {
+            book.put(holding);
+            symbols.add(holding.getSymbol());
+        }
+
+        // Published before pricing, so updates that arrive while it is being priced are not lost
+        PositionBook replaced = books.put(userId, book);
+        symbols.forEach(symbol -> join(symbol, userId));
+        if (replaced != null) {
+            replaced.symbols().stream()
+                    .filter(symbol -> !book.holds(symbol))
+                    .forEach(symbol -> leave(symbol, userId));
+        }
+        markToMarket(book, symbols);
+
+        loads.increment();
+        log.debug("Built position book for user {} with {} holdings", userId, holdings.size());
+        return book;
+    }
+
+    // Prices the book's positions in these symbols, fetching quotes only for symbols without a mark yet
+    private void markToMarket(PositionBook book, Collection<String> symbols) {
+        List<String> unpriced = symbols.stream()
+                .filter(symbol -> {
+                    SymbolMark mark = marks.get(symbol);
+                    return mark != null && mark.price.get() == null;
+                })
+                .toList();
+        if (!unpriced.isEmpty()) {
+            Map<String, MarketDataServiceClient.StockQuoteResponse> quotes =
+                    valuationFetcher.awaitQuotes(valuationFetcher.fetchQuotes(unpriced), valuationFetcher.newDeadline());
+            quotes.forEach((symbol, quote) -> {
+                SymbolMark mark = marks.get(symbol);
+                if (mark != null && quote.price != null) {
+                    // A streamed price that arrived meanwhile is newer than this quote
+                    if (mark.price.compareAndSet(null, quote.price)) {
+                        mark.pricedAt = System.nanoTime();
+                    }
+                    mark.companyName = quote.companyName;
+                }
+            });
+        }
+
+        for (String symbol : symbols) {
+            SymbolMark mark = marks.get(symbol);
+            if (mark != null) {
+                book.reprice(symbol, mark);
+            }
+        }
+    }
+
+    private void repriceHolders(String symbol, SymbolMark mark) {
+        for (Long userId : mark.holders) {
+            PositionBook book = books.get(userId);
+            if (book != null) {
+                book.reprice(symbol, mark);
+            }
+        }
+    }
+
+    private BigDecimal cashBalance(PositionBook book) {
+        long now = System.nanoTime();
+        if (book.cashFetchedAt != 0 && now - book.cashFetchedAt <= cashTtlNanos) {
+            return book.cashBalance;
+        }
+
+        long deadline = valuationFetcher.newDeadline();
+        CompletableFuture<BigDecimal> cashFuture = valuationFetcher.fetchCashBalance(book.userId);
+        BigDecimal cash = valuationFetcher.awaitCashBalance(cashFuture, book.userId, deadline);
+        if (cash == null) {
+            // Keep the last known balance and try again on the next read
+            return book.cashBalance != null ? book.cashBalance : BigDecimal.ZERO;
+        }
+        book.cashBalance = cash;
+        book.cashFetchedAt = now;
+        return cash;
+    }
+
+    private void join(String symbol, Long userId) {
+        marks.compute(symbol, (key, mark) -> {
+            SymbolMark joined = mark != null ? mark : new SymbolMark();
+            joined.holders.add(userId);
+            return joined;
+        });
+    }
+
+    private void leave(String symbol, Long userId) {
+        marks.computeIfPresent(symbol, (key, mark) -> {
+            mark.holders.remove(userId);
+            return mark.holders.isEmpty() ? null : mark;
+        });
+    }
+
+    private void evict(Long userId, PositionBook book) {
+        if (books.remove(userId, book)) {
+            book.symbols().forEach(symbol -> leave(symbol, userId));
+        }
+    }
+
+    private static BigDecimal percentOf(BigDecimal amount, BigDecimal base) {
+        if (base == null || base.compareTo(BigDecimal.ZERO) <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return amount.divide(base, 4, RoundingMode.HALF_UP)
+                .multiply(HUNDRED)
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static final class SymbolMark {
+        final AtomicReference<BigDecimal> price = new AtomicReference<>();
+        final Set<Long> holders = ConcurrentHashMap.newKeySet();
+        volatile String companyName;
+        // System.nanoTime() of the last price set
+        volatile long pricedAt;
+
+        void setPrice(BigDecimal newPrice) {
+            price.set(newPrice);
+            pricedAt = System.nanoTime();
+        }
+    }
+
+    private static final class Position {
+        final Long id;
+        final String symbol;
+        final int quantity;
+        final BigDecimal averagePrice;
+        final BigDecimal totalInvested;
+        String companyName;
+        BigDecimal currentPrice;
+        BigDecimal value;
+        BigDecimal profitLoss;
+
+        Position(Holding holding) {
+            this.id = holding.getId();
+            this.symbol = holding.getSymbol();
+            this.quantity = holding.getQuantity();
+            this.averagePrice = holding.getAveragePrice();
+            this.totalInvested = holding.getTotalInvested();
+            mark(null, null);
+        }
+
+        // Without a price the position is carried at cost, as the request-time valuation does
+        void mark(BigDecimal price, String name) {
+            currentPrice = price != null ? price : averagePrice;
+            companyName = name != null ? name : symbol;
+            if (price != null) {
+                value = price.multiply(new BigDecimal(quantity));
+                profitLoss = value.subtract(totalInvested);
+            } else {
+                value = totalInvested;
+                profitLoss = BigDecimal.ZERO;
+            }
+        }
+
+        HoldingResponseDto toResponse() {
+            return new HoldingResponseDto(id, symbol, companyName, quantity, averagePrice, currentPrice,
+                    value, totalInvested, profitLoss, percentOf(profitLoss, totalInvested));
+        }
+    }
+
+    /**
+     * One user's positions and running totals. Every read and write holds the book's lock, so a
+     * reader never sees a position and the totals out of step.
+     */
+    private static final class PositionBook {
+        final Long portfolioId;
+        final Long userId;
+        final long loadedAt = System.nanoTime();
+        final Map<String, Position> positions = new LinkedHashMap<>();
+
+        BigDecimal investedAmount;
+        BigDecimal holdingsValue = BigDecimal.ZERO;
+        BigDecimal profitLoss = BigDecimal.ZERO;
+
+        volatile BigDecimal cashBalance;
+        volatile long cashFetchedAt;
+
+        PositionBook(Long portfolioId, Long userId, BigDecimal investedAmount) {
+            this.portfolioId = portfolioId;
+            this.userId = userId;
+            this.investedAmount = investedAmount;
+        }
+
+        synchronized void setInvestedAmount(BigDecimal investedAmount) {
+            this.investedAmount = investedAmount;
+        }
+
+        synchronized void put(Holding holding) {
+            remove(holding.getSymbol());
+            Position position = new Position(holding);
+            positions.put(position.symbol, position);
+            add(position);
+        }
+
+        synchronized void remove(String symbol) {
+            Position position = positions.remove(symbol);
+            if (position != null) {
+                subtract(position);
+            }
+        }
+
+        // Reads the mark's current price rather than taking one, so racing updates converge on the latest
+        synchronized void reprice(String symbol, SymbolMark mark) {
+            Position position = positions.get(symbol);
+            if (position == null) {
+                return;
+            }
+            subtract(position);
+            position.mark(mark.price.get(), mark.companyName);
+            add(position);
+        }
+
+        synchronized BigDecimal holdingsValue() {
+            return holdingsValue;
+        }
+
+        synchronized boolean holds(String symbol) {
+            return positions.containsKey(symbol);
+        }
+
+        synchronized List<String> symbols() {
+            return List.copyOf(positions.keySet());
+        }
+
+        synchronized HoldingResponseDto holding(String symbol) {
+            Position position = positions.get(symbol);
+            return position != null ? position.toResponse() : null;
+        }
+
+        synchronized List<HoldingResponseDto> holdings() {
+            return positions.values().stream().map(Position::toResponse).toList();
+        }
+
+        synchronized PortfolioResponseDto toResponse(BigDecimal cash) {
+            PortfolioResponseDto response = new PortfolioResponseDto();
+            response.setId(portfolioId);
+            response.setUserId(userId);
+            response.setTotalValue(cash.add(holdingsValue));
+            response.setCashBalance(cash);
+            response.setInvestedAmount(investedAmount);
+            response.setTotalProfitLoss(profitLoss);
+            response.setTotalProfitLossPercent(percentOf(profitLoss, investedAmount));
+            response.setHoldings(holdings());
+            return response;
+        }
+
+        private void add(Position position) {
+            holdingsValue = holdingsValue.add(position.value);
+            profitLoss = profitLoss.add(position.profitLoss);
+        }
+
+        private void subtract(Position position) {
+            holdingsValue = holdingsValue.subtract(position.value);
+            profitLoss = profitLoss.subtract(position.profitLoss);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.tradingplatform.portfolio_service.service;
+
+import com.tradingplatform.portfolio_service.event.ConsumedOrderEvent;
+import com.tradingplatform.portfolio_service.event.OrderEvent;
+import com.tradingplatform.portfolio_service.event.OrderEventListener;
+import com.tradingplatform.portfolio_service.exception.InsufficientSharesException;
+import com.tradingplatform.portfolio_service.model.Holding;
+import com.tradingplatform.portfolio_service.model.Portfolio;
+import com.tradingplatform.portfolio_service.repository.ProjectionRebuildRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds the portfolio projection by replaying {@code order-events} from the beginning, for
+ * standing up a fresh database or recovering from a corrupted one. Enabled with
+ * {@code portfolio.projection.rebuild=true}; the order event listener then stays stopped until
+ * the rebuild is written.
+ * <p>
+ * Events are read by direct partition assignment, up to the end offsets seen at start, and folded
+ * in memory with the same arithmetic as the live path. The result replaces the holdings and
+ * portfolio totals in one transaction with batched writes, each portfolio carrying the outbox id
+ * of its last event and the high-water mark of its last event on every partition. Resent events
+ * are skipped on replay as they are live. The live listener then resumes from its committed
+ * offsets and skips whatever the rebuild already covered. Other instances should be stopped while
+ * it runs, and the topic's retention must cover the whole history.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "portfolio.projection.rebuild", havingValue = "true")
+public class ProjectionRebuilder {
+
+    private static final String TOPIC = "order-events";
+
+    @Autowired
+    private ConsumerFactory<String, OrderEvent> consumerFactory;
+
+    @Autowired
+    private ProjectionRebuildRepository projectionRebuildRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Autowired
+    private PositionCache positionCache;
+
+    @Value("${portfolio.projection.rebuild-max-poll-records:5000}")
+    private int maxPollRecords;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        log.info("Rebuilding portfolio projection from {}", TOPIC);
+        long started = System.nanoTime();
+
+        try {
+            Map<Long, UserProjection> projections = new HashMap<>();
+            long events = replay(projections);
+            write(projections);
+            positionCache.invalidateAll();
+
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            log.info("Rebuilt portfolio projection for {} users from {} events in {} ms",
+                    projections.size(), events, elapsedMs);
+        } catch (RuntimeException e) {
+            log.error("Portfolio projection rebuild failed, order event listener left stopped: {}", e.getMessage(), e);
+            return;
+        }
+
+        listenerRegistry.getListenerContainer(OrderEventListener.ORDER_LISTENER_ID).start();
+    }
+
+    // Helper methods
+
+    private long replay(Map<Long, UserProjection> projections) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        overrides.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 1024 * 1024);
+        overrides.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 100);
+        overrides.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, 8 * 1024 * 1024);
+
+        long events = 0;
+        try (Consumer<String, OrderEvent> consumer =
+                     consumerFactory.createConsumer("portfolio-service-rebuild", null, null, overrides)) {
+            List<TopicPartition> partitions = consumer.partitionsFor(TOPIC).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+            Set<TopicPartition> remaining = new HashSet<>(partitions);
+            remaining.removeIf(partition -> consumer.position(partition) >= endOffsets.get(partition));
+            while (!remaining.isEmpty()) {
+                for (ConsumerRecord<String, OrderEvent> record : consumer.poll(Duration.ofMillis(500))) {
+                    // Anything past the end seen at start is left to the live listener
+                    if (record.offset() < endOffsets.get(new TopicPartition(record.topic(), record.partition()))) {
+                        apply(projections, record);
+                        events++;
+                    }
+                }
+                remaining.removeIf(partition -> consumer.position(partition) >= endOffsets.get(partition));
+            }
+        }
+        return events;
+    }
+
+    // Mirrors PortfolioServiceImpl.applyOrderEvents, including which events it rejects
+    static void apply(Map<Long, UserProjection> projections, ConsumerRecord<String, OrderEvent> record) {
+        OrderEvent event = record.value();
+        if (event == null || event.getUserId() == null) {
+            return;
+        }
+
+        UserProjection projection = "BUY".equals(event.getOrderType()) && "ORDER_EXECUTED".equals(event.getEventType())
+                ? projections.computeIfAbsent(event.getUserId(), UserProjection::new)
+                : projections.get(event.getUserId());
+        if (projection == null) {
+            return;
+        }
+        ConsumedOrderEvent consumed = ConsumedOrderEvent.from(record);
+        if (PortfolioServiceImpl.isApplied(projection.portfolio.getLastEventId(), projection.portfolio.getEventOffsets(), consumed)) {
+            return;
+        }
+        if (consumed.getEventId() != null) {
+            projection.portfolio.setLastEventId(consumed.getEventId());
+        }
+        projection.portfolio.getEventOffsets().put(record.partition(), record.offset());
+        if (!"ORDER_EXECUTED".equals(event.getEventType())) {
+            return;
+        }
+
+        String symbol = event.getSymbol().toUpperCase();
+        Portfolio portfolio = projection.portfolio;
+        if ("BUY".equals(event.getOrderType())) {
+            Holding holding = projection.holdings.computeIfAbsent(symbol, projection::newHolding);
+            HoldingLedger.buy(portfolio, holding, event.getQuantity(), event.getPricePerShare());
+        } else if ("SELL".equals(event.getOrderType())) {
+            Holding holding = projection.holdings.get(symbol);
+            if (holding == null) {
+                return;
+            }
+            try {
+                HoldingLedger.sell(portfolio, holding, event.getQuantity(), event.getPricePerShare());
+            } catch (InsufficientSharesException e) {
+                return;
+            }
+            if (holding.getQuantity() == 0) {
+                projection.holdings.remove(symbol);
+            }
+        }
+    }
+
+    private void write(Map<Long, UserProjection> projections) {
+        List<Portfolio> portfolios = new ArrayList<>(projections.size());
+        List<Holding> holdings = new ArrayList<>();
+        for (UserProjection projection : projections.values()) {
+            portfolios.add(projection.portfolio);
+            holdings.addAll(projection.holdings.values());
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            projectionRebuildRepository.clear();
+            projectionRebuildRepository.upsertPortfolios(portfolios);
+            projectionRebuildRepository.insertEventOffsets(portfolios);
+            projectionRebuildRepository.insertHoldings(holdings);
+        });
+    }
+
+    static final class UserProjection {
+        final Portfolio portfolio = new Portfolio();
+        final Map<String, Holding> holdings = new LinkedHashMap<>();
+
+        UserProjection(Long userId) {
+            portfolio.setUserId(userId);
+        }
+
+        Holding newHolding(String symbol) {
+            Holding holding = new Holding();
+            holding.setPortfolio(portfolio);
+            holding.setSymbol(symbol);
+            holding.setQuantity(0);
+            holding.setAveragePrice(BigDecimal.ZERO);
+            holding.setTotalInvested(BigDecimal.ZERO);
+            return holding;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.tradingplatform.portfolio_service.service;
+
+import com.tradingplatform.portfolio_service.client.MarketDataServiceClient;
+import com.tradingplatform.portfolio_service.client.WalletServiceClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the remote calls behind a portfolio valuation concurrently on virtual threads: the wallet
+ * balance and one bulk quote call per batch of symbols. Callers wait on a shared per-request
+ * deadline, so a valuation takes as long as its slowest dependency, capped by the deadline.
+ * Whatever has not answered by then is left out: no cash balance, or no quote for those symbols,
+ * which the valuation prices at the average price. Late calls finish in the background and are
+ * ignored.
+ */
+@Component
+@Slf4j
+public class ValuationFetcher {
+
+    @Autowired
+    private WalletServiceClient walletServiceClient;
+
+    @Autowired
+    private MarketDataServiceClient marketDataServiceClient;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final long deadlineNanos;
+    private final int quoteBatchSize;
+
+    private final Counter walletMissed;
+    private final Counter quoteBatchesMissed;
+
+    public ValuationFetcher(MeterRegistry meterRegistry,
+                            @Value("${portfolio.valuation.deadline-ms:1500}") long deadlineMs,
+                            @Value("${portfolio.valuation.quote-batch-size:100}") int quoteBatchSize) {
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        this.quoteBatchSize = quoteBatchSize;
+        this.walletMissed = Counter.builder("portfolio.valuation.partial")
+                .description("Valuations completed without a dependency's answer")
+                .tag("dependency", "wallet")
+                .register(meterRegistry);
+        this.quoteBatchesMissed = Counter.builder("portfolio.valuation.partial")
+                .description("Valuations completed without a dependency's answer")
+                .tag("dependency", "market-data")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Absolute System.nanoTime() by which the current valuation must have its inputs
+    public long newDeadline() {
+        return System.nanoTime() + deadlineNanos;
+    }
+
+    public CompletableFuture<BigDecimal> fetchCashBalance(Long userId) {
+        return CompletableFuture.supplyAsync(() -> walletServiceClient.getBalance(userId).balance, executor);
+    }
+
+    public List<CompletableFuture<List<MarketDataServiceClient.StockQuoteResponse>>> fetchQuotes(List<String> symbols) {
+        List<CompletableFuture<List<MarketDataServiceClient.StockQuoteResponse>>> batches = new ArrayList<>();
+        for (int from = 0; from < symbols.size(); from += quoteBatchSize) {
+            List<String> batch = List.copyOf(symbols.subList(from, Math.min(from + quoteBatchSize, symbols.size())));
+            batches.add(CompletableFuture.supplyAsync(() -> marketDataServiceClient.getQuotes(batch), executor));
+        }
+        return batches;
+    }
+
+    /**
+     * The wallet balance, or null if the wallet service failed or missed the deadline.
+     */
+    public BigDecimal awaitCashBalance(CompletableFuture<BigDecimal> balance, Long userId, long deadline) {
+        BigDecimal cash = await(balance, deadline, "wallet balance for user " + userId);
+        if (cash == null) {
+            walletMissed.increment();
+        }
+        return cash;
+    }
+
+    /**
+     * Quotes by symbol from every batch that answered in time; symbols of failed or late batches
+     * are absent.
+     */
+    public Map<String, MarketDataServiceClient.StockQuoteResponse> awaitQuotes(
+            List<CompletableFuture<List<MarketDataServiceClient.StockQuoteResponse>>> batches, long deadline) {
+        Map<String, MarketDataServiceClient.StockQuoteResponse> quotes = new HashMap<>();
+        for (CompletableFuture<List<MarketDataServiceClient.StockQuoteResponse>> batch : batches) {
+            List<MarketDataServiceClient.StockQuoteResponse> answered = await(batch, deadline, "quote batch");
+            if (answered == null) {
+                quoteBatchesMissed.increment();
+                continue;
+            }
+            for (MarketDataServiceClient.StockQuoteResponse quote : answered) {
+                quotes.put(quote.symbol, quote);
+            }
+        }
+        return quotes;
+    }
+
+    // Helper methods
+
+    private <T> T await(CompletableFuture<T> future, long deadline, String what) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Valuation deadline passed waiting for {}", what);
+        } catch (ExecutionException e) {
+            log.warn("Failed to get {}: {}", what, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted waiting for {}", what);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,296 @@
+package com.tradingplatform.portfolio_service.service;
+
+import com.tradingplatform.portfolio_service.event.ConsumedOrderEvent;
+import com.tradingplatform.portfolio_service.event.OrderEvent;
+import com.tradingplatform.portfolio_service.model.Holding;
+import com.tradingplatform.portfolio_service.model.Portfolio;
+import com.tradingplatform.portfolio_service.repository.HoldingRepository;
+import com.tradingplatform.portfolio_service.repository.PortfolioRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PortfolioServiceImplTest {
+
+    private static final long USER_ID = 7L;
+
+    private final Map<Long, Portfolio> portfolios = new HashMap<>();
+    private final Map<String, Holding> holdings = new HashMap<>();
+
+    private PortfolioServiceImpl portfolioService;
+
+    @BeforeEach
+    void setUp() {
+        PortfolioRepository portfolioRepository = mock(PortfolioRepository.class);
+        when(portfolioRepository.findByUserId(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(portfolios.get(invocation.<Long>getArgument(0))));
+        when(portfolioRepository.save(any(Portfolio.class))).thenAnswer(invocation -> {
+            Portfolio portfolio = invocation.getArgument(0);
+            if (portfolio.getId() == null) {
+                portfolio.setId(portfolio.getUserId());
+            }
+            portfolios.put(portfolio.getUserId(), portfolio);
+            return portfolio;
+        });
+
+        HoldingRepository holdingRepository = mock(HoldingRepository.class);
+        when(holdingRepository.findByPortfolioIdAndSymbol(anyLong(), anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(
+                        holdings.get(key(invocation.getArgument(0), invocation.getArgument(1)))));
+        when(holdingRepository.save(any(Holding.class))).thenAnswer(invocation -> {
+            Holding holding = invocation.getArgument(0);
+            holdings.put(key(holding.getPortfolio().getId(), holding.getSymbol()), holding);
+            return holding;
+        });
+        doAnswer(invocation -> {
+            Holding holding = invocation.getArgument(0);
+            holdings.remove(key(holding.getPortfolio().getId(), holding.getSymbol()));
+            return null;
+        }).when(holdingRepository).delete(any(Holding.class));
+
+        portfolioService = new PortfolioServiceImpl();
+        ReflectionTestUtils.setField(portfolioService, "portfolioRepository", portfolioRepository);
+        ReflectionTestUtils.setField(portfolioService, "holdingRepository", holdingRepository);
+    }
+
+    @Test
+    void redeliveredBatchIsNotAppliedAgain() {
+        List<ConsumedOrderEvent> batch = List.of(
+                consumed(0, 10, buy(1, "AAPL", 10, "100.00")),
+                consumed(0, 11, sell(2, "AAPL", 4, "110.00")),
+                consumed(0, 12, buy(3, "MSFT", 5, "300.00")));
+
+        portfolioService.applyOrderEvents(USER_ID, batch);
+        Map<String, String> applied = snapshot();
+
+        portfolioService.applyOrderEvents(USER_ID, batch);
+
+        assertEquals(applied, snapshot());
+        assertEquals(Map.of(0, 12L), portfolios.get(USER_ID).getEventOffsets());
+    }
+
+    @Test
+    void partlyAppliedBatchOnlyAppliesTheRest() {
+        portfolioService.applyOrderEvents(USER_ID, List.of(consumed(0, 10, buy(1, "AAPL", 10, "100.00"))));
+
+        portfolioService.applyOrderEvents(USER_ID, List.of(
+                consumed(0, 10, buy(1, "AAPL", 10, "100.00")),
+                consumed(0, 11, buy(2, "AAPL", 10, "120.00"))));
+
+        Holding aapl = holdings.get(key(USER_ID, "AAPL"));
+        assertEquals(20, aapl.getQuantity());
+        assertEquals(0, new BigDecimal("2200.00").compareTo(aapl.getTotalInvested()));
+    }
+
+    @Test
+    void redeliveryFromAnEarlierPartitionIsSkippedAfterARepartition() {
+        List<ConsumedOrderEvent> beforeRepartition = List.of(
+                consumed(1, 40, buy(1, "AAPL", 10, "100.00")),
+                consumed(1, 41, buy(2, "MSFT", 5, "300.00")));
+        List<ConsumedOrderEvent> afterRepartition = List.of(
+                consumed(4, 3, sell(3, "AAPL", 6, "105.00")));
+
+        portfolioService.applyOrderEvents(USER_ID, beforeRepartition);
+        portfolioService.applyOrderEvents(USER_ID, afterRepartition);
+        Map<String, String> applied = snapshot();
+
+        portfolioService.applyOrderEvents(USER_ID, beforeRepartition);
+        portfolioService.applyOrderEvents(USER_ID, afterRepartition);
+
+        assertEquals(applied, snapshot());
+        assertEquals(Map.of(1, 41L, 4, 3L), portfolios.get(USER_ID).getEventOffsets());
+    }
+
+    @Test
+    void rejectedEventIsMarkedAndNotRetried() {
+        List<ConsumedOrderEvent> batch = List.of(
+                consumed(0, 1, buy(1, "AAPL", 5, "100.00")),
+                consumed(0, 2, sell(2, "AAPL", 50, "100.00")));
+
+        assertEquals(1, portfolioService.applyOrderEvents(USER_ID, batch));
+        assertEquals(0, portfolioService.applyOrderEvents(USER_ID, batch));
+
+        assertEquals(5, holdings.get(key(USER_ID, "AAPL")).getQuantity());
+    }
+
+    @Test
+    void rebuildMatchesTheLiveProjectionDespiteRedeliveries() {
+        List<ConsumedOrderEvent> topic = List.of(
+                consumed(1, 0, buy(1, "AAPL", 10, "100.00")),
+                consumed(1, 1, buy(2, "MSFT", 5, "300.00")),
+                consumed(1, 2, sell(3, "AAPL", 4, "110.00")),
+                consumed(3, 0, buy(4, "AAPL", 6, "90.00")),
+                consumed(3, 1, sell(5, "MSFT", 5, "320.00")),
+                consumed(3, 2, sell(6, "AAPL", 99, "95.00")));
+
+        // Each batch is delivered twice, and the first partition once more after the second
+        portfolioService.applyOrderEvents(USER_ID, topic.subList(0, 3));
+        portfolioService.applyOrderEvents(USER_ID, topic.subList(0, 3));
+        portfolioService.applyOrderEvents(USER_ID, topic.subList(3, 6));
+        portfolioService.applyOrderEvents(USER_ID, topic.subList(3, 6));
+        portfolioService.applyOrderEvents(USER_ID, topic.subList(0, 3));
+        Map<String, String> live = snapshot();
+        Map<Integer, Long> liveOffsets = new HashMap<>(portfolios.get(USER_ID).getEventOffsets());
+
+        Map<Long, ProjectionRebuilder.UserProjection> projections = new HashMap<>();
+        topic.forEach(consumed -> ProjectionRebuilder.apply(projections, record(consumed)));
+        ProjectionRebuilder.UserProjection rebuilt = projections.get(USER_ID);
+
+        assertEquals(live, snapshot(rebuilt.portfolio, rebuilt.holdings.values()));
+        assertEquals(liveOffsets, rebuilt.portfolio.getEventOffsets());
+    }
+
+    @Test
+    void liveListenerSkipsEventsTheRebuildCovered() {
+        List<ConsumedOrderEvent> topic = List.of(
+                consumed(2, 0, buy(1, "AAPL", 10, "100.00")),
+                consumed(2, 1, sell(2, "AAPL", 3, "104.00")),
+                consumed(5, 0, buy(3, "TSLA", 2, "250.00")));
+
+        Map<Long, ProjectionRebuilder.UserProjection> projections = new HashMap<>();
+        topic.forEach(consumed -> ProjectionRebuilder.apply(projections, record(consumed)));
+        load(projections.get(USER_ID));
+        Map<String, String> rebuilt = snapshot();
+
+        // The listener resumes from committed offsets that may lag behind the rebuild
+        portfolioService.applyOrderEvents(USER_ID, topic.subList(0, 2));
+        portfolioService.applyOrderEvents(USER_ID, topic.subList(2, 3));
+
+        assertEquals(rebuilt, snapshot());
+    }
+
+    @Test
+    void eventResentAtANewOffsetIsNotAppliedAgain() {
+        portfolioService.applyOrderEvents(USER_ID, List.of(
+                consumed(101L, 0, 10, buy(1, "AAPL", 10, "100.00")),
+                consumed(102L, 0, 11, sell(2, "AAPL", 4, "110.00"))));
+        Map<String, String> applied = snapshot();
+
+        // The relay sent both again: one was acknowledged behind a failed send, one before a crash
+        int rejected = portfolioService.applyOrderEvents(USER_ID, List.of(
+                consumed(101L, 0, 12, buy(1, "AAPL", 10, "100.00")),
+                consumed(102L, 0, 13, sell(2, "AAPL", 4, "110.00"))));
+
+        assertEquals(0, rejected);
+        assertEquals(applied, snapshot());
+        assertEquals(102L, portfolios.get(USER_ID).getLastEventId());
+        assertEquals(Map.of(0, 11L), portfolios.get(USER_ID).getEventOffsets());
+    }
+
+    @Test
+    void rebuildSkipsResentEventsLikeTheLiveProjection() {
+        List<ConsumedOrderEvent> topic = List.of(
+                consumed(201L, 2, 0, buy(1, "AAPL", 10, "100.00")),
+                consumed(202L, 2, 1, buy(2, "MSFT", 5, "300.00")),
+                consumed(201L, 2, 2, buy(1, "AAPL", 10, "100.00")),
+                consumed(203L, 2, 3, sell(3, "AAPL", 4, "110.00")),
+                consumed(202L, 2, 4, buy(2, "MSFT", 5, "300.00")));
+
+        portfolioService.applyOrderEvents(USER_ID, topic.subList(0, 2));
+        portfolioService.applyOrderEvents(USER_ID, topic.subList(2, 5));
+        Map<String, String> live = snapshot();
+
+        Map<Long, ProjectionRebuilder.UserProjection> projections = new HashMap<>();
+        topic.forEach(consumed -> ProjectionRebuilder.apply(projections, record(consumed)));
+        ProjectionRebuilder.UserProjection rebuilt = projections.get(USER_ID);
+
+        assertEquals(live, snapshot(rebuilt.portfolio, rebuilt.holdings.values()));
+        assertEquals("6 @ 100 = 600", live.get("AAPL"));
+        assertEquals("5 @ 300 = 1500", live.get("MSFT"));
+        assertEquals(203L, rebuilt.portfolio.getLastEventId());
+    }
+
+    // Helper methods
+
+    // Published before the order service stamped its outbox id, so only the Kafka position identifies it
+    private static ConsumedOrderEvent consumed(int partition, long offset, OrderEvent event) {
+        return consumed(null, partition, offset, event);
+    }
+
+    private static ConsumedOrderEvent consumed(Long eventId, int partition, long offset, OrderEvent event) {
+        return new ConsumedOrderEvent(event, eventId, partition, offset);
+    }
+
+    private static ConsumerRecord<String, OrderEvent> record(ConsumedOrderEvent consumed) {
+        ConsumerRecord<String, OrderEvent> record = new ConsumerRecord<>("order-events", consumed.getPartition(),
+                consumed.getOffset(), String.valueOf(USER_ID), consumed.getEvent());
+        if (consumed.getEventId() != null) {
+            record.headers().add(ConsumedOrderEvent.OUTBOX_ID_HEADER,
+                    consumed.getEventId().toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    private static OrderEvent buy(long orderId, String symbol, int quantity, String price) {
+        return executed(orderId, "BUY", symbol, quantity, price);
+    }
+
+    private static OrderEvent sell(long orderId, String symbol, int quantity, String price) {
+        return executed(orderId, "SELL", symbol, quantity, price);
+    }
+
+    private static OrderEvent executed(long orderId, String orderType, String symbol, int quantity, String price) {
+        BigDecimal pricePerShare = new BigDecimal(price);
+        return new OrderEvent(orderId, USER_ID, symbol, orderType, quantity, pricePerShare,
+                pricePerShare.multiply(new BigDecimal(quantity)), null, "ORDER_EXECUTED");
+    }
+
+    private static String key(Long portfolioId, String symbol) {
+        return portfolioId + ":" + symbol;
+    }
+
+    // Stores a rebuilt projection the way the rebuild's batched writes would
+    private void load(ProjectionRebuilder.UserProjection projection) {
+        projection.portfolio.setId(projection.portfolio.getUserId());
+        portfolios.put(projection.portfolio.getUserId(), projection.portfolio);
+        projection.holdings.values().forEach(holding ->
+                holdings.put(key(projection.portfolio.getId(), holding.getSymbol()), holding));
+    }
+
+    private Map<String, String> snapshot() {
+        Portfolio portfolio = portfolios.get(USER_ID);
+        List<Holding> userHoldings = new ArrayList<>();
+        holdings.forEach((key, holding) -> {
+            if (key.startsWith(portfolio.getId() + ":")) {
+                userHoldings.add(holding);
+            }
+        });
+        return snapshot(portfolio, userHoldings);
+    }
+
+    // Amounts compared without their scale, which differs between a fresh and a loaded entity
+    private static Map<String, String> snapshot(Portfolio portfolio, Iterable<Holding> holdings) {
+        Map<String, String> snapshot = new TreeMap<>();
+        snapshot.put("investedAmount", plain(portfolio.getInvestedAmount()));
+        snapshot.put("holdingCount", String.valueOf(portfolio.getHoldingCount()));
+        snapshot.put("realizedProfitLoss", plain(portfolio.getRealizedProfitLoss()));
+        snapshot.put("lastValuation", plain(portfolio.getLastValuation()));
+        for (Holding holding : holdings) {
+            snapshot.put(holding.getSymbol(), holding.getQuantity() + " @ " + plain(holding.getAveragePrice())
+                    + " = " + plain(holding.getTotalInvested()));
+        }
+        return snapshot;
+    }
+
+    private static String plain(BigDecimal amount) {
+        return amount.stripTrailingZeros().toPlainString();
+    }
+}
@@ -1,4 +1,4 @@
-import { Injectable } from '@angular/core';
+import { Injectable, NgZone } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable, BehaviorSubject } from 'rxjs';
 import { tap } from 'rxjs/operators';
@@ -18,6 +18,15 @@ export interface StockQuote {
   lastUpdated: string;
 }
 
+export interface QuoteUpdate {
+  symbol: string;
+  price: number;
+  change: number;
+  changePercent: number;
+  volume: number;
+  lastUpdated: string;
+}
+
 export interface StockSearchResult {
   symbol: string;
   name: string;
@@ -55,7 +64,7 @@ export class MarketService {
   private watchlistSubject = new BehaviorSubject<WatchlistItem[]>([]);
   public watchlist$ = this.watchlistSubject.asObservable();
 
-  constructor(private http: HttpClient) {}
+  constructor(private http: HttpClient, private zone: NgZone) {}
 
   searchStocks(keywords: string): Observable<StockSearchResult[]> {
     return this.http.get<StockSearchResult[]>(`${this.apiUrl}/search`, {
@@ -67,6 +76,21 @@ export class MarketService {
     return this.http.get<StockQuote>(`${this.apiUrl}/quote/${symbol.toUpperCase()}`);
   }
 
+  // Server-sent price changes for the given symbols; the first events are the current quotes
+  streamQuotes(symbols: string[]): Observable<QuoteUpdate> {
+    return new Observable<QuoteUpdate>(subscriber => {
+      const params = encodeURIComponent(symbols.map(s => s.toUpperCase()).join(','));
+      const source = new EventSource(`${this.apiUrl}/stream?symbols=${params}`);
+
+      source.addEventListener('quote', event => {
+        const update = JSON.parse((event as MessageEvent).data) as QuoteUpdate;
+        this.zone.run(() => subscriber.next(update));
+      });
+
+      return () => source.close();
+    });
+  }
+
   getPrice(symbol: string): Observable<number> {
     return this.http.get<number>(`${this.apiUrl}/price/${symbol.toUpperCase()}`);
   }
@@ -1,4 +1,4 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { MatCardModule } from '@angular/material/card';
 import { MatButtonModule } from '@angular/material/button';
@@ -8,7 +8,8 @@ import { MatChipsModule } from '@angular/material/chips';
 import { MatSnackBar, MatSnackBarModule } from '@angular/material/snack-bar';
 import { StockSearchComponent } from '../stock-search/stock-search.component';
 import { StockCardComponent } from '../stock-card/stock-card.component';
-import { MarketService, StockQuote, WatchlistItem } from '../../../core/service/market.service';
+import { Subscription } from 'rxjs';
+import { MarketService, QuoteUpdate, StockQuote, WatchlistItem } from '../../../core/service/market.service';
 import { AuthService } from '../../../core/service/auth.service';
 
 @Component({
@@ -28,7 +29,7 @@ import { AuthService } from '../../../core/service/auth.service';
   templateUrl: './market-page.component.html',
   styleUrl: './market-page.component.scss'
 })
-export class MarketPageComponent implements OnInit {
+export class MarketPageComponent implements OnInit, OnDestroy {
   popularStocks: string[] = ['AAPL', 'MSFT', 'GOOGL', 'AMZN', 'TSLA', 'META'];
   popularQuotes: StockQuote[] = [];
   watchlistQuotes: StockQuote[] = [];
@@ -38,6 +39,9 @@ export class MarketPageComponent implements OnInit {
   loadingWatchlist = false;
   searchPerformed = false;
 
+  private quoteStream?: Subscription;
+  private streamedSymbols = '';
+
   constructor(
     private marketService: MarketService,
     private authService: AuthService,
@@ -49,6 +53,10 @@ export class MarketPageComponent implements OnInit {
     this.loadWatchlist();
   }
 
+  ngOnDestroy(): void {
+    this.quoteStream?.unsubscribe();
+  }
+
   loadPopularStocks(): void {
     this.loadingPopular = true;
     let loaded = 0;
@@ -60,6 +68,7 @@ export class MarketPageComponent implements OnInit {
           loaded++;
           if (loaded === this.popularStocks.length) {
             this.loadingPopular = false;
+            this.openQuoteStream();
           }
         },
         error: (error) => {
@@ -67,6 +76,7 @@ export class MarketPageComponent implements OnInit {
           loaded++;
           if (loaded === this.popularStocks.length) {
             this.loadingPopular = false;
+            this.openQuoteStream();
           }
         }
       });
@@ -96,6 +106,7 @@ export class MarketPageComponent implements OnInit {
               loaded++;
               if (loaded === watchlist.length) {
                 this.loadingWatchlist = false;
+                this.openQuoteStream();
               }
             },
             error: (error) => {
@@ -103,6 +114,7 @@ export class MarketPageComponent implements OnInit {
               loaded++;
               if (loaded === watchlist.length) {
                 this.loadingWatchlist = false;
+                this.openQuoteStream();
               }
             }
           });
@@ -115,6 +127,29 @@ export class MarketPageComponent implements OnInit {
     });
   }
 
+  // One stream for every quote on the page; reopened only when the symbol set changes
+  private openQuoteStream(): void {
+    const symbols = [...new Set([...this.popularQuotes, ...this.watchlistQuotes].map(q => q.symbol))].sort();
+    if (symbols.length === 0 || symbols.join(',') === this.streamedSymbols) {
+      return;
+    }
+
+    this.quoteStream?.unsubscribe();
+    this.streamedSymbols = symbols.join(',');
+    this.quoteStream = this.marketService.streamQuotes(symbols)
+      .subscribe(update => this.applyQuoteUpdate(update));
+  }
+
+  private applyQuoteUpdate(update: QuoteUpdate): void {
+    const apply = (quote: StockQuote) => quote.symbol === update.symbol
+      ? { ...quote, ...update }
+      : quote;
+
+    this.popularQuotes = this.popularQuotes.map(apply);
+    this.watchlistQuotes = this.watchlistQuotes.map(apply);
+    this.searchResults = this.searchResults.map(apply);
+  }
+
   onSearch(symbol: string): void {
     this.searchPerformed = true;
     this.searchResults = [];
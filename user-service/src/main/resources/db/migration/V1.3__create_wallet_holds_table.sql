@@ -0,0 +1,16 @@
+ALTER TABLE wallets ADD COLUMN IF NOT EXISTS held_balance DECIMAL(15, 2) NOT NULL DEFAULT 0.00;
+
+CREATE TABLE IF NOT EXISTS wallet_holds (
+    id BIGSERIAL PRIMARY KEY,
+    wallet_id BIGINT NOT NULL REFERENCES wallets(id),
+    reference_id VARCHAR(100) NOT NULL UNIQUE,
+    amount DECIMAL(15, 2) NOT NULL,
+    settled_amount DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    status VARCHAR(20) NOT NULL DEFAULT 'HELD',
+    description VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+    );
+
+CREATE INDEX idx_wallet_holds_wallet_id ON wallet_holds(wallet_id);
+CREATE INDEX idx_wallet_holds_status ON wallet_holds(status);
@@ -91,6 +91,42 @@ public class WalletController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/user/{userId}/holds")
+    public ResponseEntity<HoldResponseDto> reserveFunds(
+            @PathVariable("userId") Long userId,
+            @Valid @RequestBody HoldRequestDto request
+    ) {
+        HoldResponseDto response = walletService.reserveFunds(userId, request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @PostMapping("/holds/{referenceId}/settle")
+    public ResponseEntity<TransactionResponseDto> settleHold(
+            @PathVariable("referenceId") String referenceId,
+            @Valid @RequestBody TransactionRequestDto request
+    ) {
+        TransactionResponseDto response = walletService.settleHold(referenceId, request);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/holds/{referenceId}/release")
+    public ResponseEntity<HoldResponseDto> releaseHold(@PathVariable("referenceId") String referenceId) {
+        HoldResponseDto response = walletService.releaseHold(referenceId);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/trades/settle")
+    public ResponseEntity<TradeSettlementResponseDto> settleTrade(@Valid @RequestBody TradeSettlementRequestDto request) {
+        TradeSettlementResponseDto response = walletService.settleTrade(request);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/transactions/batch")
+    public ResponseEntity<BatchTransactionResponseDto> applyBatch(@Valid @RequestBody BatchTransactionRequestDto request) {
+        BatchTransactionResponseDto response = walletService.applyBatch(request);
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/user/{userId}/transactions")
     public ResponseEntity<List<TransactionResponseDto>> getTransactionHistory(@PathVariable("userId") Long userId) {
         List<TransactionResponseDto> transactions = walletService.getTransactionHistory(userId);
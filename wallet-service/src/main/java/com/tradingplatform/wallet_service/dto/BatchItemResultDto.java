@@ -0,0 +1,20 @@
+package com.tradingplatform.wallet_service.dto;
+
+import com.tradingplatform.wallet_service.model.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchItemResultDto {
+
+    private int index;
+    private Long userId;
+    private TransactionStatus status;
+    private BigDecimal balanceAfter;
+    private String error;
+}
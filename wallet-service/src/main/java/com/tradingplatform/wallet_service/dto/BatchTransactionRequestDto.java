@@ -0,0 +1,20 @@
+package com.tradingplatform.wallet_service.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransactionRequestDto {
+
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = 10000, message = "At most 10000 items per batch")
+    private List<@Valid BatchTransactionItemDto> items;
+}
@@ -0,0 +1,17 @@
+package com.tradingplatform.wallet_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransactionResponseDto {
+
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResultDto> results;
+}
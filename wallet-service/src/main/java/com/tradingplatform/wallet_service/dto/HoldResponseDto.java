@@ -0,0 +1,25 @@
+package com.tradingplatform.wallet_service.dto;
+
+import com.tradingplatform.wallet_service.model.HoldStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HoldResponseDto {
+
+    private Long id;
+    private Long walletId;
+    private String referenceId;
+    private BigDecimal amount;
+    private BigDecimal settledAmount;
+    private HoldStatus status;
+    private BigDecimal availableBalance;
+    private BigDecimal heldBalance;
+    private LocalDateTime createdAt;
+}
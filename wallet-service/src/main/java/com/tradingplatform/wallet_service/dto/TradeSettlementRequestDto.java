@@ -0,0 +1,38 @@
+package com.tradingplatform.wallet_service.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Both sides of one trade, settled together. The buy side is drawn from the hold placed for the
+ * buy order and the sell side credited to the seller; either side is left out when it traded
+ * against the market rather than another order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeSettlementRequestDto {
+
+    // Idempotency key, also recorded as the reference of both ledger rows
+    @NotBlank(message = "Trade reference is required")
+    private String tradeReference;
+
+    private String holdReferenceId;
+
+    @Positive(message = "Debit amount must be positive")
+    private BigDecimal debitAmount;
+
+    private String debitDescription;
+
+    private Long sellerUserId;
+
+    @Positive(message = "Credit amount must be positive")
+    private BigDecimal creditAmount;
+
+    private String creditDescription;
+}
@@ -0,0 +1,16 @@
+package com.tradingplatform.wallet_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TradeSettlementResponseDto {
+
+    private String tradeReference;
+
+    // True when an earlier request with the same reference already settled the trade
+    private boolean alreadySettled;
+}
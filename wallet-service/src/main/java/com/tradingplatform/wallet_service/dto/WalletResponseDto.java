@@ -15,6 +15,7 @@ public class WalletResponseDto {
     private Long id;
     private Long userId;
     private BigDecimal balance;
+    private BigDecimal heldBalance;
     private String currency;
     private Boolean isActive;
     private LocalDateTime createdAt;
@@ -0,0 +1,11 @@
+package com.tradingplatform.wallet_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class HoldNotFoundException extends RuntimeException {
+    public HoldNotFoundException(String referenceId) {
+        super("Funds hold not found: " + referenceId);
+    }
+}
@@ -0,0 +1,7 @@
+package com.tradingplatform.wallet_service.model;
+
+public enum HoldStatus {
+    HELD,
+    SETTLED,
+    RELEASED
+}
@@ -27,6 +27,10 @@ public class Wallet {
     @Column(nullable = false, precision = 15, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    // Funds earmarked for open orders; already excluded from balance
+    @Column(name = "held_balance", nullable = false, precision = 15, scale = 2)
+    private BigDecimal heldBalance = BigDecimal.ZERO;
+
     @Column(nullable = false, length = 3)
     private String currency = "USD";
 
@@ -0,0 +1,21 @@
+package com.tradingplatform.wallet_service.repository;
+
+import com.tradingplatform.wallet_service.model.FundsHold;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface FundsHoldRepository extends JpaRepository<FundsHold, Long> {
+
+    Optional<FundsHold> findByReferenceId(String referenceId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM FundsHold h WHERE h.referenceId = :referenceId")
+    Optional<FundsHold> findByReferenceIdWithLock(@Param("referenceId") String referenceId);
+}
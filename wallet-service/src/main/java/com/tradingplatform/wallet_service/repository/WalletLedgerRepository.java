@@ -0,0 +1,155 @@
+package com.tradingplatform.wallet_service.repository;
+
+import com.tradingplatform.wallet_service.model.TransactionStatus;
+import com.tradingplatform.wallet_service.model.TransactionType;
+import com.tradingplatform.wallet_service.model.WalletTransaction;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Balance changes as one conditional statement: the wallet update and its ledger row are
+ * written in a single round-trip, and the row lock is held only for that statement.
+ */
+@Repository
+public class WalletLedgerRepository {
+
+    private static final String APPLY_CHANGE_SQL = """
+            WITH updated AS (
+                UPDATE wallets
+                SET balance = balance + :delta, updated_at = CURRENT_TIMESTAMP
+                WHERE user_id = :userId AND is_active AND balance + :delta >= 0
+                RETURNING id, balance
+            )
+            INSERT INTO wallet_transactions
+                (wallet_id, transaction_type, amount, balance_after, description, reference_id, status, created_at)
+            SELECT id, :type, :delta, balance, :description, :referenceId, :status, CURRENT_TIMESTAMP
+            FROM updated
+            RETURNING id, wallet_id, transaction_type, amount, balance_after, description, reference_id, status, created_at
+            """;
+
+    private static final String FIND_WALLET_IDS_SQL = "SELECT id FROM wallets WHERE user_id IN (:userIds)";
+
+    private static final String LOCK_WALLETS_SQL =
+            "SELECT id, user_id, balance, is_active FROM wallets WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+
+    private static final String UPDATE_BALANCE_SQL =
+            "UPDATE wallets SET balance = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+    private static final String INSERT_TRANSACTION_SQL = """
+            INSERT INTO wallet_transactions
+                (wallet_id, transaction_type, amount, balance_after, description, reference_id, status, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)
+            """;
+
+    private static final int LOCK_CHUNK_SIZE = 1000;
+
+    public record WalletBalance(Long id, Long userId, BigDecimal balance, boolean active) {
+    }
+
+    public record LedgerEntry(Long walletId, TransactionType type, BigDecimal amount, BigDecimal balanceAfter,
+                              String description, String referenceId) {
+    }
+
+    private static final RowMapper<WalletTransaction> TRANSACTION_MAPPER = (rs, rowNum) -> {
+        WalletTransaction transaction = new WalletTransaction();
+        transaction.setId(rs.getLong("id"));
+        transaction.setWalletId(rs.getLong("wallet_id"));
+        transaction.setTransactionType(TransactionType.valueOf(rs.getString("transaction_type")));
+        transaction.setAmount(rs.getBigDecimal("amount"));
+        transaction.setBalanceAfter(rs.getBigDecimal("balance_after"));
+        transaction.setDescription(rs.getString("description"));
+        transaction.setReferenceId(rs.getString("reference_id"));
+        transaction.setStatus(TransactionStatus.valueOf(rs.getString("status")));
+        transaction.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        return transaction;
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public WalletLedgerRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds {@code delta} (negative for debits) to an active wallet and records the ledger row.
+     * Empty if the wallet does not exist, is inactive, or a debit would overdraw it.
+     */
+    public Optional<WalletTransaction> applyChange(Long userId, BigDecimal delta, TransactionType type,
+                                                   String description, String referenceId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("delta", delta)
+                .addValue("type", type.name())
+                .addValue("description", description)
+                .addValue("referenceId", referenceId)
+                .addValue("status", TransactionStatus.COMPLETED.name());
+
+        List<WalletTransaction> rows = jdbcTemplate.query(APPLY_CHANGE_SQL, params, TRANSACTION_MAPPER);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Locks the wallets of the given users. Their wallet ids are resolved first and the locks taken
+     * in ascending wallet id order, the order trade settlement locks in too, so neither concurrent
+     * batches nor a batch and a settlement can deadlock on each other.
+     */
+    public List<WalletBalance> lockWallets(List<Long> userIds) {
+        List<Long> walletIds = new ArrayList<>(userIds.size());
+        for (List<Long> chunk : chunks(userIds)) {
+            walletIds.addAll(jdbcTemplate.queryForList(FIND_WALLET_IDS_SQL,
+                    new MapSqlParameterSource("userIds", chunk), Long.class));
+        }
+        walletIds.sort(null);
+
+        List<WalletBalance> wallets = new ArrayList<>(walletIds.size());
+        for (List<Long> chunk : chunks(walletIds)) {
+            wallets.addAll(jdbcTemplate.query(LOCK_WALLETS_SQL, new MapSqlParameterSource("ids", chunk),
+                    (rs, rowNum) -> new WalletBalance(
+                            rs.getLong("id"),
+                            rs.getLong("user_id"),
+                            rs.getBigDecimal("balance"),
+                            rs.getBoolean("is_active"))));
+        }
+        return wallets;
+    }
+
+    public void updateBalances(Map<Long, BigDecimal> balancesByWalletId) {
+        List<Object[]> rows = new ArrayList<>(balancesByWalletId.size());
+        balancesByWalletId.forEach((walletId, balance) -> rows.add(new Object[]{balance, walletId}));
+        jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_BALANCE_SQL, rows);
+    }
+
+    public void insertTransactions(List<LedgerEntry> entries) {
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (LedgerEntry entry : entries) {
+            rows.add(new Object[]{
+                    entry.walletId(),
+                    entry.type().name(),
+                    entry.amount(),
+                    entry.balanceAfter(),
+                    entry.description(),
+                    entry.referenceId(),
+                    TransactionStatus.COMPLETED.name()
+            });
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_TRANSACTION_SQL, rows);
+    }
+
+    // Helper methods
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += LOCK_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + LOCK_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface WalletTransactionRepository extends JpaRepository<WalletTransaction, Long> {
@@ -17,6 +18,11 @@ public interface WalletTransactionRepository extends JpaRepository<WalletTransac
 
     Page<WalletTransaction> findByWalletIdOrderByCreatedAtDesc(Long walletId, Pageable pageable);
 
+    boolean existsByReferenceId(String referenceId);
+
+    Optional<WalletTransaction> findFirstByWalletIdAndReferenceIdAndTransactionType(
+            Long walletId, String referenceId, TransactionType type);
+
     List<WalletTransaction> findByWalletIdAndTransactionType(Long walletId, TransactionType type);
 
     List<WalletTransaction> findByWalletIdAndCreatedAtBetween(
@@ -25,6 +25,16 @@ public interface WalletService {
 
     TransactionResponseDto creditFromSale(Long userId, TransactionRequestDto request);
 
+    HoldResponseDto reserveFunds(Long userId, HoldRequestDto request);
+
+    TransactionResponseDto settleHold(String referenceId, TransactionRequestDto request);
+
+    HoldResponseDto releaseHold(String referenceId);
+
+    TradeSettlementResponseDto settleTrade(TradeSettlementRequestDto request);
+
+    BatchTransactionResponseDto applyBatch(BatchTransactionRequestDto request);
+
     List<TransactionResponseDto> getTransactionHistory(Long userId);
 
     public Page<TransactionResponseDto> getTransactionHistory(Long userId, Pageable pageable);
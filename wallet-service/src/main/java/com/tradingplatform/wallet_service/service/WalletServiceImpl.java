@@ -1,13 +1,18 @@
 package com.tradingplatform.wallet_service.service;
 
 import com.tradingplatform.wallet_service.dto.*;
+import com.tradingplatform.wallet_service.exception.HoldNotFoundException;
 import com.tradingplatform.wallet_service.exception.InsufficientBalanceException;
 import com.tradingplatform.wallet_service.exception.WalletException;
 import com.tradingplatform.wallet_service.exception.WalletNotFoundException;
+import com.tradingplatform.wallet_service.model.FundsHold;
+import com.tradingplatform.wallet_service.model.HoldStatus;
 import com.tradingplatform.wallet_service.model.TransactionStatus;
 import com.tradingplatform.wallet_service.model.TransactionType;
 import com.tradingplatform.wallet_service.model.Wallet;
 import com.tradingplatform.wallet_service.model.WalletTransaction;
+import com.tradingplatform.wallet_service.repository.FundsHoldRepository;
+import com.tradingplatform.wallet_service.repository.WalletLedgerRepository;
 import com.tradingplatform.wallet_service.repository.WalletRepository;
 import com.tradingplatform.wallet_service.repository.WalletTransactionRepository;
 import jakarta.transaction.Transactional;
@@ -20,8 +25,15 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -34,6 +46,21 @@ public class WalletServiceImpl implements WalletService {
     @Autowired
     private WalletTransactionRepository transactionRepository;
 
+    @Autowired
+    private FundsHoldRepository holdRepository;
+
+    @Autowired
+    private WalletLedgerRepository walletLedgerRepository;
+
+    private static final Set<TransactionType> BATCH_TYPES = Set.of(
+            TransactionType.DEPOSIT,
+            TransactionType.WITHDRAWAL,
+            TransactionType.BUY_STOCK,
+            TransactionType.SELL_STOCK,
+            TransactionType.DIVIDEND,
+            TransactionType.REFUND
+    );
+
     @Value("${wallet.starting-balance.basic}")
     private BigDecimal basicStartingBalance;
 
@@ -95,38 +122,98 @@ public class WalletServiceImpl implements WalletService {
     }
 
     @Override
-    @Transactional
     public TransactionResponseDto deposit(Long userId, TransactionRequestDto request) {
-        Wallet wallet = walletRepository.findByUserIdWithLock(userId)
-                .orElseThrow(() -> new WalletNotFoundException(userId));
+        WalletTransaction transaction = walletLedgerRepository.applyChange(
+                        userId,
+                        request.getAmount(),
+                        TransactionType.DEPOSIT,
+                        request.getDescription() != null ? request.getDescription() : "Deposit",
+                        request.getReferenceId())
+                .orElseThrow(() -> rejectedChange(userId, request.getAmount()));
 
-        if (!wallet.getIsActive()) {
-            throw new WalletException("Wallet is inactive");
+        log.info("Deposited ${} to user {} wallet. New balance: ${}",
+                request.getAmount(), userId, transaction.getBalanceAfter());
+
+        return mapToTransactionResponseDto(transaction);
+    }
+
+    @Override
+    public TransactionResponseDto withdraw(Long userId, TransactionRequestDto request) {
+        WalletTransaction transaction = walletLedgerRepository.applyChange(
+                        userId,
+                        request.getAmount().negate(),
+                        TransactionType.WITHDRAWAL,
+                        request.getDescription() != null ? request.getDescription() : "Withdrawal",
+                        request.getReferenceId())
+                .orElseThrow(() -> rejectedChange(userId, request.getAmount()));
+
+        log.info("Withdrew ${} from user {} wallet. New balance: ${}",
+                request.getAmount(), userId, transaction.getBalanceAfter());
+
+        return mapToTransactionResponseDto(transaction);
+    }
+
+    @Override
+    public TransactionResponseDto deductForPurchase(Long userId, TransactionRequestDto request) {
+        WalletTransaction transaction = walletLedgerRepository.applyChange(
+                        userId,
+                        request.getAmount().negate(),
+                        TransactionType.BUY_STOCK,
+                        request.getDescription(),
+                        request.getReferenceId())
+                .orElseThrow(() -> rejectedChange(userId, request.getAmount()));
+
+        log.info("Deducted ${} from user {} for stock purchase. New balance: ${}",
+                request.getAmount(), userId, transaction.getBalanceAfter());
+
+        return mapToTransactionResponseDto(transaction);
+    }
+
+    // The sale reference makes a retried credit return the original transaction instead of paying twice
+    @Override
+    @Transactional
+    public TransactionResponseDto creditFromSale(Long userId, TransactionRequestDto request) {
+        if (request.getReferenceId() != null) {
+            // Checked under the wallet lock, so a retry racing the original waits for it and then sees its row
+            Wallet wallet = walletRepository.findByUserIdWithLock(userId)
+                    .orElseThrow(() -> new WalletNotFoundException(userId));
+            WalletTransaction existing = transactionRepository.findFirstByWalletIdAndReferenceIdAndTransactionType(
+                    wallet.getId(), request.getReferenceId(), TransactionType.SELL_STOCK).orElse(null);
+            if (existing != null) {
+                log.info("Sale {} is already credited to user {}", request.getReferenceId(), userId);
+                return mapToTransactionResponseDto(existing);
+            }
         }
 
-        BigDecimal newBalance = wallet.getBalance().add(request.getAmount());
-        wallet.setBalance(newBalance);
-        walletRepository.save(wallet);
+        WalletTransaction transaction = walletLedgerRepository.applyChange(
+                        userId,
+                        request.getAmount(),
+                        TransactionType.SELL_STOCK,
+                        request.getDescription(),
+                        request.getReferenceId())
+                .orElseThrow(() -> rejectedChange(userId, request.getAmount()));
 
-        log.info("Deposited ${} to user {} wallet. New balance: ${}",
-                request.getAmount(), userId, newBalance);
+        log.info("Credited ${} to user {} from stock sale. New balance: ${}",
+                request.getAmount(), userId, transaction.getBalanceAfter());
 
-        return createTransaction(
-                wallet.getId(),
-                TransactionType.DEPOSIT,
-                request.getAmount(),
-                newBalance,
-                request.getDescription() != null ? request.getDescription() : "Deposit",
-                request.getReferenceId()
-        );
+        return mapToTransactionResponseDto(transaction);
     }
 
     @Override
     @Transactional
-    public TransactionResponseDto withdraw(Long userId, TransactionRequestDto request) {
+    public HoldResponseDto reserveFunds(Long userId, HoldRequestDto request) {
         Wallet wallet = walletRepository.findByUserIdWithLock(userId)
                 .orElseThrow(() -> new WalletNotFoundException(userId));
 
+        // The reference is the idempotency key, so a retried reserve returns the original hold
+        FundsHold existing = holdRepository.findByReferenceId(request.getReferenceId()).orElse(null);
+        if (existing != null) {
+            if (!existing.getWalletId().equals(wallet.getId())) {
+                throw new WalletException("Reference " + request.getReferenceId() + " belongs to another wallet");
+            }
+            return mapToHoldResponseDto(existing, wallet);
+        }
+
         if (!wallet.getIsActive()) {
             throw new WalletException("Wallet is inactive");
         }
@@ -135,79 +222,194 @@ public class WalletServiceImpl implements WalletService {
             throw new InsufficientBalanceException(request.getAmount(), wallet.getBalance());
         }
 
-        BigDecimal newBalance = wallet.getBalance().subtract(request.getAmount());
-        wallet.setBalance(newBalance);
+        wallet.setBalance(wallet.getBalance().subtract(request.getAmount()));
+        wallet.setHeldBalance(wallet.getHeldBalance().add(request.getAmount()));
         walletRepository.save(wallet);
 
-        log.info("Withdrew ${} from user {} wallet. New balance: ${}",
-                request.getAmount(), userId, newBalance);
+        FundsHold hold = new FundsHold();
+        hold.setWalletId(wallet.getId());
+        hold.setReferenceId(request.getReferenceId());
+        hold.setAmount(request.getAmount());
+        hold.setDescription(request.getDescription());
+        FundsHold savedHold = holdRepository.save(hold);
 
-        return createTransaction(
-                wallet.getId(),
-                TransactionType.WITHDRAWAL,
-                request.getAmount().negate(),
-                newBalance,
-                request.getDescription() != null ? request.getDescription() : "Withdrawal",
-                request.getReferenceId()
-        );
+        log.info("Reserved ${} for user {} under {}. Available: ${}, held: ${}",
+                request.getAmount(), userId, request.getReferenceId(), wallet.getBalance(), wallet.getHeldBalance());
+
+        return mapToHoldResponseDto(savedHold, wallet);
     }
 
     @Override
     @Transactional
-    public TransactionResponseDto deductForPurchase(Long userId, TransactionRequestDto request) {
-        Wallet wallet = walletRepository.findByUserIdWithLock(userId)
-                .orElseThrow(() -> new WalletNotFoundException(userId));
+    public TransactionResponseDto settleHold(String referenceId, TransactionRequestDto request) {
+        FundsHold hold = holdRepository.findByReferenceIdWithLock(referenceId)
+                .orElseThrow(() -> new HoldNotFoundException(referenceId));
 
-        if (!wallet.getIsActive()) {
-            throw new WalletException("Wallet is inactive");
+        Wallet wallet = walletRepository.findByIdWithLock(hold.getWalletId())
+                .orElseThrow(() -> new WalletNotFoundException("Wallet not found: " + hold.getWalletId()));
+
+        return settleFromHold(hold, wallet, request.getAmount(), request.getDescription(), referenceId);
+    }
+
+    // Both sides in one transaction, so a trade never moves money on one side only; the trade
+    // reference makes a retried request a no-op
+    @Override
+    @Transactional
+    public TradeSettlementResponseDto settleTrade(TradeSettlementRequestDto request) {
+        boolean buySide = request.getHoldReferenceId() != null;
+        boolean sellSide = request.getSellerUserId() != null;
+        if (!buySide && !sellSide) {
+            throw new WalletException("Trade " + request.getTradeReference() + " has no side to settle");
+        }
+        if ((buySide && request.getDebitAmount() == null) || (sellSide && request.getCreditAmount() == null)) {
+            throw new WalletException("Trade " + request.getTradeReference() + " is missing an amount");
         }
 
-        if (wallet.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientBalanceException(request.getAmount(), wallet.getBalance());
+        // Hold before wallets, as in settleHold and releaseHold
+        FundsHold hold = buySide
+                ? holdRepository.findByReferenceIdWithLock(request.getHoldReferenceId())
+                        .orElseThrow(() -> new HoldNotFoundException(request.getHoldReferenceId()))
+                : null;
+        Long sellerWalletId = sellSide
+                ? walletRepository.findByUserId(request.getSellerUserId())
+                        .orElseThrow(() -> new WalletNotFoundException(request.getSellerUserId()))
+                        .getId()
+                : null;
+
+        // Wallets are locked in id order so settlements of opposite trades cannot deadlock
+        Map<Long, Wallet> wallets = new HashMap<>();
+        Stream.of(hold != null ? hold.getWalletId() : null, sellerWalletId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .forEach(walletId -> wallets.put(walletId, walletRepository.findByIdWithLock(walletId)
+                        .orElseThrow(() -> new WalletNotFoundException("Wallet not found: " + walletId))));
+
+        // Checked under the locks, so a retry racing the original waits for it and then sees its rows
+        if (transactionRepository.existsByReferenceId(request.getTradeReference())) {
+            log.info("Trade {} is already settled", request.getTradeReference());
+            return new TradeSettlementResponseDto(request.getTradeReference(), true);
+        }
+
+        if (buySide) {
+            settleFromHold(hold, wallets.get(hold.getWalletId()), request.getDebitAmount(),
+                    request.getDebitDescription(), request.getTradeReference());
+        }
+        if (sellSide) {
+            Wallet seller = wallets.get(sellerWalletId);
+            if (!seller.getIsActive()) {
+                throw new WalletException("Wallet is inactive");
+            }
+            seller.setBalance(seller.getBalance().add(request.getCreditAmount()));
+            walletRepository.save(seller);
+
+            createTransaction(
+                    seller.getId(),
+                    TransactionType.SELL_STOCK,
+                    request.getCreditAmount(),
+                    seller.getBalance(),
+                    request.getCreditDescription(),
+                    request.getTradeReference()
+            );
         }
 
-        BigDecimal newBalance = wallet.getBalance().subtract(request.getAmount());
-        wallet.setBalance(newBalance);
+        log.info("Settled trade {}", request.getTradeReference());
+        return new TradeSettlementResponseDto(request.getTradeReference(), false);
+    }
+
+    @Override
+    @Transactional
+    public HoldResponseDto releaseHold(String referenceId) {
+        FundsHold hold = holdRepository.findByReferenceIdWithLock(referenceId)
+                .orElseThrow(() -> new HoldNotFoundException(referenceId));
+
+        Wallet wallet = walletRepository.findByIdWithLock(hold.getWalletId())
+                .orElseThrow(() -> new WalletNotFoundException("Wallet not found: " + hold.getWalletId()));
+
+        if (hold.getStatus() != HoldStatus.HELD) {
+            return mapToHoldResponseDto(hold, wallet);
+        }
+
+        BigDecimal remaining = hold.getRemainingAmount();
+        wallet.setHeldBalance(wallet.getHeldBalance().subtract(remaining));
+        wallet.setBalance(wallet.getBalance().add(remaining));
         walletRepository.save(wallet);
 
-        log.info("Deducted ${} from user {} for stock purchase. New balance: ${}",
-                request.getAmount(), userId, newBalance);
+        hold.setStatus(HoldStatus.RELEASED);
+        FundsHold savedHold = holdRepository.save(hold);
 
-        return createTransaction(
-                wallet.getId(),
-                TransactionType.BUY_STOCK,
-                request.getAmount().negate(),
-                newBalance,
-                request.getDescription(),
-                request.getReferenceId()
-        );
+        log.info("Released ${} of hold {}. Available: ${}", remaining, referenceId, wallet.getBalance());
+
+        return mapToHoldResponseDto(savedHold, wallet);
     }
 
     @Override
     @Transactional
-    public TransactionResponseDto creditFromSale(Long userId, TransactionRequestDto request) {
-        Wallet wallet = walletRepository.findByUserIdWithLock(userId)
-                .orElseThrow(() -> new WalletNotFoundException(userId));
+    public BatchTransactionResponseDto applyBatch(BatchTransactionRequestDto request) {
+        List<BatchTransactionItemDto> items = request.getItems();
 
-        if (!wallet.getIsActive()) {
-            throw new WalletException("Wallet is inactive");
+        List<Long> userIds = items.stream()
+                .map(BatchTransactionItemDto::getUserId)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Map<Long, WalletLedgerRepository.WalletBalance> walletsByUserId = new HashMap<>();
+        for (WalletLedgerRepository.WalletBalance wallet : walletLedgerRepository.lockWallets(userIds)) {
+            walletsByUserId.put(wallet.userId(), wallet);
         }
 
-        BigDecimal newBalance = wallet.getBalance().add(request.getAmount());
-        wallet.setBalance(newBalance);
-        walletRepository.save(wallet);
+        // Items are applied in request order against running balances held in memory
+        Map<Long, BigDecimal> balancesByWalletId = new LinkedHashMap<>();
+        List<WalletLedgerRepository.LedgerEntry> entries = new ArrayList<>(items.size());
+        List<BatchItemResultDto> results = new ArrayList<>(items.size());
+        int succeeded = 0;
+
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransactionItemDto item = items.get(i);
+            WalletLedgerRepository.WalletBalance wallet = walletsByUserId.get(item.getUserId());
+
+            String error = null;
+            BigDecimal delta = isDebit(item.getTransactionType()) ? item.getAmount().negate() : item.getAmount();
+            BigDecimal balance = wallet == null ? null : balancesByWalletId.getOrDefault(wallet.id(), wallet.balance());
+
+            if (!BATCH_TYPES.contains(item.getTransactionType())) {
+                error = item.getTransactionType() + " is not allowed in a batch";
+            } else if (wallet == null) {
+                error = "Wallet not found for user: " + item.getUserId();
+            } else if (!wallet.active()) {
+                error = "Wallet is inactive";
+            } else if (balance.add(delta).signum() < 0) {
+                error = new InsufficientBalanceException(item.getAmount(), balance).getMessage();
+            }
+
+            if (error != null) {
+                results.add(new BatchItemResultDto(i, item.getUserId(), TransactionStatus.FAILED, balance, error));
+                continue;
+            }
+
+            BigDecimal newBalance = balance.add(delta);
+            balancesByWalletId.put(wallet.id(), newBalance);
+            entries.add(new WalletLedgerRepository.LedgerEntry(
+                    wallet.id(),
+                    item.getTransactionType(),
+                    delta,
+                    newBalance,
+                    item.getDescription() != null ? item.getDescription() : item.getTransactionType().name(),
+                    item.getReferenceId()
+            ));
+            results.add(new BatchItemResultDto(i, item.getUserId(), TransactionStatus.COMPLETED, newBalance, null));
+            succeeded++;
+        }
 
-        log.info("Credited ${} to user {} from stock sale. New balance: ${}",
-                request.getAmount(), userId, newBalance);
+        if (!entries.isEmpty()) {
+            walletLedgerRepository.updateBalances(balancesByWalletId);
+            walletLedgerRepository.insertTransactions(entries);
+        }
 
-        return createTransaction(
-                wallet.getId(),
-                TransactionType.SELL_STOCK,
-                request.getAmount(),
-                newBalance,
-                request.getDescription(),
-                request.getReferenceId()
-        );
+        log.info("Applied wallet batch: {} of {} items across {} wallets",
+                succeeded, items.size(), balancesByWalletId.size());
+
+        return new BatchTransactionResponseDto(succeeded, items.size() - succeeded, results);
     }
 
     @Override
@@ -230,6 +432,60 @@ public class WalletServiceImpl implements WalletService {
                 .map(this::mapToTransactionResponseDto);
     }
 
+    private boolean isDebit(TransactionType type) {
+        return type == TransactionType.WITHDRAWAL || type == TransactionType.BUY_STOCK;
+    }
+
+    // Only reached when the conditional update matched no row, to report why
+    private RuntimeException rejectedChange(Long userId, BigDecimal amount) {
+        Wallet wallet = walletRepository.findByUserId(userId).orElse(null);
+        if (wallet == null) {
+            return new WalletNotFoundException(userId);
+        }
+        if (!wallet.getIsActive()) {
+            return new WalletException("Wallet is inactive");
+        }
+        return new InsufficientBalanceException(amount, wallet.getBalance());
+    }
+
+    // Caller holds the locks on both the hold and its wallet
+    private TransactionResponseDto settleFromHold(FundsHold hold, Wallet wallet, BigDecimal amount,
+                                                  String description, String referenceId) {
+        if (hold.getStatus() != HoldStatus.HELD) {
+            throw new WalletException("Hold " + hold.getReferenceId() + " is already " + hold.getStatus());
+        }
+
+        // Anything above what is still held (e.g. a stop filled above its trigger) comes from the available balance
+        BigDecimal fromHold = amount.min(hold.getRemainingAmount());
+        BigDecimal fromBalance = amount.subtract(fromHold);
+
+        if (wallet.getBalance().compareTo(fromBalance) < 0) {
+            throw new InsufficientBalanceException(fromBalance, wallet.getBalance());
+        }
+
+        wallet.setHeldBalance(wallet.getHeldBalance().subtract(fromHold));
+        wallet.setBalance(wallet.getBalance().subtract(fromBalance));
+        walletRepository.save(wallet);
+
+        hold.setSettledAmount(hold.getSettledAmount().add(fromHold));
+        if (hold.getRemainingAmount().signum() == 0) {
+            hold.setStatus(HoldStatus.SETTLED);
+        }
+        holdRepository.save(hold);
+
+        log.info("Settled ${} of hold {}. Remaining held: ${}",
+                amount, hold.getReferenceId(), hold.getRemainingAmount());
+
+        return createTransaction(
+                wallet.getId(),
+                TransactionType.BUY_STOCK,
+                amount.negate(),
+                wallet.getBalance(),
+                description,
+                referenceId
+        );
+    }
+
     private BigDecimal getStartingBalance(String role) {
         return switch (role.toUpperCase()) {
             case "PREMIUM" -> premiumStartingBalance;
@@ -264,12 +520,27 @@ public class WalletServiceImpl implements WalletService {
                 wallet.getId(),
                 wallet.getUserId(),
                 wallet.getBalance(),
+                wallet.getHeldBalance(),
                 wallet.getCurrency(),
                 wallet.getIsActive(),
                 wallet.getCreatedAt()
         );
     }
 
+    private HoldResponseDto mapToHoldResponseDto(FundsHold hold, Wallet wallet) {
+        return new HoldResponseDto(
+                hold.getId(),
+                hold.getWalletId(),
+                hold.getReferenceId(),
+                hold.getAmount(),
+                hold.getSettledAmount(),
+                hold.getStatus(),
+                wallet.getBalance(),
+                wallet.getHeldBalance(),
+                hold.getCreatedAt()
+        );
+    }
+
     private TransactionResponseDto mapToTransactionResponseDto(WalletTransaction transaction) {
         return new TransactionResponseDto(
                 transaction.getId(),
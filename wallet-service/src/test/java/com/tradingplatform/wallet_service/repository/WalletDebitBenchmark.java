@@ -0,0 +1,157 @@
+package com.tradingplatform.wallet_service.repository;
+
+import com.tradingplatform.wallet_service.model.TransactionType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent debits against one hot wallet: the previous SELECT ... FOR UPDATE / UPDATE / INSERT
+ * transaction versus {@link WalletLedgerRepository#applyChange}. Needs a Postgres with the wallet
+ * schema; override the connection with -Dbench.db.url, -Dbench.db.user and -Dbench.db.password.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class WalletDebitBenchmark {
+
+    private static final long HOT_USER_ID = -9_000_001L;
+    private static final BigDecimal DEBIT = new BigDecimal("0.01");
+
+    @State(Scope.Benchmark)
+    public static class HotWallet {
+        @Setup(Level.Trial)
+        public void createWallet() throws SQLException {
+            try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+                removeWallet(statement);
+                statement.executeUpdate("INSERT INTO wallets (user_id, balance, currency, is_active) "
+                        + "VALUES (" + HOT_USER_ID + ", 1000000000.00, 'USD', TRUE)");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void dropWallet() throws SQLException {
+            try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+                removeWallet(statement);
+            }
+        }
+
+        private void removeWallet(Statement statement) throws SQLException {
+            statement.executeUpdate("DELETE FROM wallet_transactions WHERE wallet_id IN "
+                    + "(SELECT id FROM wallets WHERE user_id = " + HOT_USER_ID + ")");
+            statement.executeUpdate("DELETE FROM wallets WHERE user_id = " + HOT_USER_ID);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        Connection connection;
+        WalletLedgerRepository ledger;
+        PreparedStatement lockWallet;
+        PreparedStatement updateBalance;
+        PreparedStatement insertTransaction;
+
+        @Setup(Level.Trial)
+        public void open() throws SQLException {
+            connection = connect();
+            ledger = new WalletLedgerRepository(
+                    new NamedParameterJdbcTemplate(new SingleConnectionDataSource(connection, true)));
+
+            lockWallet = connection.prepareStatement(
+                    "SELECT id, balance, is_active FROM wallets WHERE user_id = ? FOR UPDATE");
+            updateBalance = connection.prepareStatement(
+                    "UPDATE wallets SET balance = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?");
+            insertTransaction = connection.prepareStatement(
+                    "INSERT INTO wallet_transactions (wallet_id, transaction_type, amount, balance_after, "
+                            + "description, reference_id, status, created_at) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, 'COMPLETED', CURRENT_TIMESTAMP)");
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    // Mirrors the JPA flow the service used before: lock, compute in Java, update, insert, commit
+    @Benchmark
+    public BigDecimal pessimisticLock(HotWallet wallet, Session session) throws SQLException {
+        Connection connection = session.connection;
+        connection.setAutoCommit(false);
+        try {
+            long walletId;
+            BigDecimal balance;
+            session.lockWallet.setLong(1, HOT_USER_ID);
+            try (ResultSet rs = session.lockWallet.executeQuery()) {
+                rs.next();
+                walletId = rs.getLong("id");
+                balance = rs.getBigDecimal("balance");
+            }
+            if (balance.compareTo(DEBIT) < 0) {
+                throw new IllegalStateException("Hot wallet ran dry");
+            }
+            BigDecimal newBalance = balance.subtract(DEBIT);
+
+            session.updateBalance.setBigDecimal(1, newBalance);
+            session.updateBalance.setLong(2, walletId);
+            session.updateBalance.executeUpdate();
+
+            session.insertTransaction.setLong(1, walletId);
+            session.insertTransaction.setString(2, TransactionType.BUY_STOCK.name());
+            session.insertTransaction.setBigDecimal(3, DEBIT.negate());
+            session.insertTransaction.setBigDecimal(4, newBalance);
+            session.insertTransaction.setString(5, "benchmark");
+            session.insertTransaction.setString(6, null);
+            session.insertTransaction.executeUpdate();
+
+            connection.commit();
+            return newBalance;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal conditionalUpdate(HotWallet wallet, Session session) {
+        return session.ledger.applyChange(HOT_USER_ID, DEBIT.negate(), TransactionType.BUY_STOCK, "benchmark", null)
+                .orElseThrow(() -> new IllegalStateException("Hot wallet ran dry"))
+                .getBalanceAfter();
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(
+                System.getProperty("bench.db.url", "jdbc:postgresql://127.0.0.1:5432/trading_platform"),
+                System.getProperty("bench.db.user", "tradingadmin"),
+                System.getProperty("bench.db.password", "tradingpassword"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(WalletDebitBenchmark.class.getSimpleName())
+                .jvmArgsAppend(
+                        "-Dbench.db.url=" + System.getProperty("bench.db.url", "jdbc:postgresql://127.0.0.1:5432/trading_platform"),
+                        "-Dbench.db.user=" + System.getProperty("bench.db.user", "tradingadmin"),
+                        "-Dbench.db.password=" + System.getProperty("bench.db.password", "tradingpassword"))
+                .build();
+        new Runner(options).run();
+    }
+}